@@ -1686,6 +1686,12 @@ public class DeepLearningModel extends Model<DeepLearningModel,DeepLearningModel
     public boolean _elastic_averaging = false;
     public double _elastic_averaging_moving_rate = 0.9;
     public double _elastic_averaging_regularization = 1e-3;
+
+    /**
+     * Keep the weights, momenta and ADADELTA history in direct buffers
+     * outside the Java heap (Storage.OffHeapMatrix), for very large models
+     */
+    public boolean _offheap_weights = false;
   
     // stochastic gradient descent: mini-batch size = 1
     // batch gradient descent: mini-batch size = # training rows
@@ -2012,6 +2018,7 @@ public class DeepLearningModel extends Model<DeepLearningModel,DeepLearningModel
               "_sparse",
               "_sparsity_beta",
               "_col_major",
+              "_offheap_weights",
               "_rate",
               "_rate_annealing",
               "_rate_decay",
@@ -28,18 +28,18 @@ final public class DeepLearningModelInfo extends Iced {
   }
 
   // model is described by parameters and the following arrays
-  private Storage.DenseRowMatrix[] dense_row_weights; //one 2D weight matrix per layer (stored as a 1D array each)
+  private Storage.DenseMatrix[] dense_row_weights; //one 2D weight matrix per layer (stored as a 1D array each)
   private Storage.DenseVector[] biases; //one 1D bias array per layer
   private Storage.DenseVector[] avg_activations; //one 1D array per hidden layer
 
   // helpers for storing previous step deltas
   // Note: These two arrays *could* be made transient and then initialized freshly in makeNeurons() and in DeepLearningTask.initLocal()
   // But then, after each reduction, the weights would be lost and would have to restart afresh -> not *exactly* right, but close...
-  private Storage.DenseRowMatrix[] dense_row_weights_momenta;
+  private Storage.DenseMatrix[] dense_row_weights_momenta;
   private Storage.DenseVector[] biases_momenta;
 
   // helpers for AdaDelta
-  private Storage.DenseRowMatrix[] dense_row_ada_dx_g;
+  private Storage.DenseMatrix[] dense_row_ada_dx_g;
   private Storage.DenseVector[] biases_ada_dx_g;
 
   private boolean[] _saw_missing_cats;  // whether missing value was encountered for each categorical predictor - needed for varimp
@@ -48,7 +48,7 @@ final public class DeepLearningModelInfo extends Iced {
   // momenta are not counted here, but they are needed for model building
   public long size() {
     long siz = 0;
-    for (Storage.DenseRowMatrix w : dense_row_weights) if (w != null) siz += w.size();
+    for (Storage.DenseMatrix w : dense_row_weights) if (w != null) siz += w.size();
     for (Storage.Vector b : biases) siz += b.size();
     return siz;
   }
@@ -76,7 +76,7 @@ final public class DeepLearningModelInfo extends Iced {
     return get_params()._adaptive_rate;
   }
 
-  public final Storage.DenseRowMatrix get_weights(int i) {
+  public final Storage.DenseMatrix get_weights(int i) {
     return dense_row_weights[i];
   }
 
@@ -84,7 +84,7 @@ final public class DeepLearningModelInfo extends Iced {
     return biases[i];
   }
 
-  public final Storage.DenseRowMatrix get_weights_momenta(int i) {
+  public final Storage.DenseMatrix get_weights_momenta(int i) {
     return dense_row_weights_momenta[i];
   }
 
@@ -92,7 +92,7 @@ final public class DeepLearningModelInfo extends Iced {
     return biases_momenta[i];
   }
 
-  public final Storage.DenseRowMatrix get_ada_dx_g(int i) {
+  public final Storage.DenseMatrix get_ada_dx_g(int i) {
     return dense_row_ada_dx_g[i];
   }
 
@@ -236,10 +236,10 @@ final public class DeepLearningModelInfo extends Iced {
     mult[layers]=1; //Output is never Maxout
 
     // weights (to connect layers)
-    dense_row_weights = new Storage.DenseRowMatrix[layers + 1];
-    dense_row_weights[0] = new Storage.DenseRowMatrix(mult[0]*units[1], units[0]);
+    dense_row_weights = new Storage.DenseMatrix[layers + 1];
+    dense_row_weights[0] = newMatrix(mult[0]*units[1], units[0]);
     for (int i = 1; i <= layers; ++i)
-      dense_row_weights[i] = new Storage.DenseRowMatrix(mult[i] * units[i + 1] /*rows*/, units[i] /*cols*/);
+      dense_row_weights[i] = newMatrix(mult[i] * units[i + 1] /*rows*/, units[i] /*cols*/);
 
     // biases (only for hidden layers and output layer)
     biases = new Storage.DenseVector[layers + 1];
@@ -262,6 +262,11 @@ final public class DeepLearningModelInfo extends Iced {
     rms_weight = new double[units.length-1];
   }
 
+  // weights and their helpers: on the heap, or off it for very large models
+  private Storage.DenseMatrix newMatrix(int rows, int cols) {
+    return Storage.denseRowMatrix(rows, cols, get_params()._offheap_weights);
+  }
+
   // deep clone all weights/biases
   DeepLearningModelInfo deep_clone() {
     AutoBuffer ab = new AutoBuffer();
@@ -281,20 +286,20 @@ final public class DeepLearningModelInfo extends Iced {
     mult[units.length-2]=1; //Output is never Maxout
 
     if (has_momenta()) {
-      dense_row_weights_momenta = new Storage.DenseRowMatrix[dense_row_weights.length];
+      dense_row_weights_momenta = new Storage.DenseMatrix[dense_row_weights.length];
       if (dense_row_weights[0] != null)
-        dense_row_weights_momenta[0] = new Storage.DenseRowMatrix(mult[0]*units[1], units[0]);
+        dense_row_weights_momenta[0] = newMatrix(mult[0]*units[1], units[0]);
       for (int i = 1; i < dense_row_weights_momenta.length; ++i)
-        dense_row_weights_momenta[i] = new Storage.DenseRowMatrix(mult[i]*units[i + 1], units[i]);
+        dense_row_weights_momenta[i] = newMatrix(mult[i]*units[i + 1], units[i]);
       biases_momenta = new Storage.DenseVector[biases.length];
       for (int i = 0; i < biases_momenta.length; ++i)
         biases_momenta[i] = new Storage.DenseVector(mult[i]*units[i + 1]);
     } else if (adaDelta()) {
-      dense_row_ada_dx_g = new Storage.DenseRowMatrix[dense_row_weights.length];
+      dense_row_ada_dx_g = new Storage.DenseMatrix[dense_row_weights.length];
       //AdaGrad
-      dense_row_ada_dx_g[0] = new Storage.DenseRowMatrix(mult[0]*2*units[1], units[0]);
+      dense_row_ada_dx_g[0] = newMatrix(mult[0]*2*units[1], units[0]);
       for (int i = 1; i < dense_row_ada_dx_g.length; ++i) {
-        dense_row_ada_dx_g[i] = new Storage.DenseRowMatrix(mult[i]*units[i + 1], 2 * units[i]);
+        dense_row_ada_dx_g[i] = newMatrix(mult[i]*units[i + 1], 2 * units[i]);
       }
       biases_ada_dx_g = new Storage.DenseVector[biases.length];
       for (int i = 0; i < biases_ada_dx_g.length; ++i) {
@@ -509,7 +514,7 @@ final public class DeepLearningModelInfo extends Iced {
    */
   public void add(DeepLearningModelInfo other) {
     for (int i = 0; i < dense_row_weights.length; ++i)
-      ArrayUtils.add(get_weights(i).raw(), other.get_weights(i).raw());
+      get_weights(i).add(other.get_weights(i));
     for (int i = 0; i < biases.length; ++i) ArrayUtils.add(biases[i].raw(), other.biases[i].raw());
     if (avg_activations != null)
       for (int i = 0; i < avg_activations.length; ++i)
@@ -517,14 +522,14 @@ final public class DeepLearningModelInfo extends Iced {
     if (has_momenta()) {
       assert (other.has_momenta());
       for (int i = 0; i < dense_row_weights_momenta.length; ++i)
-        ArrayUtils.add(get_weights_momenta(i).raw(), other.get_weights_momenta(i).raw());
+        get_weights_momenta(i).add(other.get_weights_momenta(i));
       for (int i = 0; i < biases_momenta.length; ++i)
         ArrayUtils.add(biases_momenta[i].raw(), other.biases_momenta[i].raw());
     }
     if (adaDelta()) {
       assert (other.adaDelta());
       for (int i = 0; i < dense_row_ada_dx_g.length; ++i) {
-        ArrayUtils.add(get_ada_dx_g(i).raw(), other.get_ada_dx_g(i).raw());
+        get_ada_dx_g(i).add(other.get_ada_dx_g(i));
       }
     }
     add_processed_local(other.get_processed_local());
@@ -544,19 +549,19 @@ final public class DeepLearningModelInfo extends Iced {
    */
   protected void div(double N) {
     for (int i = 0; i < dense_row_weights.length; ++i)
-      ArrayUtils.div(get_weights(i).raw(), (float)N);
+      get_weights(i).div((float)N);
     for (Storage.Vector bias : biases) ArrayUtils.div(bias.raw(), N);
     if (avg_activations != null)
       for (Storage.Vector avgac : avg_activations)
         ArrayUtils.div(avgac.raw(), N);
     if (has_momenta()) {
       for (int i = 0; i < dense_row_weights_momenta.length; ++i)
-        ArrayUtils.div(get_weights_momenta(i).raw(), (float)N);
+        get_weights_momenta(i).div((float)N);
       for (Storage.Vector bias_momenta : biases_momenta) ArrayUtils.div(bias_momenta.raw(), N);
     }
     if (adaDelta()) {
       for (int i = 0; i < dense_row_ada_dx_g.length; ++i) {
-        ArrayUtils.div(get_ada_dx_g(i).raw(), (float)N);
+        get_ada_dx_g(i).div((float)N);
       }
     }
   }
@@ -688,14 +693,15 @@ final public class DeepLearningModelInfo extends Iced {
       for (int u = 0; u < biases[y].size(); u++) {
         mean_bias[y] += biases[y].get(u);
       }
-      if (rate != null) rate[y] = new float[get_weights(y).raw().length];
-      for (int u = 0; u < get_weights(y).raw().length; u++) {
-        mean_weight[y] += get_weights(y).raw()[u];
+      final int nw = (int)get_weights(y).size();
+      if (rate != null) rate[y] = new float[nw];
+      for (int u = 0; u < nw; u++) {
+        mean_weight[y] += get_weights(y).get(u);
         if (rate != null) {
 //            final float RMS_dx = (float)Math.sqrt(ada[y][2*u]+(float)get_params().epsilon);
 //            final float invRMS_g = (float)(1/Math.sqrt(ada[y][2*u+1]+(float)get_params().epsilon));
-          final float RMS_dx = MathUtils.approxSqrt(get_ada_dx_g(y).raw()[2 * u] + (float) get_params()._epsilon);
-          final float invRMS_g = MathUtils.approxInvSqrt(get_ada_dx_g(y).raw()[2 * u + 1] + (float) get_params()._epsilon);
+          final float RMS_dx = MathUtils.approxSqrt(get_ada_dx_g(y).get(2 * u) + (float) get_params()._epsilon);
+          final float invRMS_g = MathUtils.approxInvSqrt(get_ada_dx_g(y).get(2 * u + 1) + (float) get_params()._epsilon);
           rate[y][u] = RMS_dx * invRMS_g; //not exactly right, RMS_dx should be from the previous time step -> but close enough for diagnostics.
           mean_rate[y] += rate[y][u];
         }
@@ -708,7 +714,7 @@ final public class DeepLearningModelInfo extends Iced {
         rms_bias[y] += db * db;
       }
       for (int u = 0; u < get_weights(y).size(); u++) {
-        final double dw = get_weights(y).raw()[u] - mean_weight[y];
+        final double dw = get_weights(y).get(u) - mean_weight[y];
         rms_weight[y] += dw * dw;
         if (rate != null) {
           final double drate = rate[y][u] - mean_rate[y];
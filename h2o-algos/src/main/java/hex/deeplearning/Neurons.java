@@ -9,6 +9,7 @@ import water.util.ArrayUtils;
 import water.util.MathUtils;
 
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 
 /**
@@ -64,21 +65,21 @@ public abstract class Neurons {
   public Neurons _previous;
   public Neurons _input;
   DeepLearningModelInfo _minfo; //reference to shared model info
-  public Storage.DenseRowMatrix _w;
-  public Storage.DenseRowMatrix _wEA; //weights for elastic averaging
+  public Storage.DenseMatrix _w;
+  public Storage.DenseMatrix _wEA; //weights for elastic averaging
   public Storage.DenseVector _b;
   public Storage.DenseVector _bEA; //bias for elastic averaging
 
   /**
    * References for momentum training
    */
-  Storage.DenseRowMatrix _wm;
+  Storage.DenseMatrix _wm;
   Storage.DenseVector _bm;
 
   /**
    * References for ADADELTA
    */
-  Storage.DenseRowMatrix _ada_dx_g;
+  Storage.DenseMatrix _ada_dx_g;
   Storage.DenseVector _bias_ada_dx_g;
 
   /**
@@ -251,7 +252,7 @@ public abstract class Neurons {
         // for Maxout, return the "winning" linear index into the matrix
         if (_k != 0) w = _k * w + _maxIncoming[mb][row];
 
-        final double weight = _w.raw()[w];
+        final double weight = _w.get(w);
         if( update_prev ) _previous._e[mb].add(col, partial_grad[mb] * weight); // propagate the error dE/dnet to the previous layer, via connecting weights
         final double previous_a = _previous._a[mb].get(col);
         if (fast_mode && previous_a == 0) continue;
@@ -259,8 +260,8 @@ public abstract class Neurons {
         //this is the actual gradient dE/dw
         double grad = partial_grad[mb] * previous_a + Math.signum(weight) * l1 + weight * l2;
         if (_wEA !=null) {
-          grad += params._elastic_averaging_regularization * (_w.raw()[w] -_wEA.raw()[w]);
-//        Log.info("weight: my: " + _w.raw()[w] + ", consensus: " + _wEA.raw()[w] + ", delta: " + (_w.raw()[w] -_wEA.raw()[w]) + ", relative delta: " + (_w.raw()[w] -_wEA.raw()[w])/_w.raw()[w]);
+          grad += params._elastic_averaging_regularization * (_w.get(w) -_wEA.get(w));
+//        Log.info("weight: my: " + _w.get(w) + ", consensus: " + _wEA.get(w) + ", delta: " + (_w.get(w) -_wEA.get(w)) + ", relative delta: " + (_w.get(w) -_wEA.get(w))/_w.get(w));
         }
 
         // store the gradient
@@ -271,23 +272,23 @@ public abstract class Neurons {
           final double grad2 = grad*grad;
           avg_grad2 += grad2;
           float brate = computeAdaDeltaRateForWeight(grad, w, _ada_dx_g, rho, eps);
-          _w.raw()[w] -= brate * grad;
+          _w.set(w, (float)(_w.get(w) - brate * grad));
         } else {
           if (!nesterov) {
             final double delta = -rate * grad;
-            _w.raw()[w] += delta;
+            _w.set(w, (float)(_w.get(w) + delta));
             if( have_momenta ) {
-              _w.raw()[w] += momentum * _wm.raw()[w];
-              _wm.raw()[w] = (float)delta;
+              _w.set(w, _w.get(w) + momentum * _wm.get(w));
+              _wm.set(w, (float)delta);
             }
           } else {
             double tmp = -grad;
             if( have_momenta ) {
-              _wm.raw()[w] *= momentum;
-              _wm.raw()[w] += tmp;
-              tmp = _wm.raw()[w];
+              _wm.set(w, _wm.get(w) * momentum);
+              _wm.set(w, (float)(_wm.get(w) + tmp));
+              tmp = _wm.get(w);
             }
-            _w.raw()[w] += rate * tmp;
+            _w.set(w, (float)(_w.get(w) + rate * tmp));
           }
         }
       }
@@ -301,7 +302,7 @@ public abstract class Neurons {
     }
   }
 
-  private void rescale_weights(final Storage.DenseRowMatrix w, final int row, final float max_w2, int mb) {
+  private void rescale_weights(final Storage.DenseMatrix w, final int row, final float max_w2, int mb) {
     final int cols = _previous._a[0].size();
     int start;
     int end;
@@ -313,12 +314,12 @@ public abstract class Neurons {
       start = row * cols;
       end =   row * cols + cols;
     }
-    float r2 = MathUtils.sumSquares(w.raw(), start, end);
+    float r2 = w.sumSquares(start, end);
 //    float r2 = MathUtils.approxSumSquares(w.raw(), idx, idx + cols);
     if( r2 > max_w2) {
       final float scale = MathUtils.approxSqrt(max_w2 / r2);
       for( int c = start; c < end; c++ )
-        w.raw()[c] *= scale;
+        w.set(c, w.get(c) * scale);
     }
   }
 
@@ -336,7 +337,7 @@ public abstract class Neurons {
   }
 
   /**
-   * Compute learning rate with AdaDelta, specialized for DenseRowMatrix
+   * Compute learning rate with AdaDelta, specialized for DenseMatrix
    * http://www.matthewzeiler.com/pubs/googleTR2012/googleTR2012.pdf
    * @param grad gradient
    * @param w neuron index
@@ -346,12 +347,12 @@ public abstract class Neurons {
    * @return learning rate
    */
   private static float computeAdaDeltaRateForWeight(final double grad, final int w,
-                                                  final Storage.DenseRowMatrix ada_dx_g,
+                                                  final Storage.DenseMatrix ada_dx_g,
                                                   final float rho, final float eps) {
     final double grad2 = grad*grad;
-    ada_dx_g.raw()[2*w+1] = (float)(rho * ada_dx_g.raw()[2*w+1] + (1 - rho) * grad2);
-    final float rate = MathUtils.approxSqrt((ada_dx_g.raw()[2 * w] + eps) / (ada_dx_g.raw()[2 * w + 1] + eps));
-    ada_dx_g.raw()[2*w  ] = (float)(rho * ada_dx_g.raw()[2*w]   + (1 - rho) * rate * rate * grad2);
+    ada_dx_g.set(2*w+1, (float)(rho * ada_dx_g.get(2*w+1) + (1 - rho) * grad2));
+    final float rate = MathUtils.approxSqrt((ada_dx_g.get(2 * w) + eps) / (ada_dx_g.get(2 * w + 1) + eps));
+    ada_dx_g.set(2*w  , (float)(rho * ada_dx_g.get(2*w)   + (1 - rho) * rate * rate * grad2));
     return rate;
   }
 
@@ -697,7 +698,7 @@ public abstract class Neurons {
             for( short k = 0; k < _k; k++ ) {
               channel[k] = 0;
               for( int col = 0; col < cols; col++ ) {
-                channel[k] += _w.raw()[_k*(row * cols + col) + k] * _previous._a[mb].get(col);
+                channel[k] += _w.get(_k*(row * cols + col) + k) * _previous._a[mb].get(col);
               }
               channel[k] += _b.raw()[_k*row+k];
               if (channel[k] > channel[maxK]) maxK=k;
@@ -997,6 +998,47 @@ public abstract class Neurons {
     }
   }
 
+  /**
+   * Optimized Mat-Vec Plus Add (with optional row dropout), for a row-major
+   * matrix held off the heap
+   * @param res = a*x+y (pre-allocated, will be overwritten)
+   * @param a matrix of size rows x cols
+   * @param x vector of length cols
+   * @param y vector of length rows
+   * @param row_bits if not null, check bits of this byte[] to determine whether a row is used or not
+   */
+  static void gemv_row_optimized(final double[] res, final FloatBuffer a, final double[] x, final double[] y, final byte[] row_bits) {
+    final int cols = x.length;
+    final int rows = y.length;
+    assert(res.length == rows);
+    final int extra=cols-cols%8;
+    final int multiple = (cols/8)*8-1;
+    int idx = 0;
+    for (int row = 0; row<rows; row++) {
+      res[row] = 0;
+      if( row_bits == null || (row_bits[row / 8] & (1 << (row % 8))) != 0) {
+        double psum0 = 0, psum1 = 0, psum2 = 0, psum3 = 0, psum4 = 0, psum5 = 0, psum6 = 0, psum7 = 0;
+        for (int col = 0; col < multiple; col += 8) {
+          int off = idx + col;
+          psum0 += a.get(off    ) * x[col    ];
+          psum1 += a.get(off + 1) * x[col + 1];
+          psum2 += a.get(off + 2) * x[col + 2];
+          psum3 += a.get(off + 3) * x[col + 3];
+          psum4 += a.get(off + 4) * x[col + 4];
+          psum5 += a.get(off + 5) * x[col + 5];
+          psum6 += a.get(off + 6) * x[col + 6];
+          psum7 += a.get(off + 7) * x[col + 7];
+        }
+        res[row] += psum0 + psum1 + psum2 + psum3;
+        res[row] += psum4 + psum5 + psum6 + psum7;
+        for (int col = extra; col < cols; col++)
+          res[row] += a.get(idx + col) * x[col];
+        res[row] += y[row];
+      }
+      idx += cols;
+    }
+  }
+
   /**
    * Helper to do a generic gemv: res = a*x + y
    * @param res Dense result
@@ -1005,8 +1047,11 @@ public abstract class Neurons {
    * @param y Dense vector to add to result
    * @param row_bits Bit mask for which rows to use
    */
-  static void gemv(final Storage.DenseVector res, final Storage.DenseRowMatrix a, final Storage.DenseVector x, final Storage.DenseVector y, byte[] row_bits) {
-    gemv_row_optimized(res.raw(), a.raw(), x.raw(), y.raw(), row_bits);
+  static void gemv(final Storage.DenseVector res, final Storage.DenseMatrix a, final Storage.DenseVector x, final Storage.DenseVector y, byte[] row_bits) {
+    if (a instanceof Storage.DenseRowMatrix)
+      gemv_row_optimized(res.raw(), ((Storage.DenseRowMatrix)a).raw(), x.raw(), y.raw(), row_bits);
+    else
+      gemv_row_optimized(res.raw(), ((Storage.OffHeapMatrix)a).buffer(), x.raw(), y.raw(), row_bits);
   }
 
   static void gemv_naive(final Storage.DenseVector res, final Storage.DenseRowMatrix a, final Storage.DenseVector x, final Storage.DenseVector y, byte[] row_bits) {
@@ -1,6 +1,8 @@
 package hex.deeplearning;
 
+import water.AutoBuffer;
 import water.DKV;
+import water.H2O;
 import water.Iced;
 import water.Key;
 import water.MRTask;
@@ -8,8 +10,13 @@ import water.fvec.Chunk;
 import water.fvec.FileVec;
 import water.fvec.Frame;
 import water.fvec.Vec;
+import water.util.ArrayUtils;
+import water.util.MathUtils;
 import static water.fvec.Vec.makeCon;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.TreeMap;
 
@@ -71,10 +78,33 @@ public class Storage {
     @Override public Frame toFrame(Key key) { return Storage.toFrame(this, key); }
   }
 
+  /**
+   * Dense row-major matrix, whose entries are also addressed by their flat
+   * index row*cols+col, as the DeepLearning and Word2Vec inner loops do.
+   * Held on the heap (DenseRowMatrix) or off it (OffHeapMatrix).
+   */
+  public static abstract class DenseMatrix extends Iced implements Matrix {
+    public abstract float get(int i);
+    public abstract void set(int i, float val);
+    /** Sum of the squares of the entries from flat index {@code from} to {@code to} (exclusive) */
+    public abstract float sumSquares(int from, int to);
+    /** Add the entries of another matrix of the same shape */
+    public abstract void add(DenseMatrix other);
+    /** Divide all entries by n */
+    public abstract void div(float n);
+  }
+
+  /**
+   * New dense row-major matrix, off the Java heap if asked to
+   */
+  public static DenseMatrix denseRowMatrix(int rows, int cols, boolean offheap) {
+    return offheap ? new OffHeapMatrix(rows, cols) : new DenseRowMatrix(rows, cols);
+  }
+
   /**
    * Dense row matrix implementation
    */
-  public final static class DenseRowMatrix extends Iced implements Matrix {
+  public final static class DenseRowMatrix extends DenseMatrix {
     private float[] _data;
     private int _cols;
     private int _rows;
@@ -91,6 +121,14 @@ public class Storage {
     @Override public long size() { return (long)_rows*(long)_cols; }
     public float[] raw() { return _data; }
     @Override public Frame toFrame(Key key) { return Storage.toFrame(this, key); }
+    @Override public float get(int i) { return _data[i]; }
+    @Override public void set(int i, float val) { _data[i] = val; }
+    @Override public float sumSquares(int from, int to) { return MathUtils.sumSquares(_data, from, to); }
+    @Override public void add(DenseMatrix other) {
+      if (other instanceof DenseRowMatrix) ArrayUtils.add(_data, ((DenseRowMatrix)other)._data);
+      else for (int i=0;i<_data.length;++i) _data[i] += other.get(i);
+    }
+    @Override public void div(float n) { ArrayUtils.div(_data, n); }
   }
 
   /**
@@ -118,6 +156,82 @@ public class Storage {
     @Override public Frame toFrame(Key key) { return Storage.toFrame(this, key); }
   }
 
+  /**
+   * Dense row-major matrix held outside the Java heap, for very large models:
+   * the values take no heap, and are serialized straight from the direct
+   * buffer to the wire or to a model file (and back), without an intermediate
+   * float[].  At most 2GB (2^29 floats) per matrix.
+   */
+  public final static class OffHeapMatrix extends DenseMatrix {
+    private FloatBuffer _data;
+    private int _cols;
+    private int _rows;
+    public OffHeapMatrix(int rows, int cols) {
+      this(allocate((long)rows*cols), rows, cols);
+    }
+    OffHeapMatrix(FloatBuffer v, int rows, int cols) { _data = v; _rows = rows; _cols = cols; }
+    public OffHeapMatrix(Matrix m) {
+      this(m.rows(), m.cols());
+      for (int row=0;row<_rows;++row)
+        for (int col=0;col<_cols;++col)
+          set(row,col, m.get(row,col));
+    }
+    static FloatBuffer allocate(long len) {
+      long bytes = 4*len;
+      if (len < 0 || bytes > Integer.MAX_VALUE)
+        throw new IllegalArgumentException("Off-heap matrix of " + len + " floats exceeds the 2GB limit of a direct buffer.");
+      return ByteBuffer.allocateDirect((int)bytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+    private int idx(int row, int col) { assert(row<_rows && col<_cols); return row*_cols + col; }
+    @Override public float get(int row, int col) { return _data.get(idx(row,col)); }
+    @Override public void set(int row, int col, float val) { _data.put(idx(row,col), val); }
+    @Override public void add(int row, int col, float val) { int i = idx(row,col); _data.put(i, _data.get(i) + val); }
+    @Override public int cols() { return _cols; }
+    @Override public int rows() { return _rows; }
+    @Override public long size() { return (long)_rows*(long)_cols; }
+    public FloatBuffer buffer() { return _data; }
+    /** A copy of the values on the heap; changes to it do not reach the matrix. */
+    public float[] raw() {
+      float[] res = new float[_data.limit()];
+      FloatBuffer src = _data.duplicate();
+      src.position(0);
+      src.get(res);
+      return res;
+    }
+    @Override public Frame toFrame(Key key) { return Storage.toFrame(this, key); }
+    @Override public float get(int i) { return _data.get(i); }
+    @Override public void set(int i, float val) { _data.put(i, val); }
+    @Override public float sumSquares(int from, int to) {
+      float result = 0;
+      for (int i=from;i<to;++i) { float v = _data.get(i); result += v*v; }
+      return result;
+    }
+    @Override public void add(DenseMatrix other) {
+      final int n = _data.limit();
+      for (int i=0;i<n;++i) _data.put(i, _data.get(i) + other.get(i));
+    }
+    @Override public void div(float n) {
+      final int len = _data.limit();
+      for (int i=0;i<len;++i) _data.put(i, _data.get(i) / n);
+    }
+
+    public final AutoBuffer write_impl(AutoBuffer ab) {
+      ab.put4(_rows).put4(_cols);
+      return ab.putA4f(_data);
+    }
+    public final OffHeapMatrix read_impl(AutoBuffer ab) {
+      _rows = ab.get4();
+      _cols = ab.get4();
+      _data = ab.getA4fDirect();
+      return this;
+    }
+    public final AutoBuffer writeJSON_impl(AutoBuffer ab) {
+      ab.putJSON4("rows", _rows).put1(',').putJSON4("cols", _cols).put1(',');
+      return ab.putJSONA4f("data", raw());
+    }
+    public final OffHeapMatrix readJSON_impl(AutoBuffer ab) { throw H2O.unimpl(); }
+  }
+
   /**
    * Sparse row matrix implementation
    */
@@ -182,30 +296,42 @@ public class Storage {
     final DenseRowMatrix drm;
     final SparseRowMatrix srm;
     final SparseColMatrix scm;
+    final OffHeapMatrix ohm;
     FrameFiller(Matrix m) {
       if (m instanceof DenseColMatrix) {
         dcm = (DenseColMatrix)m;
         drm = null;
         srm = null;
         scm = null;
+        ohm = null;
       }
       else if (m instanceof DenseRowMatrix) {
         dcm = null;
         drm = (DenseRowMatrix)m;
         srm = null;
         scm = null;
+        ohm = null;
       }
       else if (m instanceof SparseRowMatrix) {
         dcm = null;
         drm = null;
         srm = (SparseRowMatrix)m;
         scm = null;
+        ohm = null;
+      }
+      else if (m instanceof OffHeapMatrix) {
+        dcm = null;
+        drm = null;
+        srm = null;
+        scm = null;
+        ohm = (OffHeapMatrix)m;
       }
       else {
         dcm = null;
         drm = null;
         srm = null;
         scm = (SparseColMatrix)m;
+        ohm = null;
       }
     }
     @Override public void map(Chunk[] cs) {
@@ -214,6 +340,7 @@ public class Storage {
       if (drm != null) m = drm;
       if (scm != null) m = scm;
       if (srm != null) m = srm;
+      if (ohm != null) m = ohm;
       int off = (int)cs[0].start();
       assert(m.cols() == cs.length);
       for (int c = 0; c < cs.length; ++c) {
@@ -99,7 +99,8 @@ public class DeepLearningV3 extends ModelBuilderSchema<DeepLearning,DeepLearning
         "categorical_encoding",
         "elastic_averaging",
         "elastic_averaging_moving_rate",
-        "elastic_averaging_regularization"
+        "elastic_averaging_regularization",
+        "offheap_weights"
     };
 
 
@@ -658,6 +659,10 @@ public class DeepLearningV3 extends ModelBuilderSchema<DeepLearning,DeepLearning
         help = "Elastic averaging regularization strength (only if elastic averaging is enabled).")
     public double elastic_averaging_regularization;
 
+    @API(level = API.Level.expert, direction = API.Direction.INOUT,
+        help = "Keep the weights and their training state outside the Java heap (for very large models, up to 2GB per layer).")
+    public boolean offheap_weights;
+
     @API(level = API.Level.expert, direction = API.Direction.INOUT,
         help = "Pretrained autoencoder model to initialize this model with.")
     public KeyV3.ModelKeyV3 pretrained_autoencoder;
@@ -16,7 +16,8 @@ public class Word2VecV3 extends ModelBuilderSchema<Word2Vec,Word2VecV3,Word2VecV
             "windowSize",
             "sentSampleRate",
             "initLearningRate",
-            "epochs"
+            "epochs",
+            "offheapVectors"
     };
 
     /**
@@ -70,6 +71,11 @@ public class Word2VecV3 extends ModelBuilderSchema<Word2Vec,Word2VecV3,Word2VecV
      */
     @API(help="Use the continuous bag of words model or the Skip-Gram model", values = {"CBOW", "SkipGram"}, required = true)
     public Word2Vec.WordModel wordModel;
+    /**
+     *
+     */
+    @API(help="Keep the word vectors outside the Java heap (for very large vocabularies, up to 2GB each)")
+    public boolean offheapVectors;
 
   }
 }
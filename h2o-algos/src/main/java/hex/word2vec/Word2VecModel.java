@@ -2,6 +2,7 @@ package hex.word2vec;
 
 import hex.ModelCategory;
 import hex.ModelMetrics;
+import hex.deeplearning.Storage;
 import water.Key;
 import water.H2O;
 import water.Futures;
@@ -14,7 +15,6 @@ import water.fvec.AppendableVec;
 import water.fvec.Vec;
 import water.nbhm.NonBlockingHashMap;
 import water.parser.BufferedString;
-import water.util.ArrayUtils;
 import water.util.Log;
 
 import hex.Model;
@@ -191,7 +191,7 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
     //fill in vector values
     for( int i = 0; i < _modelInfo._vocabSize; i++ ) {
       for (int j=0;  j < vecSize; j++) {
-        cs[j].addNum(_modelInfo._syn0[i * vecSize + j]);
+        cs[j].addNum(_modelInfo._syn0.get(i * vecSize + j));
       }
     }
 
@@ -236,6 +236,7 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
     public int _negSampleCnt = 5;
     public float _initLearningRate = 0.05f;
     public float _sentSampleRate = 1e-3f;
+    public boolean _offheapVectors = false; // Keep syn0/syn1 outside the Java heap
   }
 
   public static class Word2VecOutput extends Model.Output{
@@ -258,7 +259,7 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
     long _trainFrameSize;
     int _vocabSize;
     float _curLearningRate;
-    float[] _syn0, _syn1;
+    Storage.DenseMatrix _syn0, _syn1;
     int[] _uniTable = null;
     int[][] _HBWTCode = null;
     int[][] _HBWTPoint = null;
@@ -279,9 +280,9 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
 
       //initialize weights to random values
       Random rand = RandomUtils.getRNG(0xDECAF, 0xDA7A);
-      _syn1 = new float[_parameters._vecSize * _vocabSize];
-      _syn0 = new float[_parameters._vecSize * _vocabSize];
-      for (int i = 0; i < _parameters._vecSize * _vocabSize; i++) _syn0[i] = (rand.nextFloat() - 0.5f) / _parameters._vecSize;
+      _syn1 = Storage.denseRowMatrix(_vocabSize, _parameters._vecSize, _parameters._offheapVectors);
+      _syn0 = Storage.denseRowMatrix(_vocabSize, _parameters._vecSize, _parameters._offheapVectors);
+      for (int i = 0; i < _parameters._vecSize * _vocabSize; i++) _syn0.set(i, (rand.nextFloat() - 0.5f) / _parameters._vecSize);
 
       if(_parameters._normModel == Word2Vec.NormModel.HSM)
         buildHuffmanBinaryWordTree();
@@ -308,8 +309,8 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
      * @param other - parameters object from other map method
      */
     protected void add(Word2VecModelInfo other) {
-      ArrayUtils.add(_syn0, other._syn0);
-      ArrayUtils.add(_syn1, other._syn1);
+      _syn0.add(other._syn0);
+      _syn1.add(other._syn1);
       addLocallyProcessed(other.getLocallyProcessed());
     }
 
@@ -321,8 +322,8 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
      */
     protected void div(float N) {
       if (N > 1) {
-        ArrayUtils.div(_syn0, N);
-        ArrayUtils.div(_syn1, N);
+        _syn0.div(N);
+        _syn1.div(N);
       }
     }
 
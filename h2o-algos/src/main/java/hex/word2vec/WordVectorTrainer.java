@@ -1,5 +1,6 @@
 package hex.word2vec;
 
+import hex.deeplearning.Storage;
 import water.H2O;
 import water.MRTask;
 import water.fvec.CStrChunk;
@@ -26,7 +27,8 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   final WordModel _wordModel; final NormModel _normModel;
   final int _vocabSize, _wordVecSize, _windowSize, _epochs, _negExCnt;
   final float _initLearningRate, _sentSampleRate;
-  static float[] _syn0, _syn1, _expTable;
+  static Storage.DenseMatrix _syn0, _syn1;
+  static float[] _expTable;
   final int[]_unigramTable;
   final int[][] _HBWTCode;
   final int[][] _HBWTPoint;
@@ -163,7 +165,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
               if (_wordModel == WordModel.SkipGram)
                 skipGram(curWord, winWord, neu1e);
               else { // CBOW
-                for (int j = 0; j < vecSize; j++) neu1[j] += _syn0[j + winWord * vecSize];
+                for (int j = 0; j < vecSize; j++) neu1[j] += _syn0.get(j + winWord * vecSize);
                 bagSize++;
               }
             }
@@ -226,7 +228,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
       hierarchicalSoftmaxSG(curWord, l1, neu1e);
 
     // Learned weights input -> hidden
-    for (int i = 0; i < vecSize; i++) _syn0[i + l1] += neu1e[i];
+    for (int i = 0; i < vecSize; i++) _syn0.set(i + l1, _syn0.get(i + l1) + neu1e[i]);
   }
 
   private void CBOW(int curWord, int[] sentence, int sentIdx, int sentLen, int winSizeMod, int bagSize, float[] neu1, float[] neu1e) {
@@ -246,7 +248,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
         winWordSentIdx = sentIdx - winSize + winIdx;
         if (winWordSentIdx < 0 || winWordSentIdx >= sentLen) continue;
         winWord = sentence[winWordSentIdx];
-        for (int i = 0; i < vecSize; i++) _syn0[i + winWord * vecSize] += neu1e[i];
+        for (int i = 0; i < vecSize; i++) _syn0.set(i + winWord * vecSize, _syn0.get(i + winWord * vecSize) + neu1e[i]);
       }
     }
   }
@@ -259,14 +261,14 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
     //handle current word
     l2 = curWord * vecSize;
-    for (int i = 0; i < vecSize; i++) f += neu1[i] * _syn1[i + l2];
+    for (int i = 0; i < vecSize; i++) f += neu1[i] * _syn1.get(i + l2);
 
     if (f > MAX_EXP) gradient = 0;
     else if (f < -MAX_EXP) gradient = alpha;
     else gradient = (1 - _expTable[(int)((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * alpha;
 
-    for (int i = 0; i < vecSize; i++) neu1e[i] += gradient * _syn1[i + l2];
-    for (int i = 0; i < vecSize; i++) _syn1[i + l2] += gradient * neu1[i];
+    for (int i = 0; i < vecSize; i++) neu1e[i] += gradient * _syn1.get(i + l2);
+    for (int i = 0; i < vecSize; i++) _syn1.set(i + l2, _syn1.get(i + l2) + gradient * neu1[i]);
 
     //pick a negative samples from unigram table
     for (int i = 1; i < negExCnt + 1; i++) {
@@ -275,14 +277,14 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
       if (targetWord == curWord) continue;
       l2 = targetWord * vecSize;
 
-      for (int j = 0; j < vecSize; j++) f += neu1[j] * _syn1[j + l2];
+      for (int j = 0; j < vecSize; j++) f += neu1[j] * _syn1.get(j + l2);
 
       if (f > MAX_EXP) gradient = -alpha;
       else if (f < -MAX_EXP) gradient = 0;
       else gradient =  (-_expTable[(int)((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * alpha;
 
-      for (int j = 0; j < vecSize; j++)  neu1e[j] += gradient * _syn1[j + l2];
-      for (int j = 0; j < vecSize; j++)  _syn1[j + l2] += gradient * neu1[j];
+      for (int j = 0; j < vecSize; j++)  neu1e[j] += gradient * _syn1.get(j + l2);
+      for (int j = 0; j < vecSize; j++)  _syn1.set(j + l2, _syn1.get(j + l2) + gradient * neu1[j]);
     }
   }
 
@@ -294,13 +296,13 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
     //handle current word
     l2 = curWord * vecSize;
-    for (int i = 0; i < vecSize; i++) f += _syn0[i + l1] * _syn1[i + l2];
+    for (int i = 0; i < vecSize; i++) f += _syn0.get(i + l1) * _syn1.get(i + l2);
     if (f > MAX_EXP) gradient = 0;
     else if (f < -MAX_EXP) gradient = alpha;
     else gradient = (1 - _expTable[(int)((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * alpha;
 
-    for (int i = 0; i < vecSize; i++) neu1e[i] += gradient * _syn1[i + l2];
-    for (int i = 0; i < vecSize; i++) _syn1[i + l2] += gradient * _syn0[i + l1];
+    for (int i = 0; i < vecSize; i++) neu1e[i] += gradient * _syn1.get(i + l2);
+    for (int i = 0; i < vecSize; i++) _syn1.set(i + l2, _syn1.get(i + l2) + gradient * _syn0.get(i + l1));
 
     //pick a negative samples from unigram table
     for (int i = 1; i < negExCnt + 1; i++) {
@@ -309,13 +311,13 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
       if (targetWord == curWord) continue;
       l2 = targetWord * vecSize;
 
-      for (int j = 0; j < vecSize; j++) f += _syn0[j + l1] * _syn1[j + l2];
+      for (int j = 0; j < vecSize; j++) f += _syn0.get(j + l1) * _syn1.get(j + l2);
       if (f > MAX_EXP) gradient = -alpha;
       else if (f < -MAX_EXP) gradient = 0;
       else gradient = ( -_expTable[(int)((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * alpha;
 
-      for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1[j + l2];
-      for (int j = 0; j < vecSize; j++) _syn1[j + l2] += gradient * _syn0[j + l1];
+      for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1.get(j + l2);
+      for (int j = 0; j < vecSize; j++) _syn1.set(j + l2, _syn1.get(j + l2) + gradient * _syn0.get(j + l1));
     }
   }
 
@@ -343,7 +345,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
       l2 = _HBWTPoint[targetWord][i] * vecSize;
 
       // Propagate hidden -> output (calc sigmoid)
-      for (int j = 0; j < vecSize; j++) f += neu1[j] * _syn1[j + l2];
+      for (int j = 0; j < vecSize; j++) f += neu1[j] * _syn1.get(j + l2);
 
       if (f <= -MAX_EXP) continue;
       else if (f >= MAX_EXP) continue;
@@ -351,9 +353,9 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
       gradient = (1 - _HBWTCode[targetWord][i] - f) * alpha;
       // Propagate errors output -> hidden
-      for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1[j + l2];
+      for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1.get(j + l2);
       // Learn weights hidden -> output
-      for (int j = 0; j < vecSize; j++) _syn1[j + l2] += gradient * neu1[j];
+      for (int j = 0; j < vecSize; j++) _syn1.set(j + l2, _syn1.get(j + l2) + gradient * neu1[j]);
     }
   }
   private void hierarchicalSoftmaxSG(final int targetWord, final int l1, float[] neu1e) {
@@ -366,7 +368,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
       l2 = _HBWTPoint[targetWord][i] * vecSize;
 
       // Propagate hidden -> output (calc sigmoid)
-      for (int j = 0; j < vecSize; j++) f += _syn0[j + l1] * _syn1[j + l2];
+      for (int j = 0; j < vecSize; j++) f += _syn0.get(j + l1) * _syn1.get(j + l2);
 
       if (f <= -MAX_EXP) continue;
       else if (f >= MAX_EXP) continue;
@@ -374,9 +376,9 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
 
       gradient = (1 - _HBWTCode[targetWord][i] - f) * alpha;
       // Propagate errors output -> hidden
-      for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1[j + l2];
+      for (int j = 0; j < vecSize; j++) neu1e[j] += gradient * _syn1.get(j + l2);
       // Learn weights hidden -> output
-      for (int j = 0; j < vecSize; j++) _syn1[j + l2] += gradient * _syn0[j + l1];
+      for (int j = 0; j < vecSize; j++) _syn1.set(j + l2, _syn1.get(j + l2) + gradient * _syn0.get(j + l1));
     }
   }
 }
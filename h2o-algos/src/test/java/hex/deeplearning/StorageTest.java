@@ -0,0 +1,73 @@
+package hex.deeplearning;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+import water.AutoBuffer;
+import java.util.Random;
+
+public class StorageTest extends water.TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  private static Storage.DenseRowMatrix randomMatrix(int rows, int cols, long seed) {
+    Random rng = new Random(seed);
+    Storage.DenseRowMatrix dra = new Storage.DenseRowMatrix(rows, cols);
+    for (int row=0;row<rows;++row)
+      for (int col=0;col<cols;++col)
+        dra.set(row, col, rng.nextFloat());
+    return dra;
+  }
+
+  @Test
+  public void offHeapMatrixRoundTrip() {
+    int rows = 313, cols = 1021;
+    Storage.DenseRowMatrix dra = randomMatrix(rows, cols, 0xC0FFEE);
+    Storage.OffHeapMatrix ohm = new Storage.OffHeapMatrix(dra);
+    ohm.add(1, 2, 1f);
+    Storage.OffHeapMatrix ohm2 = new AutoBuffer(new AutoBuffer().put(ohm).buf()).get();
+    assertEquals(rows, ohm2.rows());
+    assertEquals(cols, ohm2.cols());
+    assertTrue(ohm2.buffer().isDirect());
+    for (int row=0;row<rows;++row)
+      for (int col=0;col<cols;++col)
+        assertEquals(dra.get(row,col) + (row==1 && col==2 ? 1f : 0f), ohm2.get(row,col), 0f);
+  }
+
+  // The flat-index operations used by the model code agree with the on-heap matrix
+  @Test
+  public void offHeapMatrixOps() {
+    int rows = 57, cols = 131;
+    Storage.DenseRowMatrix dra = randomMatrix(rows, cols, 1234);
+    Storage.DenseRowMatrix drb = randomMatrix(rows, cols, 5678);
+    Storage.OffHeapMatrix oha = new Storage.OffHeapMatrix(dra);
+    Storage.OffHeapMatrix ohb = new Storage.OffHeapMatrix(drb);
+
+    float[] copy = oha.raw();
+    assertArrayEquals(dra.raw(), copy, 0f);
+    copy[0] += 1;                       // A copy: the matrix is untouched
+    assertEquals(dra.get(0), oha.get(0), 0f);
+
+    assertEquals(dra.sumSquares(cols, 2*cols), oha.sumSquares(cols, 2*cols), 1e-4f);
+    dra.add(drb);
+    oha.add(ohb);
+    dra.div(3);
+    oha.div(3);
+    for (int i=0;i<rows*cols;++i)
+      assertEquals(dra.get(i), oha.get(i), 0f);
+
+    double[] x = new double[cols], y = new double[rows];
+    Random rng = new Random(42);
+    for (int col=0;col<cols;++col) x[col] = rng.nextDouble();
+    for (int row=0;row<rows;++row) y[row] = rng.nextDouble();
+    Storage.DenseVector res1 = new Storage.DenseVector(rows), res2 = new Storage.DenseVector(rows);
+    Neurons.gemv(res1, dra, new Storage.DenseVector(x), new Storage.DenseVector(y), null);
+    Neurons.gemv(res2, oha, new Storage.DenseVector(x), new Storage.DenseVector(y), null);
+    assertArrayEquals(res1.raw(), res2.raw(), 0);
+  }
+
+  // 4GB of floats cannot be held in one direct buffer
+  @Test(expected = IllegalArgumentException.class)
+  public void offHeapMatrixTooLarge() {
+    new Storage.OffHeapMatrix(1<<16, 1<<14);
+  }
+}
@@ -0,0 +1,176 @@
+package water;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import water.nbhm.NonBlockingHashMap;
+
+/** Ring allreduce of node-local arrays.
+ *  <p>
+ *  Reducing a large array through {@link MRTask#reduce} moves a full copy up
+ *  each level of the tree to the home node, which must then broadcast the
+ *  result back (typically through the DKV).  Here instead every node
+ *  registers its own array under a common Key, e.g. from an MRTask's
+ *  {@code closeLocal}, leaving it out of the MRTask's own reduction:
+ *  <pre>
+ *    AllReduce.put(id,localWeights);   // On every node
+ *    ...
+ *    AllReduce.average(id);            // On the home node, after the MRTask
+ *    float[] w = AllReduce.get(id);    // On every node: the averaged array
+ *  </pre>
+ *  The nodes then reduce-scatter and all-gather the arrays around a ring: the
+ *  array is cut into one segment per node, each segment is summed as it is
+ *  passed from node to node, and the summed segments are passed around once
+ *  more.  Each node sends and receives about 2x the array size in total,
+ *  independent of the cloud size, and all links are busy at once.
+ *  <p>
+ *  Every node of the cloud must have registered an array of the same type and
+ *  length before the reduction starts.  The arrays are summed in place. */
+public final class AllReduce extends MRTask<AllReduce> {
+  // Node-local arrays, by id
+  private static final NonBlockingHashMap<Key,Object> ARRAYS = new NonBlockingHashMap<>();
+  // Node-local state of reductions in progress, by id
+  private static final NonBlockingHashMap<Key,Ring> RINGS = new NonBlockingHashMap<>();
+
+  /** Register this node's array for the reduction named by id */
+  public static void put( Key id, double[] ary ) { ARRAYS.put(id,ary); }
+  /** Register this node's array for the reduction named by id */
+  public static void put( Key id, float[] ary ) { ARRAYS.put(id,ary); }
+  /** This node's array registered for id; after a reduction, the reduced array */
+  @SuppressWarnings("unchecked")
+  public static <A> A get( Key id ) { return (A)ARRAYS.get(id); }
+  /** Drop this node's array registered for id */
+  public static void remove( Key id ) { ARRAYS.remove(id); }
+
+  /** Sum the arrays registered under id, on all nodes; each node's array
+   *  then holds the sum.  Blocking. */
+  public static void sum( Key id ) { new AllReduce(id,false).doAllNodes(); }
+  /** Average the arrays registered under id, on all nodes; each node's array
+   *  then holds the average.  Blocking. */
+  public static void average( Key id ) { new AllReduce(id,true).doAllNodes(); }
+
+  private final Key _id;
+  private final boolean _average;
+  private AllReduce( Key id, boolean average ) { _id = id; _average = average; }
+
+  // Join the ring on this node.  The task completes on this node once this
+  // node's array is fully reduced.
+  @Override protected void setupLocal() {
+    if( H2O.CLOUD.size() == 1 ) { array(_id); return; } // Sum and average of one array: itself
+    addToPendingCount(1);
+    ring(_id,_average).start(this);
+  }
+
+  private static Ring ring( Key id, boolean average ) {
+    Ring r = RINGS.get(id);
+    if( r != null ) return r;
+    Ring r2 = RINGS.putIfAbsent(id,r = new Ring(id,array(id),average));
+    return r2 == null ? r : r2;
+  }
+
+  private static Object array( Key id ) {
+    Object ary = ARRAYS.get(id);
+    if( ary == null ) throw new IllegalStateException("No array registered for "+id+" on "+H2O.SELF);
+    return ary;
+  }
+
+  /** True if a reduction of id is in progress on this node */
+  static boolean inProgress( Key id ) { return RINGS.containsKey(id); }
+
+  // One node's part of the ring.
+  private static final class Ring {
+    final Key _id;
+    final double[] _d;          // Exactly one of _d and _f is set
+    final float[] _f;
+    final int _n, _self, _len;  // Cloud size, this node's index, array length
+    final boolean _average;
+    final AtomicInteger _recvd = new AtomicInteger(); // Segments received, of 2*(n-1)
+    private H2O.H2OCountedCompleter _task; // Completed when all received
+
+    Ring( Key id, Object ary, boolean average ) {
+      _id = id;
+      _d = ary instanceof double[] ? (double[])ary : null;
+      _f = ary instanceof  float[] ? ( float[])ary : null;
+      if( _d == null && _f == null ) throw new IllegalArgumentException("Only double[] and float[] can be reduced, got "+ary.getClass());
+      _len = _d != null ? _d.length : _f.length;
+      _n = H2O.CLOUD.size();
+      _self = H2O.SELF.index();
+      _average = average;
+    }
+
+    int lo( int seg ) { return (int)((long)_len* seg   /_n); }
+    int hi( int seg ) { return (int)((long)_len*(seg+1)/_n); }
+
+    // Send this node's own segment on its way around the ring
+    void start( H2O.H2OCountedCompleter task ) {
+      synchronized(this) { _task = task; }
+      send(false,0,_self);
+      done();                   // Segments may all be in already
+    }
+
+    // Send segment seg, after hop hops, to the next node in the ring
+    void send( boolean gather, int hop, int seg ) {
+      Step s = new Step(_id,_average,gather,hop,seg);
+      if( _d != null ) s._d = Arrays.copyOfRange(_d,lo(seg),hi(seg));
+      else             s._f = Arrays.copyOfRange(_f,lo(seg),hi(seg));
+      new RPC<>(H2O.CLOUD._memary[(_self+1)%_n],s).call();
+    }
+
+    // A segment arrived from the previous node in the ring
+    void recv( Step s ) {
+      int lo = lo(s._seg);
+      if( s._gather ) {         // All-gather: the final value
+        if( _d != null ) System.arraycopy(s._d,0,_d,lo,s._d.length);
+        else             System.arraycopy(s._f,0,_f,lo,s._f.length);
+      } else {                  // Reduce-scatter: add in this node's part
+        if( _d != null ) for( int i=0; i<s._d.length; i++ ) _d[lo+i] += s._d[i];
+        else             for( int i=0; i<s._f.length; i++ ) _f[lo+i] += s._f[i];
+      }
+      if( s._hop < _n-2 ) send(s._gather,s._hop+1,s._seg); // Pass it on
+      else if( !s._gather ) {   // Segment fully summed here; start gathering it
+        if( _average ) scale(s._seg);
+        send(true,0,s._seg);
+      }
+      _recvd.incrementAndGet();
+      done();
+    }
+
+    void scale( int seg ) {
+      if( _d != null ) for( int i=lo(seg); i<hi(seg); i++ ) _d[i] /= _n;
+      else             for( int i=lo(seg); i<hi(seg); i++ ) _f[i] /= _n;
+    }
+
+    // Complete the task once started here and all segments are in
+    private void done() {
+      H2O.H2OCountedCompleter task;
+      synchronized(this) {
+        if( _task == null || _recvd.get() < 2*(_n-1) ) return;
+        task = _task;
+        _task = null;
+      }
+      RINGS.remove(_id,this);
+      task.tryComplete();
+    }
+  }
+
+  // A segment passed between neighbors.  The data is dropped before the ack,
+  // so only the request carries it.  Handling a Step never blocks, so it runs
+  // at a fixed high priority, ahead of the work that is waiting on the ring.
+  private static final class Step extends DTask<Step> {
+    final Key _id;
+    final boolean _average, _gather;
+    final int _hop, _seg;
+    double[] _d;
+    float[] _f;
+    Step( Key id, boolean average, boolean gather, int hop, int seg ) {
+      super(H2O.MIN_HI_PRIORITY);
+      _id = id; _average = average; _gather = gather; _hop = hop; _seg = seg;
+    }
+    @Override public void compute2() {
+      ring(_id,_average).recv(this); // The neighbor may have joined the ring before this node
+      _d = null;
+      _f = null;
+      tryComplete();
+    }
+  }
+}
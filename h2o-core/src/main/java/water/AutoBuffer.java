@@ -5,9 +5,12 @@ import java.lang.reflect.Array;
 import java.net.*;
 import java.nio.*;
 import java.nio.channels.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
+import water.persist.SpillCodec;
 import water.util.Log;
 import water.util.TwoDimTable;
 
@@ -81,6 +84,16 @@ public final class AutoBuffer {
   // asserts all over the place.
   private boolean _firstPage;
 
+  // TRUE if this is a framed TCP channel (see WireCompressor): each page goes
+  // over the wire as a header plus the page bytes, maybe compressed.
+  private boolean _zip;
+  // Type of the first Freezable written to an H2ONode; picks the wire codec
+  private int _msgType;
+  // Decoded bytes of the last frame read, not yet moved into _bb
+  private byte[] _frame;
+  private int _frameOff;
+  private static final int FRAME_HDR = 1+4+4; // codec id, raw length, stored length
+
 
   // Total size written out from 'new' to 'close'.  Only updated when actually
   // reading or writing data, or after close().  For profiling only.
@@ -130,7 +143,10 @@ public final class AutoBuffer {
 
   /** Incoming TCP request.  Make a read-mode AutoBuffer from the open Channel,
    *  figure the originating H2ONode from the first few bytes read. */
-  AutoBuffer( SocketChannel sock ) throws IOException {
+  AutoBuffer( SocketChannel sock ) throws IOException { this(sock,false); }
+  /** Incoming TCP request on a framed channel, if zip. */
+  AutoBuffer( SocketChannel sock, boolean zip ) throws IOException {
+    _zip = zip;
     _chan = sock;
     raisePriority();            // Make TCP priority high
     _bb = BBP_BIG.make();       // Get a big / TPC-sized ByteBuffer
@@ -170,7 +186,7 @@ public final class AutoBuffer {
 
   /** Spill-to/from-disk request. */
   public AutoBuffer( FileChannel fc, boolean read, byte persist ) {
-    _bb = BBP_BIG.make();       // Get a big / TPC-sized ByteBuffer
+    _bb = BBP_FIL.make();       // Get a large / file-sized ByteBuffer
     _chan = fc;                 // Write to read/write
     _h2o = null;                // File Channels never have an _h2o
     _read = read;               // Mostly assert reading vs writing
@@ -179,6 +195,13 @@ public final class AutoBuffer {
     _persist = persist;         // One of Value.ICE, NFS, S3, HDFS
   }
 
+  /** Framed file stream, if zip: the framing of a compressing TCP channel
+   *  (see WireCompressor), so it can be checked without a second node. */
+  AutoBuffer( FileChannel fc, boolean read, boolean zip ) {
+    this(fc,read,(byte)0);
+    _zip = zip;
+  }
+
   /** Read from UDP multicast.  Same as the byte[]-read variant, except there is an H2O. */
   AutoBuffer( DatagramPacket pack ) {
     _size = pack.getLength();
@@ -285,26 +308,37 @@ public final class AutoBuffer {
   // leaks are under control, but figure this may happen again so keeping these
   // counters around.
   //
-  // We use 2 pool sizes: lots of small UDP packet-sized buffers and fewer
-  // larger TCP-sized buffers.
+  // We use 3 pool sizes: lots of small UDP packet-sized buffers, fewer larger
+  // TCP-sized buffers, and a few large buffers for FileChannel (spill & NFS)
+  // I/O.  Each pool keeps a few buffers per thread in front of the shared
+  // list, so a thread doing back-to-back RPCs recycles its own buffers
+  // without taking the pool lock.
   private static final boolean DEBUG = Boolean.getBoolean("h2o.find-ByteBuffer-leaks");
   private static long HWM=0;
 
-  static class BBPool {
+  /** A pool of direct ByteBuffers of one size class. */
+  public static class BBPool {
     long _made, _cached, _freed;
     long _numer, _denom, _goal=4*H2O.NUMCPUS, _lastGoal;
     final ArrayList<ByteBuffer> _bbs = new ArrayList<>();
-    final int _size;            // Big or small size of ByteBuffers
-
-    BBPool( int sz) { _size=sz; }
+    final int _size;            // Size of ByteBuffers in this class
+    final int _local;           // Max ByteBuffers cached per thread
+    private final ThreadLocal<ArrayDeque<ByteBuffer>> _tl = new ThreadLocal<ArrayDeque<ByteBuffer>>() {
+      @Override protected ArrayDeque<ByteBuffer> initialValue() { return new ArrayDeque<>(); }
+    };
+    private final AtomicLong _localHits = new AtomicLong(), _out = new AtomicLong(), _peak = new AtomicLong();
+
+    BBPool( int sz, int local ) { _size=sz; _local=local; }
     private ByteBuffer stats( ByteBuffer bb ) {
+      long out = _out.incrementAndGet(), peak;
+      while( out > (peak=_peak.get()) && !_peak.compareAndSet(peak,out) ) ;
       if( !DEBUG ) return bb;
       if( ((_made+_cached)&255)!=255 ) return bb; // Filter printing to 1 in 256
       long now = System.currentTimeMillis();
       if( now < HWM ) return bb;
       HWM = now+1000;
       water.util.SB sb = new water.util.SB();
-      sb.p("BB").p(this==BBP_BIG?1:0).p(" made=").p(_made).p(" -freed=").p(_freed).p(", cache hit=").p(_cached).p(" ratio=").p(_numer/_denom).p(", goal=").p(_goal).p(" cache size=").p(_bbs.size()).nl();
+      sb.p("BB").p(_size).p(" made=").p(_made).p(" -freed=").p(_freed).p(", cache hit=").p(_cached).p(" local hit=").p(_localHits.get()).p(" ratio=").p(_numer/_denom).p(", goal=").p(_goal).p(" cache size=").p(_bbs.size()).p(" out=").p(out).nl();
       for( int i=0; i<H2O.MAX_PRIORITY; i++ ) {
         int x = H2O.getWrkQueueSize(i);
         if( x > 0 ) sb.p('Q').p(i).p('=').p(x).p(' ');
@@ -314,8 +348,9 @@ public final class AutoBuffer {
     }
 
     ByteBuffer make() {
+      ByteBuffer bb = _tl.get().pollLast(); // This thread's own cache first
+      if( bb != null ) { _localHits.incrementAndGet(); return stats(bb); }
       while( true ) {             // Repeat loop for DBB OutOfMemory errors
-        ByteBuffer bb=null;
         synchronized(_bbs) { 
           int sz = _bbs.size();
           if( sz > 0 ) { bb = _bbs.remove(sz-1); _cached++; _numer++; }
@@ -335,6 +370,9 @@ public final class AutoBuffer {
       }
     }
     void free(ByteBuffer bb) {
+      _out.decrementAndGet();
+      ArrayDeque<ByteBuffer> tl = _tl.get();
+      if( tl.size() < _local ) { bb.clear(); tl.addLast(bb); return; }
       // Heuristic: keep the ratio of BB's made to cache-hits at a fixed level.
       // Free to GC if ratio is high, free to internal cache if low.
       long ratio = _numer/(_denom+1);
@@ -360,12 +398,33 @@ public final class AutoBuffer {
     }
     static int FREE( ByteBuffer bb ) {
       if(bb.isDirect())
-        (bb.capacity()==BBP_BIG._size ? BBP_BIG : BBP_SML).free(bb);
+        for( BBPool pool : POOLS )
+          if( bb.capacity() == pool._size ) { pool.free(bb); break; }
       return 0;                 // Flow coding
     }
-  }
-  static BBPool BBP_SML = new BBPool( 2*1024); // Bytebuffer "common small size", for UDP
-  static BBPool BBP_BIG = new BBPool(64*1024); // Bytebuffer "common  big  size", for TCP
+
+    /** Size in bytes of this class's ByteBuffers */
+    public int size() { return _size; }
+    /** ByteBuffers allocated from native memory (pool misses) */
+    public long made() { return _made; }
+    /** Requests served from a thread's own cache */
+    public long localHits() { return _localHits.get(); }
+    /** Requests served from the shared cache */
+    public long sharedHits() { return _cached; }
+    /** ByteBuffers dropped to the GC, above the pool's goal */
+    public long freed() { return _freed; }
+    /** ByteBuffers handed out and not yet returned */
+    public long outstanding() { return _out.get(); }
+    /** Most ByteBuffers ever outstanding at once */
+    public long peakOutstanding() { return _peak.get(); }
+    /** ByteBuffers in the shared cache */
+    public int pooled() { synchronized(_bbs) { return _bbs.size(); } }
+  }
+  static BBPool BBP_SML = new BBPool(   2*1024,16); // Bytebuffer "common small size", for UDP
+  static BBPool BBP_BIG = new BBPool(  64*1024, 4); // Bytebuffer "common  big  size", for TCP
+  static BBPool BBP_FIL = new BBPool(1024*1024, 1); // Bytebuffer "large file size", for FileChannels
+  /** All the size classes, smallest first */
+  public static final BBPool[] POOLS = new BBPool[]{BBP_SML,BBP_BIG,BBP_FIL};
   public static int TCP_BUF_SIZ = BBP_BIG._size;
 
   private int bbFree() {
@@ -470,6 +529,7 @@ public final class AutoBuffer {
     assert _chan == null;
 //    assert _bb.position()==0;
     _chan = _h2o.getTCPSocket();
+    _zip = WireCompressor.enabled(); // Channels to other nodes are framed iff compressing
     raisePriority();
   }
 
@@ -598,7 +658,8 @@ public final class AutoBuffer {
     long ns = System.nanoTime();
     while( _bb.position() < sz ) { // Read until we got enuf
       try {
-        int res = _is == null ? _chan.read(_bb) : _is.read(_bb.array(),_bb.position(),_bb.remaining()); // Read more
+        int res = _is != null ? _is.read(_bb.array(),_bb.position(),_bb.remaining()) // Read more
+          : _zip ? readFrame() : _chan.read(_bb);
         // Readers are supposed to be strongly typed and read the exact expected bytes.
         // However, if a TCP connection fails mid-read we'll get a short-read.
         // This is indistinguishable from a mis-alignment between the writer and reader!
@@ -648,7 +709,8 @@ public final class AutoBuffer {
         tcpOpen(); // This is a big operation.  Open a TCP socket as-needed.
       //for( int i=0; i < _bb.limit(); i++ ) if( _bb.get(i)==0 ) _zeros++;
       long ns = System.nanoTime();
-      while( _bb.hasRemaining() ) {
+      if( _zip ) writeFrame();
+      else while( _bb.hasRemaining() ) {
         _chan.write(_bb);
         if( RANDOM_TCP_DROP != null &&_chan instanceof SocketChannel && RANDOM_TCP_DROP.nextInt(100) == 0 )
           throw new IOException("Random TCP Write Fail");
@@ -668,6 +730,52 @@ public final class AutoBuffer {
     return _bb;
   }
 
+  // Ship the flipped _bb as one frame of a framed TCP channel: a header of
+  // codec id, raw length and stored length, then the stored bytes.  Pages the
+  // codec does not shrink go raw, straight from _bb.
+  private void writeFrame() throws IOException {
+    final int raw = _bb.remaining();
+    SpillCodec codec = WireCompressor.codec(_msgType,raw);
+    ByteBuffer body = _bb;
+    if( codec != SpillCodec.NONE ) {
+      byte[] src = MemoryManager.malloc1(raw);
+      _bb.get(src);
+      byte[] dst = codec.compress(src);
+      body = ByteBuffer.wrap(dst.length < raw ? dst : src);
+    }
+    WireCompressor.sent(_msgType,codec,raw,body.remaining());
+    ByteBuffer hdr = ByteBuffer.allocate(FRAME_HDR).order(ByteOrder.nativeOrder());
+    hdr.put(body.remaining() < raw ? codec._id : SpillCodec.NONE._id).putInt(raw).putInt(body.remaining()).flip();
+    ByteBuffer[] bbs = new ByteBuffer[]{hdr,body};
+    while( body.hasRemaining() )
+      ((GatheringByteChannel)_chan).write(bbs);
+  }
+
+  // Read the next frame of a framed TCP channel if none is pending, and move
+  // as much of it into _bb as fits.  Returns the bytes moved, or -1 at EOF.
+  private int readFrame() throws IOException {
+    if( _frame == null ) {
+      ByteBuffer hdr = ByteBuffer.allocate(FRAME_HDR).order(ByteOrder.nativeOrder());
+      if( !readFully(hdr) ) return -1;
+      hdr.flip();
+      int codec = hdr.get(), raw = hdr.getInt(), stored = hdr.getInt();
+      ByteBuffer body = ByteBuffer.wrap(MemoryManager.malloc1(stored));
+      if( !readFully(body) ) return -1;
+      _frame = SpillCodec.get(codec).decompress(body.array(),raw);
+      _frameOff = 0;
+      assert _frame.length == raw;
+    }
+    int n = Math.min(_bb.remaining(),_frame.length-_frameOff);
+    _bb.put(_frame,_frameOff,n);
+    if( (_frameOff += n) == _frame.length ) _frame = null;
+    return n;
+  }
+  private boolean readFully( ByteBuffer bb ) throws IOException {
+    while( bb.hasRemaining() )
+      if( _chan.read(bb) <= 0 ) return false;
+    return true;
+  }
+
   // Called when the byte buffer doesn't have enough room
   // If buffer is array backed, and the needed room is small,
   // increase the size of the backing array,
@@ -687,7 +795,7 @@ public final class AutoBuffer {
       int oldpos = _bb.position();
       _bb = ByteBuffer.wrap(MemoryManager.arrayCopyOfRange(ary,0,newLen),oldpos,newLen-oldpos)
           .order(ByteOrder.nativeOrder());
-    } else if (_bb.capacity() != BBP_BIG._size) { //avoid expanding existing BBP items
+    } else if (_bb.capacity() < BBP_BIG._size) { //avoid expanding existing big BBP items
       int oldPos = _bb.position();
       _bb.flip();
       _bb = BBP_BIG.make().put(_bb);
@@ -732,6 +840,7 @@ public final class AutoBuffer {
   public AutoBuffer put(Freezable f) {
     if( f == null ) return putInt(TypeMap.NULL);
     assert f.frozenType() > 0 : "No TypeMap for "+f.getClass().getName();
+    if( _msgType == 0 && _h2o != null ) _msgType = f.frozenType(); // The message's type, for the wire codec
     putInt(f.frozenType());
     return f.write(this);
   }
@@ -1058,6 +1167,25 @@ public final class AutoBuffer {
     }
     return buf;
   }
+  /** Read a float[] written by {@link #putA4f} into a new direct (off-heap)
+   *  FloatBuffer, positioned at 0; no float[] is made on the way. */
+  public FloatBuffer getA4fDirect( ) {
+    int len = getInt(); if( len == -1 ) return null;
+    if( len > Integer.MAX_VALUE/4 ) throw new IllegalStateException("Direct float buffer of "+len+" floats exceeds 2GB");
+    FloatBuffer buf = ByteBuffer.allocateDirect(len*4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    int sofar = 0;
+    while( sofar < len ) {
+      FloatBuffer as = _bb.asFloatBuffer();
+      int more = Math.min(as.remaining(), len - sofar);
+      as.limit(more);
+      buf.put(as);
+      sofar += more;
+      _bb.position(_bb.position() + more*4);
+      if( sofar < len ) getSp(Math.min(_bb.capacity()-3, (len-sofar)*4));
+    }
+    buf.flip();
+    return buf;
+  }
   public long[] getA8( ) {
     //_arys++;
     // Get the lengths of lead & trailing zero sections, and the non-zero
@@ -1329,6 +1457,28 @@ public final class AutoBuffer {
     }
     return this;
   }
+  /** Write the floats of a FloatBuffer, from 0 to its limit, in the format of
+   *  {@link #putA4f(float[])}.  Floats go straight from the (possibly
+   *  off-heap) source into the wire buffer; the source position is unchanged. */
+  public AutoBuffer putA4f( FloatBuffer ary ) {
+    if( ary == null ) return putInt(-1);
+    final int n = ary.limit();
+    putInt(n);
+    if (n*4 > _bb.remaining()) expandByteBuffer(n*4);
+    FloatBuffer src = ary.duplicate();
+    src.position(0);
+    int sofar = 0;
+    while( sofar < n ) {
+      FloatBuffer fb = _bb.asFloatBuffer();
+      int len = Math.min(n - sofar, fb.remaining());
+      src.limit(sofar + len);
+      fb.put(src);
+      sofar += len;
+      _bb.position(_bb.position() + fb.position()*4);
+      if( sofar < n ) sendPartial();
+    }
+    return this;
+  }
   public AutoBuffer putA8d( double[] ary ) {
     //_arys++;
     if( ary == null ) return putInt(-1);
@@ -0,0 +1,81 @@
+package water;
+
+import water.nbhm.NonBlockingHashMapLong;
+import water.util.UnsafeUtils;
+
+/** Primitive-keyed index of the Chunk Values in the local K/V store.
+ *  <p>
+ *  Looking up a Chunk through {@link H2O#STORE} needs the Chunk's {@link Key}:
+ *  a cloned byte[], a hash over it, and an interning lookup in the STORE,
+ *  before the actual lookup.  For Frames with millions of Chunks, hot loops
+ *  such as {@code Vec.chunkForChunkIdx} pay that on every call.  This index
+ *  maps a long - a hash of the Vec Key packed with the Chunk index - straight
+ *  to the Chunk's Value, so a lookup is one probe of a lock-free table with no
+ *  allocation.
+ *  <p>
+ *  The STORE remains the truth: the index is updated after each change to a
+ *  Chunk mapping in the STORE (see {@link H2O#putIfMatch}), re-reading the
+ *  STORE until both agree, so racing updates converge on the STORE's Value.
+ *  Distinct Vecs may collide on the hash; every hit is checked against the
+ *  Vec Key, and a miss falls back to the STORE. */
+public final class ChunkStore {
+  private static final NonBlockingHashMapLong<Value> CHUNKS = new NonBlockingHashMapLong<>();
+
+  private ChunkStore() { }
+
+  /** Hash of a Vec or Chunk Key's bytes, skipping the key type and the chunk
+   *  number, so a Vec Key and all of its Chunk Keys hash alike. */
+  public static int vecHash( byte[] kb ) {
+    int hash = 0;
+    for( int i=1; i<kb.length; i++ ) {
+      if( i == 6 ) { i = 9; continue; } // Skip the chunk# in bytes 6-9
+      hash += kb[i];
+      hash += (hash << 10);
+      hash ^= (hash >> 6);
+    }
+    hash += (hash << 3);
+    hash ^= (hash >> 11);
+    hash += (hash << 15);
+    return hash;
+  }
+
+  private static long pack( int vhash, int cidx ) { return ((long)vhash<<32) | (cidx&0xFFFFFFFFL); }
+
+  /** The local Value of Chunk cidx of the Vec, or null if not in the local
+   *  store.  vhash is {@link #vecHash} of the Vec Key's bytes. */
+  public static Value get( Key vecKey, int vhash, int cidx ) {
+    Value val = CHUNKS.get(pack(vhash,cidx));
+    return val != null && isChunkOf(val._key._kb,vecKey._kb,cidx) ? val : null;
+  }
+
+  // Does the Chunk Key kb belong to the Vec Key vkb, at index cidx?
+  private static boolean isChunkOf( byte[] kb, byte[] vkb, int cidx ) {
+    if( kb.length != vkb.length || UnsafeUtils.get4(kb,6) != cidx ) return false;
+    for( int i=1; i<6; i++ ) if( kb[i] != vkb[i] ) return false;
+    for( int i=10; i<kb.length; i++ ) if( kb[i] != vkb[i] ) return false;
+    return true;
+  }
+
+  /** Bring the index in line with the STORE mapping for a Chunk Key; called
+   *  after any change to it. */
+  static void sync( Key key ) {
+    final long p = pack(vecHash(key._kb),UnsafeUtils.get4(key._kb,6));
+    while( true ) {
+      Value val = H2O.STORE.get(key);
+      if( val != null && val.isNull() ) val = null; // Deleted, as far as readers go
+      if( val != null ) CHUNKS.put(p,val);
+      else {
+        Value old = CHUNKS.get(p);   // Only remove our own mapping, not a colliding Vec's
+        if( old != null && old._key.equals(key) ) CHUNKS.remove(p,old);
+      }
+      Value now = H2O.STORE.get(key);
+      if( now != null && now.isNull() ) now = null;
+      if( now == val ) return;  // No racing change; else a racer may have lost to us
+    }
+  }
+
+  static void clear() { CHUNKS.clear(); }
+
+  /** Number of Chunks indexed */
+  public static int size() { return CHUNKS.size(); }
+}
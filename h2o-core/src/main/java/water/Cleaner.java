@@ -2,8 +2,11 @@ package water;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import water.fvec.Chunk;
+import water.persist.Persist;
 import water.util.Log;
 import water.util.PrettyPrint;
 
@@ -109,48 +112,84 @@ class Cleaner extends Thread {
       long cleaned = 0;         // Disk i/o bytes
       long freed = 0;           // memory freed bytes
       long io_ns = 0;           // i/o ns writing
+      // Swapping to off-heap memory is cheap and does not cost heap, so cold
+      // persisted Chunks are dropped from the heap even when not forced.
+      final boolean offheap = H2O.ARGS.off_heap_mem > 0;
+      final Persist ice = offheap ? H2O.getPM().getIce() : null;
 
-      // For faster K/V store walking get the NBHM raw backing array,
-      // and walk it directly.
-      Object[] kvs = H2O.STORE.raw_array();
+      // Both forms of a POJO which is on disk or not touched lately: toss the
+      // serialized form, since it can be rebuilt from the POJO.  The cheapest
+      // memory to free, so first; the histogram found the candidates.
+      if( H2O.ARGS.cleaner )
+        for( Value val : h._spares ) {
+          if( H2O.STORE.get(val._key) != val ) continue; // Deleted or replaced
+          if( val.rawMem() == null || val.rawPOJO() == null ) continue; // Raced with another free
+          if( !val.isPersisted() && val._lastAccessedTime >= now-5000 ) continue; // Touched since
+          val.freeMem();
+          freed += val._max;
+        }
 
-      // Start the walk at slot 2, because slots 0,1 hold meta-data
-      for( int i=2; i<kvs.length; i += 2 ) {
-        // In the raw backing array, Keys and Values alternate in slots
-        Object ok = kvs[i], ov = kvs[i+1];
-        if( !(ok instanceof Key  ) ) continue; // Ignore tombstones and Primes and null's
-        if( !(ov instanceof Value) ) continue; // Ignore tombstones and Primes and null's
-        Value val = (Value)ov;
+      // Under pressure, free Chunks in the eviction policy's order until the
+      // cache is back under the desired level.  No K/V walk needed, except to
+      // find the Chunks of SPILL_FIRST Vecs, which go before all others.
+      // Chunks of PINNED Vecs are dropped from the index and kept.
+      if( force && H2O.ARGS.cleaner ) {
+        final EvictionPolicy policy = EvictionPolicy.POLICY;
+        final long goal = h._cached - DESIRED;
+        final Iterator<Value> first = Residency.spillFirst().iterator();
+        Value val;
+        while( freed < goal && (val = first.hasNext() ? first.next() : policy.next()) != null ) {
+          Key k = val._key;
+          if( Residency.isPinned(k) ) continue; // Re-indexed when un-pinned
+          if( !val.isPersisted() && k.home() ) {
+            if( diskFull ) continue; // Cannot free; re-indexed on next touch
+            long now_ns = System.nanoTime();
+            try { val.storePersist(); } // Write to disk
+            catch( FileNotFoundException fnfe ) { continue; } // Racing key delete/remove
+            catch( IOException e ) {
+              Log.warn( isDiskFull()
+                        ? "Disk full! Disabling swapping to disk. Memory low! Please free some space in " + H2O.ICE_ROOT + "!"
+                        : "Disk swapping failed! " + e.getMessage());
+              diskFull = true;
+              continue;
+            }
+            cleaned += val._max;
+            io_ns += System.nanoTime() - now_ns;
+          }
+          if( val.rawMem() == null && val.rawPOJO() == null ) continue; // Raced with another free
+          val.freePOJO();
+          val.freeMem ();
+          freed += val._max;      // Chunk _mem and POJO share the same bytes
+          policy.evicted();
+        }
+      } else
+        EvictionPolicy.POLICY.expunge(); // Lazy pass: drop dead Values from the index
+
+      // Walk the cached Chunks in the eviction index rather than the whole
+      // K/V store: only Chunks are ever spilled.  Other Values only drop a
+      // spare serialized form, done above.
+      for( Iterator<Value> it = EvictionPolicy.POLICY.iterator(); it.hasNext(); ) {
+        Value val = it.next();
         byte[] m = val.rawMem();
         Object p = val.rawPOJO();
-        if( m == null && p == null ) continue; // Nothing to throw out
-
-        if( val.isLockable() ) continue; // we do not want to throw out Lockables.
-        boolean isChunk = p instanceof Chunk;
+        if( !(p instanceof Chunk) ) continue; // Nothing to throw out, or not deserialized yet
+        Key k = val._key;
+        if( H2O.STORE.get(k) != val ) continue; // Deleted or replaced
+        Residency.Priority prio = Residency.of(k);
 
         // Ignore things younger than the required age.  In particular, do
-        // not spill-to-disk all dirty things we find.
+        // not spill-to-disk all dirty things we find.  SPILL_FIRST Chunks are
+        // written out whatever their age.
         long touched = val._lastAccessedTime;
-        if( touched > clean_to_age ) { // Too recently touched?
-          // But can toss out a byte-array if already deserialized & on disk
-          // (no need for both forms).  Note no savings for Chunks, for which m==p._mem
-          if( val.isPersisted() && m != null && p != null && !isChunk ) {
-            val.freeMem();      // Toss serialized form, since can rebuild from POJO
-            freed += val._max;
-          }
+        if( touched > clean_to_age && prio != Residency.Priority.SPILL_FIRST ) { // Too recently touched?
           dirty_store(touched); // But may write it out later
           continue;             // Too young
         }
         // Spiller turned off?
         if( !H2O.ARGS.cleaner ) continue;
 
-        // CNC - Memory cleaning turned off, except for Chunks
-        // Too many POJOs are written to dynamically; cannot spill & reload
-        // them without losing changes.
-
         // Should I write this value out to disk?
-        // Should I further force it from memory?
-        if( isChunk && !val.isPersisted() && !diskFull && ((Key)ok).home() ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
+        if( !val.isPersisted() && !diskFull && k.home() ) {
           long now_ns = System.nanoTime();
           try { val.storePersist(); } // Write to disk
           catch( FileNotFoundException fnfe ) { continue; } // Can happen due to racing key delete/remove
@@ -166,22 +205,14 @@ class Cleaner extends Thread {
           if( m != null ) cleaned += m.length; // Accumulate i/o bytes
           io_ns += System.nanoTime() - now_ns; // Accumulate i/o time
         }
-        // And, under pressure, free all
-        if( isChunk && force && (val.isPersisted() || !((Key)ok).home()) ) {
-          val.freeMem ();  if( m != null ) freed += val._max;  m = null;
-          val.freePOJO();  if( p != null ) freed += val._max;  p = null;
-          if( isChunk ) freed -= val._max; // Double-counted freed mem for Chunks since val._pojo._mem & val._mem are the same.
+        // When swapped cheaply off-heap, free all.  Freeing under pressure
+        // is done above, in eviction policy order; Chunks which overflowed
+        // to disk wait for it.
+        if( offheap && prio != Residency.Priority.PINNED && val.onICE() && val.isPersisted() && ice.isOffHeap(val) ) {
+          val.freeMem ();
+          val.freePOJO();
+          freed += val._max;    // Chunk _mem and POJO share the same bytes
         }
-        // If we have both forms, toss the byte[] form - can be had by
-        // serializing again.
-        if( m != null && p != null && !isChunk ) {
-          val.freeMem();
-          freed += val._max;
-        }
-
-        // If a GC cycle happened and we can no longer alloc, start forcing
-        // from RAM as we go
-        force = (h._cached >= DESIRED || !MemoryManager.CAN_ALLOC); // Forced to clean
       }
 
       String s1 = "Cleaner pass took: "+PrettyPrint.msecs(System.currentTimeMillis()-now,true)+
@@ -189,7 +220,7 @@ class Cleaner extends Thread {
       h = Histo.current(true); // Force a new histogram
       MemoryManager.set_goals("postclean",false);
       // No logging if under memory pressure: can deadlock the cleaner thread
-      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M";
+      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M"+(offheap ? ", offheap="+(Histo.offheap()>>20)+"M" : "");
       if( MemoryManager.canAlloc() ) Log.debug(s1,s2);
       else                           System.err.println(s1+"\n"+s2);
       // For testing thread
@@ -224,6 +255,9 @@ class Cleaner extends Thread {
     // built nor blocking for one being in-progress.
     static long cached() { return H._cached; }
     static long swapped(){ return H._swapped;}
+    // Swapped bytes held outside the Java heap; not part of the cached amount
+    // so they put no pressure on the heap goals.
+    static long offheap(){ return H2O.getPM()==null ? 0 : H2O.getPM().getIce().getOffHeapBytes(); }
 
     final long[] _hs = new long[128];
     long _oldest; // Time of the oldest K/V discovered this pass
@@ -234,6 +268,7 @@ class Cleaner extends Thread {
     long _when;   // When was this histogram computed
     long _swapped;// On-disk stuff
     Value _vold;  // For assertions: record the oldest Value
+    ArrayList<Value> _spares; // Non-Chunk Values holding a spare serialized form
     boolean _clean; // Was "clean" K/V when built?
 
     // Compute a histogram
@@ -250,6 +285,7 @@ class Cleaner extends Thread {
       long swapped=0;  // Total K/V persisted
       long oldest = Long.MAX_VALUE; // K/V with the longest time since being touched
       Value vold = null;
+      ArrayList<Value> spares = new ArrayList<>();
       // Start the walk at slot 2, because slots 0,1 hold meta-data
       for( int i=2; i<kvs.length; i += 2 ) {
         // In the raw backing array, Keys and Values alternate in slots
@@ -266,6 +302,12 @@ class Cleaner extends Thread {
         if( m != null ) len += val._max;
         if( p != null ) len += val._max;
         if( m != null && p instanceof Chunk ) len -= val._max; // Do not double-count Chunks
+        // Both forms of a POJO which is on disk or not touched lately: the
+        // Cleaner may toss the serialized form.  Only noted here; building a
+        // histogram frees nothing.
+        else if( m != null && p != null && !val.isLockable() &&
+                 (val.isPersisted() || val._lastAccessedTime < _when-5000) )
+          spares.add(val);
         if( len == 0 ) continue;
         cached += len; // Accumulate total amount of cached keys
 
@@ -284,6 +326,7 @@ class Cleaner extends Thread {
       _swapped = swapped;
       _oldest = oldest; // Oldest seen in this pass
       _vold = vold;
+      _spares = spares;
       _clean = clean && _dirty==Long.MAX_VALUE; // Looks like a clean K/V the whole time?
     }
 
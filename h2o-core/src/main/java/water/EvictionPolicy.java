@@ -0,0 +1,126 @@
+package water;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Eviction policy for the {@link Cleaner}: decides which cached Chunks are
+ *  freed from the heap first when the K/V cache is above its desired level.
+ *  <p>
+ *  Policies keep an incremental index of Chunk Values, maintained as Values
+ *  are touched, so picking the next victim is O(1) amortized instead of a
+ *  walk of the whole local K/V store.  Chosen at startup with {@code
+ *  -eviction <lru|lfu>}.
+ *  <p>
+ *  Hit, miss and eviction counts are kept per-node and reported through the
+ *  {@code /3/WaterMeterCache} endpoint.  */
+public abstract class EvictionPolicy {
+  /** The current node's policy */
+  static final EvictionPolicy POLICY = make(H2O.ARGS.eviction);
+
+  static EvictionPolicy make( String name ) {
+    if( name == null || name.equals("lru") ) return new Clock("lru",1);
+    if( name.equals("lfu") ) return new Clock("lfu",7);
+    throw new IllegalArgumentException("Unknown eviction policy: "+name);
+  }
+
+  private final String _name;
+  final AtomicLong _hits   = new AtomicLong(); // Chunk touched while cached
+  final AtomicLong _misses = new AtomicLong(); // Chunk reloaded from ICE
+  final AtomicLong _evicts = new AtomicLong(); // Chunk freed by the Cleaner
+  EvictionPolicy( String name ) { _name = name; }
+
+  /** A Chunk Value was accessed; called on every {@link Value} touch. */
+  abstract void touch( Value v );
+  /** Next eviction candidate, coldest first, or null if nothing is indexed.
+   *  The candidate is dropped from the index; a later touch re-indexes it.
+   *  Only called from the Cleaner thread. */
+  abstract Value next();
+  /** Drop Values which are no longer cached or no longer in the K/V store;
+   *  called lazily from the Cleaner thread so the index does not pin dead
+   *  Values. */
+  abstract void expunge();
+  /** Number of Values currently indexed */
+  abstract int size();
+  /** Weakly consistent walk of the indexed Values, which may include dead
+   *  ones; lets the Cleaner visit cached Chunks without a K/V store walk. */
+  abstract Iterator<Value> iterator();
+
+  void hit ( ) { _hits  .incrementAndGet(); }
+  void miss( ) { _misses.incrementAndGet(); }
+  void evicted() { _evicts.incrementAndGet(); }
+
+  public static String name() { return POLICY._name; }
+  public static long hits  () { return POLICY._hits  .get(); }
+  public static long misses() { return POLICY._misses.get(); }
+  public static long evicts() { return POLICY._evicts.get(); }
+  public static int indexed() { return POLICY.size(); }
+
+  // Still worth holding in the index: cached, not deleted, and still the
+  // mapping for its Key.
+  static boolean isLive( Value v ) {
+    return (v.rawMem() != null || v.rawPOJO() != null) && !v.isDeleted() &&
+      H2O.STORE.get(v._key) == v;
+  }
+
+  /** CLOCK / GCLOCK.  Values sit in a FIFO ring; touching bumps a small
+   *  per-Value reference count, capped at _maxRef.  The hand pops the head
+   *  and either decrements the count and gives the Value another lap, or
+   *  selects it once the count is zero.  A cap of 1 is the classic
+   *  second-chance approximation of LRU; higher caps keep Chunks which are
+   *  scanned repeatedly (e.g. every GBM iteration) resident longer, which
+   *  behaves like LFU with aging.  */
+  static final class Clock extends EvictionPolicy {
+    // Value._evict: 0 means not in the ring, else 1+reference count
+    private static final AtomicIntegerFieldUpdater<Value> EVICT_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(Value.class, "_evict");
+    private final int _maxRef;
+    private final ConcurrentLinkedQueue<Value> _ring = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _size = new AtomicInteger();
+    Clock( String name, int maxRef ) { super(name); _maxRef = maxRef; }
+
+    @Override void touch( Value v ) {
+      int e = v._evict;
+      if( e == 0 ) {            // Not indexed yet?
+        if( EVICT_UPDATER.compareAndSet(v,0,1) ) { _size.incrementAndGet(); _ring.add(v); }
+      } else if( e <= _maxRef ) // Racey bump; a lost update only costs a lap
+        v._evict = e+1;
+    }
+
+    @Override Value next() {
+      // Every Value has its count lowered at most _maxRef times before it is
+      // selected, so (_maxRef+1) laps suffice unless racing touches keep
+      // re-referencing everything; then just take the head.
+      long budget = (long)(_maxRef+1)*_size.get();
+      Value v;
+      while( (v = _ring.poll()) != null ) {
+        int e = v._evict;
+        if( e > 1 && isLive(v) && budget-- > 0 ) { // Referenced since the last lap
+          v._evict = e-1;          // Second chance
+          _ring.add(v);
+          continue;
+        }
+        v._evict = 0;
+        _size.decrementAndGet();
+        if( isLive(v) ) return v; // Cold; else silently drop a dead Value
+      }
+      return null;
+    }
+
+    @Override void expunge() {
+      for( Iterator<Value> it = _ring.iterator(); it.hasNext(); ) {
+        Value v = it.next();
+        if( !isLive(v) ) {
+          it.remove();
+          v._evict = 0;
+          _size.decrementAndGet();
+        }
+      }
+    }
+
+    @Override int size() { return _size.get(); }
+    @Override Iterator<Value> iterator() { return _ring.iterator(); }
+  }
+}
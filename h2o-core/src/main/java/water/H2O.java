@@ -118,6 +118,65 @@ final public class H2O {
             "    -ice_root <fileSystemPath>\n" +
             "          The directory where H2O spills temporary data to disk.\n" +
             "\n" +
+            "    -ice_segments\n" +
+            "          Spill to a few large append-only files in ice_root, written\n" +
+            "          in batches by a background thread, instead of one file per\n" +
+            "          spilled chunk.\n" +
+            "\n" +
+            "    -ice_compress <none|lz|deflate>\n" +
+            "          Compress data spilled to ice_root: lz is fast, deflate is\n" +
+            "          smaller.  (The default is none.)\n" +
+            "\n" +
+            "    -off_heap_mem <megabytes>\n" +
+            "          Swap cold data into up to this much memory outside the Java\n" +
+            "          heap before spilling to ice_root.  Implies -cleaner.\n" +
+            "          (The default is 0, no off-heap swapping.)\n" +
+            "\n" +
+            "    -eviction <lru|lfu>\n" +
+            "          Order in which cached data is freed under memory pressure.\n" +
+            "          lfu keeps repeatedly scanned data resident longer.\n" +
+            "          (The default is lru.)\n" +
+            "\n" +
+            "    -remote_cache <megabytes>\n" +
+            "          Keep up to this much data fetched from other nodes cached\n" +
+            "          locally, dropping the least recently used first.\n" +
+            "          (The default is 1/8 of the heap.)\n" +
+            "\n" +
+            "    -job_mem_quota <megabytes>\n" +
+            "          While memory is low, block a job's allocations on a node once\n" +
+            "          it has allocated this much there since the last full GC, so\n" +
+            "          one job cannot starve the others.\n" +
+            "          (The default is 0, no per-job quota.)\n" +
+            "\n" +
+            "    -tcp_lanes <n>\n" +
+            "          Number of TCP channels to each other node for small messages,\n" +
+            "          plus one dedicated channel for acks, heartbeats and other\n" +
+            "          high-priority traffic; also the number of pooled channels\n" +
+            "          for large payloads (at least 2).\n" +
+            "          (The default is 1.)\n" +
+            "\n" +
+            "    -wire_compress <none|lz|deflate>\n" +
+            "          Compress large messages sent between nodes over TCP; message\n" +
+            "          types whose data does not compress are sent as-is.\n" +
+            "          All nodes must use the same setting.  (The default is none.)\n" +
+            "\n" +
+            "    -wire_compress_min <bytes>\n" +
+            "          Only compress TCP pages of at least this many bytes.\n" +
+            "          (The default is 16384.)\n" +
+            "\n" +
+            "    -mr_fanout <k>\n" +
+            "          Each node launches map/reduce tasks on up to k other nodes;\n" +
+            "          larger k means fewer hops on large clouds.  0 launches on all\n" +
+            "          nodes from the home node and merges results as they arrive.\n" +
+            "          (The default is 2, a binary tree.)\n" +
+            "\n" +
+            "    -typemap <file>\n" +
+            "          Load the type IDs of serialized classes from this file at\n" +
+            "          startup, so tasks do not wait on the leader for them.  When\n" +
+            "          the cloud shuts down, every node saves all IDs to its file\n" +
+            "          for the next start.  All nodes must load the same file; an\n" +
+            "          empty file starts a new type map.\n" +
+            "\n" +
             "    -log_dir <fileSystemPath>\n" +
             "          The directory where H2O writes logs to disk.\n" +
             "          (This usually has a good default that you need not change.)\n" +
@@ -242,6 +301,39 @@ final public class H2O {
     /** -cleaner; enable user-mode spilling of big data to disk in ice_root */
     public boolean cleaner = false;
 
+    /** -ice_segments; spill to large append-only segment files in ice_root, written asynchronously */
+    public boolean ice_segments = false;
+
+    /** -ice_compress=none|lz|deflate; spill codec for data swapped to ice_root */
+    public String ice_compress = "none";
+
+    /** -off_heap_mem=MB; swap big data to this much off-heap memory before spilling to ice_root; 0 to disable */
+    public int off_heap_mem = 0;
+
+    /** -eviction=lru|lfu; order in which the Cleaner frees cached Chunks */
+    public String eviction = "lru";
+
+    /** -remote_cache=MB; max data fetched from other nodes kept cached locally; 0 for 1/8th of the heap */
+    public int remote_cache = 0;
+
+    /** -job_mem_quota=MB; default per-node, per-Job allocation quota between FullGCs under memory pressure; 0 to disable */
+    public int job_mem_quota = 0;
+
+    /** -tcp_lanes=n; TCP channels per peer for small messages, besides the high-priority one */
+    public int tcp_lanes = 1;
+
+    /** -wire_compress=none|lz|deflate; codec for large messages sent over TCP */
+    public String wire_compress = "none";
+
+    /** -wire_compress_min=bytes; smallest TCP page worth compressing */
+    public int wire_compress_min = 16384;
+
+    /** -mr_fanout=k; MRTask fan-out degree; 0 for all nodes from the home node */
+    public int mr_fanout = 2;
+
+    /** -typemap=/path/to/file; persisted type IDs, loaded at startup and saved by every node at shutdown */
+    public String typemap;
+
     /** -nthreads=nthreads; Max number of F/J threads in the low-priority batch queue */
     public char nthreads= (char)Runtime.getRuntime().availableProcessors();
 
@@ -495,6 +587,50 @@ final public class H2O {
         i = s.incrementAndCheck(i, args);
         ARGS.cleaner = true;
       }
+      else if(s.matches("ice_segments")) {
+        ARGS.ice_segments = true;
+      }
+      else if(s.matches("ice_compress")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.ice_compress = args[i];
+      }
+      else if(s.matches("off_heap_mem")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.off_heap_mem = s.parseInt(args[i]);
+        ARGS.cleaner = true;
+      }
+      else if(s.matches("eviction")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.eviction = args[i];
+      }
+      else if(s.matches("remote_cache")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.remote_cache = s.parseInt(args[i]);
+      }
+      else if(s.matches("job_mem_quota")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.job_mem_quota = s.parseInt(args[i]);
+      }
+      else if(s.matches("tcp_lanes")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.tcp_lanes = s.parseInt(args[i]);
+      }
+      else if(s.matches("wire_compress")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.wire_compress = args[i];
+      }
+      else if(s.matches("wire_compress_min")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.wire_compress_min = s.parseInt(args[i]);
+      }
+      else if(s.matches("mr_fanout")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.mr_fanout = s.parseInt(args[i]);
+      }
+      else if(s.matches("typemap")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.typemap = args[i];
+      }
       else if (s.matches("jks")) {
         i = s.incrementAndCheck(i, args);
         ARGS.jks = args[i];
@@ -535,6 +671,38 @@ final public class H2O {
       }
     }
 
+    if (!ARGS.ice_compress.equals("none") && !ARGS.ice_compress.equals("lz") && !ARGS.ice_compress.equals("deflate")) {
+      parseFailed("Unknown spill codec: " + ARGS.ice_compress);
+    }
+
+    if (!ARGS.wire_compress.equals("none") && !ARGS.wire_compress.equals("lz") && !ARGS.wire_compress.equals("deflate")) {
+      parseFailed("Unknown wire codec: " + ARGS.wire_compress);
+    }
+
+    if (ARGS.wire_compress_min < 0) {
+      parseFailed("Wire compression threshold must not be negative: " + ARGS.wire_compress_min);
+    }
+
+    if (ARGS.mr_fanout == 1 || ARGS.mr_fanout < 0) {
+      parseFailed("MRTask fan-out must be 0 or at least 2: " + ARGS.mr_fanout);
+    }
+
+    if (!ARGS.eviction.equals("lru") && !ARGS.eviction.equals("lfu")) {
+      parseFailed("Unknown eviction policy: " + ARGS.eviction);
+    }
+
+    if (ARGS.remote_cache < 0) {
+      parseFailed("Remote cache size must not be negative: " + ARGS.remote_cache);
+    }
+
+    if (ARGS.job_mem_quota < 0) {
+      parseFailed("Job memory quota must not be negative: " + ARGS.job_mem_quota);
+    }
+
+    if (ARGS.tcp_lanes < 1 || ARGS.tcp_lanes > 64) {
+      parseFailed("Number of TCP lanes must be between 1 and 64: " + ARGS.tcp_lanes);
+    }
+
     int login_arg_count = 0;
     if (ARGS.hash_login) login_arg_count++;
     if (ARGS.ldap_login) login_arg_count++;
@@ -625,6 +793,7 @@ final public class H2O {
     return orderlyShutdown(-1);
   }
   public static int orderlyShutdown(int timeout) {
+    TypeMap.save();             // Every node keeps its own copy of the type IDs, with -typemap
     boolean [] confirmations = new boolean[H2O.CLOUD.size()];
     if (H2O.SELF.index() >= 0) { // Do not wait for clients to shutdown
       confirmations[H2O.SELF.index()] = true;
@@ -1153,8 +1322,16 @@ final public class H2O {
     protected H2OCountedCompleter(H2OCountedCompleter completer, byte prior) {
       super(completer);
       _priority = prior;
+      if( MemoryManager.jobQuotas() ) _jobKey = MemoryManager.currentJob();
     }
 
+    // Job this task's allocations are accounted to (see MemoryManager), only
+    // tracked while Job quotas are on.  Inherited from the task running when
+    // this one is made; MRTasks pass it along to remote nodes.
+    transient Key _jobKey;
+    /** Account this task's, and its sub-tasks', allocations to the given Job */
+    public final void setJob( Key jobKey ) { _jobKey = jobKey; }
+
     /** Used by the F/J framework internally to do work.  Once per F/J task,
      *  drain the high priority queue before doing any low priority work.
      *  Calls {@link #compute2} which contains actual work. */
@@ -1175,7 +1352,11 @@ final public class H2O {
             t._priority = p;      // Set & do it now!
             t.setPriority(Thread.MAX_PRIORITY-1);
             set_t_prior = true;
-            h2o.compute2();       // Do it ahead of normal F/J work
+            if( MemoryManager.jobQuotas() ) {
+              Object job = MemoryManager.enterJob(h2o._jobKey);
+              try { h2o.compute2(); } // Do it ahead of normal F/J work
+              finally { MemoryManager.exitJob(job); }
+            } else h2o.compute2();  // Do it ahead of normal F/J work
             p++;                  // Check again the same queue
           }
         }
@@ -1189,6 +1370,12 @@ final public class H2O {
         if( pp == MIN_PRIORITY && set_t_prior ) t.setPriority(Thread.NORM_PRIORITY-1);
       }
       // Now run the task as planned
+      if( !MemoryManager.jobQuotas() ) { runTask(); return; }
+      Object job = MemoryManager.enterJob(_jobKey);
+      try { runTask(); }
+      finally { MemoryManager.exitJob(job); }
+    }
+    private void runTask() {
       if( this instanceof DTask ) icer().compute1(this);
       else compute2();
     }
@@ -1416,8 +1603,12 @@ final public class H2O {
             "  2. Point your browser to " + jetty.getScheme() + "://localhost:55555");
 
 
+    // Fix the type IDs known from the start, before the first heartbeat
+    TypeMap.preload();
+
     // Create the starter Cloud with 1 member
     SELF._heartbeat._jar_md5 = JarHash.JARHASH;
+    SELF._heartbeat._typemap_hash = TypeMap.PRELOAD_HASH;
     SELF._heartbeat._client = ARGS.client;
   }
 
@@ -1629,6 +1820,7 @@ final public class H2O {
     // Insert into the K/V store
     Value res = STORE.putIfMatchUnlocked(key,val,old);
     if( res != old ) return res; // Return the failure cause
+    if( key.isChunkKey() ) ChunkStore.sync(key); // Mirror in the Chunk index
     // Persistence-tickle.
     // If the K/V mapping is going away, remove the old guy.
     // If the K/V mapping is changing, let the store cleaner just overwrite.
@@ -1636,6 +1828,7 @@ final public class H2O {
     if( old != null && val == null ) old.removePersist(); // Remove the old guy
     if( val != null ) {
       Cleaner.dirty_store(); // Start storing the new guy
+      if( key.isChunkKey() ) EvictionPolicy.POLICY.touch(val); // Index for eviction
       if( old==null ) Scope.track_internal(key); // New Key - start tracking
     }
     return old; // Return success
@@ -1644,9 +1837,10 @@ final public class H2O {
   // Get the value from the store
   public static void raw_remove(Key key) {
     Value v = STORE.remove(key);
+    if( key.isChunkKey() ) ChunkStore.sync(key);
     if( v != null ) v.removePersist();
   }
-  public static void raw_clear() { STORE.clear(); }
+  public static void raw_clear() { STORE.clear(); ChunkStore.clear(); }
   public static boolean containsKey( Key key ) { return STORE.get(key) != null; }
   static Key getk( Key key ) { return STORE.getk(key); }
   public static Set<Key> localKeySet( ) { return STORE.keySet(); }
@@ -9,6 +9,7 @@ import java.nio.channels.SocketChannel;
 import java.util.*;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import water.RPC.RPCCall;
 import water.nbhm.NonBlockingHashMap;
@@ -135,8 +136,14 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
         IDX = Arrays.copyOf(IDX,IDX.length<<1);
       IDX[idx] = h2o;
     }
-    h2o._sendThread = h2o.new UDP_TCP_SendThread(); // Launch the UDP send thread
-    h2o._sendThread.start();
+    // Launch the UDP send threads: one lane for high-priority messages, the
+    // rest for everything else
+    UDP_TCP_SendThread lanes[] = new UDP_TCP_SendThread[1+Math.max(1,H2O.ARGS.tcp_lanes)];
+    for( int i=0; i<lanes.length; i++ ) {
+      lanes[i] = h2o.new UDP_TCP_SendThread(i);
+      lanes[i].start();
+    }
+    h2o._sendThreads = lanes;
     return h2o;
   }
   public static H2ONode intern( InetAddress ip, int port ) { return intern(new H2Okey(ip,port)); }
@@ -226,7 +233,7 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   // A queue of available TCP sockets
   // re-usable TCP socket opened to this node, or null.
   // This is essentially a BlockingQueue/Stack that allows null.
-  private transient SocketChannel _socks[] = new SocketChannel[2];
+  private transient SocketChannel _socks[] = new SocketChannel[Math.max(2,H2O.ARGS.tcp_lanes)];
   private transient int _socksAvail=_socks.length;
   // Count of concurrent TCP requests both incoming and outgoing
   static final AtomicInteger TCPS = new AtomicInteger(0);
@@ -253,7 +260,7 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     boolean res = sock2.connect( _key );
     assert res && !sock2.isConnectionPending() && sock2.isBlocking() && sock2.isConnected() && sock2.isOpen();
     ByteBuffer bb = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
-    bb.put((byte)2);
+    bb.put((byte)(WireCompressor.enabled() ? 3 : 2)); // Big; framed if compressing
     bb.putChar((char)H2O.H2O_PORT);
     bb.put((byte)0xef);
     bb.flip();
@@ -278,8 +285,27 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   // is specifically not any of the above channels.  This channel is limited to
   // messages which are presented in their entirety (not streamed) thus never
   // need another (nested) TCP channel.
-  private transient UDP_TCP_SendThread _sendThread = null; // set notnull if properly interned, and done before first sendMessage
-  public void sendMessage( ByteBuffer bb, byte msg_priority ) { _sendThread.sendMessage(bb,msg_priority); }
+  //
+  // There are several such channels ("lanes") per node.  Lane 0 carries only
+  // messages at or above H2O.MIN_HI_PRIORITY - acks, ackacks, heartbeats, K/V
+  // gets & puts - so they never queue behind a backlog of task launches; the
+  // other lanes share the remaining messages round-robin, so a burst of
+  // traffic to one node is spread over several TCP streams.  Small messages
+  // are independent (they stand in for UDP packets), so no ordering between
+  // lanes is needed.
+  private transient UDP_TCP_SendThread _sendThreads[] = null; // set notnull if properly interned, and done before first sendMessage
+  private transient int _lane;  // Round-robin lane for low-priority messages; racy is fine
+  public void sendMessage( ByteBuffer bb, byte msg_priority ) {
+    UDP_TCP_SendThread lanes[] = _sendThreads;
+    int lane = 0;
+    if( msg_priority < H2O.MIN_HI_PRIORITY ) {
+      int n = lanes.length-1;
+      lane = 1+((_lane++ & Integer.MAX_VALUE) % n);
+    }
+    lanes[lane].sendMessage(bb,msg_priority);
+  }
+  /** Number of small-message TCP lanes to this node, including the high-priority one */
+  public int lanes() { return _sendThreads == null ? 0 : _sendThreads.length; }
 
   // Private thread serving (actually ships the bytes over) small msg Q.
   // Buffers the small messages together and sends the bytes over via TCP channel.
@@ -288,8 +314,9 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     private SocketChannel _chan;  // Lazily made on demand; closed & reopened on error
     private final ByteBuffer _bb; // Reusable output large buffer
   
-    public UDP_TCP_SendThread(){
-      super("UDP-TCP-SEND-" + H2ONode.this);
+    public UDP_TCP_SendThread(int lane){
+      super("UDP-TCP-SEND-" + (lane==0 ? "HI-" : lane+"-") + H2ONode.this);
+      if( lane==0 ) setPriority(MAX_PRIORITY-1);
       _bb = AutoBuffer.BBP_BIG.make();
     }
   
@@ -319,8 +346,9 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   
     private final PriorityBlockingQueue<ByteBuffer> _msgQ
       = new PriorityBlockingQueue<>(11,new Comparator<ByteBuffer>() {
-          // Secret back-channel priority: the position field (capped at bb.limit)
-          @Override public int compare( ByteBuffer bb1, ByteBuffer bb2 ) { return bb1.position() - bb2.position(); }
+          // Secret back-channel priority: the position field (capped at bb.limit).
+          // Highest priority first.
+          @Override public int compare( ByteBuffer bb1, ByteBuffer bb2 ) { return bb2.position() - bb1.position(); }
         });
   
     @Override public void run(){
@@ -422,6 +450,44 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     return null;
   }
 
+  // ---------------
+  // Round-trip time to this Node, estimated Jacobson/Karels style: a smoothed
+  // RTT and its mean deviation, from the time between an ACK sent to this
+  // Node and its ACKACK.  Only small ACKs never resent are sampled (Karn's
+  // rule).  This is network time only, with no compute in it, so it only
+  // times the resend of an ACK: an RPC sent to this Node waits the fixed
+  // RPC.RETRY_MS for its answer, as the remote work may take that long.
+  private long _srtt, _rttvar;  // In usec; _srtt is 0 until the first sample
+  private long _rttSamples;
+  final AtomicLong _resends = new AtomicLong(); // RPC retries sent to this Node
+  final AtomicLong _nacks = new AtomicLong();   // "Working on it" replies from this Node
+
+  synchronized void rttSample( long usec ) {
+    usec = Math.max(usec,1);
+    if( _srtt == 0 ) { _srtt = usec; _rttvar = usec>>1; }
+    else {
+      long err = usec-_srtt;
+      _srtt += err>>3;          // gain 1/8
+      _rttvar += (Math.abs(err)-_rttvar)>>2; // gain 1/4
+    }
+    _rttSamples++;
+  }
+  public synchronized long srttMicros() { return _srtt; }
+  public synchronized long rttvarMicros() { return _rttvar; }
+  public synchronized long rttSamples() { return _rttSamples; }
+  public long resends() { return _resends.get(); }
+  public long nacks() { return _nacks.get(); }
+
+  /** Time to wait for the ACKACK of an answer sent to this Node before
+   *  resending it, in msec: SRTT + 4*RTTVAR, clamped to
+   *  [RPC.MIN_RETRY_MS, RPC.RETRY_MS]; RPC.RETRY_MS until the RTT is known. */
+  public long ackRetryMs() {
+    long srtt, rttvar;
+    synchronized( this ) { srtt = _srtt; rttvar = _rttvar; }
+    if( srtt == 0 ) return RPC.RETRY_MS;
+    return Math.min(Math.max((srtt+(rttvar<<2))/1000,RPC.MIN_RETRY_MS),RPC.RETRY_MS);
+  }
+
   // The next unique task# sent *TO* the 'this' Node.
   private final AtomicInteger _created_task_ids = new AtomicInteger(1);
   int nextTaskNum() { return _created_task_ids.getAndIncrement(); }
@@ -484,7 +550,8 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   void record_task_answer( RPC.RPCCall rpcall ) {
 //    assert rpcall._started == 0 || rpcall._dt.hasException();
     rpcall._started = System.currentTimeMillis();
-    rpcall._retry = RPC.RETRY_MS; // Start the timer on when to resend
+    rpcall._ackNanos = System.nanoTime(); // For the round-trip time to the ACKACK
+    rpcall._retry = ackRetryMs(); // Start the timer on when to resend
 //    AckAckTimeOutThread.PENDING.add(rpcall);
   }
   // Stop tracking a remote task, because we got an ACKACK.
@@ -499,6 +566,8 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     DTask dt = rpc._dt;         // The existing DTask, if any
     if( dt != null && rpc.CAS_DT(dt,null) ) {
       assert rpc._computed : "Still not done #"+task+" "+dt.getClass()+" from "+rpc._client;
+      if( rpc._ackResendCnt == 0 && !dt._repliedTcp && rpc._ackNanos != 0 )
+        rttSample((System.nanoTime()-rpc._ackNanos)/1000);
       dt.onAckAck();            // One-time call on stop-tracking
     }
     // Roll-up as many done RPCs as we can, into the _removed_task_ids list
@@ -2,6 +2,7 @@ package water;
 
 import java.util.Arrays;
 import water.init.JarHash;
+import water.util.Log;
 
 /**
  * Struct holding H2ONode health info.
@@ -15,6 +16,7 @@ public class HeartBeat extends Iced<HeartBeat> {
   long _jvm_boot_msec;          // Boot time of JVM
   public long jvmBootTimeMsec(){return _jvm_boot_msec;}
   byte[] _jar_md5;              // JAR file digest
+  int _typemap_hash;            // Hash of the preloaded type IDs
 
   public boolean _client;       // This is a client node: no keys homed here
 
@@ -64,6 +66,12 @@ public class HeartBeat extends Iced<HeartBeat> {
     return false;
   }
 
+  boolean check_typemap() {
+    if( _typemap_hash == TypeMap.PRELOAD_HASH ) return true;
+    Log.warn("Preloaded type IDs differ; my hash="+TypeMap.PRELOAD_HASH+", received hash="+_typemap_hash);
+    return false;
+  }
+
   // Internal profiling
   public float _gflops = Float.NaN;         // Number of GFlops for this node
   public float _membw;          // Memory bandwidth in GB/s
@@ -9,9 +9,11 @@ import water.nbhm.UtilUnsafe;
 public abstract class Icer<T extends Freezable> {
   protected static final Unsafe _unsafe = UtilUnsafe.getUnsafe();
   private final T _new;
-  public Icer(T iced) {
+  private final int _id;        // TypeMap ID; final, as Icers are read racily from TypeMap
+  public Icer(T iced, int id) {
     assert iced != null:"null freezable";
     _new=iced;
+    _id=id;
   }
   final T theFreezable() { return _new; }
   protected AutoBuffer write    (AutoBuffer ab, T ice) { /*base of the write call chain; no fields to write*/return ab; } 
@@ -19,12 +21,19 @@ public abstract class Icer<T extends Freezable> {
   protected T read    (AutoBuffer ab, T ice) { /*base of the read call chain; no fields to read*/return ice; }
   protected T readJSON(AutoBuffer ab, T ice) { /*base of the read call chain; no fields to read*/return ice; }
   protected void copyOver( T dst, T src ) { /*base of the call chain; no fields to copy*/ }
-  protected int frozenType() { throw fail(); }
+  protected int frozenType() { if( _id == 0 ) throw fail(); return _id; }
   protected String className() { throw fail(); }
   private RuntimeException fail() {
     return new RuntimeException(getClass().toString()+" should be automatically overridden by the auto-serialization code");
   }
   // That end in the TypeMap ID for "H2OCountedCompleter" class - which is "3".
 
+  /** Unsafe offset of a field, looked up once by the generated code: offsets
+   *  depend on the running JVM, so cannot be baked into pre-built Icers */
+  protected static long offset( String clazz, String field ) {
+    try { return _unsafe.objectFieldOffset(Class.forName(clazz).getDeclaredField(field)); }
+    catch( ClassNotFoundException | NoSuchFieldException e ) { throw new RuntimeException(e); }
+  }
+
   protected void compute1(water.H2O.H2OCountedCompleter h2cc ) { h2cc.compute1(); }
 }
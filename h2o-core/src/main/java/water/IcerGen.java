@@ -0,0 +1,83 @@
+package water;
+
+import javassist.CtClass;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/** Build-time generation of the {@link Icer} serializers.
+ *  <p>
+ *  Run by the build after compiling a module: every {@link Freezable} class
+ *  found under the given classes directory gets its Icer written to the
+ *  output directory, which the build puts on the runtime class path and in
+ *  the jar, so at runtime {@link Weaver} just loads it instead of weaving it
+ *  with javassist on first use.  Icers of classes from other modules are
+ *  taken from the class path.  Classes the Weaver cannot handle are reported
+ *  and left to fail, as before, only if they are ever serialized.
+ *  <p>
+ *  The Freezable classes are also listed in {@value TypeMap#RESOURCE}, in
+ *  the output directory, so every node gives them the same type IDs at
+ *  startup.
+ *  <pre>
+ *    java -cp classes:deps water.IcerGen build/classes/main build/classes/icers
+ *  </pre> */
+public class IcerGen {
+  public static void main( String[] args ) throws Exception {
+    if( args.length != 2 ) {
+      System.err.println("Usage: java water.IcerGen <classes-dir> <output-dir>");
+      System.exit(1);
+    }
+    generate(new File(args[0]),new File(args[1]));
+  }
+
+  /** Write the Icers of the Freezable classes under classes, and their list,
+   *  to out.  Returns the number of Icers written. */
+  static int generate( File classes, File out ) throws IOException {
+    ArrayList<String> names = new ArrayList<>();
+    scan(classes,"",names);
+    Collections.sort(names);
+    ArrayList<String> freezables = new ArrayList<>();
+    int made = 0, failed = 0;
+    for( String name : names ) {
+      Class clz;
+      try { clz = Class.forName(name,false,IcerGen.class.getClassLoader()); }
+      catch( Throwable t ) { continue; } // Unloadable here (missing optional deps); woven at runtime if ever used
+      if( clz.isInterface() || clz.isAnnotation() || !Freezable.class.isAssignableFrom(clz) ) continue;
+      freezables.add(name);
+      try {
+        CtClass icer = Weaver.makeIcer(clz);
+        icer.writeFile(out.getPath()); // Parents from this module are written in their own turn
+        made++;
+      } catch( Exception e ) {
+        System.err.println("IcerGen: no Icer for "+name+": "+e);
+        failed++;
+      }
+    }
+    File list = new File(out,TypeMap.RESOURCE);
+    if( !list.getParentFile().isDirectory() && !list.getParentFile().mkdirs() )
+      throw new IOException("Cannot create "+list.getParentFile());
+    try( Writer w = new OutputStreamWriter(new FileOutputStream(list),"UTF-8") ) {
+      for( String name : freezables ) w.write(name+"\n");
+    }
+    System.out.println("IcerGen: "+made+" Icers written to "+out+(failed > 0 ? ", "+failed+" left to the runtime Weaver" : ""));
+    return made;
+  }
+
+  // Collect the class names under dir
+  private static void scan( File dir, String pkg, ArrayList<String> names ) {
+    File[] files = dir.listFiles();
+    if( files == null ) return;
+    for( File f : files ) {
+      String fname = f.getName();
+      if( f.isDirectory() ) scan(f,pkg+fname+".",names);
+      else if( fname.endsWith(".class") && !fname.endsWith("$Icer.class") )
+        names.add(pkg+fname.substring(0,fname.length()-".class".length()));
+    }
+  }
+}
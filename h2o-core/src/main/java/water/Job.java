@@ -121,6 +121,13 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     return (Throwable)AutoBuffer.javaSerializeReadPojo(_ex);
   }
 
+  /** Bytes allocated cluster-wide by this Job's tasks; see {@link MemoryManager}. */
+  private long _mem_alloc;      // Set shortly after the Job stops
+  public long mem_alloc() {
+    update_from_remote();
+    return running() ? MemoryManager.jobAlloc(_key) : _mem_alloc;
+  }
+
   /** Total expected work. */
   public long _work;            // Total work to-do
   public long _max_runtime_msecs;
@@ -257,7 +264,8 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
         return old;
       }
     }.invoke(LIST);
-    // 4 - Fire off the FJTASK
+    // 4 - Fire off the FJTASK, accounting its allocations to this Job
+    fjtask.setJob(_key);
     H2O.submitTask(fjtask);
     return this;
   }
@@ -282,6 +290,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     @Override public void compute() { }
     @Override public void onCompletion(CountedCompleter caller) {
       new Barrier1OnCom().apply(Job.this);
+      releaseMem();
       _barrier = null;          // Free for GC
     }
     @Override public boolean onExceptionalCompletion(Throwable ex, CountedCompleter caller) {
@@ -294,11 +303,28 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
         } catch (Throwable t) {/* do nothing */}
         new Barrier1OnExCom(ex).apply(Job.this);
       }
+      releaseMem();
       _barrier = null;          // Free for GC
       return true;
     }
   }
 
+  // Collect the Job's allocations and drop its accounting on all nodes.  This
+  // waits on the whole cluster, so it runs as its own task rather than
+  // holding up the waiters on Job.get().
+  private void releaseMem() {
+    if( !MemoryManager.jobQuotas() ) return;
+    final Key<Job> key = _key;
+    H2O.H2OCountedCompleter rel = new H2O.H2OCountedCompleter() {
+      @Override public void compute2() {
+        new MemAlloc(MemoryManager.releaseJob(key)).invoke(key);
+        tryComplete();
+      }
+    };
+    rel.setJob(null);
+    H2O.submitTask(rel);
+  }
+
   static public boolean isCancelledException(Throwable ex) {
     return ex instanceof JobCancelledException || ex.getCause() != null && ex.getCause() instanceof JobCancelledException;
   }
@@ -324,6 +350,12 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
       job._msg = "Failed.";
     }
   }
+  private static class MemAlloc extends JAtomic {
+    final long _mem;
+    MemAlloc(long mem) { _mem = mem; }
+    @Override boolean abort(Job job) { return false; }
+    @Override void update(Job job) { job._mem_alloc = _mem; }
+  }
   private class Barrier2 extends CountedCompleter {
     @Override public void compute() { }
   }
@@ -372,6 +404,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     if(_worked    != remote._worked    ) differ = true;
     if(_msg       != remote._msg       ) differ = true;
     if(_max_runtime_msecs != remote._max_runtime_msecs) differ = true;
+    if(_mem_alloc != remote._mem_alloc) differ = true;
     if( differ )
       synchronized(this) { 
         _stop_requested = remote._stop_requested;
@@ -382,6 +415,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
         _worked    = remote._worked    ;
         _msg       = remote._msg       ;
         _max_runtime_msecs = remote._max_runtime_msecs;
+        _mem_alloc = remote._mem_alloc;
       }
   }
   @Override public Class<KeyV3.JobKeyV3> makeSchema() { return KeyV3.JobKeyV3.class; }
@@ -8,6 +8,9 @@ import water.util.PrettyPrint;
 import water.fvec.Vec.VectorGroup;
 
 import java.util.Arrays;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Map/Reduce style distributed computation.
@@ -70,12 +73,13 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *
   *    internal "top-level" fields
   *    ---------------------------
-  *     - RPC<T> _nleft, _nrite: "child" node/JVMs that are doing work
+  *     - RPC<T> _nrpcs[]      : "child" node/JVMs that are doing work
   *     - boolean _topLocal    : "root" MRTask on a local machine
   *     - boolean _topGlobal   : "root" MRTask on the "root" node
   *     - T _left, _rite       : "child" MRTasks on a local machine
   *     - T _res               : "result" MRTask (everything reduced into here)
   *     - int _nlo,_nhi        : range of nodes to do remote work on (divide-conquer; see Diagram 2)
+  *     - short _fanout        : number of ranges the nodes are split into, at each node
   *     - Futures _fs          : _topLocal task blocks on _fs for _left and _rite to complete
   *
   *       Diagram 1: N is for Node; T is for Task
@@ -101,9 +105,9 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *                ==>       setupLocal0 on N1
   *                            - topLocal=true
   *                            - _fs = new Futures()
-  *                            - nmid = (_nlo + _nhi) >> 1 => split the range of nodes (divide-conquer)
-  *                            - _nleft = remote_compute(_nlo,nmid) => chooses a node in range and does new RPC().call()
-  *                            - _nrite = remote_compute(nmid,_nhi)    serializing MRTask and call dinvoke on remote.
+  *                            - split the range of nodes in _fanout parts (divide-conquer; 2 shown here)
+  *                            - _nrpcs[0] = remote_compute(_nlo,nmid) => chooses a node in range and does new RPC().call()
+  *                            - _nrpcs[1] = remote_compute(nmid,_nhi)    serializing MRTask and call dinvoke on remote.
   *                           /                                 \
   *                         /                                     \
   *                       /                                         \
@@ -114,6 +118,12 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *                     - (continue splitting)                      - (continue splitting)
   *                   H2O.submitTask(this) => compute2            H2O.submitTask(this) => compute2
   *
+  *    With a fan-out of 2 (the default) the remote results are reduced in
+  *    node order once the local work is done, so reductions are repeatable.
+  *    With a larger fan-out the tree is shallower - with FLAT, the home node
+  *    launches on every node itself - and each remote result is reduced as
+  *    soon as it arrives, overlapping the merges with the remaining work.
+  *
   */
 
   public MRTask() { super(); }
@@ -149,8 +159,25 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
    *  style, can not be passed via K/V store).*/
   protected AppendableVec[] _appendables;
 
-  /** Internal field to track the left &amp; right remote nodes/JVMs to work on */
-  transient protected RPC<T> _nleft, _nrite;
+  /** Internal field to track the remote nodes/JVMs to work on */
+  transient protected RPC<T>[] _nrpcs;
+
+  /** Remote results reduced as they arrive (fan-out other than 2, or
+   *  speculative), or null */
+  transient protected T _rres;
+
+  /** Re-run straggling remote subtrees locally; see {@link #speculative()} */
+  protected boolean _speculative;
+
+  /** Remote subtrees watched for stragglers, or null */
+  transient protected Spec[] _specs;
+
+  /** For a backup run of a straggling subtree: the (relative) range of nodes
+   *  whose Chunks or Keys it maps.  Empty for normal runs. */
+  transient protected int _bnlo, _bnhi;
+
+  /** Set once this node's setupLocal is done; backup runs copy its state */
+  transient private volatile boolean _localSetupDone;
 
   /** Internal field to track if this is a top-level local call */
   transient protected boolean _topLocal; // Top-level local call, returning results over the wire
@@ -167,9 +194,56 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   /** The range of Nodes to work on remotely */
   protected short _nlo, _nhi;
 
+  /** Number of parts each node splits its range of nodes into; 0 for the
+   *  cloud default ({@code -mr_fanout}) */
+  protected short _fanout;
+
+  /** Job the remote work is accounted to; see {@link MemoryManager} */
+  Key _remoteJobKey;
+
+  /** Fan-out launching straight from the home node to every other node */
+  public static final int FLAT = Short.MAX_VALUE;
+
+  /** Set the fan-out of remote work: each node launches this task on up to k
+   *  other nodes, each covering 1/k of its range.  2 is a binary tree; larger
+   *  k makes for fewer hops between the home node and the leaves, at the cost
+   *  of more results to merge per node; {@link #FLAT} launches on all nodes
+   *  from the home node.  Remote results are merged in arrival order unless
+   *  k is 2.  Call before doAll.  */
+  public T fanout( int k ) {
+    if( k < 2 ) throw new IllegalArgumentException("Fan-out must be at least 2, got "+k);
+    _fanout = (short)Math.min(k,FLAT);
+    return self();
+  }
+  /** Opt in to straggler mitigation: when a remote subtree takes much longer
+   *  than this node's own share of the work or its sibling subtrees (a
+   *  GC-ing or overloaded node), this node starts a backup run of the
+   *  subtree's work itself, fetching the Chunks or Keys homed on those nodes,
+   *  and takes whichever run finishes first; the loser is cancelled.  The
+   *  backup runs on a copy of this node's task, made after this node's
+   *  setupLocal, and shares its node-local state: neither setupLocal nor
+   *  closeLocal is called again for it, so closeLocal sees the maps of both
+   *  this node's own Chunks or Keys and those of the backup.  The straggling
+   *  nodes' own run is not stopped by the cancel, which only drops its RPC -
+   *  they still run their setupLocal, maps and closeLocal to the end.  Only
+   *  for tasks whose map and reduce are pure functions of the input data: the
+   *  map calls may run twice, and must not write to their Chunks or make
+   *  output Vecs; a cancelled backup's last map calls may also still be
+   *  running when closeLocal is called.  Remote results are then merged in
+   *  arrival order.  Call before doAll.  */
+  public T speculative() { _speculative = true; return self(); }
+
+  private int fanout() { return _fanout != 0 ? _fanout : (H2O.ARGS.mr_fanout == 0 ? FLAT : H2O.ARGS.mr_fanout); }
+
   /** Internal field to track a range of local Chunks to work on */
   transient protected int _lo, _hi;
 
+  /** Running total of the estimated cost of mapping each Chunk or Key on this
+   *  node (zero for those homed elsewhere), so local work is split into halves
+   *  of equal cost instead of equal count.  Computed at the first split of the
+   *  local work; null to split on the mid-point. */
+  transient protected long[] _cost;
+
   /** We can add more things to block on - in case we want a bunch of lazy
    *  tasks produced by children to all end before this top-level task ends.
    *  Semantically, these will all complete before we return from the top-level
@@ -319,6 +393,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     // last job, and the exec time & completion time of 1st job done.
     long _time1st, _done1st;
     int _size_rez0, _size_rez1; // i/o size in bytes during reduce
+    int _stragglers, _backupWins; // Subtrees re-run locally, and how often the re-run won
     MRProfile _last;
     long sumTime() { return _onCdone - (_localstart==0 ? _mapstart : _localstart); }
     void gather( MRProfile p, int size_rez ) {
@@ -332,6 +407,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       if( size_rez !=0 )        // Record i/o result size
         if( _size_rez0 == 0 ) _size_rez0=size_rez;
         else                  _size_rez1=size_rez;
+      _stragglers += p._stragglers;
+      _backupWins += p._backupWins;
       assert _userstart !=0 || _last != null;
       assert _last._onCdone >= _done1st;
     }
@@ -362,6 +439,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         sb.append("ms, close " ).append(       _onCdone-  _localBlkDone);
         sb.append("ms, size "  ).append(PrettyPrint.bytes(_size_rez0)).append("+").append(PrettyPrint.bytes(_size_rez1));
       }
+      if( _stragglers != 0 )
+        sb.append(", stragglers ").append(_stragglers).append(" (backup won ").append(_backupWins).append(")");
       sb.append(")\n");
       return sb;
     }
@@ -497,7 +576,13 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   /** Called once on remote at top level, probably with a subset of the cloud.
    *  Called internal by D/F/J.  Not expected to be user-called.  */
   @Override public final void dinvoke(H2ONode sender) {
-    setupLocal0();              // Local setup
+    setJob(_remoteJobKey);      // Account to the same Job as the sender
+    if( !MemoryManager.jobQuotas() ) setupLocal0(); // Local setup
+    else {
+      Object job = MemoryManager.enterJob(_remoteJobKey);
+      try { setupLocal0(); }
+      finally { MemoryManager.exitJob(job); }
+    }
     H2O.submitTask(this);
   }
 
@@ -516,16 +601,29 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     int selfidx = selfidx();
     int nlo = subShift(selfidx);
     assert nlo < _nhi;
-    final int nmid = (nlo+_nhi)>>>1; // Mid-point
 
     // Run remote IF:
     // - Not forced to run local (no remote jobs allowed) AND
     // - - There's remote work, or Client mode (always remote work)
     if( (!_run_local) && ((nlo+1 < _nhi) || H2O.ARGS.client) ) {
+      // Split [nlo,_nhi) into k parts; the first part skips self (unless a
+      // client, which does no work).  With k=2 these are the left & right
+      // halves around the mid-point.
+      final int k = Math.min(fanout(),_nhi-nlo);
+      final int start = H2O.ARGS.client ? nlo : nlo+1;
+      final boolean spec = _speculative && _output_types == null && (_fr != null || _keys != null);
+      _nrpcs = new RPC[k];
+      if( spec ) _specs = new MRTask.Spec[k];
       if(_profile!=null) _profile._rpcLstart = System.currentTimeMillis();
-      _nleft = remote_compute(H2O.ARGS.client ? nlo : nlo+1,nmid);
-      if(_profile!=null) _profile._rpcRstart = System.currentTimeMillis();
-      _nrite = remote_compute( nmid,_nhi);
+      for( int i=0; i<k; i++ ) {
+        if(_profile!=null && i==k-1) _profile._rpcRstart = System.currentTimeMillis();
+        int lo = nlo+(int)((long)(_nhi-nlo)*i/k), hi = nlo+(int)((long)(_nhi-nlo)*(i+1)/k);
+        if( spec && Math.max(lo,start) < hi ) {
+          _specs[i] = new Spec(Math.max(lo,start),hi);
+          _nrpcs[i] = _specs[i]._rpc;
+        } else
+          _nrpcs[i] = remote_compute(Math.max(lo,start),hi,k != 2);
+      }
       if(_profile!=null) _profile._rpcRdone  = System.currentTimeMillis();
     } else {
       if(_profile!=null) 
@@ -542,12 +640,14 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     // Setup any user's shared local structures for both normal cluster nodes
     // and any client; want this for possible reduction ONTO client
     setupLocal();
+    _localSetupDone = true;
     if(_profile!=null) _profile._localdone = System.currentTimeMillis();
   }
 
   // Make an RPC call to some node in the middle of the given range.  Add a
   // pending completion to self, so that we complete when the RPC completes.
-  private RPC<T> remote_compute( int nlo, int nhi ) {
+  // If eager, the RPC's result is reduced as soon as it arrives.
+  private RPC<T> remote_compute( int nlo, int nhi, boolean eager ) {
     if( nlo < nhi ) {  // have remote work
       int node = addShift(nlo);
       assert node != H2O.SELF.index(); // Not the same as selfidx() if this is a client
@@ -563,19 +663,188 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       // - when launched on the local (right here, in this next line of code)
       //   the completed RPC calls our self completion.  i.e. the completed RPC
       //   calls MRTask.onCompletion
-      return new RPC<>(H2O.CLOUD._memary[node], mrt).addCompleter(this).call();
+      RPC<T> rpc = new RPC<>(H2O.CLOUD._memary[node], mrt);
+      return rpc.addCompleter(eager ? new RemoteReduce(rpc) : this).call();
     }
     return null; // nlo >= nhi => no remote work
   }
 
+  // Completer of an eagerly reduced RPC: merges the RPC's result into _rres
+  // when it arrives, then completes its parent MRTask's pending count.
+  private final class RemoteReduce extends H2O.H2OCountedCompleter {
+    private final RPC<T> _rpc;
+    RemoteReduce( RPC<T> rpc ) { super(MRTask.this); _rpc = rpc; }
+    @Override public void compute2() { throw H2O.fail(); }
+    @Override public void onCompletion( CountedCompleter caller ) {
+      T mrt = _rpc._dt;         // Done, and not exceptional, else no onCompletion
+      synchronized( MRTask.this ) {
+        if( _profile != null ) _profile.gather(mrt._profile, _rpc.size_rez());
+        if( mrt._nhi != -1L ) { // Any results at all?
+          if( _rres == null ) _rres = mrt;
+          else _rres.reduce4(mrt);
+        }
+      }
+    }
+  }
+
+  // Straggler mitigation.  A subtree is a straggler once it has run SLOW
+  // times as long as the first of its siblings to finish, and at least
+  // MIN_STRAGGLE_MS.
+  private static final double SLOW = 3.0;
+  private static final long MIN_STRAGGLE_MS = 1000;
+  private static final Timer STRAGGLE_TIMER = new Timer("MRTask-Straggler",true);
+
+  // A remote subtree, raced by a local backup run once it straggles.  The
+  // first of the two to finish is reduced into _rres; the other is cancelled.
+  private final class Spec {
+    final int _nlo, _nhi;       // Relative range of nodes of the subtree
+    final RPC<T> _rpc;
+    final long _start = System.currentTimeMillis();
+    final AtomicBoolean _done = new AtomicBoolean();
+    volatile MRTask<T> _backup;
+    Spec( int nlo, int nhi ) {
+      _nlo = nlo; _nhi = nhi;
+      T mrt = copyAndInit();
+      mrt._nhi = (short)nhi;
+      addToPendingCount(1);     // Not complete until the RPC or the backup is
+      _rpc = new RPC<>(H2O.CLOUD._memary[addShift(nlo)], mrt);
+      _rpc.addCompleter(new SpecDone(this,false)).call();
+    }
+    // First to finish wins; res is its result, or null if it had none
+    void finish( boolean isBackup, T res, MRProfile prof, int size_rez ) {
+      if( !_done.compareAndSet(false,true) ) return;
+      long ms = System.currentTimeMillis()-_start;
+      synchronized( MRTask.this ) {
+        if( _profile != null ) {
+          if( prof != null ) _profile.gather(prof,size_rez);
+          if( isBackup ) _profile._backupWins++;
+        }
+        if( res != null ) {
+          if( _rres == null ) _rres = res;
+          else _rres.reduce4(res);
+        }
+      }
+      MRTask<T> b = _backup;
+      if( isBackup ) _rpc.cancel(true); // Backup won; stop waiting on the remote
+      else if( b != null ) b.self_cancel2(); // Remote won; stop the backup
+      watch(ms);
+      tryComplete();
+    }
+    void fail( Throwable ex ) {
+      if( _done.compareAndSet(false,true) ) completeExceptionally(ex);
+    }
+    // Start the backup run, unless done or already started.  Not before this
+    // node's setupLocal is done, as the backup copies its node-local state; a
+    // later watch, at the latest once the local share is done, tries again.
+    void backup() {
+      if( _done.get() || _backup != null || !_localSetupDone ) return;
+      final MRTask<T> b;
+      synchronized( this ) {
+        if( _backup != null ) return;
+        b = copyAndInit();
+        b._res = null;
+        b.setCompleter(new SpecDone(this,true));
+        _backup = b;
+      }
+      synchronized( MRTask.this ) { if( _profile != null ) _profile._stragglers++; }
+      H2O.submitTask(new H2O.H2OCountedCompleter(MRTask.this.priority()) {
+          @Override public void compute2() {
+            if( !b.isDone() ) {   // Not already lost to the remote run
+              try { b.setupBackup(_nlo,_nhi); }
+              catch( Throwable t ) { b.completeExceptionally(t); tryComplete(); return; }
+              b.compute2();
+            }
+            tryComplete();
+          }
+        });
+    }
+  }
+
+  // Set up this copy, taken after this node's setupLocal, as the backup run
+  // of the subtree of nodes [nlo,nhi): it maps their Chunks or Keys, but
+  // launches no remote work, and skips setupLocal and closeLocal - this node
+  // ran the one and runs the other once the subtree is done.
+  private void setupBackup( int nlo, int nhi ) {
+    if(_profile != null) _profile._localstart = System.currentTimeMillis();
+    _fs = new Futures();
+    _topLocal = true;
+    _bnlo = nlo; _bnhi = nhi;
+    _lo = 0;
+    if( _fr != null ) {
+      _hi = _fr.numCols()==0 ? 0 : _fr.anyVec().nChunks();
+      _fr.vecs();
+    } else _hi = _keys.length;
+    _cost = null;               // Costed afresh, for the Chunks it stands in for
+    if(_profile != null) _profile._localdone = System.currentTimeMillis();
+  }
+
+  // Completer of the local share of the work, when remote subtrees are
+  // watched: once it is done, remote subtrees taking much longer straggle.
+  private final class LocalDone extends H2O.H2OCountedCompleter {
+    LocalDone() { super(MRTask.this); }
+    @Override public void compute2() { throw H2O.fail(); }
+    @Override public void onCompletion( CountedCompleter caller ) {
+      long start = Long.MAX_VALUE;
+      for( Spec sp : _specs ) if( sp != null ) start = Math.min(start,sp._start);
+      watch(System.currentTimeMillis()-start);
+    }
+  }
+
+  // A sibling subtree finished after ms: schedule a straggler check of all the
+  // others still running.
+  private void watch( long ms ) {
+    Spec[] specs = _specs;
+    if( specs == null ) return;
+    final long deadline = Math.max(MIN_STRAGGLE_MS,(long)(SLOW*ms));
+    for( final Spec sp : specs ) {
+      if( sp == null || sp._done.get() ) continue;
+      long delay = Math.max(0,sp._start+deadline-System.currentTimeMillis());
+      STRAGGLE_TIMER.schedule(new TimerTask() {
+          @Override public void run() { sp.backup(); }
+        },delay);
+    }
+  }
+
+  // Completer of one side of a Spec race: the RPC, or the backup run
+  private final class SpecDone extends H2O.H2OCountedCompleter {
+    private final Spec _spec;
+    private final boolean _isBackup;
+    SpecDone( Spec spec, boolean isBackup ) { super(MRTask.this.priority()); _spec = spec; _isBackup = isBackup; }
+    @Override public void compute2() { throw H2O.fail(); }
+    @Override public void onCompletion( CountedCompleter caller ) {
+      if( _isBackup ) {         // Results copied into the backup by its postLocal0
+        MRTask<T> b = _spec._backup;
+        _spec.finish(true,b._nhi != -1L ? (T)b : null,b._profile,0);
+      } else {
+        T mrt = _spec._rpc._dt; // Done, and not exceptional, else no onCompletion
+        _spec.finish(false,mrt._nhi != -1L ? mrt : null,mrt._profile,_spec._rpc.size_rez());
+      }
+    }
+    @Override public boolean onExceptionalCompletion( Throwable ex, CountedCompleter caller ) {
+      if( !_isBackup || !_spec._done.get() ) _spec.fail(ex); // A cancelled loser is fine
+      return false;
+    }
+  }
+
   /** Called from FJ threads to do local work.  The first called Task (which is
    *  also the last one to Complete) also reduces any global work.  Called
    *  internal by F/J.  Not expected to be user-called.  */
   @Override public final void compute2() {
     assert _left == null && _rite == null && _res == null;
     if(_profile!=null) _profile._mapstart = System.currentTimeMillis();
+    if( _topLocal && (_hi-_lo) >= 2 ) _cost = cost(); // Local work will be split
+    if( _topLocal && _specs != null ) { // Time the local share, to spot straggling remote subtrees
+      _left = copyAndInit();
+      _left.setCompleter(new LocalDone());
+      _left.compute2();         // Completes self via LocalDone
+      return;
+    }
     if( (_hi-_lo) >= 2 ) { // Multi-chunk case: just divide-and-conquer to 1 chunk
-      final int mid = (_lo+_hi)>>>1; // Mid-point
+      if( _cost != null && _cost[_hi] == _cost[_lo] ) { // Nothing homed here in range
+        tryComplete();
+        return;
+      }
+      final int mid = split(); // Mid-point, by cost
       _left = copyAndInit();
       _rite = copyAndInit();
       _left._hi = mid;          // Reset mid-point
@@ -589,7 +858,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     // Zero or 1 chunks, and further chunk might not be homed here
     if( _fr==null ) {           // No Frame, so doing Keys?
       if( _keys == null ||     // Once-per-node mode
-          _hi > _lo && _keys[_lo].home() ) {
+          _hi > _lo && mine(_keys[_lo]) ) {
         assert(_keys == null || !H2O.ARGS.client) : "Client node should not process any keys in MRTask!";
         if(_profile!=null) _profile._userstart = System.currentTimeMillis();
         if( _keys != null ) map(_keys[_lo]);
@@ -598,7 +867,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       }
     } else if( _hi > _lo ) {    // Frame, Single chunk?
       Vec v0 = _fr.anyVec();
-      if( _run_local || v0.chunkKey(_lo).home() ) { // And chunk is homed here?
+      if( _run_local || mine(v0.chunkKey(_lo)) ) { // And chunk is homed here?
         assert(_run_local || !H2O.ARGS.client) : "Client node should not process any keys in MRTask!";
 
         // Make decompression chunk headers for these chunks
@@ -607,7 +876,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         NewChunk [] appendableChunks = null;
         for( int i=0; i<vecs.length; i++ )
           if( vecs[i] != null ) {
-            assert _run_local || vecs[i].chunkKey(_lo).home()
+            assert _run_local || mine(vecs[i].chunkKey(_lo))
               : "Chunk="+_lo+" v0="+v0+", k="+v0.chunkKey(_lo)+"   v["+i+"]="+vecs[i]+", k="+vecs[i].chunkKey(_lo);
             bvs[i] = vecs[i].chunkForChunkIdx(_lo);
           }
@@ -656,6 +925,87 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     tryComplete();
   }
 
+  // Estimated cost of the local work, as a running total over the Chunks (or
+  // Keys), in stored bytes: of the Chunks of a sample of the Vecs, or of the
+  // Keys' Values.  A Chunk not in the local store (e.g. of a computed Vec) is
+  // costed at its Vec's mean stored bytes per row.  Chunks homed elsewhere
+  // cost nothing, as nothing is mapped for them.
+  private static final int COST_VECS = 16; // Max Vecs sampled for the cost
+  private long[] cost() {
+    long[] cost = new long[_hi+1];
+    if( _fr != null ) {
+      Vec[] vecs = _fr.vecs();
+      Vec v0 = _fr.anyVec();
+      long[] espc = v0.espc();
+      int stride = Math.max(1,vecs.length/COST_VECS);
+      int nsample = (vecs.length+stride-1)/stride; // At most 31
+      long[] vbytes = new long[nsample], vrows = new long[nsample]; // Per sampled Vec, of the Chunks found
+      long[] missing = null;    // Per Chunk, bitmask of sampled Vecs whose Chunk was not found
+      for( int i=0; i<_hi; i++ ) {
+        long c = 0;
+        if( _run_local || mine(v0.chunkKey(i)) ) {
+          long rows = espc[i+1]-espc[i];
+          for( int j=0, s=0; j<vecs.length; j+=stride, s++ ) {
+            if( vecs[j] == null ) continue;
+            Value val = H2O.STORE.get(vecs[j].chunkKey(i));
+            if( val != null ) { c += val._max; vbytes[s] += val._max; vrows[s] += rows; }
+            else {
+              if( missing == null ) missing = new long[_hi];
+              missing[i] |= 1L<<s;
+            }
+          }
+          c = Math.max(c,1);    // Mapped, even if empty
+        }
+        cost[i] = c;            // Per-Chunk for now
+      }
+      for( int i=0; i<_hi; i++ ) {
+        long c = cost[i];
+        if( missing != null && missing[i] != 0 ) {
+          long rows = espc[i+1]-espc[i];
+          for( int s=0; s<nsample; s++ )
+            if( (missing[i] & (1L<<s)) != 0 )
+              c += vrows[s] == 0 ? rows<<3 : rows*vbytes[s]/vrows[s]; // 8 bytes/row if none found
+        }
+        cost[i] = c;
+      }
+      long sum = 0;             // Running total
+      for( int i=0; i<_hi; i++ ) { long c = cost[i]; cost[i] = sum; sum += c; }
+      cost[_hi] = sum;
+    } else {
+      for( int i=0; i<_hi; i++ ) {
+        long c = 0;
+        if( mine(_keys[i]) ) {
+          Value val = H2O.STORE.get(_keys[i]);
+          c = Math.max(val == null ? 0 : val._max,1);
+        }
+        cost[i+1] = cost[i]+c;
+      }
+    }
+    return cost;
+  }
+
+  // Split point of [_lo,_hi): the first Chunk past half the cost of the range,
+  // leaving at least one Chunk on either side
+  private int split() {
+    if( _cost == null ) return (_lo+_hi)>>>1;
+    long half = (_cost[_lo]+_cost[_hi])>>>1;
+    int lo = _lo+1, hi = _hi-1; // Smallest m in [lo,hi] with _cost[m] >= half
+    while( lo < hi ) {
+      int m = (lo+hi)>>>1;
+      if( _cost[m] < half ) lo = m+1;
+      else hi = m;
+    }
+    return lo;
+  }
+
+  // Is the Key for this run to map: homed here, or for a backup run, homed
+  // on the straggling nodes it stands in for
+  private boolean mine( Key k ) {
+    if( _bnlo == _bnhi ) return k.home();
+    int idx = subShift(k.home_node().index());
+    return _bnlo <= idx && idx < _bnhi;
+  }
+
   /** OnCompletion - reduce the left and right into self.  Called internal by
    *  F/J.  Not expected to be user-called. */
   @Override public final void onCompletion( CountedCompleter caller ) {
@@ -692,10 +1042,20 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   // Block for other queued pending tasks.
   // Copy any final results into 'this', such that a return of 'this' has the results.
   private void postLocal0() {
-    closeLocal();               // User's node-local cleanup
+    if( _bnlo == _bnhi ) closeLocal(); // User's node-local cleanup, not for a backup run
     if(_profile!=null) _profile._closeLocalDone = System.currentTimeMillis();
-    reduce3(_nleft);            // Reduce global results from neighbors.
-    reduce3(_nrite);
+    // Reduce global results from neighbors
+    if( _nrpcs != null ) {
+      if( _nrpcs.length == 2 && _specs == null ) // Repeatable order
+        for( RPC<T> rpc : _nrpcs ) reduce3(rpc);
+      else synchronized( this ) { // All arrived & reduced into _rres already
+        if( _rres != null ) {
+          if( _res == null ) _res = _rres;
+          else _res.reduce4(_rres);
+          _rres = null;
+        }
+      }
+    }
     if(_profile!=null) _profile._remoteBlkDone = System.currentTimeMillis();
     _fs.blockForPending();      // Block any pending user tasks
     if(_profile!=null) _profile._localBlkDone = System.currentTimeMillis();
@@ -748,6 +1108,9 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   private void self_cancel1() {
     T l = _left; if( l != null ) { l.self_cancel2(); }
     T r = _rite; if( r != null ) { r.self_cancel2(); }
+    Spec[] specs = _specs;
+    if( specs != null )
+      for( Spec sp : specs ) if( sp != null && sp._backup != null ) sp._backup.self_cancel2();
   }
 
   /** Cancel/kill all work as we can, then rethrow... do not invisibly swallow
@@ -763,8 +1126,10 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     
     // Since blocking can throw (generally the same exception, again and again)
     // catch & ignore, keeping only the first one we already got.
-    RPC<T> nl = _nleft; if( nl != null ) try { nl.get(); } catch( Throwable ignore ) { } _nleft = null;
-    RPC<T> nr = _nrite; if( nr != null ) try { nr.get(); } catch( Throwable ignore ) { } _nrite = null;
+    RPC<T>[] rpcs = _nrpcs;
+    if( rpcs != null )
+      for( RPC<T> rpc : rpcs ) if( rpc != null ) try { rpc.get(); } catch( Throwable ignore ) { }
+    _nrpcs = null;
     return true;
   }
 
@@ -774,9 +1139,12 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     x._topGlobal = false;
     x.setCompleter(this); // Set completer, what used to be a final field
     x._topLocal = false;  // Not a top job
-    x._nleft = x._nrite = null;
+    x._nrpcs = null;
+    x._rres = null;
+    x._specs = null;
     x. _left = x. _rite = null;
     x._fs = _fs;
+    x._remoteJobKey = _jobKey;
     if( _profile!=null )  x._profile = new MRProfile(this);
     else                  x._profile = null;    // Clone needs its own profile
     x.setPendingCount(0); // Volatile write for completer field; reset pending count also
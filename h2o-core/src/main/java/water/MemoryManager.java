@@ -2,11 +2,14 @@ package water;
 
 import java.lang.management.*;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.management.Notification;
 import javax.management.NotificationEmitter;
 import jsr166y.ForkJoinPool.ManagedBlocker;
 import jsr166y.ForkJoinPool;
+import water.nbhm.NonBlockingHashMap;
+import water.util.ArrayUtils;
 import water.util.Log;
 import water.util.PrettyPrint;
 
@@ -137,7 +140,7 @@ abstract public class MemoryManager {
     }
 
     // No logging if under memory pressure: can deadlock the cleaner thread
-    String s = m+msg+", (K/V:"+PrettyPrint.bytes(cacheUsageGC)+" + POJO:"+PrettyPrint.bytes(pojoUsedGC)+" + FREE:"+PrettyPrint.bytes(freeHeap)+" == MEM_MAX:"+PrettyPrint.bytes(MEM_MAX)+"), desiredKV="+PrettyPrint.bytes(Cleaner.DESIRED)+(oom?" OOM!":" NO-OOM");
+    String s = m+msg+", (K/V:"+PrettyPrint.bytes(cacheUsageGC)+" + POJO:"+PrettyPrint.bytes(pojoUsedGC)+" + FREE:"+PrettyPrint.bytes(freeHeap)+" == MEM_MAX:"+PrettyPrint.bytes(MEM_MAX)+"), desiredKV="+PrettyPrint.bytes(Cleaner.DESIRED)+(H2O.ARGS.off_heap_mem > 0 ? ", OFF-HEAP:"+PrettyPrint.bytes(Cleaner.Histo.offheap()) : "")+(oom?" OOM!":" NO-OOM");
     if( CAN_ALLOC ) { if( oom ) Log.warn(s); else Log.debug(s); }
     else            System.err.println(s);
   }
@@ -190,6 +193,7 @@ abstract public class MemoryManager {
       Cleaner.HEAP_USED_AT_LAST_GC = _allMemBean.getHeapMemoryUsage().getUsed();
       Cleaner.KV_USED_AT_LAST_GC = Cleaner.Histo.cached();
       MEM_LOW_CRITICAL = Cleaner.HEAP_USED_AT_LAST_GC > 0.75*MEM_MAX;
+      newJobEpoch();
       Log.debug("GC CALLBACK: "+Cleaner.TIME_AT_LAST_GC+", USED:"+PrettyPrint.bytes(Cleaner.HEAP_USED_AT_LAST_GC)+", CRIT: "+MEM_LOW_CRITICAL);
       set_goals("GC CALLBACK",MEM_LOW_CRITICAL);
       //if( MEM_LOW_CRITICAL ) { // emergency measure - really low on memory, stop allocations right now!
@@ -210,6 +214,7 @@ abstract public class MemoryManager {
     // Do not assert on large-size here.  RF's temp internal datastructures are
     // single very large arrays.
     //assert bytes < Value.MAX : "malloc size=0x"+Long.toHexString(bytes);
+    final JobMem jm = JOB.get();  // Job running on this thread, if any
     while( true ) {
       if( (!MEM_LOW_CRITICAL && !force) && !CAN_ALLOC && // Not allowing allocations?
           bytes > 256 &&        // Allow tiny ones in any case
@@ -221,7 +226,18 @@ abstract public class MemoryManager {
           try { _lock.wait(300*1000); } catch (InterruptedException ex) { }
         }
       }
+      // Further back-pressure on the offending Job: above quota while memory
+      // is low, wait for the next FullGC to start a fresh quota.  A quota only
+      // adds to the block above; Jobs under theirs still wait on it.
+      if( jm != null && !force && bytes > 256 && jm.overQuota() && (!CAN_ALLOC || MEM_LOW_CRITICAL) ) {
+        Cleaner.kick_store_cleaner();
+        synchronized(_lock) {
+          try { _lock.wait(1000); } catch (InterruptedException ex) { }
+        }
+        continue;
+      }
       MEM_ALLOC.addAndGet(bytes);
+      if( jm != null ) jm.alloc(bytes);
       try {
         switch( type ) {
         case  1: return new byte   [elems];
@@ -275,6 +291,135 @@ abstract public class MemoryManager {
   public static long   [] arrayCopyOf( long  [] orig, int sz) { return arrayCopyOfRange(orig,0,sz); }
   public static double [] arrayCopyOf( double[] orig, int sz) { return arrayCopyOfRange(orig,0,sz); }
 
+  // ---------------------------------------
+  // Per-Job accounting.  Allocations are attributed to the Job whose task is
+  // running on the current thread (Jobs are inherited by the tasks they fork,
+  // locally and remotely; see H2OCountedCompleter).  Per node and per Job we
+  // keep the total allocated, and the amount allocated since the last FullGC:
+  // a rough measure of the heap the Job added since heap usage was last
+  // known.  While memory is low, a Job above its quota of the latter blocks
+  // until the next FullGC, on top of the block all allocations get.
+  //
+  // Nothing is tracked until some quota is set, either by -job_mem_quota or
+  // by setJobQuota; from then on all Jobs are.
+
+  static final class JobMem {
+    final Key _job;
+    final AtomicLong _alloc = new AtomicLong(); // Total allocated on this node
+    final AtomicLong _epoch = new AtomicLong(); // Allocated since the last FullGC
+    volatile long _quota = -1;                  // Max _epoch bytes; -1 for the node default
+    JobMem( Key job ) { _job = job; }
+    void alloc( long bytes ) { _alloc.addAndGet(bytes); _epoch.addAndGet(bytes); }
+    long quota() { return _quota == -1 ? ((long)H2O.ARGS.job_mem_quota<<20) : _quota; }
+    boolean overQuota()   { long q = quota(); return q > 0 && _epoch.get() >  q; }
+  }
+  private static final ThreadLocal<JobMem> JOB = new ThreadLocal<>();
+  private static final NonBlockingHashMap<Key,JobMem> JOB_MEM = new NonBlockingHashMap<>();
+  // Released Jobs, and when: straggling tasks of these do not bring back
+  // their accounting.  Forgotten after a minute.
+  private static final NonBlockingHashMap<Key,Long> RELEASED = new NonBlockingHashMap<>();
+  private static volatile boolean QUOTA_SET; // Some Job quota was set
+
+  /** True once any Job quota is set; until then Jobs are not tracked */
+  static boolean jobQuotas() { return QUOTA_SET || H2O.ARGS.job_mem_quota > 0; }
+
+  private static JobMem jobMem( Key job ) {
+    JobMem jm = JOB_MEM.get(job);
+    if( jm != null ) return jm;
+    if( RELEASED.containsKey(job) ) return null;
+    JobMem old = JOB_MEM.putIfAbsent(job,jm = new JobMem(job));
+    return old == null ? jm : old;
+  }
+
+  /** Job this thread's allocations are attributed to, or null */
+  static Key currentJob() { JobMem jm = JOB.get(); return jm == null ? null : jm._job; }
+
+  /** Attribute this thread's allocations to the given Job (or to none, if
+   *  null) until the next call; returns the prior attribution, to be restored. */
+  static Object enterJob( Key job ) {
+    JobMem prior = JOB.get();
+    JOB.set(job == null ? null : jobMem(job));
+    return prior;
+  }
+  static void exitJob( Object prior ) { JOB.set((JobMem)prior); }
+
+  private static void newJobEpoch() {
+    if( JOB_MEM == null ) return; // GC callback racing class init
+    for( JobMem jm : JOB_MEM.values() ) jm._epoch.set(0);
+    synchronized(_lock) { _lock.notifyAll(); } // Wake Jobs blocked on their quota
+  }
+
+  /** Set a Job's allocation quota (bytes allocated per node between FullGCs,
+   *  enforced only while memory is low) on all nodes; 0 for none, -1 for
+   *  the {@code -job_mem_quota} default.  Turns on Job tracking. */
+  public static void setJobQuota( Key job, long bytes ) { new JobMemTask(new Key[]{job},bytes,false).doAllNodes(); }
+
+  /** A Job's quota on this node, in bytes; 0 for none. */
+  public static long jobQuota( Key job ) { JobMem jm = JOB_MEM.get(job); return jm == null ? (long)H2O.ARGS.job_mem_quota<<20 : jm.quota(); }
+
+  // Cluster-wide allocations of the Jobs recently asked about, refreshed
+  // together at most every JOB_ALLOC_MS by one JobMemTask.
+  private static final NonBlockingHashMap<Key,Long> JOB_ALLOC = new NonBlockingHashMap<>();
+  private static final Object JOB_ALLOC_LOCK = new Object();
+  private static volatile long JOB_ALLOC_AT;
+  static final long JOB_ALLOC_MS = 2000;
+
+  /** Bytes allocated cluster-wide by a running Job, as of at most
+   *  {@link #JOB_ALLOC_MS} ago; 0 when Jobs are not tracked. */
+  public static long jobAlloc( Key job ) {
+    if( !jobQuotas() ) return 0;
+    Long bytes = JOB_ALLOC.get(job);
+    if( bytes != null && System.currentTimeMillis() - JOB_ALLOC_AT < JOB_ALLOC_MS ) return bytes;
+    synchronized( JOB_ALLOC_LOCK ) {
+      long now = System.currentTimeMillis();
+      bytes = JOB_ALLOC.get(job);
+      if( bytes != null && now - JOB_ALLOC_AT < JOB_ALLOC_MS ) return bytes;
+      JOB_ALLOC.putIfAbsent(job,0L);
+      Key[] jobs = JOB_ALLOC.keySet().toArray(new Key[0]);
+      long[] alloc = new JobMemTask(jobs,-2,false).doAllNodes()._alloc;
+      for( int i=0; i<jobs.length; i++ )
+        JOB_ALLOC.replace(jobs[i],alloc[i]); // Unless released meanwhile
+      JOB_ALLOC_AT = now;
+      bytes = JOB_ALLOC.get(job);
+      return bytes == null ? 0 : bytes;
+    }
+  }
+
+  /** Bytes allocated cluster-wide by a finished Job; drops its accounting on
+   *  all nodes.  Blocks on the cluster, so not for completion callbacks. */
+  static long releaseJob( Key job ) { return new JobMemTask(new Key[]{job},-2,true).doAllNodes()._alloc[0]; }
+
+  private static class JobMemTask extends MRTask<JobMemTask> {
+    final Key[] _jobs;
+    final long _quota;          // Set this quota, unless -2
+    final boolean _release;
+    long[] _alloc;
+    JobMemTask( Key[] jobs, long quota, boolean release ) {
+      _jobs = jobs; _quota = quota; _release = release;
+      setJob(null);             // Bookkeeping is not part of any Job
+    }
+    @Override protected void setupLocal() {
+      if( _quota != -2 ) QUOTA_SET = true;
+      long now = System.currentTimeMillis();
+      if( _release )
+        for( Map.Entry<Key,Long> e : RELEASED.entrySet() )
+          if( now - e.getValue() > 60*1000 ) RELEASED.remove(e.getKey());
+      _alloc = new long[_jobs.length];
+      for( int i=0; i<_jobs.length; i++ ) {
+        JobMem jm;
+        if( _release ) {
+          RELEASED.put(_jobs[i],now);
+          JOB_ALLOC.remove(_jobs[i]);
+          jm = JOB_MEM.remove(_jobs[i]);
+        } else jm = _quota == -2 ? JOB_MEM.get(_jobs[i]) : jobMem(_jobs[i]);
+        if( jm == null ) continue;
+        if( _quota != -2 ) jm._quota = _quota;
+        _alloc[i] = jm._alloc.get();
+      }
+    }
+    @Override public void reduce( JobMemTask t ) { ArrayUtils.add(_alloc,t._alloc); }
+  }
+
   // Memory available for tasks (we assume 3/4 of the heap is available for tasks)
   static final AtomicLong _taskMem = new AtomicLong(MEM_MAX-(MEM_MAX>>2));
 
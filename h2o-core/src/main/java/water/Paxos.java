@@ -31,6 +31,8 @@ public abstract class Paxos {
   public static volatile boolean _cloudLocked = false;
 
   public static final NonBlockingHashMap<H2Okey,H2ONode> PROPOSED = new NonBlockingHashMap<>();
+  // Clients given the type IDs, by JVM boot time
+  private static final NonBlockingHashMap<H2Okey,Long> CLIENTS = new NonBlockingHashMap<>();
 
   // ---
   // This is a packet announcing what Cloud this Node thinks is the current
@@ -47,6 +49,25 @@ public abstract class Paxos {
       }
       return 0;
     }
+    // Same for the preloaded type IDs, which must be the same everywhere
+    if( !h2o._heartbeat.check_typemap() ) {
+      if( H2O.CLOUD.size() > 1 ) {
+        Log.warn("Killing "+h2o+" because of a type ID mismatch (different -typemap file or build).");
+        UDPRebooted.T.mismatch.send(h2o);
+      } else {
+        H2O.die("Attempting to join "+h2o+" with different preloaded type IDs.  (Do all nodes use the same -typemap file?)  Exiting.");
+      }
+      return 0;
+    }
+
+    // A client joining a locked cloud gets the type IDs handed out so far
+    if( h2o._heartbeat._client && _cloudLocked && H2O.CLOUD.leader() == H2O.SELF ) {
+      Long boot = CLIENTS.get(h2o._key);
+      if( boot == null || boot != h2o._heartbeat._jvm_boot_msec ) {
+        CLIENTS.put(h2o._key,h2o._heartbeat._jvm_boot_msec);
+        TypeMapPush.pushAll(h2o);
+      }
+    }
 
     // I am not client but received client heartbeat in flatfile mode.
     // Means that somebody is trying to connect to this cloud.
@@ -134,6 +155,10 @@ public abstract class Paxos {
         try { Paxos.class.wait(); } catch( InterruptedException ignore ) { }
       _cloudLocked = true;
     }
+    // Leader: bring the cloud up to date on type IDs handed out so far
+    if( H2O.CLOUD.leader() == H2O.SELF )
+      for( H2ONode h2o : H2O.CLOUD._memary )
+        if( h2o != H2O.SELF ) TypeMapPush.pushAll(h2o);
   }
 
 
@@ -227,7 +227,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
       _retry += (_retry < MAX_TIMEOUT ) ? _retry : MAX_TIMEOUT;
       // Put self on the "TBD" list of tasks awaiting Timeout.
       // So: dont really 'forget' but remember me in a little bit.
-//      UDPTimeOutThread.PENDING.put(_tasknum, this);
+      UDPTimeOutThread.schedule(this);
       return this;
     } catch( Throwable t ) {
       t.printStackTrace();
@@ -312,6 +312,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
     final int _tsknum;
     long _started;              // Retry fields for the ackack
     long _retry;
+    long _ackNanos;             // When the ACK was sent, for the RTT
     int _ackResendCnt;
     int _nackResendCnt;
     volatile boolean _computedAndReplied; // One time transition from false to true
@@ -648,6 +649,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
 
   // ---
   static final long RETRY_MS = 10000; // Initial UDP packet retry in msec
+  static final long MIN_RETRY_MS = 200; // Shortest ACK resend, however fast the network
   // How long until we should do the "timeout" action?
   @Override public final long getDelay( TimeUnit unit ) {
     long delay = (_started+_retry)-System.currentTimeMillis();
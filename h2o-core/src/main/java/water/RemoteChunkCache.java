@@ -0,0 +1,105 @@
+package water;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.nbhm.NonBlockingHashMap;
+
+/** Bounded cache of Chunks fetched from other nodes.
+ *  <p>
+ *  A Chunk fetched by {@link TaskGetKey} is kept in the local K/V store as a
+ *  replica, until the home node invalidates it ({@link TaskInvalidateKey}) or
+ *  the Cleaner frees it.  Joins, row lookups and slicing re-read the same
+ *  remote Chunks many times, so keeping them is worth a lot; but without a
+ *  bound, a scan over a remote Frame fills the heap with replicas, and the
+ *  Cleaner then drops them in no particular order relative to local data.
+ *  <p>
+ *  This cache holds the replicas to a byte budget ({@code -remote_cache}
+ *  megabytes, default 1/8th of the heap), dropping the least recently used
+ *  ones (CLOCK, by {@link Value#_lastAccessedTime}) when full.  A dropped
+ *  replica is simply removed from the local store; the next read fetches it
+ *  again.  Fetches, hits, evictions and invalidations are counted and
+ *  reported through {@code /3/WaterMeterCache}. */
+public final class RemoteChunkCache {
+  private static final class Entry {
+    final Value _val;
+    final int _bytes;
+    volatile long _stamp;       // Last access seen by the CLOCK hand
+    Entry( Value val ) { _val = val; _bytes = val._max; _stamp = val._lastAccessedTime; }
+  }
+
+  private static final NonBlockingHashMap<Key,Entry> CACHE = new NonBlockingHashMap<>();
+  private static final ConcurrentLinkedQueue<Entry> RING = new ConcurrentLinkedQueue<>();
+  private static final AtomicLong BYTES = new AtomicLong();
+  private static final AtomicLong FETCHES = new AtomicLong(), FETCH_BYTES = new AtomicLong();
+  private static final AtomicLong HITS = new AtomicLong(), EVICTS = new AtomicLong(), INVALIDATES = new AtomicLong();
+
+  private RemoteChunkCache() { }
+
+  /** Byte budget for remote Chunks on this node */
+  public static long budget() {
+    return H2O.ARGS.remote_cache > 0 ? (long)H2O.ARGS.remote_cache<<20 : MemoryManager.MEM_MAX>>3;
+  }
+
+  /** A remote Chunk was fetched and installed in the local store. */
+  static void fetched( Value val ) {
+    FETCHES.incrementAndGet();
+    FETCH_BYTES.addAndGet(val._max);
+    Entry e = new Entry(val);
+    Entry old = CACHE.put(val._key,e);
+    if( old != null ) BYTES.addAndGet(-old._bytes);
+    BYTES.addAndGet(e._bytes);
+    RING.add(e);
+    if( BYTES.get() > budget() ) evict();
+  }
+
+  /** A read of a non-home Chunk was served locally */
+  public static void hit() { HITS.incrementAndGet(); }
+
+  /** The home node invalidated the local replica of a Key */
+  static void invalidated( Key key ) {
+    if( !key.isChunkKey() ) return;
+    Entry e = CACHE.remove(key);
+    if( e == null ) return;
+    BYTES.addAndGet(-e._bytes);
+    INVALIDATES.incrementAndGet();
+  }
+
+  // Drop replicas, coldest first, until under budget.  One thread at a time;
+  // others just carry on, since someone is already making room.
+  private static final Object EVICT_LOCK = new Object();
+  private static boolean _evicting;
+  private static void evict() {
+    synchronized(EVICT_LOCK) { if( _evicting ) return; _evicting = true; }
+    try {
+      final long budget = budget();
+      long laps = RING.size();  // Bound the second chances to one lap
+      Entry e;
+      while( BYTES.get() > budget && (e = RING.poll()) != null ) {
+        Value val = e._val;
+        if( CACHE.get(val._key) != e ) continue; // Invalidated or re-fetched
+        long touched = val._lastAccessedTime;
+        if( laps-- > 0 && (touched > e._stamp || Residency.isPinned(val._key)) ) {
+          e._stamp = touched;   // Used since the last lap; second chance
+          RING.add(e);
+          continue;
+        }
+        if( !CACHE.remove(val._key,e) ) continue;
+        BYTES.addAndGet(-e._bytes);
+        // Drop the replica, unless it changed meanwhile
+        if( H2O.STORE.get(val._key) == val && H2O.putIfMatch(val._key,null,val) == val )
+          EVICTS.incrementAndGet();
+      }
+    } finally {
+      synchronized(EVICT_LOCK) { _evicting = false; }
+    }
+  }
+
+  public static long fetches()      { return FETCHES.get(); }
+  public static long fetchBytes()   { return FETCH_BYTES.get(); }
+  public static long hits()         { return HITS.get(); }
+  public static long evicts()       { return EVICTS.get(); }
+  public static long invalidates()  { return INVALIDATES.get(); }
+  public static long cachedBytes()  { return BYTES.get(); }
+  public static int  cachedChunks() { return CACHE.size(); }
+}
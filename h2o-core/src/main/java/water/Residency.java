@@ -0,0 +1,106 @@
+package water;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashMap;
+
+/** Residency hints for the Cleaner: how willing it should be to drop
+ *  the Chunks of a Vec (or of all the Vecs of a Frame) from the heap.
+ *  <p><ul>
+ *  <li>{@link Priority#PINNED} - never freed by the Cleaner, e.g. the training
+ *  Frame of a long grid search.  Chunks are still written to ICE lazily, so
+ *  un-pinning them later is cheap.</li>
+ *  <li>{@link Priority#NORMAL} - freed in eviction policy order; the default.</li>
+ *  <li>{@link Priority#SPILL_FIRST} - freed before any other Chunk when the
+ *  cache is over the desired level, and written to ICE eagerly; e.g. scratch
+ *  Frames of a Rapids session.</li>
+ *  </ul>
+ *  Priorities are kept per-node by Vec Key and set cluster-wide, from the
+ *  {@code /3/Residency} endpoint or from a {@link Scope}.  They are dropped
+ *  when the Vec is removed. */
+public final class Residency {
+  public enum Priority { PINNED, NORMAL, SPILL_FIRST }
+
+  // Node-local priorities by Vec Key; NORMAL is not stored
+  private static final NonBlockingHashMap<Key,Priority> PRIOS = new NonBlockingHashMap<>();
+
+  private Residency() { }
+
+  /** Set the priority of a Frame's Vecs, or of a single Vec, on all nodes. */
+  public static void set( Key key, Priority prio ) {
+    Keyed k = DKV.getGet(key);
+    if( k instanceof Frame ) set((Frame)k,prio);
+    else if( k instanceof Vec ) set(new Key[]{key},prio);
+    else throw new IllegalArgumentException("Residency can only be set for a Frame or a Vec: "+key);
+  }
+  public static void set( Frame fr, Priority prio ) { set(fr.keys(),prio); }
+  public static void set( Key[] vecKeys, Priority prio ) {
+    new SetTask(vecKeys,prio).doAllNodes();
+  }
+
+  /** Current priority of a Vec on this node */
+  public static Priority get( Key vecKey ) {
+    Priority p = PRIOS.get(vecKey);
+    return p == null ? Priority.NORMAL : p;
+  }
+
+  /** Forget the priority of a removed Vec; called on every node. */
+  public static void clear( Key vecKey ) { if( !PRIOS.isEmpty() ) PRIOS.remove(vecKey); }
+
+  // Priority of a Chunk by its Key.  Cheap when no hints are set, which is
+  // the common case; the Cleaner asks for every Chunk it looks at.
+  static Priority of( Key chunkKey ) {
+    if( PRIOS.isEmpty() || !chunkKey.isChunkKey() ) return Priority.NORMAL;
+    return get(chunkKey.getVecKey());
+  }
+  static boolean isPinned( Key chunkKey ) { return of(chunkKey) == Priority.PINNED; }
+
+  /** Locally cached Chunks of SPILL_FIRST Vecs; only called from the Cleaner
+   *  thread, when over the desired cache level. */
+  static ArrayList<Value> spillFirst() {
+    ArrayList<Value> vals = new ArrayList<>();
+    if( !PRIOS.containsValue(Priority.SPILL_FIRST) ) return vals;
+    Object[] kvs = H2O.STORE.raw_array();
+    // Start the walk at slot 2, because slots 0,1 hold meta-data
+    for( int i=2; i<kvs.length; i += 2 ) {
+      Object ok = kvs[i], ov = kvs[i+1];
+      if( !(ok instanceof Key  ) ) continue; // Ignore tombstones and Primes and null's
+      if( !(ov instanceof Value) ) continue; // Ignore tombstones and Primes and null's
+      Value val = (Value)ov;
+      if( val.rawPOJO() instanceof Chunk && of((Key)ok) == Priority.SPILL_FIRST )
+        vals.add(val);
+    }
+    return vals;
+  }
+
+  private static class SetTask extends MRTask<SetTask> {
+    final Key[] _vecKeys;
+    final Priority _prio;
+    SetTask( Key[] vecKeys, Priority prio ) { _vecKeys = vecKeys; _prio = prio; }
+    @Override protected void setupLocal() {
+      boolean unpinned = false;
+      for( Key k : _vecKeys ) {
+        Priority old = _prio == Priority.NORMAL ? PRIOS.remove(k) : PRIOS.put(k,_prio);
+        unpinned |= old == Priority.PINNED && _prio != Priority.PINNED;
+      }
+      // Pinned Chunks met by the Cleaner were dropped from the eviction index;
+      // put the locally cached ones back so they can be freed again.
+      if( !unpinned ) return;
+      HashSet<Key> vecs = new HashSet<>(Arrays.asList(_vecKeys));
+      Object[] kvs = H2O.STORE.raw_array();
+      for( int i=2; i<kvs.length; i += 2 ) {
+        Object ok = kvs[i], ov = kvs[i+1];
+        if( !(ok instanceof Key  ) ) continue;
+        if( !(ov instanceof Value) ) continue;
+        Value val = (Value)ov;
+        if( val.rawPOJO() instanceof Chunk && vecs.contains(((Key)ok).getVecKey()) )
+          EvictionPolicy.POLICY.touch(val);
+      }
+    }
+  }
+}
@@ -25,9 +25,15 @@ public class Scope {
     @Override protected Scope initialValue() { return new Scope(); }
   };
   private final Stack<HashSet<Key>> _keys = new Stack<>();
+  // Vec Keys given a residency priority in each Scope; reset on exit
+  private final Stack<HashSet<Key>> _residency = new Stack<>();
 
   /** Enter a new Scope */
-  static public void enter() { _scope.get()._keys.push(new HashSet<Key>()); }
+  static public void enter() {
+    Scope scope = _scope.get();
+    scope._keys.push(new HashSet<Key>());
+    scope._residency.push(new HashSet<Key>());
+  }
 
   /** Exit the inner-most Scope, remove all Keys created since the matching
    *  enter call except for the listed Keys.
@@ -38,7 +44,9 @@ public class Scope {
       for( Key k : keep ) if (k != null) keylist.add(k);
     Object[] arrkeep = keylist.toArray();
     Arrays.sort(arrkeep);
-    Stack<HashSet<Key>> keys = _scope.get()._keys;
+    Scope scope = _scope.get();
+    reset_residency(scope);
+    Stack<HashSet<Key>> keys = scope._keys;
     if (keys.size() > 0) {
       Futures fs = new Futures();
       for (Key key : keys.pop()) {
@@ -53,7 +61,9 @@ public class Scope {
   /** Pop-scope (same as exit-scope) but return all keys that are tracked (and
    *  would have been deleted). */
   static public Key[] pop() {
-    Stack<HashSet<Key>> keys = _scope.get()._keys;
+    Scope scope = _scope.get();
+    reset_residency(scope);
+    Stack<HashSet<Key>> keys = scope._keys;
     return keys.size() > 0 ? keys.pop().toArray(new Key[0]) : null;
   }
 
@@ -85,6 +95,26 @@ public class Scope {
       scope._keys.peek().add(key);            // Track key
   }
 
+  /** Give the Vecs of a Frame a residency priority for the Cleaner
+   *  until the inner-most Scope exits; e.g. pin a training Frame for the
+   *  duration of a model build, or let scratch Frames be spilled first.
+   *  The priority is reset to NORMAL on exit.  See {@link Residency}. */
+  static public Frame residency( Frame fr, Residency.Priority prio ) {
+    Scope scope = _scope.get();                   // Pay the price of T.L.S. lookup
+    assert scope != null;
+    Residency.set(fr,prio);
+    if( scope._residency.size() > 0 )
+      scope._residency.peek().addAll(Arrays.asList(fr.keys()));
+    return fr;
+  }
+
+  static private void reset_residency( Scope scope ) {
+    if( scope._residency.size() == 0 ) return;
+    HashSet<Key> vecs = scope._residency.pop();
+    if( !vecs.isEmpty() )
+      Residency.set(vecs.toArray(new Key[vecs.size()]),Residency.Priority.NORMAL);
+  }
+
   static public void untrack( Key<Vec>[] keys ) {
     Scope scope = _scope.get();           // Pay the price of T.L.S. lookup
     if( scope == null ) return;           // Not tracking this thread
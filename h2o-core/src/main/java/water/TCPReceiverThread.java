@@ -55,7 +55,7 @@ public class TCPReceiverThread extends Thread {
         while(bb.hasRemaining()) // read first 8 bytes
           sock.read(bb);
         bb.flip();
-        int chanType = bb.get(); // 1 - small , 2 - big
+        int chanType = bb.get(); // 1 - small , 2 - big, 3 - big & framed
         int port = bb.getChar();
         int sentinel = (0xFF) & bb.get();
         if(sentinel != 0xef)
@@ -65,8 +65,9 @@ public class TCPReceiverThread extends Thread {
         // Pass off the TCP connection to a separate reader thread
         switch( chanType ) {
         case 1: new UDP_TCP_ReaderThread(h2o, sock).start(); break;
-        case 2: new TCPReaderThread(sock,new AutoBuffer(sock)).start(); break;
-        default: throw H2O.fail("unexpected channel type " + chanType + ", only know 1 - Small and 2 - Big");
+        case 2: new TCPReaderThread(sock,new AutoBuffer(sock),false).start(); break;
+        case 3: new TCPReaderThread(sock,new AutoBuffer(sock,true),true).start(); break;
+        default: throw H2O.fail("unexpected channel type " + chanType + ", only know 1 - Small, 2 - Big and 3 - Big framed");
         }
       } catch( java.nio.channels.AsynchronousCloseException ex ) {
         break;                  // Socket closed for shutdown
@@ -84,10 +85,12 @@ public class TCPReceiverThread extends Thread {
   static class TCPReaderThread extends Thread {
     public SocketChannel _sock;
     public AutoBuffer _ab;
-    public TCPReaderThread(SocketChannel sock, AutoBuffer ab) {
+    private final boolean _zip; // Framed channel, maybe compressed; see WireCompressor
+    public TCPReaderThread(SocketChannel sock, AutoBuffer ab, boolean zip) {
       super("TCP-"+ab._h2o+"-"+(ab._h2o._tcp_readers++));
       _sock = sock;
       _ab = ab;
+      _zip = zip;
       setPriority(MAX_PRIORITY-1);
     }
 
@@ -119,7 +122,7 @@ public class TCPReceiverThread extends Thread {
         // Reuse open sockets for the next task
         try {
           if( !_sock.isOpen() ) break;
-          _ab = new AutoBuffer(_sock);
+          _ab = new AutoBuffer(_sock,_zip);
         } catch( Exception e ) {
           // Exceptions here are *normal*, this is an idle TCP connection and
           // either the OS can time it out, or the cloud might shutdown.  We
@@ -144,7 +147,7 @@ public class TCPReceiverThread extends Thread {
       super("UDP-TCP-READ-" + h2o);
       _h2o = h2o;
       _chan = chan;
-      _bb = ByteBuffer.allocateDirect(AutoBuffer.BBP_BIG._size).order(ByteOrder.nativeOrder());
+      _bb = AutoBuffer.BBP_BIG.make();
       _bb.flip();               // Prep for reading; zero bytes available
     }
 
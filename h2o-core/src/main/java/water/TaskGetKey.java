@@ -77,6 +77,7 @@ public class TaskGetKey extends DTask<TaskGetKey> {
     if( old != null && !old.isEmpty() ) old=null;
     Value res = H2O.putIfMatch(_xkey,_val,old);
     if( res != old ) _val = res;
+    else if( _val != null && _xkey.isChunkKey() ) RemoteChunkCache.fetched(_val);
     TGKS.remove(_xkey); // Clear from dup cache
   }
 
@@ -12,6 +12,11 @@ class TaskInvalidateKey extends TaskPutKey {
     newval.read_lock();// block further writes until all invalidates complete
     fs.add(RPC.call(h2o,new TaskInvalidateKey(key,newval)));
   }
+  // Executes on the node holding the replica
+  @Override public void dinvoke( H2ONode sender ) {
+    RemoteChunkCache.invalidated(_key);
+    super.dinvoke(sender);
+  }
   // Lower read-lock, possibly enabling pending writes to start
   @Override public void onAck() { _newval.lowerActiveGetCount(null); }
 }
@@ -1,6 +1,11 @@
 package water;
 
+import java.io.*;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.TreeSet;
 
 import water.api.schemas3.*;
 import water.nbhm.NonBlockingHashMap;
@@ -20,6 +25,7 @@ public class TypeMap {
     water.H2ONode.class.getName(),      // Needed to write H2ONode target/sources
     water.FetchClazz.class.getName(),   // used to fetch IDs from leader
     water.FetchId.class.getName(),      // used to fetch IDs from leader
+    water.TypeMapPush.class.getName(),  // used by the leader to push IDs
     water.DTask.class.getName(),        // Needed for those first Tasks
 
     water.fvec.Chunk.class.getName(),   // parent of Chunk
@@ -67,6 +73,10 @@ public class TypeMap {
   static private Icer[] GOLD;
   // Unique IDs
   static private int IDS;
+  // IDs known on all nodes from startup: bootstrap plus preloaded
+  static private int PRELOADED;
+  // Hash of the preloaded class names; must match across the cloud
+  static int PRELOAD_HASH;
   // JUnit helper flag
   static public volatile boolean _check_no_locking; // ONLY TOUCH IN AAA_PreCloudLock!
   static {
@@ -74,7 +84,7 @@ public class TypeMap {
     GOLD = new Icer[BOOTSTRAP_CLASSES.length];
     int id=0;                   // The initial set of Type IDs to boot with
     for( String s : CLAZZES ) MAP.put(s,id++);
-    IDS = id;
+    IDS = PRELOADED = id;
     // Some statically known names, to make life easier during e.g. bootup & parse
     NULL         = (short) -1;
     PRIM_B       = (short)onIce("[B");
@@ -119,7 +129,9 @@ public class TypeMap {
     Paxos.lockCloud(className);
     // Leader: pick an ID.  Not-the-Leader: fetch ID from leader.
     int id = H2O.CLOUD.leader() == H2O.SELF ? -1 : FetchId.fetchId(className);
-    return install(className,id);
+    int id2 = install(className,id);
+    if( id == -1 ) TypeMapPush.push(id2,className); // Tell the cloud before it asks
+    return id2;
   }
 
   // Quick check to see if cached
@@ -164,6 +176,121 @@ public class TypeMap {
     return id;
   }
 
+  // ---
+  // Type IDs fixed at startup, so tasks do not stall on FetchId/FetchClazz
+  // round-trips to the leader: the Freezable classes listed by the build (see
+  // IcerGen), then those in the -typemap file, get IDs in that order after
+  // the bootstrap classes.  Every node must come up with the same list; the
+  // list's hash goes out in the heartbeat and is checked like the jar's.
+  static final String RESOURCE = "META-INF/h2o-freezables.txt";
+
+  /** Assign the preloaded type IDs.  Called once at startup, before the first
+   *  heartbeat and before any type ID is handed out. */
+  synchronized static void preload() {
+    if( IDS != BOOTSTRAP_CLASSES.length ) throw new IllegalStateException("Type IDs already handed out");
+    ArrayList<String> names = preloadNames(H2O.ARGS.typemap);
+    int hash = 0;
+    for( String name : names ) {
+      if( MAP.containsKey(name) ) continue;
+      install(name,IDS++);
+      hash = 31*hash+name.hashCode();
+    }
+    PRELOADED = IDS;
+    PRELOAD_HASH = hash;
+    Log.info("Preloaded "+(IDS-BOOTSTRAP_CLASSES.length)+" type IDs");
+  }
+
+  /** The class names to preload, in ID order: those listed by the build, then
+   *  those in the typemap file, if any.  A missing typemap file is an error:
+   *  a node starting without the file its peers have would come up with
+   *  different type IDs, and be kicked out of the cloud.  Start a new type
+   *  map from an empty file. */
+  static ArrayList<String> preloadNames( String typemap ) {
+    TreeSet<String> built = new TreeSet<>(); // Sorted: resource order differs by class path
+    try {
+      Enumeration<URL> urls = TypeMap.class.getClassLoader().getResources(RESOURCE);
+      while( urls.hasMoreElements() ) {
+        URL url = urls.nextElement();
+        try( InputStream is = url.openStream() ) { built.addAll(readNames(is)); }
+      }
+    } catch( IOException e ) { Log.warn("Cannot read "+RESOURCE+": "+e); }
+    ArrayList<String> names = new ArrayList<>(built);
+    if( typemap != null ) {
+      File f = new File(typemap);
+      if( !f.isFile() )
+        throw new IllegalArgumentException("-typemap file "+f+" not found; every node needs a copy (an empty file starts a new type map)");
+      try( InputStream is = new FileInputStream(f) ) { names.addAll(readNames(is)); }
+      catch( IOException e ) { throw new RuntimeException("Cannot read -typemap "+f,e); }
+    }
+    return names;
+  }
+
+  // One class name per line; blank lines and #-comments skipped
+  private static ArrayList<String> readNames( InputStream is ) throws IOException {
+    ArrayList<String> names = new ArrayList<>();
+    BufferedReader br = new BufferedReader(new InputStreamReader(is,"UTF-8"));
+    String line;
+    while( (line = br.readLine()) != null ) {
+      line = line.trim();
+      if( !line.isEmpty() && line.charAt(0) != '#' ) names.add(line);
+    }
+    return names;
+  }
+
+  /** With -typemap: save all the type IDs known here, for the next start of
+   *  the cloud.  Called at orderly shutdown on every node, so each host has
+   *  the file at the next start; every node knows every ID handed out, as the
+   *  leader pushes each new one to the cloud. */
+  static void save() {
+    if( H2O.ARGS.typemap == null || H2O.CLOUD.size() == 0 ) return;
+    save(new File(H2O.ARGS.typemap));
+  }
+
+  static void save( File f ) {
+    String[] clazzes;
+    synchronized( TypeMap.class ) { clazzes = CLAZZES; }
+    int ids = clazzes.length;
+    while( ids > BOOTSTRAP_CLASSES.length && clazzes[ids-1] == null ) ids--;
+    for( int i=BOOTSTRAP_CLASSES.length; i<ids; i++ )
+      if( clazzes[i] == null ) { // Missed a push; a partial map would not match the peers'
+        Log.warn("Not saving -typemap "+f+": type ID "+i+" is unknown here");
+        return;
+      }
+    File tmp = null;
+    try {
+      tmp = File.createTempFile(f.getName(),".tmp",f.getAbsoluteFile().getParentFile()); // Unique, if hosts share the file
+      try( Writer w = new OutputStreamWriter(new FileOutputStream(tmp),"UTF-8") ) {
+        w.write("# H2O type IDs, in order after the bootstrap classes\n");
+        for( int i=BOOTSTRAP_CLASSES.length; i<ids; i++ ) w.write(clazzes[i]+"\n");
+      }
+    } catch( IOException e ) {
+      Log.warn("Cannot save -typemap "+f+": "+e);
+      if( tmp != null ) tmp.delete();
+      return;
+    }
+    if( !tmp.renameTo(f) && !(f.delete() && tmp.renameTo(f)) ) {
+      Log.warn("Cannot save -typemap "+f);
+      tmp.delete();
+    }
+  }
+
+  /** Type IDs handed out beyond those preloaded on every node, as the class
+   *  names from ID {@link #preloaded()} on; for the leader to push to the
+   *  cloud. */
+  static synchronized String[] snapshot() { return Arrays.copyOfRange(CLAZZES,PRELOADED,Math.max(PRELOADED,IDS)); }
+  static int preloaded() { return PRELOADED; }
+
+  /** Install type IDs pushed by the leader; known ones are skipped */
+  static void installPushed( int lo, String[] clazzes ) {
+    for( int i=0; i<clazzes.length; i++ ) {
+      String s = clazzes[i];
+      if( s == null ) continue;
+      Integer I = MAP.get(s);
+      if( I == null ) install(s,lo+i);
+      else if( I != lo+i ) Log.err("Type ID mismatch for "+s+": "+I+" here, "+(lo+i)+" on the leader");
+    }
+  }
+
   // Figure out the mapping from a type ID to a Class.  Happens many places,
   // including during deserialization when a Node will be presented with a
   // fresh new ID with no idea what it stands for.  Does NOT resize the GOLD
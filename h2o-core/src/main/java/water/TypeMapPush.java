@@ -0,0 +1,22 @@
+package water;
+
+// Helper for the leader to push type IDs to the cloud, so nodes do not have
+// to fetch them: all IDs handed out so far when the cloud locks or a client
+// joins, and then each new ID as it is handed out.
+class TypeMapPush extends DTask<TypeMapPush> {
+  final int _lo;                // Type ID of the first class
+  final String[] _clazzes;
+  TypeMapPush(int lo, String[] clazzes) { super(H2O.FETCH_ACK_PRIORITY); _lo=lo; _clazzes=clazzes; }
+
+  // Push a new ID to all other nodes, without waiting
+  static void push(int id, String clazz) {
+    for( H2ONode h2o : H2O.CLOUD._memary )
+      if( h2o != H2O.SELF ) new RPC<>(h2o,new TypeMapPush(id,new String[]{clazz})).call();
+  }
+  // Push all IDs past the preloaded ones to a node, without waiting
+  static void pushAll(H2ONode h2o) {
+    String[] clazzes = TypeMap.snapshot();
+    if( clazzes.length > 0 ) new RPC<>(h2o,new TypeMapPush(TypeMap.preloaded(),clazzes)).call();
+  }
+  @Override public void compute2() { TypeMap.installPushed(_lo,_clazzes); tryComplete(); }
+}
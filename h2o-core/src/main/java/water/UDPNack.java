@@ -16,6 +16,7 @@ class UDPNack extends UDP {
     if( t != null ) {
       assert t._tasknum==tnum;
       t._nack = true;
+      ab._h2o._nacks.incrementAndGet();
     }
     return ab;
   }
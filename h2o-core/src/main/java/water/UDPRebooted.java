@@ -58,6 +58,7 @@ public class UDPRebooted extends UDP {
     @Override
     public void compute2() {
       Log.info("Orderly shutdown from " + _killer);
+      TypeMap.save();           // If leader
       // start a separate thread which will force termination after timeout expires (in case we don't get ack ack in time)
       new Thread(){
         @Override public void run(){
@@ -1,10 +1,7 @@
 package water;
-import water.nbhm.NonBlockingHashMapLong;
 import water.util.Log;
 
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.concurrent.DelayQueue;
+import java.util.ArrayList;
 
 /**
  * The Thread that looks for RPCs that are timing out
@@ -13,41 +10,101 @@ import java.util.concurrent.DelayQueue;
  */
 
 public class UDPTimeOutThread extends Thread {
-  public UDPTimeOutThread() { super("UDPTimeout"); }
+  public UDPTimeOutThread() { super("UDPTimeout"); _running = true; }
 
   // List of "in progress" tasks.  When they time-out we do the time-out action
   // which is possibly a re-send if we suspect a dropped UDP packet, or a
   // fail-out if the target has died.
-//  static DelayQueue<RPC> PENDING = new DelayQueue<>();
+  //
+  // Kept as a hashed timer wheel: one slot per TICK_MS, SLOTS slots.  Each
+  // (re)send of an RPC drops its deadline in the slot of that tick; every
+  // tick only that slot is looked at.  Deadlines more than a turn of the
+  // wheel away are passed over until their turn comes.  Entries name the
+  // task, not the RPC, so answered RPCs (and their results) are not held.
+  static final int TICK_MS = 50;
+  static final int SLOTS = 512; // ~25sec per turn
+  static final int NACK_CHECK_MS = 1000; // How often to check on the target of a NACK'd task
+  private static final Wheel WHEEL = new Wheel(System.currentTimeMillis());
+  private static volatile boolean _running; // Nobody to time out RPCs, unless running
 
-//  static NonBlockingHashMapLong<RPC> PENDING = new NonBlockingHashMapLong<>();
+  static final class Timeout {
+    final H2ONode _target;
+    final int _tasknum;
+    final long _when;           // Deadline of the send, in msec
+    final long _at;             // When to look again, in msec
+    Timeout( H2ONode target, int tasknum, long when, long at ) { _target = target; _tasknum = tasknum; _when = when; _at = at; }
+  }
+
+  static final class Wheel {
+    private final ArrayList<Timeout>[] _slots;
+    private long _tick;         // Last tick run
+    @SuppressWarnings("unchecked")
+    Wheel( long ms ) {
+      _slots = new ArrayList[SLOTS];
+      for( int i=0; i<SLOTS; i++ ) _slots[i] = new ArrayList<>();
+      _tick = ms/TICK_MS;
+    }
+    synchronized void add( Timeout to ) {
+      long tick = Math.max(to._at/TICK_MS,_tick+1); // Never in a slot already run
+      _slots[(int)(tick%SLOTS)].add(to);
+    }
+    // Take the entries due in all the ticks passed by 'ms', in tick order
+    synchronized void expire( long ms, ArrayList<Timeout> due ) {
+      for( long now = ms/TICK_MS; _tick < now; _tick++ ) {
+        ArrayList<Timeout> slot = _slots[(int)((_tick+1)%SLOTS)];
+        for( int i=0; i<slot.size(); ) {
+          Timeout to = slot.get(i);
+          if( to._at/TICK_MS <= _tick+1 ) { // Due: swap-remove
+            due.add(to);
+            slot.set(i,slot.get(slot.size()-1));
+            slot.remove(slot.size()-1);
+          } else i++;           // A later turn of the wheel
+        }
+      }
+    }
+  }
+
+  // Time out the RPC at its current deadline
+  static void schedule( RPC t ) { schedule(t,t._started+t._retry); }
+  private static void schedule( RPC t, long at ) {
+    if( !_running ) return;
+    WHEEL.add(new Timeout(t._target,t._tasknum,t._started+t._retry,at));
+  }
 
   // The Run Method.
 
   // Started by main() on a single thread, handle timing-out UDP packets
   public void run() {
     Thread.currentThread().setPriority(Thread.NORM_PRIORITY);
+    ArrayList<Timeout> due = new ArrayList<>();
     while( true ) {
       long currentTime = System.currentTimeMillis();
-      for(H2ONode n: H2O.CLOUD._memary) {
-        if (n == H2O.SELF) continue;
-        for (RPC t : n.tasks()) {
-          if (H2O.CLOUD.contains(t._target) ||
-            // Also retry clients who do not appear to be shutdown
-            (t._target._heartbeat._client && t._retry < HeartBeatThread.CLIENT_TIMEOUT)) {
-            if (currentTime > (t._started + t._retry) && !t.isDone() && !t._nack) {
-              if (++t._resendsCnt % 10 == 0)
-                Log.warn("Got " + t._resendsCnt + " resends on task #" + t._tasknum + ", class = " + t._dt.getClass().getSimpleName());
-              t.call();
-            }
-          } else {                // Target is dead, nobody to retry to
-            t.cancel(true);
-          }
-        }
-      }
+      WHEEL.expire(currentTime,due);
+      for( Timeout to : due ) timeout(to,currentTime);
+      due.clear();
       long timeElapsed = System.currentTimeMillis() - currentTime;
-      if(timeElapsed < 1000)
-        try {Thread.sleep(1000-timeElapsed);} catch (InterruptedException e) {}
+      if(timeElapsed < TICK_MS)
+        try {Thread.sleep(TICK_MS-timeElapsed);} catch (InterruptedException e) {}
+    }
+  }
+
+  private static void timeout( Timeout to, long currentTime ) {
+    RPC t = to._target.taskGet(to._tasknum);
+    if( t == null || t.isDone() ) return;         // Answered
+    if( to._when != t._started+t._retry ) return; // Re-sent since; a later entry is on the wheel
+    if (H2O.CLOUD.contains(t._target) ||
+      // Also retry clients who do not appear to be shutdown
+      (t._target._heartbeat._client && t._retry < HeartBeatThread.CLIENT_TIMEOUT)) {
+      if( t._nack )             // Being worked on: no resend, but still watch for the target dying
+        schedule(t,currentTime+NACK_CHECK_MS);
+      else if( currentTime >= to._when ) {
+        if (++t._resendsCnt % 10 == 0)
+          Log.warn("Got " + t._resendsCnt + " resends on task #" + t._tasknum + ", class = " + t._dt.getClass().getSimpleName());
+        t._target._resends.incrementAndGet();
+        t.call();               // Re-sends, and re-schedules
+      } else schedule(t);
+    } else {                // Target is dead, nobody to retry to
+      t.cancel(true);
     }
   }
 }
@@ -116,6 +116,7 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     if( pojo != null )          // Has the POJO, make raw bytes
       return _mem = pojo.asBytes();
     if( _max == 0 ) return (_mem = new byte[0]);
+    if( _key.isChunkKey() ) EvictionPolicy.POLICY.miss();
     return (_mem = loadPersist());
   }
   // Just an empty shell of a Value, no local data but the Value is "real".
@@ -156,7 +157,15 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   // ---
   // Time of last access to this value.
   transient long _lastAccessedTime = System.currentTimeMillis();
-  private void touch() {_lastAccessedTime = System.currentTimeMillis();}
+  private void touch() {
+    _lastAccessedTime = System.currentTimeMillis();
+    if( _key != null && _key.isChunkKey() ) {
+      if( _pojo != null || _mem != null ) EvictionPolicy.POLICY.hit();
+      EvictionPolicy.POLICY.touch(this);
+    }
+  }
+  // Eviction-index state owned by the EvictionPolicy
+  transient volatile int _evict;
   // Exposed and used for testing only; used to trigger premature cleaning/disk-swapping
   void touchAt(long time) {_lastAccessedTime = time;}
 
@@ -164,7 +173,8 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
 
   // Backend persistence info.  3 bits are reserved for 8 different flavors of
   // backend storage.  1 bit for whether or not the latest _mem field is
-  // entirely persisted on the backend storage.  The low 3 bits are final.  The
+  // entirely persisted on the backend storage.  2 bits for the spill codec of
+  // the persisted bytes.  The low 3 bits are final.  The
   // other bit monotonically changes from 0->1.  The deleted bit ALSO
   // monotonically changes 0->1.  These two bits cannot be combined without the
   // use of atomic operations.
@@ -187,6 +197,13 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   /** Check if the backing byte[] has been saved-to-disk */
   public final boolean isPersisted() { return (_persist&ON_dsk)!=0; }
   public final void setDsk() { _persist |=  ON_dsk; } // note: not atomic, but only monotonically set bit
+  // Spill codec, see SpillCodec.  Set by the Cleaner while storing, before
+  // the on-disk bit; only meaningful while persisted.
+  private final static int CODEC_SHIFT = 4;
+  private final static byte CODEC_MASK = 3<<CODEC_SHIFT;
+  /** Id of the {@link water.persist.SpillCodec} the persisted bytes are encoded with */
+  public final int codec() { return (_persist&CODEC_MASK)>>CODEC_SHIFT; }
+  public final void setCodec(int c) { assert !isPersisted(); _persist = (byte)((_persist&~CODEC_MASK) | (c<<CODEC_SHIFT)); } // note: not atomic, Cleaner only
   private volatile byte _deleted; // 1 bit of deleted
   public final boolean isDeleted() { return _deleted != 0; }
   public final void setDel() { _deleted=1; } // note: not atomic, but only monotonically set bit
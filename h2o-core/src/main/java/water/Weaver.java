@@ -10,7 +10,12 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 
-/** Class to auto-gen serializer delegate classes.  */
+/** Class to auto-gen serializer delegate classes.
+ *  <p>
+ *  The generated Icers do not depend on the cloud's type IDs nor on the
+ *  running JVM's field layout, so they can be pre-built: {@link IcerGen} writes
+ *  them out at build time next to the classes they serialize, and they are
+ *  then simply loaded; classes not pre-built are woven here on first use. */
 public class Weaver {
 
     /** Get all woven fields in this class, including subclasses, up to the
@@ -58,8 +63,8 @@ public class Weaver {
     Exception e2;
     try {
       T ice = Modifier.isAbstract(clazz.getModifiers()) ? null : (T)_unsafe.allocateInstance(clazz);
-      Class icer_clz = javassistLoadClass(id,clazz);
-      return (Icer<T>)icer_clz.getDeclaredConstructors()[0].newInstance(ice);
+      Class icer_clz = javassistLoadClass(clazz);
+      return (Icer<T>)icer_clz.getDeclaredConstructors()[0].newInstance(ice,id);
     }
     catch( InvocationTargetException e ) { e2 = e; }
     catch( InstantiationException    e ) { e2 = e; }
@@ -72,10 +77,31 @@ public class Weaver {
   }
 
   // The name conversion from a Iced subclass to an Icer subclass.
-  private static String implClazzName( String name ) {
+  static String implClazzName( String name ) {
     return name + "$Icer";
   }
 
+  // Depth of a Freezable class below the first non-Freezable class; names the
+  // generated methods of its Icer, unique along the Icer class hierarchy.
+  private static int level( Class clz ) {
+    int level = 0;
+    while( Freezable.class.isAssignableFrom(clz = clz.getSuperclass()) ) level++;
+    return level;
+  }
+
+  /** Generate the Icer of a class, and of its Freezable parents first, without
+   *  loading them; for {@link IcerGen}.  Icers already found on the class path
+   *  are reused. */
+  static CtClass makeIcer( Class iced_clazz ) throws CannotCompileException, NotFoundException {
+    String icer_name = implClazzName(iced_clazz.getName());
+    CtClass icer_cc = _pool.getOrNull(icer_name);
+    if( icer_cc != null ) return icer_cc;
+    Class super_clazz = iced_clazz.getSuperclass();
+    CtClass super_icer_cc = Freezable.class.isAssignableFrom(super_clazz) ? makeIcer(super_clazz) : _pool.get(Icer.class.getName());
+    int level = level(iced_clazz);
+    return genIcerClass(level,_pool.get(iced_clazz.getName()),iced_clazz,icer_name,level-1,super_icer_cc,true);
+  }
+
 //  private static boolean hasWovenJSONFields( CtClass cc ) throws NotFoundException {
 //    if( !cc.subtypeOf(_freezable) &&
 //        !cc.subtypeOf(_serialize) ) return false; // Cannot serialize in any case
@@ -97,7 +123,7 @@ public class Weaver {
 //  }
 
   // See if javaassist can find this class, already generated
-  private static Class javassistLoadClass(int id, Class iced_clazz) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, NoSuchFieldException, ClassNotFoundException, InvocationTargetException {
+  private static Class javassistLoadClass(Class iced_clazz) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, NoSuchFieldException, ClassNotFoundException, InvocationTargetException {
     // End the super class lookup chain at "water.Iced",
     // returning the known delegate class "water.Icer".
     String iced_name = iced_clazz.getName();
@@ -107,6 +133,8 @@ public class Weaver {
 
     // Now look for a pre-cooked Icer.  No locking, 'cause we're just looking
     String icer_name = implClazzName(iced_name);
+    try { return Class.forName(icer_name); } // Built with the classes, or woven already
+    catch( ClassNotFoundException ignore ) { }
     CtClass icer_cc = _pool.getOrNull(icer_name); // Full Name Lookup of Icer
     if( icer_cc != null ) {
       synchronized( iced_clazz ) {
@@ -115,17 +143,14 @@ public class Weaver {
       }
     }
 
-    // Serialize parent.  No locking; occasionally we'll "onIce" from the
-    // remote leader more than once.
+    // Serialize parent.  No locking, and no type ID needed for it.
     Class super_clazz = iced_clazz.getSuperclass();
     Class super_icer_clazz;
-    int super_id;
+    int level = level(iced_clazz);
     if(Freezable.class.isAssignableFrom(super_clazz)) {
-      super_id = TypeMap.onIce(super_clazz.getName());
-      super_icer_clazz = javassistLoadClass(super_id, super_clazz);
+      super_icer_clazz = javassistLoadClass(super_clazz);
     } else {
       super_icer_clazz = Icer.class;
-      super_id = -1;
     }
 
     CtClass super_icer_cc = _pool.get(super_icer_clazz.getName());
@@ -138,25 +163,21 @@ public class Weaver {
     synchronized( iced_clazz ) {
       icer_cc = _pool.getOrNull(icer_name); // Retry under lock
       if( icer_cc != null ) return Class.forName(icer_name); // Found a pre-cooked Icer implementation
-      icer_cc = genIcerClass(id,iced_cc,iced_clazz,icer_name,super_id,super_icer_cc,super_has_jfields);
+      icer_cc = genIcerClass(level,iced_cc,iced_clazz,icer_name,level-1,super_icer_cc,super_has_jfields);
       icer_cc.toClass(Weaver.class.getClassLoader());               // Load class (but does not link & init)
       return Class.forName(icer_name); // Initialize class now, before subclasses
     }
   }
 
-  // Generate the Icer class
-  private static CtClass genIcerClass(int id, CtClass iced_cc, Class iced_clazz, String icer_name, int super_id, CtClass super_icer, boolean super_has_jfields ) throws CannotCompileException, NotFoundException, NoSuchFieldException {
+  // Generate the Icer class.  Its methods are suffixed by id, the class's
+  // level in the Icer hierarchy, and call its parent's at super_id.
+  private static CtClass genIcerClass(int id, CtClass iced_cc, Class iced_clazz, String icer_name, int super_id, CtClass super_icer, boolean super_has_jfields ) throws CannotCompileException, NotFoundException {
     // Generate the Icer class
     String iced_name = iced_cc.getName();
     CtClass icer_cc = _pool.makeClass(icer_name);
     icer_cc.setSuperclass(super_icer);
     icer_cc.setModifiers(javassist.Modifier.PUBLIC);
 
-    // Overall debug printing?
-    if (false) {
-      System.out.println("Iced class " + icer_cc.getName() + " is number: " + id);
-    }
-
     // Detailed debug printing?
     boolean debug_print=false;
     CtField ctfs[] = iced_cc.getDeclaredFields();
@@ -190,9 +211,9 @@ public class Weaver {
     make_body(icer_cc, iced_cc, iced_clazz, "write", null, null,
               "  protected final water.AutoBuffer write"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               super_id == -1?"":"    write"+super_id+"(ab,ice);\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
               "    return ab;\n" +
               "  }");
     if( debug_print ) System.out.println(debug);
@@ -200,9 +221,9 @@ public class Weaver {
     make_body(icer_cc, iced_cc, iced_clazz, "writeJSON", "(supers?ab.put1(','):ab).", "    ab.put1(',').",
               "  protected final water.AutoBuffer writeJSON"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               super_id == -1?"":"    writeJSON"+super_id+"(ab,ice);\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n"  ,
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n"  ,
               "    return ab;\n" +
               "  }");
     if( debug_print ) System.out.println(debugJ);
@@ -226,9 +247,9 @@ public class Weaver {
     make_body(icer_cc, iced_cc, iced_clazz, "read", null, null,
               "  protected final "+iced_name+" read"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               super_id == -1?"":"    read"+super_id+"(ab,ice);\n",
-              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%dL,ab.get%z());  //%s\n",
-              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%dL,ab.get%z(%s));\n",
-              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%dL,(%C)ab.get%z(%c.class));  //%s\n",
+              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%d,ab.get%z());  //%s\n",
+              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%d,ab.get%z(%s));\n",
+              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%d,(%C)ab.get%z(%c.class));  //%s\n",
               "    return ice;\n" +
               "  }");
     if( debug_print ) System.out.println(rbody_impl);
@@ -236,9 +257,9 @@ public class Weaver {
     make_body(icer_cc, iced_cc, iced_clazz, "readJSON", null, null,
               "  protected final "+iced_name+" readJSON"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               super_id == -1?"":"    readJSON"+super_id+"(ab,ice);\n",
-              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%dL,ab.get%z());  //%s\n",
-              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%dL,ab.get%z(%s));\n",
-              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%dL,(%C)ab.get%z(%c.class));  //%s\n",
+              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%d,ab.get%z());  //%s\n",
+              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%d,ab.get%z(%s));\n",
+              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%d,(%C)ab.get%z(%c.class));  //%s\n",
               "    return ice;\n" +
               "  }");
     if( debug_print )
@@ -261,10 +282,6 @@ public class Weaver {
     if( debug_print ) System.out.println(cnbody);
     addMethod(cnbody,icer_cc);
 
-    String ftbody = "  protected int frozenType() { return "+id+"; }";
-    if( debug_print ) System.out.println(ftbody);
-    addMethod(ftbody,icer_cc);
-
     String cmp2 = "  protected void compute1( water.H2O.H2OCountedCompleter dt ) { dt.compute1(); }";
     if( debug_print ) System.out.println(cmp2);
     addMethod(cmp2,icer_cc);
@@ -278,14 +295,14 @@ public class Weaver {
                   "    super.copyOver(fdst,fsrc);\n"+
                   "    "+iced_name+" dst = ("+iced_name+")fdst;\n"+
                   "    "+iced_name+" src = ("+iced_name+")fsrc;\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
                   "  }");
       if( debug_print ) System.out.println(cpbody_impl);
     }
 
-    String cstrbody = "  public "+icer_cc.getSimpleName()+"( "+iced_name+" iced) { super(iced); }";
+    String cstrbody = "  public "+icer_cc.getSimpleName()+"( "+iced_name+" iced, int id) { super(iced,id); }";
     if( debug_print ) System.out.println(cstrbody);
     try {
       icer_cc.addConstructor(CtNewConstructor.make(cstrbody,icer_cc));
@@ -306,7 +323,7 @@ public class Weaver {
                                   String  enums, String enums_unsafe,
                                   String   iced, String  iced_unsafe,
                                   String trailer
-                                  ) throws CannotCompileException, NotFoundException, NoSuchFieldException {
+                                  ) throws CannotCompileException, NotFoundException {
     StringBuilder sb = new StringBuilder();
     sb.append(header);
     if(impl.equals("writeJSON")) {
@@ -381,7 +398,7 @@ public class Weaver {
       // access, only private is a problem.
       boolean can_access = !javassist.Modifier.isPrivate(mods);
       if( (impl.equals("read") || impl.equals("copyOver")) && javassist.Modifier.isFinal(mods) ) can_access = false; 
-      long off = _unsafe.objectFieldOffset(iced_clazz.getDeclaredField(ctf.getName()));
+      String off = can_access ? null : offsetField(icer_cc, iced_cc, ctf);
       int ftype = ftype(iced_cc, ctf.getSignature() ); // Field type encoding
       if( ftype%20 == 9 || ftype%20 == 11 ) {          // Iced/Objects
         sb.append(can_access ?  iced :  iced_unsafe);
@@ -397,7 +414,7 @@ public class Weaver {
       subsub(sb, "%s", ctf.getName());             // %s ==> field name
       subsub(sb, "%c", dollarsub(base.getName())); // %c ==> base class name
       subsub(sb, "%C", dollarsub(ctft.getName())); // %C ==> full class name
-      subsub(sb, "%d", ""+off);                    // %d ==> field offset, only for Unsafe
+      if( off != null ) subsub(sb, "%d", off);     // %d ==> field offset, only for Unsafe
       subsub(sb, "%u", utype(ctf.getSignature())); // %u ==> unsafe type name
 
     }
@@ -408,6 +425,23 @@ public class Weaver {
     return body;
   }
 
+  // The static field holding the Unsafe offset of an Iced field, added to the
+  // Icer on first use.  Looked up when the Icer is loaded.
+  private static String offsetField( CtClass icer_cc, CtClass iced_cc, CtField ctf ) throws CannotCompileException {
+    String name = "_off"+ctf.getName();
+    try { icer_cc.getDeclaredField(name); }
+    catch( NotFoundException nfe ) {
+      String src = "  private static final long "+name+" = water.Icer.offset(\""+iced_cc.getName()+"\",\""+ctf.getName()+"\");";
+      try {
+        icer_cc.addField(CtField.make(src,icer_cc));
+      } catch( CannotCompileException ce ) {
+        System.err.println("--- Compilation failure while compiling "+icer_cc.getName()+"\n"+src+"\n------\n"+ce);
+        throw ce;
+      }
+    }
+    return name;
+  }
+
   // Add a gen'd method.  Politely print if there's an error during generation.
   private static void addMethod( String body, CtClass icer_cc ) throws CannotCompileException {
     try {
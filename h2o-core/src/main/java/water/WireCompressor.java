@@ -0,0 +1,90 @@
+package water;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.nbhm.NonBlockingHashMapLong;
+import water.persist.SpillCodec;
+
+/** Compression of large messages between nodes.
+ *  <p>
+ *  With {@code -wire_compress lz|deflate}, every TCP channel carrying large
+ *  messages is opened as a framed channel: each page the sender ships is
+ *  preceded by a small header (codec, raw length, stored length), and pages
+ *  of at least {@code -wire_compress_min} bytes are compressed with the
+ *  configured {@link SpillCodec}.  A page that does not shrink is sent raw, so
+ *  the receiver decodes each frame by its own header.
+ *  <p>
+ *  The choice is made per message type (the type of the first object written
+ *  to the message, i.e. the DTask): once a type has sent enough pages and its
+ *  data does not compress - already-compressed Chunks, random doubles - it
+ *  stops paying for the codec, and re-tries only once in a while in case its
+ *  data changes.  Raw and on-the-wire bytes are counted, overall and per
+ *  type, and reported through {@code /3/WaterMeterIo}. */
+public final class WireCompressor {
+  private static final int SAMPLE = 32;     // Pages sent before judging a type
+  private static final int RETRY = 1024;    // Pages between re-tries of a type that doesn't compress
+  private static final double MIN_SAVINGS = 0.05; // Must save 5% to be worth it
+
+  static SpillCodec CODEC = SpillCodec.make(H2O.ARGS.wire_compress); // Swapped by tests
+
+  private static final class TypeStats {
+    final AtomicLong _pages = new AtomicLong(), _raw = new AtomicLong(), _wire = new AtomicLong();
+    volatile boolean _off;      // Data of this type does not compress
+  }
+  private static final NonBlockingHashMapLong<TypeStats> TYPES = new NonBlockingHashMapLong<>();
+
+  private static final AtomicLong RAW_BYTES = new AtomicLong(), WIRE_BYTES = new AtomicLong();
+  private static final AtomicLong ZIPPED_PAGES = new AtomicLong(), RAW_PAGES = new AtomicLong();
+
+  private WireCompressor() { }
+
+  /** True if large-message channels are framed (and maybe compressed) */
+  public static boolean enabled() { return CODEC != SpillCodec.NONE; }
+
+  private static TypeStats stats( int type ) {
+    TypeStats ts = TYPES.get(type);
+    if( ts != null ) return ts;
+    TypeStats ts2 = TYPES.putIfAbsent(type,ts = new TypeStats());
+    return ts2 == null ? ts : ts2;
+  }
+
+  /** Codec for a page of len bytes of a message of the given type */
+  static SpillCodec codec( int type, int len ) {
+    if( len < H2O.ARGS.wire_compress_min ) return SpillCodec.NONE;
+    TypeStats ts = stats(type);
+    if( ts._off && ts._pages.get() % RETRY != 0 ) return SpillCodec.NONE;
+    return CODEC;
+  }
+
+  /** Record a page sent: the codec tried, raw bytes, and bytes on the wire
+   *  (less the frame header; raw if the codec did not help) */
+  static void sent( int type, SpillCodec codec, int raw, int wire ) {
+    RAW_BYTES.addAndGet(raw);
+    WIRE_BYTES.addAndGet(wire);
+    TypeStats ts = stats(type);
+    long pages = ts._pages.incrementAndGet();
+    (wire < raw ? ZIPPED_PAGES : RAW_PAGES).incrementAndGet();
+    if( codec == SpillCodec.NONE ) return; // Not tried
+    if( ts._off ) {             // A re-try: judge afresh, starting from this page
+      ts._raw.set(raw);
+      ts._wire.set(wire);
+      ts._off = wire > raw*(1-MIN_SAVINGS);
+      return;
+    }
+    long r = ts._raw.addAndGet(raw), w = ts._wire.addAndGet(wire);
+    if( pages >= SAMPLE )       // Judge on what this type compressed so far
+      ts._off = w > r*(1-MIN_SAVINGS);
+  }
+
+  public static long rawBytes()    { return RAW_BYTES.get(); }
+  public static long wireBytes()   { return WIRE_BYTES.get(); }
+  public static long bytesSaved()  { return RAW_BYTES.get()-WIRE_BYTES.get(); }
+  public static long zippedPages() { return ZIPPED_PAGES.get(); }
+  public static long rawPages()    { return RAW_PAGES.get(); }
+  /** Number of message types currently sent uncompressed, as not worth it */
+  public static int typesOff() {
+    int n = 0;
+    for( TypeStats ts : TYPES.values() ) if( ts._off ) n++;
+    return n;
+  }
+}
@@ -26,7 +26,10 @@ class ParseHandler extends Handler {
                                       ParseSetup.strToColumnTypes(parse.column_types),
                                       parse.domains, parse.na_strings,
                                       null,
-                                      new ParseWriter.ParseErr[0], parse.chunk_size);
+                                      new ParseWriter.ParseErr[0], parse.chunk_size)
+        .setSkippedColumns(parse.skipped_columns)
+        .setRowFilter(parse.row_filter)
+        .setTwoPhaseTokenizer(parse.two_phase_tokenizer);
 
     if (parse.source_frames == null) throw new H2OIllegalArgumentException("Data for Frame '" + parse.destination_frame.name + "' is not available. Please check that the path is valid (for all H2O nodes).'");
     Key[] srcs = new Key[parse.source_frames.length];
@@ -297,6 +297,14 @@ public class RegisterV3Api extends AbstractRegister {
         "GET /3/WaterMeterIo", WaterMeterIoHandler.class, "fetch_all",
         "Return IO usage snapshot of all nodes in the H2O cluster.");
 
+    RequestServer.registerEndpoint("waterMeterCacheForNode",
+        "GET /3/WaterMeterCache/{nodeidx}", WaterMeterCacheHandler.class, "fetch",
+        "Return Chunk cache hit, miss and eviction counts of one node in the H2O cluster.");
+
+    RequestServer.registerEndpoint("waterMeterCacheForCluster",
+        "GET /3/WaterMeterCache", WaterMeterCacheHandler.class, "fetch_all",
+        "Return Chunk cache hit, miss and eviction counts summed over all nodes in the H2O cluster.");
+
     // Node persistent storage
     RequestServer.registerEndpoint("npsContains",
         "GET /3/NodePersistentStorage/categories/{category}/names/{name}/exists",
@@ -380,6 +388,10 @@ public class RegisterV3Api extends AbstractRegister {
         "DELETE /3/DKV/{key}", RemoveHandler.class, "remove",
         "Remove an arbitrary key from the H2O distributed K/V store.");
 
+    RequestServer.registerEndpoint("setResidency",
+        "POST /3/Residency", ResidencyHandler.class, "set",
+        "Set the residency priority (pinned, normal or spill-first) of a Frame's or Vec's chunks in the memory cleaner.");
+
     RequestServer.registerEndpoint("deleteAllKeys",
         "DELETE /3/DKV", RemoveAllHandler.class, "remove",
         "Remove all keys from the H2O distributed K/V store.");
@@ -0,0 +1,17 @@
+package water.api;
+
+import water.Residency;
+import water.api.schemas3.ResidencyV3;
+import water.exceptions.H2OIllegalArgumentException;
+
+public class ResidencyHandler extends Handler {
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public ResidencyV3 set(int version, ResidencyV3 u) {
+    try {
+      Residency.set(u.key.key(), u.priority);
+    } catch (IllegalArgumentException e) {
+      throw new H2OIllegalArgumentException(e.getMessage());
+    }
+    return u;
+  }
+}
@@ -48,6 +48,12 @@ public class JobV3 extends SchemaV3<Job, JobV3> {
   @API(help="ready for view", direction=API.Direction.OUTPUT)
   public boolean ready_for_view;
 
+  @API(help="Bytes allocated by this job, over all nodes", direction=API.Direction.OUTPUT)
+  public long mem_alloc;
+
+  @API(help="Per-node allocation quota between full GCs, applied while memory is low; 0 for none", direction=API.Direction.OUTPUT)
+  public long mem_quota;
+
   //==========================
   // Custom adapters go here
 
@@ -90,6 +96,8 @@ public class JobV3 extends SchemaV3<Job, JobV3> {
     }
     msec = job.msec();
     ready_for_view = job.readyForView();
+    mem_alloc = job.mem_alloc();
+    mem_quota = MemoryManager.jobQuota(job._key);
 
     Keyed dest_type = (Keyed)TypeMap.theFreezable(job._typeid);
     dest = job._result == null ? null : KeyV3.make(dest_type.makeSchema(),job._result);
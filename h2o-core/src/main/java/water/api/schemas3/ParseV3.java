@@ -44,6 +44,15 @@ public class ParseV3 extends SchemaV3<Iced, ParseV3> {
   @API(help="Size of individual parse tasks", direction=API.Direction.INPUT)
   public int chunk_size;
 
+  @API(help="Indices of columns to leave out of the parse (Parquet and ORC only)", direction=API.Direction.INPUT)
+  public int[] skipped_columns;
+
+  @API(help="Clauses like \"age>=18\" or \"state==CA\" which all parsed rows must match (Parquet only)", direction=API.Direction.INPUT)
+  public String[] row_filter;
+
+  @API(help="Tokenize CSV data in two passes, structural characters first", direction=API.Direction.INPUT)
+  public boolean two_phase_tokenizer;
+
   @API(help="Delete input key after parse")
   public boolean delete_on_done;
 
@@ -0,0 +1,16 @@
+package water.api.schemas3;
+
+import water.Iced;
+import water.Residency;
+import water.api.API;
+
+public class ResidencyV3 extends SchemaV3<Iced, ResidencyV3> {
+
+  @API(help="Frame or Vec to set the residency priority of.", required=true)
+  public KeyV3 key;
+
+  @API(help="Residency priority: pinned Chunks are never freed from the heap by the Cleaner, spill_first Chunks are freed before all others.",
+       values={"PINNED", "NORMAL", "SPILL_FIRST"})
+  public Residency.Priority priority = Residency.Priority.NORMAL;
+
+}
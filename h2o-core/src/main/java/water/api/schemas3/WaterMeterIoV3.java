@@ -11,6 +11,15 @@ public class WaterMeterIoV3 extends SchemaV3<WaterMeterIo, WaterMeterIoV3> {
   @API(help="array of IO info", direction = API.Direction.OUTPUT)
   public WaterMeterIo.IoStatsEntry persist_stats[];
 
+  @API(help="array of direct buffer pool info, one per size class", direction = API.Direction.OUTPUT)
+  public WaterMeterIo.BufferPoolStatsEntry buffer_stats[];
+
+  @API(help="large-message wire compression info", direction = API.Direction.OUTPUT)
+  public WaterMeterIo.WireStatsEntry wire_stats;
+
+  @API(help="array of RPC round-trip and retry info, one per pair of nodes", direction = API.Direction.OUTPUT)
+  public WaterMeterIo.RpcStatsEntry rpc_stats[];
+
   // Version&Schema-specific filling into the implementation object
   public WaterMeterIo createImpl() {
     WaterMeterIo obj = new WaterMeterIo();
@@ -175,6 +175,10 @@ public class Vec extends Keyed<Vec> {
   // - lest a Vec.set changes the rollups and we return a stale copy.
   transient private Key _rollupStatsKey;
 
+  // Hash of this Vec's Key in the local Chunk index (see ChunkStore); filled
+  // in lazily and racily, all writers write the same value.
+  transient private int _chunkHash;
+
   /** Returns the categorical toString mapping array, or null if not an categorical column.
    *  Not a defensive clone (to expensive to clone; coding error to change the
    *  contents).
@@ -815,7 +819,15 @@ public class Vec extends Keyed<Vec> {
    *  {@code DKV.get()}.  Warning: this pulls the data locally; using this call
    *  on every Chunk index on the same node will probably trigger an OOM!  */
   public Value chunkIdx( int cidx ) {
-    Value val = DKV.get(chunkKey(cidx));
+    // Fast path: a locally cached Chunk, found without making its Key
+    int h = _chunkHash;
+    if( h == 0 ) _chunkHash = h = ChunkStore.vecHash(_key._kb);
+    Value val = ChunkStore.get(_key,h,cidx);
+    if( val != null && (val.rawMem() != null || val.rawPOJO() != null || val.isPersisted()) ) {
+      if( !val._key.home() ) RemoteChunkCache.hit();
+      return val;
+    }
+    val = DKV.get(chunkKey(cidx));
     assert checkMissing(cidx,val) : "Missing chunk " + chunkKey(cidx);
     return val;
   }
@@ -1106,6 +1118,7 @@ public class Vec extends Keyed<Vec> {
     Key kr = chunkKey(vkey,-2); // Rollup Stats
     H2O.raw_remove(kr);
     H2O.raw_remove(vkey);
+    Residency.clear(vkey);
   }
 
   /** Write out K/V pairs */
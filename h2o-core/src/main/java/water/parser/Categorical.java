@@ -1,21 +1,35 @@
 package water.parser;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import com.google.common.base.Charsets;
 import water.Iced;
-import water.util.IcedHashMap;
+import water.MemoryManager;
 import water.util.Log;
 import water.util.PrettyPrint;
+import water.util.UnsafeUtils;
 
 /** Class for tracking categorical (factor) columns.
  *
- *  Basically a wrapper around non blocking hash map.
- *  In the first pass, we just collect set of unique strings per column
- *  (if there are less than MAX_CATEGORICAL_COUNT unique elements).
- *  
- *  After pass1, the keys are sorted and indexed alphabetically.
- *  In the second pass, map is used only for lookup and never updated.
- *  
+ *  A concurrent, hash-consed dictionary of the strings seen in a column.
+ *  In the first pass, we just collect the set of unique strings per column
+ *  (if there are less than MAX_CATEGORICAL_COUNT unique elements), each
+ *  getting a node-local id in order of arrival.
+ *
+ *  After pass1, the ids are sorted by their strings; the sorted, packed
+ *  domains of all nodes are merged into the global domain, and a merge of the
+ *  sorted local strings against it gives the local-to-global id map.
+ *
+ *  Strings are packed end to end in large byte pages, so there is no object
+ *  per level: a level costs its bytes plus 2 for the length, 8 for its offset
+ *  and (at most) 12 for its hash slot.  Strings too long for a page get a
+ *  page of their own.  Lookups and inserts are lock-free; an insert CASes
+ *  its id into an empty slot after its bytes are in place.  Only doubling the
+ *  hash table takes a lock.
+ *
  *  Categorical objects are shared among threads on the local nodes!
  *
  * @author tomasnykodym
@@ -26,57 +40,228 @@ public final class Categorical extends Iced {
   public static final int MAX_CATEGORICAL_COUNT = 10000000;
   transient AtomicInteger _id = new AtomicInteger();
   int _maxId = -1;
-  volatile IcedHashMap<BufferedString, Integer> _map;
   boolean maxDomainExceeded = false;
 
-  Categorical() { _map = new IcedHashMap<>(); }
+  // Packed strings: 2 bytes of length, then the bytes; never across pages.
+  // Strings of BIG bytes or more are alone on a page sized to fit, their
+  // length BIG_LEN and the page's size telling the real one.
+  private static final int PAGE_BITS = 16;
+  private static final int PAGE_MASK = (1<<PAGE_BITS)-1;
+  private static final int BIG = PAGE_MASK-1;
+  private static final int BIG_LEN = 0xFFFF;
+  private transient volatile byte[][] _pages = new byte[4][];
+  private transient final AtomicLong _top = new AtomicLong();
+  // String offset for each id, in pages of ids
+  private static final int OFF_BITS = 10;
+  private static final int OFF_MASK = (1<<OFF_BITS)-1;
+  private transient volatile long[][] _offs = new long[4][];
+  // Open addressed hash table; a slot is 0, MOVED, or a (hash<<32 | id) pair
+  private static final long MOVED = -1L;
+  private transient volatile Table _tab = new Table(1<<8);
+  private transient final AtomicInteger _size = new AtomicInteger();
+  // Ids sorted by their string, once the parse is done
+  private transient int[] _sorted;
+
+  private static final class Table {
+    final AtomicLongArray _slots;
+    final int _limit;           // Size past which the table doubles
+    Table(int len) { _slots = new AtomicLongArray(len); _limit = (len/3)*2; }
+  }
+
+  Categorical() { }
 
   /** Add key to this map (treated as hash set in this case). */
   int addKey(BufferedString str) {
-    // _map is shared and be cast to null (if categorical is killed) -> grab local copy
-    IcedHashMap<BufferedString, Integer> m = _map;
-    if( m == null ) return Integer.MAX_VALUE;     // Nuked already
-    Integer res = m.get(str);
-    if( res != null ) return res; // Recorded already
-    assert str.length() < 65535; // Length limit so 65535 can be used as a sentinel
-    int newVal = _id.incrementAndGet();
-    res = m.putIfAbsent(new BufferedString(str), newVal);
-    if( res != null ) return res;
-    if( m.size() > MAX_CATEGORICAL_COUNT) maxDomainExceeded = true;
-    return newVal;
-  }
-  final boolean containsKey(BufferedString key){ return _map.containsKey(key); }
+    final byte[] buf = str.getBuffer();
+    final int off = str.getOffset(), len = str.length();
+    final int h = hash(buf, off, len);
+    int id = 0;                 // Our id for str, once its bytes are stored
+    Table t = _tab;
+    RETRY:
+    while( true ) {
+      final AtomicLongArray slots = t._slots;
+      final int mask = slots.length()-1;
+      for( int i = h & mask; ; i = (i+1) & mask ) {
+        long s = slots.get(i);
+        if( s == 0 ) {
+          if( id == 0 ) id = store(buf, off, len); // Bytes first, so whoever sees the slot sees them
+          if( slots.compareAndSet(i, 0, ((long)h << 32) | id) ) {
+            int size = _size.incrementAndGet();
+            if( size > MAX_CATEGORICAL_COUNT ) maxDomainExceeded = true;
+            if( size > t._limit ) resize(t);
+            return id;
+          }
+          s = slots.get(i);     // Lost the race; look at the winner
+        }
+        if( s == MOVED ) {      // Table is being doubled: wait, and start over in the new one
+          t = awaitResize();
+          continue RETRY;
+        }
+        if( (int)(s >>> 32) == h && keyEquals((int)s, buf, off, len) )
+          return (int)s;        // Recorded already (an id we stored is left unused)
+      }
+    }
+  }
+
   @Override public String toString() {
-    return "{"+_map+" }";
+    return "{"+size()+" keys }";
   }
 
-  int getTokenId( BufferedString str ) { return _map.get(str); }
-  
   int maxId() { return _maxId == -1 ? _id.get() : _maxId; }
-  int size() { return _map.size(); }
+  int size() { return _size.get(); }
   boolean isMapFull() { return maxDomainExceeded; }
 
-  BufferedString[] getColumnDomain() {
-    return  _map.keySet().toArray(new BufferedString[_map.size()]);
+  private static int hash(byte[] buf, int off, int len) {
+    int h = len;
+    for( int i = off; i < off+len; i++ )
+      h = 31*h + buf[i];
+    h ^= h >>> 16;              // Spread low-entropy keys over the table
+    h *= 0x85EBCA6B;
+    return h ^ (h >>> 13);
+  }
+
+  // Doubling copies every slot under the lock.  Empty slots are CASed to
+  // MOVED first, so no insert can land in the old table after its slot was
+  // looked at; inserts which find MOVED wait here for the new table.
+  private synchronized void resize(Table t) {
+    if( _tab != t ) return;     // Someone else did it
+    Table n = new Table(t._slots.length() << 1);
+    final AtomicLongArray old = t._slots, slots = n._slots;
+    final int mask = slots.length()-1;
+    for( int i = 0; i < old.length(); i++ ) {
+      long s;
+      while( (s = old.get(i)) == 0 && !old.compareAndSet(i, 0, MOVED) ) ;
+      if( s == 0 ) continue;
+      int j = (int)(s >>> 32) & mask;
+      while( slots.get(j) != 0 ) j = (j+1) & mask;
+      slots.lazySet(j, s);      // Published by the volatile write below
+    }
+    _tab = n;
+  }
+
+  private synchronized Table awaitResize() { return _tab; }
+
+  // Store a copy of the bytes, returning the new id
+  private int store(byte[] buf, int off, int len) {
+    final int id = _id.incrementAndGet();
+    long o, end;
+    do {                        // Bump-allocate, skipping to the next page if needed
+      o = _top.get();
+      long start = len < BIG && (o >>> PAGE_BITS) == ((o+len+1) >>> PAGE_BITS) ? o : (o+PAGE_MASK) & ~(long)PAGE_MASK;
+      end = start+len+2;
+      if( len >= BIG ) end = (end+PAGE_MASK) & ~(long)PAGE_MASK; // The page indices it spans stay unused
+      if( _top.compareAndSet(o, end) ) { o = start; break; }
+    } while( true );
+    final byte[] page = len < BIG ? page((int)(o >>> PAGE_BITS)) : newPage((int)(o >>> PAGE_BITS), len+2);
+    final int p = (int)o & PAGE_MASK;
+    final int l = len < BIG ? len : BIG_LEN;
+    page[p] = (byte)l;
+    page[p+1] = (byte)(l >>> 8);
+    System.arraycopy(buf, off, page, p+2, len);
+    offsets(id >>> OFF_BITS)[id & OFF_MASK] = o;
+    return id;
+  }
+
+  private byte[] page(int pi) {
+    byte[][] ps = _pages;
+    return pi < ps.length && ps[pi] != null ? ps[pi] : newPage(pi, 1<<PAGE_BITS);
+  }
+  private synchronized byte[] newPage(int pi, int size) {
+    if( pi >= _pages.length ) _pages = Arrays.copyOf(_pages, Math.max(pi+1, _pages.length << 1));
+    if( _pages[pi] == null ) _pages[pi] = MemoryManager.malloc1(size);
+    return _pages[pi];
+  }
+
+  private long[] offsets(int oi) {
+    long[][] os = _offs;
+    return oi < os.length && os[oi] != null ? os[oi] : newOffsets(oi);
+  }
+  private synchronized long[] newOffsets(int oi) {
+    if( oi >= _offs.length ) _offs = Arrays.copyOf(_offs, Math.max(oi+1, _offs.length << 1));
+    if( _offs[oi] == null ) _offs[oi] = MemoryManager.malloc8(1<<OFF_BITS);
+    return _offs[oi];
+  }
+
+  private long offset(int id) { return _offs[id >>> OFF_BITS][id & OFF_MASK]; }
+  private byte[] pageOf(long o) { return _pages[(int)(o >>> PAGE_BITS)]; }
+  private static int length(byte[] page, int p) {
+    final int len = (page[p] & 0xFF) | ((page[p+1] & 0xFF) << 8);
+    return len == BIG_LEN ? page.length-2 : len;
+  }
+
+  private boolean keyEquals(int id, byte[] buf, int off, int len) {
+    final long o = offset(id);
+    final byte[] page = pageOf(o);
+    final int p = (int)o & PAGE_MASK;
+    if( length(page, p) != len ) return false;
+    for( int i = 0; i < len; i++ )
+      if( page[p+2+i] != buf[off+i] ) return false;
+    return true;
+  }
+
+  // Word d of the key: bytes [7d,7d+7) big-endian, then how many of them
+  // the key has, flipped so signed order is unsigned byte order.  Shorter
+  // keys sort first, the same order as BufferedString.compareTo; a count
+  // under 7 means the key ends in this word.
+  private long wordAt(int id, int d) {
+    final long o = offset(id);
+    final byte[] page = pageOf(o);
+    final int p = (int)o & PAGE_MASK;
+    final int n = Math.max(0, Math.min(7, length(page, p)-7*d));
+    long w = 0;
+    for( int i = 0, q = p+2+7*d; i < 7; i++ )
+      w = (w << 8) | (i < n ? page[q+i] & 0xFF : 0);
+    return ((w << 8) | n) ^ Long.MIN_VALUE;
+  }
+
+  private int compare(int id, byte[] key) {
+    final long o = offset(id);
+    final byte[] page = pageOf(o);
+    final int p = (int)o & PAGE_MASK, len = length(page, p);
+    for( int i = 0; i < Math.min(len, key.length); i++ ) {
+      int x = (page[p+2+i] & 0xFF) - (key[i] & 0xFF);
+      if( x != 0 ) return x;
+    }
+    return len - key.length;
+  }
+
+  private BufferedString key(int id, BufferedString str) {
+    final long o = offset(id);
+    final byte[] page = pageOf(o);
+    final int p = (int)o & PAGE_MASK;
+    return str.set(page, p+2, length(page, p));
+  }
+
+  // All ids in use; ids which lost an insert race have no hash slot
+  private int[] ids() {
+    int[] ids = MemoryManager.malloc4(size());
+    int n = 0;
+    final AtomicLongArray slots = _tab._slots;
+    for( int i = 0; i < slots.length(); i++ ) {
+      long s = slots.get(i);
+      if( s != 0 && s != MOVED ) ids[n++] = (int)s;
+    }
+    assert n == ids.length;
+    return ids;
   }
 
   public static final int MAX_EXAMPLES = 10;
   public void convertToUTF8(int col){
     int hexConvCnt = 0;
-    BufferedString[] bStrs = _map.keySet().toArray(new BufferedString[_map.size()]);
     StringBuilder hexSB = new StringBuilder();
-    for (int i =0; i < bStrs.length; i++) {
-      String s = bStrs[i].toString();
-      if (!bStrs[i].equals(s)) {
+    BufferedString str = new BufferedString();
+    for( int id : ids() ) {
+      String s = key(id, str).toString();
+      if (!str.equals(s)) {
         if (s.contains("\uFFFD")) { // make weird chars into hex
-          s = bStrs[i].bytesToString();
+          s = str.bytesToString();
           if (hexConvCnt++ < MAX_EXAMPLES) hexSB.append(s +", ");
           if (hexConvCnt == MAX_EXAMPLES) hexSB.append("...");
         }
-        int val = _map.get(bStrs[i]);
-        _map.remove(bStrs[i]);
-        bStrs[i] = new BufferedString(s);
-        _map.put(bStrs[i], val);
+        // Re-point the id at the converted string; the hash slot keeps the
+        // original, which nothing looks up once the parse is done
+        byte[] bs = s.getBytes(Charsets.UTF_8);
+        offsets(id >>> OFF_BITS)[id & OFF_MASK] = offset(store(bs, 0, bs.length));
       }
     }
     if (hexConvCnt > 0) Log.info("Found categoricals with non-UTF-8 characters in the "
@@ -85,30 +270,113 @@ public final class Categorical extends Iced {
         + hexSB.toString());
   }
 
-  // Since this is a *concurrent* hashtable, writing it whilst its being
-  // updated is tricky.  If the table is NOT being updated, then all is written
-  // as expected.  If the table IS being updated we only promise to write the
-  // Keys that existed at the time the table write began.  If elements are
-  // being deleted, they may be written anyways.  If the Values are changing, a
-  // random Value is written.
-//  public AutoBuffer write_impl( AutoBuffer ab ) {
-//    if( _map == null ) return ab.put1(1); // Killed map marker
-//    ab.put1(0);                           // Not killed
-//    ab.put4(maxId());
-//    for( BufferedString key : _map.keySet() )
-//      ab.put2((char)key.length()).putA1(key.getBuffer(),key.length()).put4(_map.get(key));
-//    return ab.put2((char)65535); // End of map marker
-//  }
-//
-//  public Categorical read_impl( AutoBuffer ab ) {
-//    assert _map == null || _map.size()==0;
-//    _map = null;
-//    if( ab.get1() == 1 ) return this; // Killed?
-//    _maxId = ab.get4();
-//    _map = new NonBlockingHashMap<>();
-//    int len;
-//    while( (len = ab.get2()) != 65535 ) // Read until end-of-map marker
-//      _map.put(new BufferedString(ab.getA1(len)),ab.get4());
-//    return this;
-//  }
+  /** The sorted domain of this node, packed for merging with other nodes':
+   *  the count, then each string as its length and bytes.  Keeps the sorted
+   *  ids for {@link #localToGlobal}. */
+  byte[] packedSortedDomain() {
+    final int[] ids = ids();
+    final long[] ws = MemoryManager.malloc8(ids.length);
+    for( int i = 0; i < ids.length; i++ ) ws[i] = wordAt(ids[i], 0);
+    sort(ids, ws, 0, ids.length, 0);
+    _sorted = ids;
+    // Offsets in sorted order, dropping duplicates (converted keys may collide)
+    int n = 0, bytes = 4;
+    for( int i = 0; i < ids.length; i++ ) {
+      final long o = offset(ids[i]);
+      if( n > 0 && sameKey(ws[n-1], o) ) continue;
+      ws[n++] = o;
+      bytes += 4 + length(pageOf(o), (int)o & PAGE_MASK);
+    }
+    final byte[] packed = MemoryManager.malloc1(bytes);
+    UnsafeUtils.set4(packed, 0, n);
+    for( int i = 0, j = 4; i < n; i++ ) {
+      final byte[] page = pageOf(ws[i]);
+      final int p = (int)ws[i] & PAGE_MASK, len = length(page, p);
+      UnsafeUtils.set4(packed, j, len);
+      System.arraycopy(page, p+2, packed, j+4, len);
+      j += 4 + len;
+    }
+    return packed;
+  }
+
+  private boolean sameKey(long o1, long o2) {
+    final byte[] p1 = pageOf(o1), p2 = pageOf(o2);
+    final int i1 = (int)o1 & PAGE_MASK, i2 = (int)o2 & PAGE_MASK, len = length(p1, i1);
+    if( length(p2, i2) != len ) return false;
+    for( int i = 2; i < len+2; i++ )
+      if( p1[i1+i] != p2[i2+i] ) return false;
+    return true;
+  }
+
+  /** Map from local ids to indices in the (sorted) global domain, -1 for
+   *  unused ids; a single merge of the two sorted lists. */
+  int[] localToGlobal(String[] domain) {
+    if( _sorted == null ) packedSortedDomain();
+    final int[] map = MemoryManager.malloc4(maxId()+1);
+    Arrays.fill(map, -1);
+    int j = 0;
+    byte[] g = domain.length > 0 ? domain[0].getBytes(Charsets.UTF_8) : null;
+    for( int id : _sorted ) {
+      int x = 1;
+      while( j < domain.length && (x = compare(id, g)) > 0 )
+        if( ++j < domain.length ) g = domain[j].getBytes(Charsets.UTF_8);
+      if( j < domain.length && x == 0 ) map[id] = j;
+    }
+    return map;
+  }
+
+  // Multikey quicksort (Bentley & Sedgewick) of ids[lo,hi), on key words
+  // from depth d on; ws holds word d of each key, read once per level since
+  // each read is a cache miss.  Keys sharing long prefixes cost no more than
+  // their prefix.
+  private void sort(int[] ids, long[] ws, int lo, int hi, int d) {
+    while( hi-lo > 1 ) {
+      if( hi-lo < 12 ) {        // Insertion sort on the remaining words
+        for( int i = lo+1; i < hi; i++ )
+          for( int k = i; k > lo && compareFrom(ids[k-1], ws[k-1], ids[k], ws[k], d) > 0; k-- )
+            swap(ids, ws, k, k-1);
+        return;
+      }
+      final long v = ws[(lo+hi) >>> 1];
+      int lt = lo, gt = hi, i = lo;
+      while( i < gt ) {
+        long c = ws[i];
+        if( c < v ) swap(ids, ws, lt++, i++);
+        else if( c > v ) swap(ids, ws, --gt, i);
+        else i++;
+      }
+      // Recurse into the two smaller parts and loop on the largest, so the
+      // stack stays O(log n) deep however unevenly the keys split
+      final boolean more = (v & 0xFF) == 7; // Equal keys go on past this word
+      if( more ) for( int k = lt; k < gt; k++ ) ws[k] = wordAt(ids[k], d+1);
+      final int nlt = lt-lo, neq = more ? gt-lt : 0, ngt = hi-gt;
+      if( nlt >= neq && nlt >= ngt ) {
+        if( more ) sort(ids, ws, lt, gt, d+1);
+        sort(ids, ws, gt, hi, d);
+        hi = lt;
+      } else if( ngt >= neq ) {
+        if( more ) sort(ids, ws, lt, gt, d+1);
+        sort(ids, ws, lo, lt, d);
+        lo = gt;
+      } else {
+        sort(ids, ws, lo, lt, d);
+        sort(ids, ws, gt, hi, d);
+        lo = lt; hi = gt; d++;
+      }
+    }
+  }
+
+  private static void swap(int[] ids, long[] ws, int i, int j) {
+    int t = ids[i]; ids[i] = ids[j]; ids[j] = t;
+    long w = ws[i]; ws[i] = ws[j]; ws[j] = w;
+  }
+
+  private int compareFrom(int a, long x, int b, long y, int d) {
+    while( true ) {
+      if( x != y ) return x < y ? -1 : 1;
+      if( (x & 0xFF) < 7 ) return 0;
+      d++;
+      x = wordAt(a, d); y = wordAt(b, d);
+    }
+  }
 }
@@ -5,6 +5,7 @@ import org.apache.http.ParseException;
 import water.fvec.Vec;
 import water.fvec.FileVec;
 import water.Key;
+import water.util.UnsafeUtils;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -22,8 +23,17 @@ class CsvParser extends Parser {
   CsvParser( ParseSetup ps, Key jobKey ) { super(ps, jobKey); }
 
   // Parse this one Chunk (in parallel with other Chunks)
-  @SuppressWarnings("fallthrough")
   @Override public ParseWriter parseChunk(int cidx, final ParseReader din, final ParseWriter dout) {
+    // The first chunk carries comments and headers; leave it to the state machine
+    if( _setup._two_phase_tokenizer && cidx > 0 && _setup._parse_type.equals(CSV_INFO) && isPlainSeparator(CHAR_SEPARATOR) )
+      return parseChunkTwoPhase(cidx, din, dout);
+    return parseChunkFSA(cidx, din, dout, false);
+  }
+
+  // Byte-at-a-time state machine; handles every quirk of the format.  With
+  // oneLine, parses just the row at the reader's chunk data start.
+  @SuppressWarnings("fallthrough")
+  private ParseWriter parseChunkFSA(int cidx, final ParseReader din, final ParseWriter dout, final boolean oneLine) {
     BufferedString str = new BufferedString();
     byte[] bits = din.getChunkData(cidx);
     if( bits == null ) return dout;
@@ -164,7 +174,7 @@ MAIN_LOOP:
             colIdx = 0;
           }
           state = (c == CHAR_CR) ? EXPECT_COND_LF : POSSIBLE_EMPTY_LINE;
-          if( !firstChunk )
+          if( !firstChunk || oneLine )
             break MAIN_LOOP; // second chunk only does the first row
           break;
         // ---------------------------------------------------------------------
@@ -190,6 +200,10 @@ MAIN_LOOP:
           if (isEOL(c)) {
             if (c == CHAR_CR)
               state = EXPECT_COND_LF;
+            // The next chunk skips up to its first line end and parses what
+            // follows; if its first line is empty, we have no more to parse
+            if( !firstChunk )
+              break MAIN_LOOP;
             break;
           }
           state = WHITESPACE_BEFORE_TOKEN;
@@ -302,7 +316,7 @@ MAIN_LOOP:
             colIdx = 0;
             dout.newLine();
             state = (c == CHAR_CR) ? EXPECT_COND_LF : POSSIBLE_EMPTY_LINE;
-            if( !firstChunk )
+            if( !firstChunk || oneLine )
               break MAIN_LOOP; // second chunk only does the first row
             break;
           } else if ((c == '%')) {
@@ -465,6 +479,302 @@ MAIN_LOOP:
     return dout;
   }
 
+  // ------------------------------------------------------------------------
+  // Two-phase tokenizer.  The first phase marks the structural bytes of the
+  // whole chunk - separators, line ends and quotes - one bit per byte, eight
+  // bytes per step with word-wide compares.  The second phase walks the set
+  // bits, so field bounds come without looking at every byte again, and
+  // parses each field with a straight-line number parse.  Lines it cannot
+  // take exactly as the state machine would (quotes, currency, percents,
+  // long mantissas, ...) are handed to the state machine one at a time, so
+  // both produce the same frame.
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+  private static final long ZEROS = '0'*ONES;
+  private static final long[] POW10 = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L};
+
+  // Separators which can never be part of a number, a blank or a quote
+  private static boolean isPlainSeparator(byte c) {
+    return c != CHAR_SPACE && c != CHAR_DOUBLE_QUOTE && c != CHAR_SINGLE_QUOTE && !isEOL(c)
+        && !(c >= '0' && c <= '9') && c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E' && c != '$' && c != '%';
+  }
+
+  // High bit set in each byte of w which is zero; exact, no false positives
+  private static long zeroBytes(long w) { return ~(((w & LOW7) + LOW7) | w | LOW7); }
+
+  private boolean isStructural(byte c) {
+    return c == CHAR_SEPARATOR || isEOL(c) || (CHAR_SEPARATOR != HIVE_SEP &&
+        (c == CHAR_DOUBLE_QUOTE || (_setup._single_quotes && c == CHAR_SINGLE_QUOTE)));
+  }
+
+  // Phase one: bit i of the result is set if bits[i] is structural
+  private long[] structuralIndex(byte[] bits) {
+    long[] idx = new long[(bits.length+63)>>>6];
+    final long sep = (CHAR_SEPARATOR & 0xFF)*ONES;
+    final boolean quoting = CHAR_SEPARATOR != HIVE_SEP;
+    final boolean single = quoting && _setup._single_quotes;
+    int i = 0;
+    for( ; i+8 <= bits.length; i += 8 ) {
+      long w = UnsafeUtils.get8(bits, i); // Little-endian: byte k of w is bits[i+k]
+      long t = zeroBytes(w^sep) | zeroBytes(w^(CHAR_LF*ONES)) | zeroBytes(w^(CHAR_CR*ONES));
+      if( quoting ) t |= zeroBytes(w^(CHAR_DOUBLE_QUOTE*ONES));
+      if( single ) t |= zeroBytes(w^(CHAR_SINGLE_QUOTE*ONES));
+      // Gather the 8 high bits into the low byte, then into place
+      idx[i>>>6] |= (((t>>>7)*0x0102040810204080L)>>>56) << (i&63);
+    }
+    for( ; i < bits.length; i++ )
+      if( isStructural(bits[i]) ) idx[i>>>6] |= 1L << (i&63);
+    return idx;
+  }
+
+  private ParseWriter parseChunkTwoPhase(int cidx, final ParseReader din, final ParseWriter dout) {
+    byte[] bits = din.getChunkData(cidx);
+    if( bits == null ) return dout;
+    dout.newLine();
+    long[] idx = structuralIndex(bits);
+    Line line = new Line(cidx, din, dout);
+    int start = din.getChunkDataStart(cidx);
+    if( start < 0 ) {           // Skip the partial first line, as SKIP_LINE does
+      start = nextEOL(bits, idx, 0);
+      if( start < 0 ) return dout; // All of this chunk is in a line started before
+      start++;
+    }
+    int rem = line.parseLines(bits, idx, start);
+    // Finish the last line with the next chunk's bytes up to its first line
+    // end.  Nothing there if this chunk ended with a line end and the next
+    // starts with one (including the LF of a split CR LF).
+    byte[] bits1 = din.getChunkData(cidx+1);
+    int n = 0;
+    if( bits1 != null )
+      while( n < bits1.length && !isEOL(bits1[n]) ) n++;
+    if( rem == bits.length && n == 0 ) return dout;
+    // Out of data before a line end: the state machine only pretends one, so
+    // the line gets none and goes to the state machine as it is
+    boolean open = bits1 == null || n == bits1.length;
+    byte[] last = new byte[bits.length-rem+n+(open ? 0 : 1)];
+    System.arraycopy(bits, rem, last, 0, bits.length-rem);
+    if( n > 0 ) System.arraycopy(bits1, 0, last, bits.length-rem, n);
+    line._base = rem;           // Error offsets still count from our chunk start
+    if( open ) line.parseLineFSA(last, 0);
+    else {
+      last[last.length-1] = CHAR_LF;
+      line.parseLines(last, structuralIndex(last), 0);
+    }
+    return dout;
+  }
+
+  // Position of the first line end at or after from, or -1
+  private static int nextEOL(byte[] bits, long[] idx, int from) {
+    for( int w = from>>>6; w < idx.length; w++ ) {
+      long m = w == (from>>>6) ? idx[w] & (-1L << (from&63)) : idx[w];
+      for( ; m != 0; m &= m-1 ) {
+        int p = (w<<6) + Long.numberOfTrailingZeros(m);
+        if( isEOL(bits[p]) ) return p;
+      }
+    }
+    return -1;
+  }
+
+  private static final byte F_NA = 0, F_NUM = 1, F_STR = 2;
+
+  /** Phase two: per-line field state, reused for all lines of a chunk.  Also
+   *  the reader the state machine is run through for the lines it gets. */
+  private final class Line implements ParseReader {
+    final int _cidx;
+    final ParseReader _din;
+    final ParseWriter _dout;
+    boolean[] _forced;          // Columns the setup forces to strings, if any
+    final BufferedString _str = new BufferedString();
+    int[] _seps = new int[16];  // Separator positions of the current line
+    byte[] _kind = new byte[16];
+    long[] _mant = new long[16];
+    int[] _exp = new int[16];
+    boolean[] _ascii = new boolean[16];
+    long _run;                  // Value of the last digit run
+    byte[] _bits;               // Bytes of the line handed to the state machine,
+    int _start;                 // and where in them it starts
+    int _base;                  // Chunk offset of the bytes being parsed
+
+    Line(int cidx, ParseReader din, ParseWriter dout) {
+      _cidx = cidx;
+      _din = din;
+      _dout = dout;
+      if( dout instanceof FVecParseWriter && ((FVecParseWriter)dout)._ctypes != null && _setup._column_types != null ) {
+        _forced = new boolean[_setup._column_types.length];
+        for( int i = 0; i < _forced.length; i++ )
+          _forced[i] = _setup._column_types[i] == Vec.T_CAT || _setup._column_types[i] == Vec.T_STR;
+      }
+    }
+
+    // Parses all lines of bits ending in a line end, from start; returns the
+    // start of the unfinished line after them.
+    int parseLines(byte[] bits, long[] idx, int start) {
+      int ls = start, nsep = 0;
+      boolean quoted = false;
+      for( int w = start>>>6; w < idx.length; w++ ) {
+        long m = w == (start>>>6) ? idx[w] & (-1L << (start&63)) : idx[w];
+        for( ; m != 0; m &= m-1 ) {
+          int p = (w<<6) + Long.numberOfTrailingZeros(m);
+          byte c = bits[p];
+          if( isEOL(c) ) {
+            if( p > ls ) {      // Empty lines (and the LF of a CR LF) make no row
+              if( quoted || !parseFields(bits, ls, nsep, p) ) parseLineFSA(bits, ls);
+            }
+            ls = p+1;
+            nsep = 0;
+            quoted = false;
+          } else if( c == CHAR_SEPARATOR ) {
+            if( nsep == _seps.length ) _seps = Arrays.copyOf(_seps, nsep<<1);
+            _seps[nsep++] = p;
+          } else quoted = true;
+        }
+      }
+      return ls;
+    }
+
+    // Parse the fields of bits[ls,eol) and emit the row; false, with nothing
+    // emitted, if any field needs the state machine.
+    private boolean parseFields(byte[] bits, int ls, int nsep, int eol) {
+      int nf = nsep+1;
+      if( nf > _kind.length ) {
+        int len = Math.max(nf, _kind.length<<1);
+        _kind = Arrays.copyOf(_kind, len);
+        _mant = Arrays.copyOf(_mant, len);
+        _exp = Arrays.copyOf(_exp, len);
+        _ascii = Arrays.copyOf(_ascii, len);
+      }
+      // Strings keep their start and length in _mant and _exp
+      int s = ls;
+      for( int col = 0; col < nf; col++ ) {
+        int e = col < nsep ? _seps[col] : eol;
+        while( s < e && (bits[s] == CHAR_SPACE || (bits[s] == CHAR_TAB && CHAR_TAB != CHAR_SEPARATOR)) ) s++;
+        if( s == e ) _kind[col] = F_NA;
+        else {
+          byte c = bits[s];
+          boolean string = _dout.isString(col);
+          if( (((c >= '0') && (c <= '9')) || (c == '-') || (c == CHAR_DECIMAL_SEP) || (c == '+'))
+              && !string && !(_forced != null && col < _forced.length && _forced[col]) ) {
+            if( !parseNumber(bits, s, e, col) ) return false;
+          } else if( c == '$' && !string ) return false;
+          else if( !parseString(bits, s, e, col) ) return false;
+        }
+        s = e+1;
+      }
+      // Emit, in the same calls the state machine makes
+      for( int col = 0; col < nf; col++ ) {
+        switch( _kind[col] ) {
+          case F_NUM:
+            _dout.addNumCol(col, _mant[col], _exp[col]);
+            break;
+          case F_STR:
+            _str.set(bits, (int)_mant[col], _exp[col]);
+            _dout.addStrCol(col, _str);
+            if( !_ascii[col] ) _dout.setIsAllASCII(col, false);
+            break;
+          default:
+            _dout.addInvalidCol(col);
+        }
+      }
+      _dout.newLine();
+      return true;
+    }
+
+    private boolean parseString(byte[] bits, int s, int e, int col) {
+      boolean ascii = true;
+      for( int i = s; i < e; i++ ) {
+        if( bits[i] == 0 ) return false; // Taken for a closing quote by the state machine
+        if( (bits[i] & 0x80) != 0 ) ascii = false;
+      }
+      _kind[col] = F_STR;
+      if( _setup._na_strings != null && _setup._na_strings.length > col && _setup._na_strings[col] != null ) {
+        _str.set(bits, s, e-s);
+        for( String na : _setup._na_strings[col] )
+          if( _str.equals(na) ) { _kind[col] = F_NA; return true; }
+      }
+      _mant[col] = s;
+      _exp[col] = e-s;
+      _ascii[col] = ascii;
+      return true;
+    }
+
+    // Fast path for [-]digits[.digits][(e|E)[+|-]digits] with at most 18
+    // mantissa digits, which never overflow the long; the mantissa keeps every
+    // digit, as the state machine's does.
+    private boolean parseNumber(byte[] bits, int s, int e, int col) {
+      int i = s;
+      boolean neg = bits[i] == '-';
+      if( neg ) i++;
+      long number = 0;
+      int digits = 0, n;
+      for( ; (n = digitRun(bits, i)) > 0; i += n ) {
+        if( (digits += n) > 18 ) return false;
+        number = number*POW10[n] + _run;
+      }
+      int fraction = 0;
+      if( i < e && bits[i] == CHAR_DECIMAL_SEP ) {
+        for( i++; (n = digitRun(bits, i)) > 0; i += n ) {
+          if( (digits += n) > 18 ) return false;
+          number = number*POW10[n] + _run;
+          fraction += n;
+        }
+      }
+      if( digits == 0 ) return false;
+      int exp = 0;
+      if( i < e && (bits[i] | 0x20) == 'e' ) {
+        int sgn = 1;
+        if( ++i < e && (bits[i] == '-' || bits[i] == '+') ) { if( bits[i] == '-' ) sgn = -1; i++; }
+        int es = i;
+        for( ; i < e && bits[i] >= '0' && bits[i] <= '9'; i++ )
+          exp = exp*10 + (bits[i]-'0');
+        if( i == es || i-es > 9 ) return false;
+        exp *= sgn;
+      }
+      if( i != e ) return false; // Trailing blanks, '%', or not a number at all
+      _kind[col] = F_NUM;
+      _mant[col] = neg ? -number : number;
+      _exp[col] = exp - fraction;
+      return true;
+    }
+
+    // Length of the run of digits starting at bits[i], at most 8, with its
+    // value left in _run.  A field always ends in a separator or a line end,
+    // so runs never cross into the next field.
+    private int digitRun(byte[] bits, int i) {
+      int n = 0;
+      long v = 0;
+      if( i+8 <= bits.length ) {
+        long x = UnsafeUtils.get8(bits, i) ^ ZEROS;
+        // Nonzero in each byte which is not a digit: high nibble set, or low one past 9
+        long nd = (x & 0xF0F0F0F0F0F0F0F0L) | (((x & 0x0F0F0F0F0F0F0F0FL) + 0x0606060606060606L) & 0x1010101010101010L);
+        n = Long.numberOfTrailingZeros(nd) >>> 3;
+        if( n > 0 ) {           // Shift out the rest, then fold digit pairs, quads, octets
+          v = x << ((8-n)<<3);
+          v = (v * 10 + (v >>> 8)) & 0x00FF00FF00FF00FFL;
+          v = (v * 100 + (v >>> 16)) & 0x0000FFFF0000FFFFL;
+          v = (v * 10000 + (v >>> 32)) & 0xFFFFFFFFL;
+        }
+      } else {
+        for( ; n < 8 && i+n < bits.length && bits[i+n] >= '0' && bits[i+n] <= '9'; n++ )
+          v = v*10 + (bits[i+n]-'0');
+      }
+      _run = v;
+      return n;
+    }
+
+    // Run the state machine over just the line starting at bits[ls], in place
+    private void parseLineFSA(byte[] bits, int ls) {
+      _bits = bits;
+      _start = ls;
+      parseChunkFSA(_cidx, this, _dout, true);
+    }
+
+    @Override public byte[] getChunkData(int cidx) { return cidx == _cidx ? _bits : null; }
+    @Override public int getChunkDataStart(int cidx) { return cidx == _cidx ? _start : -1; }
+    @Override public void setChunkDataStart(int cidx, int offset) { }
+    @Override public long getGlobalByteOffset() { return _din.getGlobalByteOffset() + _base; }
+  }
+
   @Override protected int fileHasHeader(byte[] bits, ParseSetup ps) {
     boolean hasHdr = true;
     String[] lines = getFirstLines(bits);
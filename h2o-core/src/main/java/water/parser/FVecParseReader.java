@@ -32,4 +32,7 @@ public class FVecParseReader implements ParseReader {
   @Override public long getGlobalByteOffset(){
     return _goffset;
   }
+  /** The whole input, for parsers reading more than the current chunk and
+   *  its neighbors (e.g. a file footer). */
+  public Vec getVec() { return _vec; }
 }
@@ -140,6 +140,8 @@ public class FVecParseWriter extends Iced implements StreamParseWriter {
   @Override public void addNumCol(int colIdx, double value) {
     if (Double.isNaN(value)) {
       addInvalidCol(colIdx);
+    } else if (Double.isInfinite(value)) { // No decimal form; would never end the loop below
+      if (colIdx < _nCols) _nvs[_col = colIdx].addNum(value);
     } else {
       double d= value;
       int exp = 0;
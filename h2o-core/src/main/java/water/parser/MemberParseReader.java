@@ -0,0 +1,387 @@
+package water.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.utils.CountingInputStream;
+import water.fvec.ByteVec;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+import water.parser.ParseDataset.H2OParseException;
+import water.util.UnsafeUtils;
+
+/**
+ * Parser input from the independently compressed members of a file which
+ * start in one Chunk: gzip members (e.g. BGZF blocks, or concatenated gzip
+ * files), bzip2 streams (as written by pbzip2 or lbzip2) or zstd frames (as
+ * written by pzstd).
+ *
+ * Each member decompresses on its own, so all the chunks of such a file are
+ * decompressed and parsed in parallel, like a plain text file.  A member
+ * belongs to the chunk where its header starts; chunks are scanned from
+ * their start for the first member header which decompresses cleanly
+ * (checksums included), and further members follow each other.  As usual the
+ * first partial line of a chunk is skipped, and the last line is finished
+ * from the members after the chunk.
+ */
+final class MemberParseReader implements ParseReader {
+  private static final int HDR_LEN = 10;    // Enough to recognize a member header
+  /** Largest decompressed member accepted when probing a file for members */
+  static int PROBE_LIMIT = 1<<26; // Swapped by tests
+  /** Chunks probed for members, at most */
+  static final int PROBES = 8;
+  /** Most decompressed bytes the members starting in one chunk may make */
+  static int CHUNK_LIMIT = 1<<28; // Swapped by tests
+
+  private final ByteVec _vec;
+  private final ZipUtil.Compression _cpr;
+  private final int _cidx;
+  private final long _start, _end;  // Compressed bytes of this chunk
+  private long _next = -1;          // Where the members after this chunk start
+  private byte[] _bits0, _bits1;    // Decompressed members of this chunk, and the line end after it
+  private boolean _done0, _done1;
+
+  MemberParseReader(Chunk chk, ZipUtil.Compression cpr) {
+    _vec = (ByteVec)chk.vec();
+    _cpr = cpr;
+    _cidx = chk.cidx();
+    _start = chk.start();
+    _end = _start + chk._len;
+  }
+
+  @Override public byte[] getChunkData(int cidx) {
+    try {
+      if( cidx == _cidx ) {
+        if( !_done0 ) {
+          Out out = new Out(CHUNK_LIMIT);
+          long p = _start, end;
+          while( p < _end && (end = decode(_vec, _cpr, p, _end, out)) >= 0 )
+            p = end;
+          _next = Math.max(p, _end);
+          _bits0 = out.bytes();
+          _done0 = true;
+        }
+        return _bits0;
+      }
+      if( cidx == _cidx+1 ) {
+        if( !_done1 ) {
+          getChunkData(_cidx);
+          // Only the first line is needed: decompress members until a line end
+          Out out = new Out(CHUNK_LIMIT);
+          long p = _next, end;
+          int from = 0;
+          while( p < _vec.length() && (end = decode(_vec, _cpr, p, _vec.length(), out)) >= 0 ) {
+            p = end;
+            if( out.hasEOL(from) ) break;
+            from = out._len;
+          }
+          _bits1 = out.bytes();
+          _done1 = true;
+        }
+        return _bits1;
+      }
+    } catch( TooBig e ) {
+      // A huge member the probes of isSplittable did not see
+      throw new H2OParseException("Compressed members of chunk " + cidx + " " + e.getMessage()
+                                  + "; recompress the file in smaller blocks (e.g. with bgzip, pbzip2 or pzstd), or as a single stream");
+    }
+    return null;
+  }
+  @Override public int  getChunkDataStart(int cidx) { return -1; }
+  @Override public void setChunkDataStart(int cidx, int offset) { }
+  // Only the compressed offset of the chunk is known
+  @Override public long getGlobalByteOffset() { return _start; }
+
+  /**
+   * True if the compressed file is made of members small enough to split the
+   * parse on: BGZF files, or files where each of a few chunks spread over the
+   * file (the second one included) has a member starting in it, of at most
+   * PROBE_LIMIT bytes decompressed.  Files made of one (or a few huge)
+   * members are better streamed.
+   */
+  static boolean isSplittable(ByteVec vec, ZipUtil.Compression cpr) {
+    if( cpr != ZipUtil.Compression.GZIP && cpr != ZipUtil.Compression.BZIP2 && cpr != ZipUtil.Compression.ZSTD )
+      return false;
+    if( vec.nChunks() < 2 ) return false;
+    if( cpr == ZipUtil.Compression.GZIP && isBgzfHeader(vec.getFirstBytes()) ) return true;
+    int n = vec.nChunks(), probes = Math.min(n-1, PROBES);
+    for( int i = 0; i < probes; i++ ) {
+      Chunk c = vec.chunkForChunkIdx(1 + (int)((long)i*(n-1)/probes));
+      try {
+        if( decode(vec, cpr, c.start(), c.start() + c._len, new Out(PROBE_LIMIT)) < 0 )
+          return false;
+      } catch( TooBig e ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the first member starting in [from,to) which decompresses cleanly,
+   * and append its decompressed bytes to out.
+   * @return the end of the member, or -1 if no member starts in the range
+   */
+  static long decode(ByteVec vec, ZipUtil.Compression cpr, long from, long to, Out out) {
+    to = Math.min(to, vec.length());
+    byte magic = cpr == ZipUtil.Compression.GZIP ? (byte)0x1f : cpr == ZipUtil.Compression.BZIP2 ? (byte)'B' : (byte)0x28;
+    byte[] hdr = new byte[HDR_LEN];
+    long p = from;
+    while( p < to ) {
+      Chunk c = vec.chunkForRow(p);
+      byte[] mem = c.getBytes();
+      long cs = c.start();
+      int n = (int)Math.min(mem.length, to - cs);
+      for( int i = (int)(p - cs); i < n; i++ ) {
+        if( mem[i] != magic ) continue;
+        long q = cs + i;
+        int len = read(vec, q, hdr, 0, HDR_LEN);
+        if( !isHeader(cpr, hdr, len) ) continue;
+        int mark = out._len;
+        long end = decodeAt(vec, cpr, q, out);
+        if( end >= 0 ) return end;
+        out._len = mark;        // False start: a header-like pattern in compressed data
+      }
+      p = cs + n;
+    }
+    return -1;
+  }
+
+  private static boolean isHeader(ZipUtil.Compression cpr, byte[] b, int len) {
+    switch( cpr ) {
+    case GZIP:  return isGzipHeader(b, 0, len);
+    case BZIP2: return isBzip2Header(b, 0, len);
+    default:    return isZstdHeader(b, 0, len);
+    }
+  }
+
+  static boolean isGzipHeader(byte[] b, int off, int len) {
+    return len - off >= 10 && (b[off]&0xFF) == 0x1f && (b[off+1]&0xFF) == 0x8b && b[off+2] == 8 && (b[off+3]&0xE0) == 0;
+  }
+
+  // BGZF: gzip header with a 'BC' extra subfield holding the block size
+  static boolean isBgzfHeader(byte[] b) {
+    return isGzipHeader(b, 0, b.length) && (b[3]&4) != 0 && b.length >= 16
+      && (UnsafeUtils.get2(b,10)&0xFFFF) >= 6 && b[12] == 'B' && b[13] == 'C' && (UnsafeUtils.get2(b,14)&0xFFFF) == 2;
+  }
+
+  private static final byte[] BZIP2_BLOCK = {0x31, 0x41, 0x59, 0x26, 0x53, 0x59};
+  private static final byte[] BZIP2_EOS   = {0x17, 0x72, 0x45, 0x38, 0x50, (byte)0x90};
+  static boolean isBzip2Header(byte[] b, int off, int len) {
+    if( len - off < 10 || b[off] != 'B' || b[off+1] != 'Z' || b[off+2] != 'h' || b[off+3] < '1' || b[off+3] > '9' )
+      return false;
+    byte[] m = Arrays.copyOfRange(b, off+4, off+10);
+    return Arrays.equals(m, BZIP2_BLOCK) || Arrays.equals(m, BZIP2_EOS);
+  }
+
+  static boolean isZstdHeader(byte[] b, int off, int len) {
+    return len - off >= 5 && (b[off]&0xFF) == 0x28 && (b[off+1]&0xFF) == 0xB5 && (b[off+2]&0xFF) == 0x2F && (b[off+3]&0xFF) == 0xFD
+      && (b[off+4]&0x08) == 0;  // Reserved bit of the frame header descriptor
+  }
+
+  // Decompress the member at off; its end, or -1 if it is not a valid member
+  private static long decodeAt(ByteVec vec, ZipUtil.Compression cpr, long off, Out out) {
+    switch( cpr ) {
+    case GZIP:  return gunzip(vec, off, out);
+    case BZIP2: return bunzip2(vec, off, out);
+    default:    return unzstd(vec, off, out);
+    }
+  }
+
+  private static long gunzip(ByteVec vec, long off, Out out) {
+    byte[] hdr = new byte[HDR_LEN];
+    read(vec, off, hdr, 0, HDR_LEN);
+    int flg = hdr[3];
+    long p = off + HDR_LEN;
+    if( (flg & 4) != 0 ) {      // FEXTRA
+      byte[] x = new byte[2];
+      if( read(vec, p, x, 0, 2) < 2 ) return -1;
+      p += 2 + (UnsafeUtils.get2(x,0)&0xFFFF);
+    }
+    if( (flg & 8) != 0 && (p = skipZeroTerminated(vec, p)) < 0 ) return -1;   // FNAME
+    if( (flg & 16) != 0 && (p = skipZeroTerminated(vec, p)) < 0 ) return -1;  // FCOMMENT
+    if( (flg & 2) != 0 ) p += 2;  // FHCRC
+    Inflater inf = new Inflater(true);
+    CRC32 crc = new CRC32();
+    byte[] buf = new byte[1<<16];
+    try {
+      long in = p;              // Next compressed byte to feed
+      while( !inf.finished() ) {
+        if( inf.needsInput() ) {
+          if( in >= vec.length() ) return -1;   // Truncated
+          Chunk c = vec.chunkForRow(in);
+          byte[] mem = c.getBytes();
+          int coff = (int)(in - c.start());
+          inf.setInput(mem, coff, mem.length - coff);
+          in += mem.length - coff;
+        }
+        if( inf.needsDictionary() ) return -1;
+        int n = inf.inflate(buf);
+        if( n > 0 ) {
+          crc.update(buf, 0, n);
+          out.write(buf, 0, n);
+        }
+      }
+      long end = in - inf.getRemaining();
+      byte[] trailer = new byte[8];
+      if( read(vec, end, trailer, 0, 8) < 8 ) return -1;
+      if( UnsafeUtils.get4(trailer,0) != (int)crc.getValue() || UnsafeUtils.get4(trailer,4) != (int)inf.getBytesWritten() )
+        return -1;
+      return end + 8;
+    } catch( DataFormatException e ) {
+      return -1;
+    } finally {
+      inf.end();
+    }
+  }
+
+  private static long skipZeroTerminated(ByteVec vec, long p) {
+    long len = vec.length();
+    while( p < len ) {
+      Chunk c = vec.chunkForRow(p);
+      byte[] mem = c.getBytes();
+      for( int i = (int)(p - c.start()); i < mem.length; i++ )
+        if( mem[i] == 0 ) return c.start() + i + 1;
+      p = c.start() + mem.length;
+    }
+    return -1;
+  }
+
+  // The bzip2 decoder reads its input a byte at a time, so the bytes it
+  // consumed end exactly at the end of the stream
+  private static long bunzip2(ByteVec vec, long off, Out out) {
+    CountingInputStream cis = new CountingInputStream(new VecStream(vec, off));
+    try {
+      out.readFully(new BZip2CompressorInputStream(cis, false));
+      return off + cis.getBytesRead();
+    } catch( IOException e ) {
+      return -1;
+    }
+  }
+
+  // Walk the block headers for the frame size, then decompress the frame
+  private static long unzstd(ByteVec vec, long off, Out out) {
+    byte[] b = new byte[4];
+    if( read(vec, off+4, b, 0, 1) < 1 ) return -1;
+    int fhd = b[0]&0xFF;
+    int fcsFlag = fhd >>> 6;
+    boolean singleSegment = (fhd & 0x20) != 0;
+    boolean checksum = (fhd & 0x04) != 0;
+    int[] dictIdSize = {0, 1, 2, 4};
+    int[] fcsSize = {singleSegment ? 1 : 0, 2, 4, 8};
+    long p = off + 5 + (singleSegment ? 0 : 1) + dictIdSize[fhd & 3] + fcsSize[fcsFlag];
+    while( true ) {
+      if( read(vec, p, b, 0, 3) < 3 ) return -1;
+      int bh = (b[0]&0xFF) | (b[1]&0xFF)<<8 | (b[2]&0xFF)<<16;
+      int type = (bh >>> 1) & 3, size = bh >>> 3;
+      if( type == 3 || size > (1<<17) ) return -1;  // Reserved block type, or too big
+      p += 3 + (type == 1 ? 1 : size);              // RLE blocks hold a single byte
+      if( (bh & 1) != 0 ) break;                    // Last block
+    }
+    if( checksum ) p += 4;
+    if( p > vec.length() || p - off > Integer.MAX_VALUE ) return -1;
+    byte[] frame = new byte[(int)(p - off)];
+    read(vec, off, frame, 0, frame.length);
+    try {
+      out.readFully(new ZstdInputStream(new ByteArrayInputStream(frame)));
+      return p;
+    } catch( IOException e ) {
+      return -1;
+    }
+  }
+
+  // Copy up to len bytes at off; fewer only at the end of the file
+  private static int read(ByteVec vec, long off, byte[] dst, int doff, int len) {
+    int pos = 0;
+    while( pos < len && off + pos < vec.length() ) {
+      Chunk c = vec.chunkForRow(off + pos);
+      byte[] mem = c.getBytes();
+      int coff = (int)(off + pos - c.start());
+      int n = Math.min(len - pos, mem.length - coff);
+      System.arraycopy(mem, coff, dst, doff + pos, n);
+      pos += n;
+    }
+    return pos;
+  }
+
+  /** Stream over the bytes of a Vec from an offset */
+  private static final class VecStream extends InputStream {
+    private final Vec _vec;
+    private long _pos;
+    private byte[] _mem;
+    private int _off;
+    VecStream(Vec vec, long pos) { _vec = vec; _pos = pos; }
+    private boolean fill() {
+      if( _mem != null && _off < _mem.length ) return true;
+      if( _pos >= _vec.length() ) return false;
+      Chunk c = _vec.chunkForRow(_pos);
+      _mem = c.getBytes();
+      _off = (int)(_pos - c.start());
+      return true;
+    }
+    @Override public int read() {
+      if( !fill() ) return -1;
+      _pos++;
+      return _mem[_off++] & 0xFF;
+    }
+    @Override public int read(byte[] b, int off, int len) {
+      if( len == 0 ) return 0;
+      if( !fill() ) return -1;
+      int n = Math.min(len, _mem.length - _off);
+      System.arraycopy(_mem, _off, b, off, n);
+      _off += n;
+      _pos += n;
+      return n;
+    }
+  }
+
+  /** Thrown when members decompress to more than the limit of their Out */
+  static final class TooBig extends RuntimeException {
+    TooBig(int limit) { super("decompress to more than " + limit + " bytes", null, false, false); }
+  }
+
+  /** Growable buffer for decompressed bytes */
+  static final class Out {
+    byte[] _buf = new byte[1<<16];
+    int _len;
+    private final int _limit;
+    Out(int limit) { _limit = limit; }
+
+    void write(byte[] b, int off, int n) {
+      ensure(n);
+      System.arraycopy(b, off, _buf, _len, n);
+      _len += n;
+    }
+
+    void readFully(InputStream is) throws IOException {
+      while( true ) {
+        ensure(1);
+        int n = is.read(_buf, _len, _buf.length - _len);
+        if( n < 0 ) return;
+        _len += n;
+      }
+    }
+
+    private void ensure(int n) {
+      if( (long)_len + n > _limit ) throw new TooBig(_limit);
+      if( _len + n > _buf.length )
+        _buf = Arrays.copyOf(_buf, (int)Math.min(Integer.MAX_VALUE - 8, Math.max((long)_buf.length << 1, (long)_len + n)));
+    }
+
+    boolean hasEOL(int from) {
+      for( int i = from; i < _len; i++ )
+        if( _buf[i] == '\n' || _buf[i] == '\r' ) return true;
+      return false;
+    }
+
+    /** The bytes; null if there are none */
+    byte[] bytes() { return _len == 0 ? null : Arrays.copyOf(_buf, _len); }
+  }
+}
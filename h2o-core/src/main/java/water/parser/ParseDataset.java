@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -389,17 +388,8 @@ public final class ParseDataset {
         for (int eColIdx = 0; eColIdx < _ecol.length; eColIdx++) {
           int colIdx = _ecol[eColIdx];
           if (parseCatMaps[colIdx].size() != 0) {
-            _nodeOrdMaps[eColIdx] = MemoryManager.malloc4(parseCatMaps[colIdx].maxId() + 1);
-            Arrays.fill(_nodeOrdMaps[eColIdx], -1);
-            //Bulk String->BufferedString conversion is slightly faster, but consumes memory
-            final BufferedString[] unifiedDomain = BufferedString.toBufferedString(_fr.vec(colIdx).domain());
-            //final String[] unifiedDomain = _fr.vec(colIdx).domain();
-            for (int i = 0; i < unifiedDomain.length; i++) {
-              //final BufferedString cat = new BufferedString(unifiedDomain[i]);
-              if (parseCatMaps[colIdx].containsKey(unifiedDomain[i])) {
-                _nodeOrdMaps[eColIdx][parseCatMaps[colIdx].getTokenId(unifiedDomain[i])] = i;
-              }
-            }
+            // Both sides are sorted: one merge, no String->BufferedString lookups
+            _nodeOrdMaps[eColIdx] = parseCatMaps[colIdx].localToGlobal(_fr.vec(colIdx).domain());
           } else {
             Log.debug("Column " + colIdx + " was marked as categorical but categorical map is empty!");
           }
@@ -473,14 +463,11 @@ public final class ParseDataset {
     public void setupLocal() {
       if (!MultiFileParseTask._categoricals.containsKey(_k)) return;
       _packedDomains = new byte[_catColIdxs.length][];
-      final BufferedString[][] _perColDomains = new BufferedString[_catColIdxs.length][];
       final Categorical[] _colCats = MultiFileParseTask._categoricals.get(_k);
       int i = 0;
       for (int col : _catColIdxs) {
         _colCats[col].convertToUTF8(col + 1);
-        _perColDomains[i] = _colCats[col].getColumnDomain();
-        Arrays.sort(_perColDomains[i]);
-        _packedDomains[i] = packDomain(_perColDomains[i]);
+        _packedDomains[i] = _colCats[col].packedSortedDomain();
         i++;
       }
       Log.trace("Done locally collecting domains on each node.");
@@ -568,22 +555,6 @@ public final class ParseDataset {
       Log.trace("Done merging domains.");
     }
 
-    private byte[] packDomain(BufferedString[] domain) {
-      int totStrLen =0;
-      for(BufferedString dom : domain)
-        totStrLen += dom.length();
-      final byte[] packedDom = MemoryManager.malloc1(4 + (domain.length << 2) + totStrLen, false);
-      UnsafeUtils.set4(packedDom, 0, domain.length); //Store domain size
-      int i = 4;
-      for(BufferedString dom : domain) {
-        UnsafeUtils.set4(packedDom, i, dom.length()); //Store str len
-        i += 4;
-        byte[] buf = dom.getBuffer();
-        for(int j=0; j < buf.length; j++) //Store str chars
-          packedDom[i++] = buf[j];
-      }
-      return packedDom;
-    }
     public int getDomainLength(int colIdx) {
       if (_packedDomains == null) return 0;
       else return UnsafeUtils.get4(_packedDomains[colIdx], 0);
@@ -805,7 +776,7 @@ public final class ParseDataset {
         switch( cpr ) {
         case NONE:
           if( _parseSetup._parse_type.isParallelParseSupported()) {
-            new DistributedParse(_vg, localSetup, _vecIdStart, chunkStartIdx, this, key, vec.nChunks()).dfork(vec).getResult(false);
+            new DistributedParse(_vg, localSetup, _vecIdStart, chunkStartIdx, this, key, vec.nChunks(), cpr).dfork(vec).getResult(false);
             for( int i = 0; i < vec.nChunks(); ++i )
               _chunk2ParseNodeMap[chunkStartIdx + i] = vec.chunkKey(i).home_node().index();
           } else {
@@ -833,10 +804,25 @@ public final class ParseDataset {
           chunksAreLocal(vec,chunkStartIdx,key);
           break;
         }
-        case GZIP: {
+        case GZIP:
+        case BZIP2:
+        case ZSTD: {
+          boolean parallel = _parseSetup._parse_type.isParallelParseSupported();
+          if( parallel && MemberParseReader.isSplittable(vec, cpr) ) {
+            // Independently compressed members (BGZF blocks, pbzip2 streams,
+            // zstd frames): each chunk decompresses and parses its own members
+            new DistributedParse(_vg, localSetup, _vecIdStart, chunkStartIdx, this, key, vec.nChunks(), cpr).dfork(vec).getResult(false);
+            for( int i = 0; i < vec.nChunks(); ++i )
+              _chunk2ParseNodeMap[chunkStartIdx + i] = vec.chunkKey(i).home_node().index();
+            break;
+          }
           InputStream bvs = vec.openStream(_jobKey);
-          // Zipped file; no parallel decompression;
-          _dout[_lo] = streamParse(new GZIPInputStream(bvs),localSetup,makeDout(localSetup,chunkStartIdx,vec.nChunks()),bvs);
+          InputStream is = ZipUtil.decompressStream(bvs, cpr);
+          // One compressed stream; decompress on this thread, parse in parallel
+          if( parallel && !localSetup._parse_type.equals(SVMLight_INFO) )
+            _dout[_lo] = pipelinedParse(is, bvs, localSetup, chunkStartIdx, vec.nChunks());
+          else
+            _dout[_lo] = streamParse(is,localSetup,makeDout(localSetup,chunkStartIdx,vec.nChunks()),bvs);
           _errors = _dout[_lo].removeErrors();
           // set this node as the one which processed all the chunks
           chunksAreLocal(vec,chunkStartIdx,key);
@@ -897,6 +883,117 @@ public final class ParseDataset {
       return dout;
     }
 
+    // ------------------------------------------------------------------------
+    // Compressed stream which cannot be split: decompress on this thread into
+    // one segment per compressed chunk, and parse the segments on other F/J
+    // threads while decompressing the next ones.  Segment k becomes output
+    // chunk k, as for a distributed parse of the compressed file.
+    private FVecParseWriter pipelinedParse( InputStream is, InputStream bvs, final ParseSetup localSetup, final int chunkStartIdx, int nchunks) throws IOException {
+      final long[] espc = MemoryManager.malloc8(nchunks);
+      final SegmentParseReader segs = new SegmentParseReader(nchunks);
+      final FVecParseWriter[] douts = new FVecParseWriter[nchunks];
+      final ArrayList<RecursiveAction> tasks = new ArrayList<>();
+      final long maxBytes = MemoryManager.MEM_MAX >> 3;
+      int joined = 0;
+      byte[] buf = new byte[Parser.StreamData.bufSz];
+      MemberParseReader.Out seg = new MemberParseReader.Out(Integer.MAX_VALUE);
+      // Back-channel read of chunk index.  GZIP and BZip2 streams read chunk 0
+      // when made, zstd's only on the first read: its bytes go to segment 0
+      // either way.
+      int zidx = Math.max(bvs.read(null,0,0), 1);
+      while( true ) {
+        int n = is.read(buf, 0, buf.length);
+        if( n > 0 ) seg.write(buf, 0, n);
+        int xidx = n < 0 ? nchunks+1 : bvs.read(null,0,0);
+        if( xidx > zidx ) {     // Advanced chunk index of underlying ByteVec stream?
+          segs.publish(zidx-1, seg.bytes());
+          seg = new MemberParseReader.Out(Integer.MAX_VALUE);
+          // Fork the parses which now have the bytes to finish their last line
+          for( int k = tasks.size(); k < segs.parsable(); k++ ) {
+            RecursiveAction t = parseSegment(segs.reader(k), k, localSetup, chunkStartIdx, espc, douts);
+            tasks.add(t);
+            t.fork();
+          }
+          // Bound the decompressed bytes held: help parse the oldest segments
+          while( joined < tasks.size() && segs.bytes() > maxBytes ) {
+            tasks.get(joined).join();
+            segs.release(joined++);
+          }
+          zidx = Math.min(xidx, nchunks);
+          if( _jobKey.get().stop_requested() ) break;
+        }
+        if( n < 0 ) break;
+      }
+      segs.finish();
+      for( int k = tasks.size(); k < nchunks; k++ ) {
+        RecursiveAction t = parseSegment(segs.reader(k), k, localSetup, chunkStartIdx, espc, douts);
+        tasks.add(t);
+        t.fork();
+      }
+      for( ; joined < tasks.size(); joined++ ) {
+        tasks.get(joined).join();
+        segs.release(joined);
+      }
+      FVecParseWriter dout = douts[0];
+      for( int k = 1; k < nchunks; k++ )
+        dout.reduce(douts[k]);
+      return dout;
+    }
+
+    private RecursiveAction parseSegment(final ParseReader din, final int k, final ParseSetup localSetup,
+                                         final int chunkStartIdx, final long[] espc, final FVecParseWriter[] douts) {
+      return new RecursiveAction() {
+        @Override protected void compute() {
+          AppendableVec[] avs = new AppendableVec[localSetup._number_columns];
+          for( int i = 0; i < avs.length; ++i )
+            avs[i] = new AppendableVec(_vg.vecKey(_vecIdStart + i), espc, localSetup._column_types[i], chunkStartIdx);
+          FVecParseWriter dout = new FVecParseWriter(_vg, chunkStartIdx + k, categoricals(_cKey, localSetup._number_columns),
+                                                     localSetup._column_types, _parseSetup._chunk_size, avs);
+          localSetup.parser(_jobKey).parseChunk(k, din, dout);
+          douts[k] = dout.close(_fs);
+        }
+      };
+    }
+
+    // Decompressed segments of a pipelined parse, published in order
+    private static final class SegmentParseReader {
+      private final byte[][] _segs;
+      private int _published;   // Segments [0,_published) are known
+      private int _parsable;    // Segments [0,_parsable) have the next non-empty segment known
+      private long _bytes;      // Bytes of the segments held
+      SegmentParseReader(int nsegs) { _segs = new byte[nsegs][]; }
+
+      void publish(int k, byte[] bits) {
+        _segs[k] = bits;
+        if( bits != null ) _bytes += bits.length;
+        _published = k+1;       // Skipped segments stay empty
+        if( bits != null ) _parsable = k;
+      }
+      void finish() { _parsable = _published = _segs.length; }
+      int parsable() { return _parsable; }
+      // Segment k is done with once it, and all before it, are parsed
+      void release(int k) {
+        if( _segs[k] != null ) _bytes -= _segs[k].length;
+        _segs[k] = null;
+      }
+      long bytes() { return _bytes; }
+
+      // Input of the parse of segment k: the segment, and the next non-empty
+      // one to finish its last line
+      ParseReader reader(final int k) {
+        final byte[] bits = _segs[k];
+        byte[] next = null;
+        for( int i = k+1; i < _published && next == null; i++ ) next = _segs[i];
+        final byte[] bits1 = next;
+        return new ParseReader() {
+          @Override public byte[] getChunkData(int cidx) { return cidx == k ? bits : cidx == k+1 ? bits1 : null; }
+          @Override public int  getChunkDataStart(int cidx) { return -1; }
+          @Override public void setChunkDataStart(int cidx, int offset) { }
+          @Override public long getGlobalByteOffset() { return 0; }
+        };
+      }
+    }
+
     // ------------------------------------------------------------------------
     private static class DistributedParse extends MRTask<DistributedParse> {
       private final ParseSetup _setup;
@@ -911,8 +1008,9 @@ public final class ParseDataset {
       private transient NonBlockingSetInt _visited;
       private transient long [] _espc;
       final int _nchunks;
+      private final ZipUtil.Compression _cpr; // NONE, or compressed in independent members
 
-      DistributedParse(VectorGroup vg, ParseSetup setup, int vecIdstart, int startChunkIdx, MultiFileParseTask mfpt, Key srckey, int nchunks) {
+      DistributedParse(VectorGroup vg, ParseSetup setup, int vecIdstart, int startChunkIdx, MultiFileParseTask mfpt, Key srckey, int nchunks, ZipUtil.Compression cpr) {
         super(null);
         _vg = vg;
         _setup = setup;
@@ -923,6 +1021,7 @@ public final class ParseDataset {
         _jobKey = mfpt._jobKey;
         _srckey = srckey;
         _nchunks = nchunks;
+        _cpr = cpr;
       }
       @Override public void setupLocal(){
         super.setupLocal();
@@ -938,13 +1037,15 @@ public final class ParseDataset {
           else
             avs[i] = new AppendableVec(_vg.vecKey(_vecIdStart + i), _espc, _setup._column_types[i], _startChunkIdx);
         // Break out the input & output vectors before the parse loop
-        FVecParseReader din = new FVecParseReader(in);
+        ParseReader din = _cpr == ZipUtil.Compression.NONE ? new FVecParseReader(in) : new MemberParseReader(in, _cpr);
         FVecParseWriter dout;
         // Get a parser
         Parser p = _setup.parser(_jobKey);
         switch(_setup._parse_type.name()) {
         case "ARFF":
         case "CSV":
+        case "PARQUET":
+        case "ORC":
           Categorical [] categoricals = categoricals(_cKey, _setup._number_columns);
           dout = new FVecParseWriter(_vg,_startChunkIdx + in.cidx(), categoricals, _setup._column_types, _setup._chunk_size, avs); //TODO: use _setup._domains instead of categoricals
           break;
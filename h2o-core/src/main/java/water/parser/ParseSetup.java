@@ -39,6 +39,17 @@ public class ParseSetup extends Iced {
   String[][] _domains;        // Domains for each column (null if numeric)
   String[][] _na_strings;       // Strings for NA in a given column
   String[][] _data;           // First few rows of parsed/tokenized data
+  // Columns left out of the parse, by index into the guessed columns, and
+  // "column op value" clauses every parsed row must match.  Only honored by
+  // parsers which can read columns independently (Parquet and ORC) and skip
+  // data on stored statistics (Parquet); other parsers parse everything.
+  int[] _skipped_columns;
+  String[] _row_filter;
+  // Tokenize CSV chunks in two passes: index the separators, quotes and line
+  // ends of a chunk word-at-a-time, then parse the fields between them.
+  // Lines the second pass cannot take go to the state machine, so the frame
+  // is the same either way.
+  boolean _two_phase_tokenizer;
 
   public ParseWriter.ParseErr[] _errs;
   public int _chunk_size = FileVec.DFLT_CHUNK_SIZE;  // Optimal chunk size to be used store values
@@ -49,6 +60,9 @@ public class ParseSetup extends Iced {
          ps._separator, ps._single_quotes, ps._check_header, ps._number_columns,
          ps._column_names, ps._column_types, ps._domains, ps._na_strings, ps._data,
          new ParseWriter.ParseErr[0], ps._chunk_size);
+    _skipped_columns = ps._skipped_columns;
+    _row_filter = ps._row_filter;
+    _two_phase_tokenizer = ps._two_phase_tokenizer;
   }
 
   public static ParseSetup makeSVMLightSetup(){
@@ -137,6 +151,8 @@ public class ParseSetup extends Iced {
     return types;
   }
   public byte[] getColumnTypes() { return _column_types; }
+  public int[] getSkippedColumns() { return _skipped_columns; }
+  public String[] getRowFilter() { return _row_filter; }
 
   public static byte[] strToColumnTypes(String[] strs) {
     if (strs == null) return null;
@@ -175,6 +191,83 @@ public class ParseSetup extends Iced {
           "Attempted to invoke a parser for ParseType:" + _parse_type + ", which doesn't exist.");
   }
 
+  /**
+   * Complete a setup guessed from the first bytes of a file, for file formats
+   * which keep their metadata elsewhere (e.g. in a footer).  Called once per
+   * file, on the setup returned by the parser provider's guess.
+   *
+   * @param bv  the whole file
+   * @return the completed setup, by default this one
+   */
+  protected ParseSetup guessFromVec(ByteVec bv) { return this; }
+
+  /**
+   * For file formats which describe their own columns (e.g. in a footer):
+   * the columns of the file left once the user's skipped columns are dropped.
+   *
+   * @param requiredSetup  setup demanded by a user
+   * @param ncols  number of columns in the file
+   * @return the index in the file of each column to parse
+   */
+  public static int[] keptColumns(ParseSetup requiredSetup, int ncols) {
+    boolean[] skip = new boolean[ncols];
+    if (requiredSetup.getSkippedColumns() != null)
+      for (int s : requiredSetup.getSkippedColumns()) {
+        if (s < 0 || s >= ncols)
+          throw new H2OIllegalArgumentException("Skipped column index " + s + " out of range, file has " + ncols + " columns");
+        skip[s] = true;
+      }
+    int nkept = 0;
+    for (boolean s : skip) if (!s) nkept++;
+    if (nkept == 0) throw new H2OIllegalArgumentException("No columns left to parse");
+    int[] kept = new int[nkept];
+    for (int i = 0, c = 0; i < ncols; i++)
+      if (!skip[i]) kept[c++] = i;
+    return kept;
+  }
+
+  /**
+   * For file formats which describe their own columns: set up the columns
+   * kept by {@link #keptColumns}.  The names and types are the user's if
+   * given for all the columns of the file, else the file's own; domains are
+   * left to the parse.
+   *
+   * @param requiredSetup  setup demanded by a user
+   * @param kept  the index in the file of each column to parse
+   * @param fileNames  names of all the columns of the file
+   * @param fileTypes  types of all the columns of the file
+   * @return this setup
+   */
+  public final ParseSetup setKeptColumns(ParseSetup requiredSetup, int[] kept, String[] fileNames, byte[] fileTypes) {
+    String[] userNames = requiredSetup.getColumnNames();
+    byte[] userTypes = requiredSetup.getColumnTypes();
+    if (userNames != null && userNames.length != fileNames.length) userNames = null; // Not given for these columns: use the file's
+    if (userTypes != null && userTypes.length != fileTypes.length) userTypes = null;
+    String[] names = new String[kept.length];
+    byte[] types = new byte[kept.length];
+    for (int c = 0; c < kept.length; c++) {
+      int i = kept[c];
+      names[c] = userNames != null && userNames[i] != null ? userNames[i] : fileNames[i];
+      types[c] = userTypes != null ? userTypes[i] : fileTypes[i];
+    }
+    return setNumberColumns(kept.length).setColumnNames(names).setColumnTypes(types).setDomains(null).setCheckHeader(HAS_HEADER);
+  }
+
+  /**
+   * For file formats stored in independently readable units (ORC stripes,
+   * Parquet row groups): a chunk size holding about one unit each, between
+   * 64KB and 1GB, and no more than the file.
+   *
+   * @param unitBytes  bytes of all the units
+   * @param units  number of units
+   * @param fileSize  bytes of the file
+   */
+  public static int unitChunkSize(long unitBytes, int units, long fileSize) {
+    if (units == 0) return FileVec.DFLT_CHUNK_SIZE;
+    long avg = Math.max(unitBytes / units, 1);
+    return (int) Math.min(Math.max(avg, 1 << 16), Math.min(fileSize, 1 << 30));
+  }
+
   /** Return create a final parser-specific setup
    * for this configuration.
    *
@@ -338,7 +431,7 @@ public class ParseSetup extends Iced {
                 || bv.length() <= FileVec.DFLT_CHUNK_SIZE
                 || decompRatio > 1.0) { */
         try {
-          _gblSetup = guessSetup(bits, _userSetup);
+          _gblSetup = guessSetup(bits, _userSetup).guessFromVec(bv);
           for(ParseWriter.ParseErr e:_gblSetup._errs) {
             e._byteOffset += e._cidx*Parser.StreamData.bufSz;
             e._cidx = 0;
@@ -663,4 +756,19 @@ public class ParseSetup extends Iced {
     return this;
   }
 
+  public ParseSetup setSkippedColumns(int[] skipped_columns) {
+    this._skipped_columns = skipped_columns;
+    return this;
+  }
+
+  public ParseSetup setRowFilter(String[] row_filter) {
+    this._row_filter = row_filter;
+    return this;
+  }
+
+  public ParseSetup setTwoPhaseTokenizer(boolean two_phase_tokenizer) {
+    this._two_phase_tokenizer = two_phase_tokenizer;
+    return this;
+  }
+
 } // ParseSetup state class
@@ -3,6 +3,9 @@ package water.parser;
 import java.io.*;
 import java.util.Arrays;
 import java.util.zip.*;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import water.fvec.ByteVec;
 import water.fvec.FileVec;
 import water.util.Log;
@@ -10,7 +13,7 @@ import water.util.UnsafeUtils;
 
 abstract class ZipUtil {
 
-  public static enum Compression { NONE, ZIP, GZIP }
+  public static enum Compression { NONE, ZIP, GZIP, BZIP2, ZSTD }
 
   static byte [] getFirstUnzippedBytes( ByteVec bv ) {
     try{
@@ -25,9 +28,24 @@ abstract class ZipUtil {
       return Compression.ZIP;
     if( bits.length > 2 && (UnsafeUtils.get2(bits,0)&0xffff) == GZIPInputStream.GZIP_MAGIC )
       return Compression.GZIP;
+    if( MemberParseReader.isBzip2Header(bits, 0, bits.length) )
+      return Compression.BZIP2;
+    if( MemberParseReader.isZstdHeader(bits, 0, bits.length) )
+      return Compression.ZSTD;
     return Compression.NONE;
   }
 
+  /** Decompressing stream of the given (non-ZIP) compression; concatenated
+   *  members, streams or frames are read one after the other. */
+  static InputStream decompressStream( InputStream is, Compression cmp ) throws IOException {
+    switch( cmp ) {
+    case GZIP:  return new GZIPInputStream(is);
+    case BZIP2: return new BZip2CompressorInputStream(is, true);
+    case ZSTD:  return new ZstdInputStream(is);
+    default: throw new IllegalArgumentException("Not a stream compression: " + cmp);
+    }
+  }
+
   static float decompressionRatio(ByteVec bv) {
     byte[] zips = bv.getFirstBytes();
     ZipUtil.Compression cpr = ZipUtil.guessCompressionMethod(zips);
@@ -52,8 +70,7 @@ abstract class ZipUtil {
         if( ze == null || ze.isDirectory() ) return bs; // Don't crash, ignore file if cannot unzip
         is = zis;
       } else {
-        assert cmp == Compression.GZIP;
-        is = new GZIPInputStream(bais);
+        is = decompressStream(bais, cmp);
       }
 
       // If reading from a compressed stream, estimate we can read 2x uncompressed
@@ -84,7 +101,7 @@ abstract class ZipUtil {
     int cnt = 0;
     byte[] zips = bv.getFirstBytes();
     ZipUtil.Compression cpr = guessCompressionMethod(zips);
-    if (cpr == Compression.NONE || cpr == Compression.GZIP)
+    if (cpr != Compression.ZIP)
       cnt = 1;
     else { //ZIP archives allow multiple files in a single archive
       try {
@@ -0,0 +1,102 @@
+package water.persist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import water.MemoryManager;
+
+/**
+ * Cache of read-only memory mappings of imported files, shared by all Chunk
+ * loads of the same file.  Files are mapped in 1GB windows on first use, so
+ * a Chunk load is a single copy out of the page cache: no open, seek, read
+ * and close per Chunk.  No file descriptors are held; a mapping stays valid
+ * after its channel is closed.
+ * <p>
+ * At most {@link #MAX_FILES} files are kept mapped, least recently used
+ * dropped first; the OS reclaims a dropped mapping when its buffers are
+ * collected.  A file whose length or timestamp changed is re-mapped; that is
+ * checked at most once every {@link #STALE_CHECK_MS} per file, not on every
+ * Chunk load.
+ */
+final class MappedFileCache {
+  private static final int WINDOW_BITS = 30;   // 1GB mapping windows
+  private static final long WINDOW = 1L<<WINDOW_BITS;
+  static final int MAX_FILES = 256;
+  static final long STALE_CHECK_MS = 1000;
+
+  private static final class Mapped {
+    final File _f;
+    final long _len, _modified;
+    final MappedByteBuffer[] _wins;
+    long _checked;              // When last checked for staleness; under MAPPED lock
+    Mapped( File f ) {
+      _f = f;
+      _len = f.length();
+      _modified = f.lastModified();
+      _checked = System.currentTimeMillis();
+      _wins = new MappedByteBuffer[(int)((_len+WINDOW-1)>>WINDOW_BITS)];
+    }
+    boolean isStale() {
+      long now = System.currentTimeMillis();
+      if( now - _checked < STALE_CHECK_MS ) return false;
+      _checked = now;
+      return _f.length() != _len || _f.lastModified() != _modified;
+    }
+    synchronized MappedByteBuffer window( int w ) throws IOException {
+      MappedByteBuffer mb = _wins[w];
+      if( mb != null ) return mb;
+      long off = (long)w<<WINDOW_BITS;
+      try( RandomAccessFile raf = new RandomAccessFile(_f,"r") ) {
+        return _wins[w] = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, off, Math.min(WINDOW, _len-off));
+      }
+    }
+  }
+
+  private static final Map<String,Mapped> MAPPED = Collections.synchronizedMap(
+    new LinkedHashMap<String,Mapped>(16,0.75f,true) {
+      @Override protected boolean removeEldestEntry(Map.Entry<String,Mapped> e) { return size() > MAX_FILES; }
+    });
+
+  private static Mapped mapped( File f ) {
+    String path = f.getAbsolutePath();
+    synchronized(MAPPED) {
+      Mapped m = MAPPED.get(path);
+      if( m == null || m.isStale() ) MAPPED.put(path, m = new Mapped(f));
+      return m;
+    }
+  }
+
+  /** The len file bytes starting at off.  The heap copy is only allocated
+   *  once the file is mapped, so a failed mapping costs no allocation.
+   *  @throws IOException if the file is shorter than off+len, or cannot be
+   *  mapped */
+  static byte[] read( File f, long off, int len ) throws IOException {
+    Mapped m = mapped(f);
+    if( off+len > m._len )
+      throw new IOException("Short file " + f + ": " + m._len + " < " + (off+len));
+    ByteBuffer first = len == 0 ? null : m.window((int)(off>>WINDOW_BITS));
+    byte[] dst = MemoryManager.malloc1(len);
+    int pos = 0;
+    while( pos < dst.length ) {
+      int w = (int)(off>>WINDOW_BITS);
+      int woff = (int)(off&(WINDOW-1));
+      ByteBuffer bb = (pos == 0 ? first : m.window(w)).duplicate(); // Private position; loads race
+      bb.position(woff);
+      int n = Math.min(dst.length-pos, bb.remaining());
+      bb.get(dst, pos, n);
+      pos += n;
+      off += n;
+    }
+    return dst;
+  }
+
+  /** Drop all mappings */
+  static void clear() { MAPPED.clear(); }
+}
@@ -34,6 +34,13 @@ public abstract class Persist {
   /** Total storage space, or -1 for unknown */
   public long getTotalSpace() { return /*UNKNOWN*/-1; }
 
+  /** Bytes of stored Values held in memory outside the Java heap */
+  public long getOffHeapBytes() { return 0; }
+
+  /** True if stored Value v is held in memory outside the Java heap, so
+   *  reloading it costs no disk i/o */
+  public boolean isOffHeap(Value v) { return false; }
+
   /** Transform given uri into file vector holding file name. */
   abstract public Key uriToKey(URI uri) throws IOException;
 
@@ -51,6 +58,34 @@ public abstract class Persist {
 
   abstract public void importFiles(String path, ArrayList<String> files, ArrayList<String> keys, ArrayList<String> fails, ArrayList<String> dels);
 
+  /** Bytes to swap out for Value v, given its serialized form m: encoded with
+   *  the ICE spill codec when that makes them smaller, recording the codec in
+   *  the Value's persist flags.  Used by the user-mode swapping backends. */
+  static byte[] spillBytes(Value v, byte[] m) {
+    byte[] b = encodeSpill(v,m);
+    spilled(b.length);
+    return b;
+  }
+
+  /** {@link #spillBytes} without counting the bytes as stored, for backends
+   *  which may yet hand the Value on to another; they call {@link #spilled}
+   *  once they keep the bytes. */
+  static byte[] encodeSpill(Value v, byte[] m) {
+    SpillCodec c = H2O.getPM().getCodec(Value.ICE);
+    if( c != SpillCodec.NONE ) {
+      byte[] z = c.compress(m);
+      if( z.length < m.length ) { v.setCodec(c._id); return z; }
+    }
+    return m;
+  }
+
+  static void spilled(int len) { H2O.getPM().getStats()[Value.ICE].store_bytes.addAndGet(len); }
+
+  /** Inverse of {@link #spillBytes}: the serialized form of v from the swapped bytes */
+  static byte[] unspillBytes(Value v, byte[] b) {
+    return v.codec() == 0 ? b : SpillCodec.get(v.codec()).decompress(b, v._max);
+  }
+
   // The filename can be either byte encoded if it starts with % followed by
   // a number, or is a normal key name with special characters encoded in
   // special ways.
@@ -12,7 +12,7 @@ import water.util.Log;
 /**
  * Persistence backend using local file system.
  */
-final class PersistFS extends Persist {
+class PersistFS extends Persist {
   final File _root;
   final File _dir;
 
@@ -42,16 +42,17 @@ final class PersistFS extends Persist {
 
   @Override public byte[] load(Value v) throws IOException {
     File f = getFile(v);
-    if( f.length() < v._max ) { // Should be fully on disk...
+    long len = v.codec() == 0 ? v._max : f.length(); // Encoded spills are shorter
+    if( f.length() < len || len == 0 ) { // Should be fully on disk...
       // or it's a racey delete of a spilled value
       assert !v.isPersisted() : f.length() + " " + v._max + " " + v._key;
       return null; // No value
     }
     try (FileInputStream s = new FileInputStream(f)) {
         AutoBuffer ab = new AutoBuffer(s.getChannel(), true, Value.ICE);
-        byte[] b = ab.getA1(v._max);
+        byte[] b = ab.getA1((int)len);
         ab.close();
-        return b;
+        return unspillBytes(v,b);
       }
   }
 
@@ -67,6 +68,7 @@ final class PersistFS extends Persist {
           Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
           v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
         }
+        m = spillBytes(v,m);
         new AutoBuffer(s.getChannel(), false, Value.ICE).putA1(m, m.length).close();
       } catch( AutoBuffer.AutoBufferException abe ) {
       throw abe._ioe;
@@ -13,6 +13,7 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -38,22 +39,43 @@ public class PersistManager {
     public PersistStatsEntry() {
       store_count = new AtomicLong();
       store_bytes = new AtomicLong();
+      store_raw_bytes = new AtomicLong();
+      store_ns = new AtomicLong();
       delete_count = new AtomicLong();
       load_count = new AtomicLong();
       load_bytes = new AtomicLong();
     }
 
     public AtomicLong store_count;
-    public AtomicLong store_bytes;
+    public AtomicLong store_bytes;     // Bytes written, after any spill codec
+    public AtomicLong store_raw_bytes; // Serialized Value bytes, before any spill codec
+    public AtomicLong store_ns;        // Time spent storing
     public AtomicLong delete_count;
     public AtomicLong load_count;
     public AtomicLong load_bytes;
+
+    /** Raw bytes per byte written; 1 if nothing was stored or nothing was encoded */
+    public double compressionRatio() {
+      long b = store_bytes.get();
+      return b == 0 ? 1 : (double)store_raw_bytes.get()/b;
+    }
+
+    /** Raw bytes stored per second of store time */
+    public double storeThroughput() {
+      long ns = store_ns.get();
+      return ns == 0 ? 0 : store_raw_bytes.get()*1e9/ns;
+    }
   }
 
   private Persist[] I;
   private PersistStatsEntry[] stats;
   public PersistStatsEntry[] getStats() { return stats; }
 
+  // Spill codec per backend; only used by user-mode swapping (ICE) backends
+  private SpillCodec[] _codecs;
+  public SpillCodec getCodec(int backend) { return _codecs[backend]; }
+  public void setCodec(int backend, SpillCodec c) { _codecs[backend] = c; }
+
   public static boolean isHdfsPath(String path) {
     String s = path.toLowerCase();
     if (s.startsWith("hdfs:") || s.startsWith("s3:") || s.startsWith("s3n:")
@@ -75,6 +97,9 @@ public class PersistManager {
     for (int i = 0; i < stats.length; i++) {
       stats[i] = new PersistStatsEntry();
     }
+    _codecs = new SpillCodec[MAX_BACKENDS];
+    Arrays.fill(_codecs, SpillCodec.NONE);
+    _codecs[Value.ICE] = SpillCodec.make(H2O.ARGS.ice_compress);
 
     if (iceRoot == null) {
       Log.err("ice_root must be specified.  Exiting.");
@@ -88,7 +113,9 @@ public class PersistManager {
       ice = new PersistFS(new File(iceRoot.toString()));
     }
     else if ((iceRoot.getScheme() == null) || Schemes.FILE.equals(iceRoot.getScheme())) {
-      ice = new PersistFS(new File(iceRoot.getPath()));
+      ice = H2O.ARGS.ice_segments
+        ? new PersistSegments(new File(iceRoot.getPath()))
+        : new PersistFS(new File(iceRoot.getPath()));
     }
     else if( Schemes.HDFS.equals(iceRoot.getScheme()) ) {
       Log.err("HDFS ice_root not yet supported.  Exiting.");
@@ -108,6 +135,12 @@ public class PersistManager {
 //      }
     }
 
+    // Optionally keep swapped Values off-heap, overflowing to the ice_root disk
+    if( ice != null && H2O.ARGS.off_heap_mem > 0 ) {
+      ice = new PersistOffHeap(ice, (long)H2O.ARGS.off_heap_mem << 20);
+      Log.info("Off-heap swap store enabled, limit " + H2O.ARGS.off_heap_mem + "MB");
+    }
+
     I[Value.ICE ] = ice;
     I[Value.NFS ] = new PersistNFS();
 
@@ -132,8 +165,11 @@ public class PersistManager {
   }
 
   public void store(int backend, Value v) throws IOException {
+    long start = System.nanoTime();
     stats[backend].store_count.incrementAndGet();
     I[backend].store(v);
+    stats[backend].store_raw_bytes.addAndGet(v._max);
+    stats[backend].store_ns.addAndGet(System.nanoTime() - start);
   }
 
   public void delete(int backend, Value v) {
@@ -37,7 +37,7 @@ public final class PersistNFS extends Persist {
     return new File(s);
   }
 
-  public void cleanUp() { }
+  public void cleanUp() { MappedFileCache.clear(); }
 
   /**
    * InputStream from a NFS-based Key
@@ -52,6 +52,12 @@ public final class PersistNFS extends Persist {
     // Convert a file chunk into a long-offset from the base file.
     Key k = v._key;
     long skip = k.isChunkKey() ? water.fvec.NFSFileVec.chunkOffset(k) : 0;
+    // Fast path: copy straight out of a shared memory mapping of the file
+    try {
+      return MappedFileCache.read(getFileForKey(k), skip, v._max);
+    } catch ( IOException e ) { // Cannot map (e.g. 32-bit JVM, odd file system); read the old way
+      Log.debug("[h2o] Mapping failed, reading instead: "+e.toString());
+    }
     try {
       FileInputStream s = null;
       try {
@@ -0,0 +1,115 @@
+package water.persist;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.Key;
+import water.MemoryManager;
+import water.Value;
+import water.nbhm.NonBlockingHashMap;
+
+/**
+ * User-mode swapping backend which keeps swapped Values outside of the Java
+ * heap, in direct ByteBuffers.  Values swapped out by the Cleaner are copied
+ * off-heap until the configured off-heap limit is reached; beyond that they
+ * overflow to the wrapped disk backend.  Swapping a Value in copies the bytes
+ * back onto the heap.
+ * <p>
+ * The point is that the old-gen heap only needs to hold the working set of
+ * Chunks, while the bulk of a big Frame lives in memory the GC never scans.
+ * Direct buffers are reclaimed when their (tiny) heap handle is collected, so
+ * a racing load of a just-deleted Value reads stale bytes rather than freed
+ * memory.
+ */
+final class PersistOffHeap extends Persist {
+  final Persist _disk;          // Overflow backend, typically PersistFS
+  final long _limit;            // Max off-heap bytes
+  private final AtomicLong _used = new AtomicLong();
+  private final NonBlockingHashMap<Key,ByteBuffer> _bufs = new NonBlockingHashMap<>();
+
+  PersistOffHeap(Persist disk, long limit) {
+    _disk = disk;
+    _limit = limit;
+  }
+
+  @Override public void store(Value v) throws IOException {
+    assert !v.isPersisted();
+    byte[] m = v.memOrLoad();
+    if( _used.get() + m.length > _limit ) { _disk.store(v); return; } // Overflow to disk
+    m = encodeSpill(v,m);       // Counted once kept: the disk counts what overflows
+    // Reserve room off-heap
+    if( _used.addAndGet(m.length) > _limit ) { // Lost a race for the room
+      _used.addAndGet(-m.length);
+      v.setCodec(0);            // Disk backend encodes afresh
+      _disk.store(v);
+      return;
+    }
+    ByteBuffer bb;
+    try { bb = ByteBuffer.allocateDirect(m.length); }
+    catch( OutOfMemoryError oom ) { // -XX:MaxDirectMemorySize exceeded
+      _used.addAndGet(-m.length);
+      v.setCodec(0);
+      _disk.store(v);
+      return;
+    }
+    bb.put(m).flip();
+    spilled(m.length);
+    ByteBuffer old = _bufs.put(v._key,bb);
+    if( old != null ) _used.addAndGet(-old.capacity()); // Replaced a stale copy
+  }
+
+  @Override public byte[] load(Value v) throws IOException {
+    ByteBuffer bb = _bufs.get(v._key);
+    if( bb == null ) return _disk.load(v);
+    if( v.codec() == 0 && bb.capacity() < v._max ) { // Racey delete of a spilled value
+      assert !v.isPersisted() : bb.capacity() + " " + v._max + " " + v._key;
+      return null;
+    }
+    byte[] b = MemoryManager.malloc1(bb.capacity());
+    bb.duplicate().get(b);      // Private position; loads can race
+    return unspillBytes(v,b);
+  }
+
+  @Override public void delete(Value v) {
+    ByteBuffer bb = _bufs.remove(v._key);
+    if( bb != null ) _used.addAndGet(-bb.capacity());
+    else _disk.delete(v);
+  }
+
+  /** Bytes of swapped Values currently held off-heap */
+  @Override public long getOffHeapBytes() { return _used.get(); }
+
+  @Override public boolean isOffHeap(Value v) { return _bufs.containsKey(v._key); }
+
+  @Override public long getUsableSpace() { return _disk.getUsableSpace(); }
+  @Override public long getTotalSpace() { return _disk.getTotalSpace(); }
+
+  @Override public void cleanUp() {
+    _bufs.clear();
+    _used.set(0);
+    _disk.cleanUp();
+  }
+
+  @Override public Key uriToKey(URI uri) throws IOException { return _disk.uriToKey(uri); }
+
+  @Override public List<String> calcTypeaheadMatches(String filter, int limit) {
+    return _disk.calcTypeaheadMatches(filter, limit);
+  }
+
+  @Override
+  public void importFiles(String path, ArrayList<String> files, ArrayList<String> keys, ArrayList<String> fails, ArrayList<String> dels) {
+    _disk.importFiles(path, files, keys, fails, dels);
+  }
+
+  @Override public PersistEntry[] list(String path) { return _disk.list(path); }
+  @Override public boolean exists(String path) { return _disk.exists(path); }
+  @Override public InputStream open(String path) { return _disk.open(path); }
+  @Override public boolean mkdirs(String path) { return _disk.mkdirs(path); }
+  @Override public OutputStream create(String path, boolean overwrite) { return _disk.create(path, overwrite); }
+}
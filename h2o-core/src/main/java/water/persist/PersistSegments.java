@@ -0,0 +1,285 @@
+package water.persist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.Key;
+import water.MemoryManager;
+import water.Value;
+import water.nbhm.NonBlockingHashMap;
+import water.nbhm.NonBlockingHashSet;
+import water.util.Log;
+
+/**
+ * Log-structured user-mode swap backend.  Instead of one file per Value (see
+ * {@link PersistFS}), swapped Values are appended to a few large segment
+ * files, with an in-memory index from Key to segment, offset and length.
+ * <p>
+ * Stores are asynchronous: {@link #store} queues the Value's bytes and
+ * returns, and a background writer thread appends whole batches with a single
+ * gather write.  Until written, loads are served from the queued bytes.  The
+ * number of queued bytes is bounded, so a Cleaner producing faster than the
+ * disk can absorb will block.  Loads use positional reads on a shared channel
+ * per segment; no open/close per Value.
+ * <p>
+ * Deletes only drop the index entry and the segment's live byte count.  A
+ * segment with no live bytes is removed; a mostly-dead segment is compacted
+ * by the writer when idle, re-appending its live Values to the current
+ * segment.
+ */
+final class PersistSegments extends PersistFS {
+  private static final long SEGMENT_SIZE = 256L<<20; // Roll to a new segment file after this
+  private static final long MAX_PENDING  =  64L<<20; // Max queued bytes before store blocks
+  private static final long MAX_BATCH    =   4L<<20; // Max bytes per gather write
+  private static final int  MAX_BATCH_N  = 1024;     // Max Values per gather write
+
+  /** One append-only segment file */
+  private static final class Segment {
+    final int _id;
+    final File _f;
+    final FileChannel _ch;
+    long _size;                 // Append position; writer thread only
+    final AtomicLong _live = new AtomicLong(); // Bytes still referenced from the index
+    final NonBlockingHashSet<Entry> _entries = new NonBlockingHashSet<>(); // Live entries, for compaction
+    volatile boolean _compact;  // Already queued for compaction
+    Segment( File dir, int id ) throws IOException {
+      _id = id;
+      _f = new File(dir, "seg_"+id+".log");
+      _ch = new RandomAccessFile(_f,"rw").getChannel();
+    }
+    void close() {
+      try { _ch.close(); } catch( IOException ignore ) { }
+      _f.delete();              // Silently ignore errors
+    }
+  }
+
+  /** Index entry: where a Value's bytes are, or the bytes themselves while
+   *  queued for writing. */
+  private static final class Entry {
+    final Key _key;
+    final int _len;
+    volatile byte[] _pending;   // Non-null until written
+    volatile Segment _seg;      // Set once written
+    long _off;                  // Written before _seg is published
+    boolean _dead;              // Deleted; guarded by synchronized(this)
+    Entry( Key key, byte[] b ) { _key = key; _len = b.length; _pending = b; }
+  }
+
+  private final NonBlockingHashMap<Key,Entry> _index = new NonBlockingHashMap<>();
+  private final LinkedBlockingQueue<Entry> _queue = new LinkedBlockingQueue<>();
+  private final AtomicLong _pendingBytes = new AtomicLong();
+  private final ConcurrentLinkedQueue<Segment> _toCompact = new ConcurrentLinkedQueue<>();
+  private volatile Segment _cur; // Current append segment
+  private int _nextId;           // Writer thread only
+  private volatile Thread _writer; // Started on demand; stopped by cleanUp
+  private volatile IOException _failed; // Last write failed; cleared by a good write
+
+  private final long _segmentSize;
+
+  PersistSegments(File root) { this(root, SEGMENT_SIZE); }
+  PersistSegments(File root, long segmentSize) { super(root); _segmentSize = segmentSize; }
+
+  private synchronized void startWriter() {
+    if( _writer != null ) return;
+    _writer = new Thread("ICEWriter") { @Override public void run() { writeLoop(this); } };
+    _writer.setDaemon(true);
+    _writer.start();
+  }
+
+  @Override public void store(Value v) throws IOException {
+    assert !v.isPersisted();
+    // While writes fail, refuse more: the Cleaner treats this like a full disk
+    IOException failed = _failed;
+    if( failed != null ) throw new IOException("ICE segment writes failing: " + failed.getMessage(), failed);
+    startWriter();
+    byte[] m = v.memOrLoad(); // we are not single threaded anymore
+    if( m != null && m.length != v._max ) {
+      Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
+      v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
+    }
+    // Back-pressure: do not let queued bytes grow without bound
+    while( _pendingBytes.get() > MAX_PENDING )
+      synchronized(_pendingBytes) {
+        try { _pendingBytes.wait(100); } catch( InterruptedException ignore ) { }
+      }
+    Entry e = new Entry(v._key,spillBytes(v,m));
+    release(_index.put(v._key,e));
+    _pendingBytes.addAndGet(e._len);
+    _queue.add(e);
+  }
+
+  @Override public byte[] load(Value v) throws IOException {
+    while( true ) {
+      Entry e = _index.get(v._key);
+      if( e == null || (v.codec() == 0 && e._len < v._max) ) { // Should be fully on disk...
+        // or it's a racey delete of a spilled value
+        assert !v.isPersisted() : (e==null ? -1 : e._len) + " " + v._max + " " + v._key;
+        return null; // No value
+      }
+      byte[] p = e._pending;    // Read once; cleared after _seg is set
+      if( p != null ) return unspillBytes(v,p);
+      Segment seg = e._seg;
+      byte[] b = MemoryManager.malloc1(e._len);
+      ByteBuffer bb = ByteBuffer.wrap(b);
+      try {
+        while( bb.hasRemaining() )
+          if( seg._ch.read(bb, e._off + bb.position()) < 0 )
+            throw new IOException("Short read of " + v._key + " in " + seg._f);
+        return unspillBytes(v,b);
+      } catch( ClosedChannelException cce ) {
+        // Segment compacted away under us: the entry was moved, so look
+        // again.  Else interrupted, or closed by cleanUp: no retry helps.
+        if( _index.get(v._key) != e ) continue;
+        if( cce instanceof ClosedByInterruptException ) Thread.currentThread().interrupt();
+        throw new IOException("Cannot read " + v._key + " from " + seg._f, cce);
+      }
+    }
+  }
+
+  @Override public void delete(Value v) {
+    release(_index.remove(v._key));
+  }
+
+  // Drop an index entry: un-count its live bytes, and free or schedule the
+  // compaction of its segment.
+  private void release( Entry e ) {
+    if( e == null ) return;
+    Segment seg;
+    synchronized(e) { e._dead = true; seg = e._seg; }
+    if( seg == null ) return;   // Not written yet; writer will skip it
+    seg._entries.remove(e);
+    long live = seg._live.addAndGet(-e._len);
+    if( seg == _cur ) return;   // Still appending
+    if( live == 0 ) seg.close();
+    else if( live*4 < seg._size && !seg._compact ) { seg._compact = true; _toCompact.add(seg); }
+  }
+
+  // Background writer: gather-write batches of queued Values, compact when
+  // idle.  Runs until cleanUp replaces the writer.
+  private void writeLoop( Thread self ) {
+    ArrayList<Entry> batch = new ArrayList<>();
+    while( _writer == self ) {
+      try {
+        Entry e = _queue.poll(1, TimeUnit.SECONDS);
+        if( e == null ) { compact(); continue; }
+        batch.clear();
+        batch.add(e);
+        long bytes = e._len;
+        while( batch.size() < MAX_BATCH_N && bytes < MAX_BATCH && (e = _queue.poll()) != null ) {
+          batch.add(e);
+          bytes += e._len;
+        }
+        try { write(batch,bytes); _failed = null; }
+        catch( IOException ioe ) {
+          // Still counted as queued, so still bounded: retry the batch after
+          // a pause.  New stores are refused meanwhile.
+          if( _failed == null ) Log.err("ICE segment write failed, retrying: " + ioe.getMessage());
+          _failed = ioe;
+          _queue.addAll(batch);
+          Thread.sleep(1000);
+        }
+      } catch( InterruptedException ie ) {
+        // Stopped by cleanUp, or spurious; the loop condition decides
+      } catch( Throwable t ) {
+        Log.err("ICE segment writer failed", t);
+      }
+    }
+  }
+
+  private void write( ArrayList<Entry> batch, long bytes ) throws IOException {
+    Segment seg = _cur;
+    if( seg == null || seg._size + bytes > _segmentSize ) {
+      Segment old = seg;
+      _dir.mkdirs();
+      _cur = seg = new Segment(_dir,_nextId++);
+      if( old != null && old._live.get() == 0 ) old.close();
+    }
+    ByteBuffer[] bbs = new ByteBuffer[batch.size()];
+    for( int i=0; i<bbs.length; i++ )
+      bbs[i] = ByteBuffer.wrap(batch.get(i)._pending);
+    long off = seg._size;
+    seg._ch.position(off);
+    long n = 0;
+    while( n < bytes ) n += seg._ch.write(bbs);
+    // Publish: offset first, then segment, then drop the queued bytes
+    for( Entry e : batch ) {
+      synchronized(e) {
+        if( !e._dead ) {
+          seg._live.addAndGet(e._len);
+          seg._entries.add(e);
+          e._off = off;
+          e._seg = seg;
+        }
+      }
+      if( !e._dead ) e._pending = null;
+      off += e._len;
+      _pendingBytes.addAndGet(-e._len);
+    }
+    seg._size = off;
+    synchronized(_pendingBytes) { _pendingBytes.notifyAll(); }
+  }
+
+  // Re-append the live Values of sparse segments, so the segments can be
+  // removed.  Moved Values are queued like fresh stores.
+  private void compact() throws IOException {
+    Segment seg;
+    while( (seg = _toCompact.poll()) != null ) {
+      if( !seg._ch.isOpen() || seg == _cur ) continue; // Already gone or active again
+      for( Entry e : seg._entries ) {
+        byte[] b = new byte[e._len];
+        ByteBuffer bb = ByteBuffer.wrap(b);
+        while( bb.hasRemaining() )
+          if( seg._ch.read(bb, e._off + bb.position()) < 0 )
+            throw new IOException("Short read of " + e._key + " in " + seg._f);
+        Entry e2 = new Entry(e._key,b);
+        if( !_index.replace(e._key,e,e2) ) continue; // Deleted or replaced meanwhile
+        _pendingBytes.addAndGet(e2._len);
+        _queue.add(e2);
+        release(e);             // Closes the segment once the last entry moves
+      }
+    }
+  }
+
+  /** Bytes queued and not yet written */
+  long queuedBytes() { return _pendingBytes.get(); }
+  /** Segment files currently open */
+  int segments() {
+    File[] fs = _dir.listFiles();
+    int n = 0;
+    if( fs != null ) for( File f : fs ) if( f.getName().startsWith("seg_") ) n++;
+    return n;
+  }
+  synchronized boolean writerRunning() { return _writer != null && _writer.isAlive(); }
+
+  // Stops the writer and drops everything queued; the next store starts a
+  // fresh writer.
+  @Override public void cleanUp() {
+    Thread w;
+    synchronized(this) { w = _writer; _writer = null; }
+    if( w != null ) {
+      w.interrupt();
+      try { w.join(10000); } catch( InterruptedException ignore ) { }
+    }
+    _queue.clear();
+    _toCompact.clear();
+    _failed = null;
+    for( Entry e : _index.values() ) release(e);
+    _index.clear();
+    _pendingBytes.set(0);
+    synchronized(_pendingBytes) { _pendingBytes.notifyAll(); }
+    Segment seg = _cur;
+    _cur = null;
+    if( seg != null ) seg.close();
+    super.cleanUp();
+  }
+}
@@ -0,0 +1,160 @@
+package water.persist;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import water.MemoryManager;
+import water.util.UnsafeUtils;
+
+/**
+ * Block codecs for Values swapped out by the Cleaner.  A codec is configured
+ * per backend in {@link PersistManager}; the codec actually used for a Value
+ * is recorded in its persist flags (see {@link water.Value#codec()}), so
+ * loads decompress transparently even if the configuration changes.
+ * <p><ul>
+ * <li>{@link #NONE} - raw bytes.</li>
+ * <li>{@link #LZ} - LZ4-style byte-oriented LZ77: greedy matching with a
+ *   small hash table, no entropy coding.  Compresses at disk-or-better speed
+ *   and decompresses with little more than array copies.</li>
+ * <li>{@link #DEFLATE} - java.util.zip at its fastest level; slower, smaller.</li>
+ * </ul>
+ * Codec ids must fit the 2 persist-flag bits reserved for them.
+ */
+public abstract class SpillCodec {
+  public final byte _id;
+  public final String _name;
+  SpillCodec( int id, String name ) { _id = (byte)id; _name = name; }
+
+  /** Compressed form of src; may be larger than src. */
+  public abstract byte[] compress( byte[] src );
+  /** Inverse of compress; rawLen is the length of the original bytes. */
+  public abstract byte[] decompress( byte[] src, int rawLen );
+
+  public static final SpillCodec NONE = new SpillCodec(0,"none") {
+    @Override public byte[] compress( byte[] src ) { return src; }
+    @Override public byte[] decompress( byte[] src, int rawLen ) { return src; }
+  };
+  public static final SpillCodec LZ = new LZ();
+  public static final SpillCodec DEFLATE = new SpillCodec(2,"deflate") {
+    @Override public byte[] compress( byte[] src ) {
+      Deflater d = new Deflater(Deflater.BEST_SPEED);
+      try {
+        d.setInput(src);
+        d.finish();
+        byte[] dst = new byte[src.length + (src.length>>6) + 64];
+        int n = 0;
+        while( !d.finished() ) {
+          if( n == dst.length ) dst = Arrays.copyOf(dst, dst.length<<1);
+          n += d.deflate(dst, n, dst.length-n);
+        }
+        return Arrays.copyOf(dst,n);
+      } finally { d.end(); }
+    }
+    @Override public byte[] decompress( byte[] src, int rawLen ) {
+      Inflater inf = new Inflater();
+      try {
+        inf.setInput(src);
+        byte[] dst = MemoryManager.malloc1(rawLen);
+        int n = 0;
+        while( n < rawLen && !inf.finished() ) n += inf.inflate(dst, n, rawLen-n);
+        assert n == rawLen;
+        return dst;
+      } catch( DataFormatException dfe ) {
+        throw new IllegalStateException("Corrupt deflate spill block", dfe);
+      } finally { inf.end(); }
+    }
+  };
+
+  private static final SpillCodec[] CODECS = { NONE, LZ, DEFLATE };
+
+  /** Codec by id, as recorded in a Value's persist flags */
+  public static SpillCodec get( int id ) { return CODECS[id]; }
+
+  /** Codec by name: one of none, lz, deflate */
+  public static SpillCodec make( String name ) {
+    for( SpillCodec c : CODECS )
+      if( c._name.equals(name) ) return c;
+    throw new IllegalArgumentException("Unknown spill codec: "+name);
+  }
+
+  @Override public String toString() { return _name; }
+
+  /** LZ4 block format: a sequence of [token, literals, offset, match]; the
+   *  token nibbles hold the literal length and match length-4, with 255-run
+   *  extension bytes when a nibble is 15.  The last sequence has literals
+   *  only. */
+  private static final class LZ extends SpillCodec {
+    private static final int MIN_MATCH = 4;
+    private static final int HASH_LOG = 12;
+    private static final int MAX_OFF = 65535;
+    private static final int LAST_LITERALS = 5; // Tail always emitted as literals
+    private static final int MF_LIMIT = 12;     // No match may start closer to the end
+    LZ() { super(1,"lz"); }
+
+    private static int hash( int x ) { return (x * -1640531535) >>> (32-HASH_LOG); }
+
+    @Override public byte[] compress( byte[] src ) {
+      final int n = src.length;
+      byte[] dst = new byte[n + n/255 + 16]; // Worst case, all literals
+      int[] table = new int[1<<HASH_LOG];
+      Arrays.fill(table,-1);
+      int anchor = 0, ip = 0, op = 0;
+      while( ip < n - MF_LIMIT ) {
+        int seq = UnsafeUtils.get4(src,ip);
+        int h = hash(seq);
+        int ref = table[h];
+        table[h] = ip;
+        if( ref < 0 || ip-ref > MAX_OFF || UnsafeUtils.get4(src,ref) != seq ) { ip++; continue; }
+        int len = MIN_MATCH;
+        while( ip+len < n-LAST_LITERALS && src[ref+len] == src[ip+len] ) len++;
+        op = literals(src, anchor, ip-anchor, len-MIN_MATCH, dst, op);
+        dst[op++] = (byte)(ip-ref);
+        dst[op++] = (byte)((ip-ref)>>>8);
+        if( len-MIN_MATCH >= 15 ) op = extend(len-MIN_MATCH-15, dst, op);
+        ip += len;
+        anchor = ip;
+      }
+      op = literals(src, anchor, n-anchor, 0, dst, op);
+      return Arrays.copyOf(dst,op);
+    }
+
+    // Token plus literal run; the match nibble is filled in from mlen
+    private static int literals( byte[] src, int from, int lit, int mlen, byte[] dst, int op ) {
+      dst[op++] = (byte)((Math.min(lit,15)<<4) | Math.min(mlen,15));
+      if( lit >= 15 ) op = extend(lit-15, dst, op);
+      System.arraycopy(src, from, dst, op, lit);
+      return op+lit;
+    }
+
+    private static int extend( int x, byte[] dst, int op ) {
+      while( x >= 255 ) { dst[op++] = (byte)255; x -= 255; }
+      dst[op++] = (byte)x;
+      return op;
+    }
+
+    @Override public byte[] decompress( byte[] src, int rawLen ) {
+      byte[] dst = MemoryManager.malloc1(rawLen);
+      int ip = 0, op = 0;
+      while( ip < src.length ) {
+        int token = src[ip++]&0xFF;
+        int lit = token>>>4;
+        if( lit == 15 ) { int b; do { b = src[ip++]&0xFF; lit += b; } while( b == 255 ); }
+        System.arraycopy(src, ip, dst, op, lit);
+        ip += lit;  op += lit;
+        if( ip >= src.length ) break; // Last sequence: literals only
+        int off = (src[ip++]&0xFF) | ((src[ip++]&0xFF)<<8);
+        int len = token&15;
+        if( len == 15 ) { int b; do { b = src[ip++]&0xFF; len += b; } while( b == 255 ); }
+        len += MIN_MATCH;
+        int ref = op-off;
+        if( off >= len ) System.arraycopy(dst, ref, dst, op, len);
+        else for( int i=0; i<len; i++ ) dst[op+i] = dst[ref+i]; // Overlapping run
+        op += len;
+      }
+      if( op != rawLen ) throw new IllegalStateException("Corrupt LZ spill block: "+op+" != "+rawLen);
+      return dst;
+    }
+  }
+}
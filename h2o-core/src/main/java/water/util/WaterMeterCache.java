@@ -0,0 +1,113 @@
+package water.util;
+
+import water.*;
+import water.api.API;
+import water.api.schemas3.SchemaV3;
+
+/** Per-node statistics of the Cleaner's Chunk {@link EvictionPolicy}, and of
+ *  the {@link RemoteChunkCache}. */
+public class WaterMeterCache extends Iced {
+
+  public static class CacheStatsEntry extends SchemaV3<Iced, CacheStatsEntry> {
+    @API(help="Eviction policy", direction = API.Direction.OUTPUT)
+    public String policy;
+
+    @API(help="Number of Chunk accesses served from memory", direction = API.Direction.OUTPUT)
+    public long hits;
+
+    @API(help="Number of Chunk accesses reloaded from swap", direction = API.Direction.OUTPUT)
+    public long misses;
+
+    @API(help="Number of Chunks freed from memory by the Cleaner", direction = API.Direction.OUTPUT)
+    public long evictions;
+
+    @API(help="Number of Chunks in the eviction index", direction = API.Direction.OUTPUT)
+    public long indexed;
+
+    @API(help="Number of Chunks fetched from other nodes", direction = API.Direction.OUTPUT)
+    public long remote_fetches;
+
+    @API(help="Bytes of Chunks fetched from other nodes", direction = API.Direction.OUTPUT)
+    public long remote_fetch_bytes;
+
+    @API(help="Number of reads of other nodes' Chunks served from the local cache", direction = API.Direction.OUTPUT)
+    public long remote_hits;
+
+    @API(help="Number of cached remote Chunks dropped to stay within the cache size", direction = API.Direction.OUTPUT)
+    public long remote_evictions;
+
+    @API(help="Number of cached remote Chunks invalidated by their home node", direction = API.Direction.OUTPUT)
+    public long remote_invalidations;
+
+    @API(help="Bytes of remote Chunks cached", direction = API.Direction.OUTPUT)
+    public long remote_cached_bytes;
+
+    @API(help="Number of remote Chunks cached", direction = API.Direction.OUTPUT)
+    public long remote_cached_chunks;
+  }
+
+  // Input
+  public int nodeidx;
+
+  // Output
+  public CacheStatsEntry cache_stats;
+
+  public void doIt(boolean aggregateAllNodes) {
+    if (! aggregateAllNodes) {
+      doIt(nodeidx);
+      return;
+    }
+
+    CacheStatsEntry sum = new CacheStatsEntry();
+    for (int i = 0; i < H2O.CLOUD.size(); i++) {
+      WaterMeterCache c = new WaterMeterCache();
+      c.doIt(i);
+      sum.policy     = c.cache_stats.policy;
+      sum.hits      += c.cache_stats.hits;
+      sum.misses    += c.cache_stats.misses;
+      sum.evictions += c.cache_stats.evictions;
+      sum.indexed   += c.cache_stats.indexed;
+      sum.remote_fetches       += c.cache_stats.remote_fetches;
+      sum.remote_fetch_bytes   += c.cache_stats.remote_fetch_bytes;
+      sum.remote_hits          += c.cache_stats.remote_hits;
+      sum.remote_evictions     += c.cache_stats.remote_evictions;
+      sum.remote_invalidations += c.cache_stats.remote_invalidations;
+      sum.remote_cached_bytes  += c.cache_stats.remote_cached_bytes;
+      sum.remote_cached_chunks += c.cache_stats.remote_cached_chunks;
+    }
+    cache_stats = sum;
+  }
+
+  private void doIt(int idx) {
+    H2ONode node = H2O.CLOUD._memary[idx];
+    GetTask t = new GetTask();
+    Log.trace("Cache GetTask starting to node " + idx + "...");
+    // Synchronous RPC call to get stats from remote (possibly this) node.
+    new RPC<>(node, t).call().get();
+    Log.trace("Cache GetTask completed to node " + idx);
+    cache_stats = t._cache_stats;
+  }
+
+  private static class GetTask extends DTask<GetTask> {
+    private CacheStatsEntry _cache_stats;
+
+    public GetTask() { super(H2O.MIN_HI_PRIORITY); _cache_stats = null; }
+
+    @Override public void compute2() {
+      _cache_stats = new CacheStatsEntry();
+      _cache_stats.policy    = EvictionPolicy.name();
+      _cache_stats.hits      = EvictionPolicy.hits();
+      _cache_stats.misses    = EvictionPolicy.misses();
+      _cache_stats.evictions = EvictionPolicy.evicts();
+      _cache_stats.indexed   = EvictionPolicy.indexed();
+      _cache_stats.remote_fetches       = RemoteChunkCache.fetches();
+      _cache_stats.remote_fetch_bytes   = RemoteChunkCache.fetchBytes();
+      _cache_stats.remote_hits          = RemoteChunkCache.hits();
+      _cache_stats.remote_evictions     = RemoteChunkCache.evicts();
+      _cache_stats.remote_invalidations = RemoteChunkCache.invalidates();
+      _cache_stats.remote_cached_bytes  = RemoteChunkCache.cachedBytes();
+      _cache_stats.remote_cached_chunks = RemoteChunkCache.cachedChunks();
+      tryComplete();
+    }
+  }
+}
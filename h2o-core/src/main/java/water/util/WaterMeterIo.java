@@ -5,6 +5,8 @@ import water.api.API;
 import water.api.schemas3.SchemaV3;
 import water.persist.PersistManager;
 
+import java.util.Arrays;
+
 public class WaterMeterIo extends Iced {
 
   public static class IoStatsEntry extends SchemaV3<Iced, IoStatsEntry> {
@@ -17,6 +19,18 @@ public class WaterMeterIo extends Iced {
     @API(help="Cumulative stored bytes", direction = API.Direction.OUTPUT)
     public long store_bytes;
 
+    @API(help="Cumulative stored bytes before spill compression", direction = API.Direction.OUTPUT)
+    public long store_raw_bytes;
+
+    @API(help="Cumulative time spent storing, in nanoseconds", direction = API.Direction.OUTPUT)
+    public long store_ns;
+
+    @API(help="Spill compression ratio (uncompressed / stored bytes)", direction = API.Direction.OUTPUT)
+    public double compression_ratio;
+
+    @API(help="Store throughput in uncompressed bytes per second", direction = API.Direction.OUTPUT)
+    public double store_throughput;
+
     @API(help="Number of delete events", direction = API.Direction.OUTPUT)
     public long delete_count;
 
@@ -27,11 +41,86 @@ public class WaterMeterIo extends Iced {
     public long load_bytes;
   }
 
+  public static class BufferPoolStatsEntry extends SchemaV3<Iced, BufferPoolStatsEntry> {
+    @API(help="Size in bytes of the pooled buffers", direction = API.Direction.OUTPUT)
+    public int size;
+
+    @API(help="Buffers allocated from native memory (pool misses)", direction = API.Direction.OUTPUT)
+    public long misses;
+
+    @API(help="Requests served from the requesting thread's own cache", direction = API.Direction.OUTPUT)
+    public long local_hits;
+
+    @API(help="Requests served from the shared cache", direction = API.Direction.OUTPUT)
+    public long shared_hits;
+
+    @API(help="Buffers dropped by the pool", direction = API.Direction.OUTPUT)
+    public long freed;
+
+    @API(help="Buffers currently handed out", direction = API.Direction.OUTPUT)
+    public long outstanding;
+
+    @API(help="Most buffers handed out at once (summed over nodes when aggregated)", direction = API.Direction.OUTPUT)
+    public long peak_outstanding;
+
+    @API(help="Buffers in the shared cache", direction = API.Direction.OUTPUT)
+    public long pooled;
+  }
+
+  public static class WireStatsEntry extends SchemaV3<Iced, WireStatsEntry> {
+    @API(help="Bytes of large messages sent over TCP, before compression", direction = API.Direction.OUTPUT)
+    public long raw_bytes;
+
+    @API(help="Bytes of large messages sent over TCP, as sent", direction = API.Direction.OUTPUT)
+    public long wire_bytes;
+
+    @API(help="Bytes saved by wire compression", direction = API.Direction.OUTPUT)
+    public long bytes_saved;
+
+    @API(help="Pages sent compressed", direction = API.Direction.OUTPUT)
+    public long compressed_pages;
+
+    @API(help="Pages sent raw (small, or of a type that does not compress)", direction = API.Direction.OUTPUT)
+    public long raw_pages;
+
+    @API(help="Message types currently sent raw, as their data does not compress", direction = API.Direction.OUTPUT)
+    public int types_off;
+  }
+
+  public static class RpcStatsEntry extends SchemaV3<Iced, RpcStatsEntry> {
+    @API(help="Node sending the RPCs", direction = API.Direction.OUTPUT)
+    public String node;
+
+    @API(help="Node the RPCs are sent to", direction = API.Direction.OUTPUT)
+    public String peer;
+
+    @API(help="Smoothed round-trip time, in milliseconds (0 until measured)", direction = API.Direction.OUTPUT)
+    public double srtt_ms;
+
+    @API(help="Round-trip time variation, in milliseconds", direction = API.Direction.OUTPUT)
+    public double rttvar_ms;
+
+    @API(help="Current wait for the ACKACK of an answer before resending it, in milliseconds", direction = API.Direction.OUTPUT)
+    public long ack_retry_ms;
+
+    @API(help="Number of round-trip times measured", direction = API.Direction.OUTPUT)
+    public long rtt_samples;
+
+    @API(help="Number of RPC retries sent", direction = API.Direction.OUTPUT)
+    public long resends;
+
+    @API(help="Number of \"still working\" replies received", direction = API.Direction.OUTPUT)
+    public long nacks;
+  }
+
   // Input
   public int nodeidx;
 
   // Output
   public IoStatsEntry persist_stats[];
+  public BufferPoolStatsEntry buffer_stats[];
+  public WireStatsEntry wire_stats;
+  public RpcStatsEntry rpc_stats[];
 
   public void doIt(boolean aggregateAllNodes) {
     if (! aggregateAllNodes) {
@@ -48,15 +137,50 @@ public class WaterMeterIo extends Iced {
           persist_stats[j] = new IoStatsEntry();
           persist_stats[j].backend    = io.persist_stats[j].backend;
         }
+        buffer_stats = new BufferPoolStatsEntry[io.buffer_stats.length];
+        for (int j = 0; j < buffer_stats.length; j++) {
+          buffer_stats[j] = new BufferPoolStatsEntry();
+          buffer_stats[j].size = io.buffer_stats[j].size;
+        }
+        wire_stats = new WireStatsEntry();
+        rpc_stats = new RpcStatsEntry[0];
       }
 
       for (int j = 0; j < persist_stats.length; j++) {
         persist_stats[j].store_count += io.persist_stats[j].store_count;
         persist_stats[j].store_bytes += io.persist_stats[j].store_bytes;
+        persist_stats[j].store_raw_bytes += io.persist_stats[j].store_raw_bytes;
+        persist_stats[j].store_ns += io.persist_stats[j].store_ns;
         persist_stats[j].delete_count += io.persist_stats[j].delete_count;
         persist_stats[j].load_count += io.persist_stats[j].load_count;
         persist_stats[j].load_bytes += io.persist_stats[j].load_bytes;
       }
+
+      for (int j = 0; j < buffer_stats.length; j++) {
+        buffer_stats[j].misses += io.buffer_stats[j].misses;
+        buffer_stats[j].local_hits += io.buffer_stats[j].local_hits;
+        buffer_stats[j].shared_hits += io.buffer_stats[j].shared_hits;
+        buffer_stats[j].freed += io.buffer_stats[j].freed;
+        buffer_stats[j].outstanding += io.buffer_stats[j].outstanding;
+        buffer_stats[j].peak_outstanding += io.buffer_stats[j].peak_outstanding;
+        buffer_stats[j].pooled += io.buffer_stats[j].pooled;
+      }
+
+      wire_stats.raw_bytes += io.wire_stats.raw_bytes;
+      wire_stats.wire_bytes += io.wire_stats.wire_bytes;
+      wire_stats.bytes_saved += io.wire_stats.bytes_saved;
+      wire_stats.compressed_pages += io.wire_stats.compressed_pages;
+      wire_stats.raw_pages += io.wire_stats.raw_pages;
+      wire_stats.types_off += io.wire_stats.types_off;
+
+      // Per pair of nodes: one list of all
+      RpcStatsEntry[] rpcs = Arrays.copyOf(rpc_stats, rpc_stats.length + io.rpc_stats.length);
+      System.arraycopy(io.rpc_stats, 0, rpcs, rpc_stats.length, io.rpc_stats.length);
+      rpc_stats = rpcs;
+    }
+    for (IoStatsEntry e : persist_stats) {
+      e.compression_ratio = e.store_bytes == 0 ? 1 : (double)e.store_raw_bytes / e.store_bytes;
+      e.store_throughput = e.store_ns == 0 ? 0 : e.store_raw_bytes * 1e9 / e.store_ns;
     }
   }
 
@@ -68,12 +192,18 @@ public class WaterMeterIo extends Iced {
     new RPC<>(node, t).call().get();
     Log.trace("IO GetTask completed to node " + idx);
     persist_stats = t._persist_stats;
+    buffer_stats = t._buffer_stats;
+    wire_stats = t._wire_stats;
+    rpc_stats = t._rpc_stats;
   }
 
   private static class GetTask extends DTask<GetTask> {
     private IoStatsEntry _persist_stats[];
+    private BufferPoolStatsEntry _buffer_stats[];
+    private WireStatsEntry _wire_stats;
+    private RpcStatsEntry _rpc_stats[];
 
-    public GetTask() { super(H2O.MIN_HI_PRIORITY); _persist_stats = null; }
+    public GetTask() { super(H2O.MIN_HI_PRIORITY); _persist_stats = null; _buffer_stats = null; _wire_stats = null; _rpc_stats = null; }
 
     @Override public void compute2() {
       PersistManager.PersistStatsEntry s[] = H2O.getPM().getStats();
@@ -103,6 +233,10 @@ public class WaterMeterIo extends Iced {
         PersistManager.PersistStatsEntry src_e = s[j];
         dest_e.store_count = src_e.store_count.get();
         dest_e.store_bytes = src_e.store_bytes.get();
+        dest_e.store_raw_bytes = src_e.store_raw_bytes.get();
+        dest_e.store_ns = src_e.store_ns.get();
+        dest_e.compression_ratio = src_e.compressionRatio();
+        dest_e.store_throughput = src_e.storeThroughput();
         dest_e.delete_count = src_e.delete_count.get();
         dest_e.load_count = src_e.load_count.get();
         dest_e.load_bytes = src_e.load_bytes.get();
@@ -118,6 +252,44 @@ public class WaterMeterIo extends Iced {
         assert(src_e.load_bytes.get() == 0);
       }
 
+      _buffer_stats = new BufferPoolStatsEntry[AutoBuffer.POOLS.length];
+      for (int i = 0; i < _buffer_stats.length; i++) {
+        AutoBuffer.BBPool pool = AutoBuffer.POOLS[i];
+        BufferPoolStatsEntry e = _buffer_stats[i] = new BufferPoolStatsEntry();
+        e.size = pool.size();
+        e.misses = pool.made();
+        e.local_hits = pool.localHits();
+        e.shared_hits = pool.sharedHits();
+        e.freed = pool.freed();
+        e.outstanding = pool.outstanding();
+        e.peak_outstanding = pool.peakOutstanding();
+        e.pooled = pool.pooled();
+      }
+
+      _wire_stats = new WireStatsEntry();
+      _wire_stats.raw_bytes = WireCompressor.rawBytes();
+      _wire_stats.wire_bytes = WireCompressor.wireBytes();
+      _wire_stats.bytes_saved = WireCompressor.bytesSaved();
+      _wire_stats.compressed_pages = WireCompressor.zippedPages();
+      _wire_stats.raw_pages = WireCompressor.rawPages();
+      _wire_stats.types_off = WireCompressor.typesOff();
+
+      H2ONode[] peers = H2O.CLOUD._memary;
+      _rpc_stats = new RpcStatsEntry[peers.length - (H2O.CLOUD.contains(H2O.SELF) ? 1 : 0)];
+      int k = 0;
+      for (H2ONode n : peers) {
+        if (n == H2O.SELF || k == _rpc_stats.length) continue;
+        RpcStatsEntry e = _rpc_stats[k++] = new RpcStatsEntry();
+        e.node = H2O.SELF.toString();
+        e.peer = n.toString();
+        e.srtt_ms = n.srttMicros() / 1e3;
+        e.rttvar_ms = n.rttvarMicros() / 1e3;
+        e.ack_retry_ms = n.ackRetryMs();
+        e.rtt_samples = n.rttSamples();
+        e.resends = n.resends();
+        e.nacks = n.nacks();
+      }
+
       tryComplete();
     }
   }
@@ -0,0 +1,94 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class AllReduceTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(5); }
+
+  // Each node contributes (node index + i) at position i; every node ends up
+  // with the sum, or the average, over all nodes.
+  @Test public void testSumAndAverage() {
+    final int len = 1000+3;     // Not a multiple of the cloud size
+    final int n = H2O.CLOUD.size();
+    final long nsum = (long)n*(n-1)/2;
+    Key id = Key.make();
+    try {
+      new Register(id,len,false).doAllNodes();
+      AllReduce.sum(id);
+      assertEquals(n, new Check(id,nsum,n,1).doAllNodes()._ok);
+
+      new Register(id,len,true).doAllNodes();
+      AllReduce.average(id);
+      assertEquals(n, new Check(id,nsum,n,n).doAllNodes()._ok);
+    } finally {
+      new Unregister(id).doAllNodes();
+    }
+  }
+
+  // Each reduction works on the array registered at the time, and leaves no
+  // state behind once done
+  @Test public void testReregister() {
+    final int n = H2O.CLOUD.size();
+    final long nsum = (long)n*(n-1)/2;
+    Key id = Key.make();
+    try {
+      for( int i=0; i<3; i++ ) {
+        new Register(id,100+i,i%2==0).doAllNodes();
+        AllReduce.average(id);
+        assertEquals(n, new Check(id,nsum,n,n).doAllNodes()._ok);
+        assertEquals(0, new Pending(id).doAllNodes()._pending);
+      }
+    } finally {
+      new Unregister(id).doAllNodes();
+    }
+  }
+
+  private static class Register extends MRTask<Register> {
+    final Key _id; final int _len; final boolean _float;
+    Register( Key id, int len, boolean f ) { _id = id; _len = len; _float = f; }
+    @Override protected void setupLocal() {
+      int idx = H2O.SELF.index();
+      if( _float ) {
+        float[] ary = new float[_len];
+        for( int i=0; i<_len; i++ ) ary[i] = idx+i;
+        AllReduce.put(_id,ary);
+      } else {
+        double[] ary = new double[_len];
+        for( int i=0; i<_len; i++ ) ary[i] = idx+i;
+        AllReduce.put(_id,ary);
+      }
+    }
+  }
+
+  private static class Check extends MRTask<Check> {
+    final Key _id; final long _nsum; final int _n, _div;
+    int _ok;
+    Check( Key id, long nsum, int n, int div ) { _id = id; _nsum = nsum; _n = n; _div = div; }
+    @Override protected void setupLocal() {
+      Object ary = AllReduce.get(_id);
+      int len = ary instanceof double[] ? ((double[])ary).length : ((float[])ary).length;
+      for( int i=0; i<len; i++ ) {
+        double exp = (double)(_nsum + (long)_n*i)/_div;
+        double got = ary instanceof double[] ? ((double[])ary)[i] : ((float[])ary)[i];
+        if( Math.abs(exp-got) > 1e-3*Math.max(1,exp) ) return;
+      }
+      _ok = 1;
+    }
+    @Override public void reduce( Check c ) { _ok += c._ok; }
+  }
+
+  private static class Pending extends MRTask<Pending> {
+    final Key _id;
+    int _pending;
+    Pending( Key id ) { _id = id; }
+    @Override protected void setupLocal() { if( AllReduce.inProgress(_id) ) _pending = 1; }
+    @Override public void reduce( Pending p ) { _pending += p._pending; }
+  }
+
+  private static class Unregister extends MRTask<Unregister> {
+    final Key _id;
+    Unregister( Key id ) { _id = id; }
+    @Override protected void setupLocal() { AllReduce.remove(_id); }
+  }
+}
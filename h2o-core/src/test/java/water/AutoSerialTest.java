@@ -474,4 +474,30 @@ public class AutoSerialTest extends Iced {
     _gcs = null;
   }
 
+
+  /* =======================
+     Private and final fields, set through Unsafe offsets looked up when the
+     Icer is loaded; and an inherited Icer tagged with its own type ID
+    ======================== */
+
+  static class Hidden extends Iced<Hidden> {
+    private final int _a;
+    private double[] _b;
+    Hidden( int a, double[] b ) { _a = a; _b = b; }
+  }
+  static class Hidden2 extends Hidden {
+    private final String _c;
+    Hidden2( int a, double[] b, String c ) { super(a,b); _c = c; }
+  }
+
+  @Test public void testPrivateFinalFields() {
+    Hidden2 h = new Hidden2(17,new double[]{1,2.5},"x");
+    Hidden2 h2 = new AutoBuffer(new AutoBuffer().put(h).buf()).get();
+    Assert.assertEquals(17, h2._a);
+    Assert.assertArrayEquals(new double[]{1,2.5}, h2._b, 0);
+    Assert.assertEquals("x", h2._c);
+    Assert.assertEquals(TypeMap.onIce(Hidden2.class.getName()), h2.frozenType());
+    Assert.assertNotEquals(new Hidden(1,null).frozenType(), h2.frozenType());
+  }
+
 }
@@ -0,0 +1,51 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.nio.ByteBuffer;
+
+public class BBPoolTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // A buffer freed by a thread is handed back to the same thread, without
+  // touching the shared cache.  Runs on a fresh thread, so its local cache
+  // starts out empty.
+  @Test public void testThreadLocalReuse() throws Exception {
+    final Throwable[] err = new Throwable[1];
+    Thread t = new Thread() {
+      @Override public void run() {
+        try {
+          AutoBuffer.BBPool pool = AutoBuffer.BBP_BIG;
+          ByteBuffer bb = pool.make();
+          assertTrue(bb.isDirect());
+          assertEquals(pool.size(), bb.capacity());
+          assertTrue(pool.peakOutstanding() >= pool.outstanding());
+          bb.putInt(17);
+          AutoBuffer.BBPool.FREE(bb);
+          long local = pool.localHits();
+          ByteBuffer bb2 = pool.make();
+          assertSame(bb, bb2);
+          assertEquals(0, bb2.position()); // Cleared on free
+          assertTrue(pool.localHits() > local);
+          AutoBuffer.BBPool.FREE(bb2);
+        } catch( Throwable ex ) { err[0] = ex; }
+      }
+    };
+    t.start();
+    t.join();
+    if( err[0] != null ) throw new AssertionError(err[0]);
+  }
+
+  // Size classes are ordered, and each hands out buffers of its own size
+  @Test public void testSizeClasses() {
+    int last = 0;
+    for( AutoBuffer.BBPool pool : AutoBuffer.POOLS ) {
+      assertTrue(pool.size() > last);
+      last = pool.size();
+      ByteBuffer bb = pool.make();
+      assertEquals(pool.size(), bb.capacity());
+      AutoBuffer.BBPool.FREE(bb);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import water.fvec.C0DChunk;
+import water.fvec.Vec;
+
+public class ChunkStoreTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testMirrorsStore() {
+    Vec vec = Vec.makeCon(0,1024,6);
+    Vec vec2 = Vec.makeCon(1,1024,6);
+    int h = ChunkStore.vecHash(vec._key._kb);
+    assertEquals(h,ChunkStore.vecHash(vec.chunkKey(3)._kb));
+    try {
+      for( int i=0; i<vec.nChunks(); i++ ) {
+        Key ck = vec.chunkKey(i);
+        if( !ck.home() ) continue;
+        assertSame(H2O.STORE.get(ck),ChunkStore.get(vec._key,h,i));
+        assertNotSame(ChunkStore.get(vec._key,h,i),ChunkStore.get(vec2._key,ChunkStore.vecHash(vec2._key._kb),i));
+      }
+      assertNull(ChunkStore.get(vec._key,h,vec.nChunks())); // No such Chunk
+      // Replaced Chunks are seen
+      Key ck0 = vec.chunkKey(0);
+      if( ck0.home() ) {
+        DKV.put(ck0,new C0DChunk(2,vec.chunkForChunkIdx(0)._len));
+        assertSame(H2O.STORE.get(ck0),ChunkStore.get(vec._key,h,0));
+      }
+    } finally {
+      vec.remove();
+      vec2.remove();
+    }
+    assertNull(ChunkStore.get(vec._key,h,0));
+  }
+}
@@ -0,0 +1,99 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import water.fvec.Vec;
+import water.util.IcedInt;
+
+public class EvictionPolicyTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Fresh policies, detached from the node's POLICY, share the index state
+  // on the Values with it: save that state, and clear it so the Values can
+  // be indexed again.  Restored when the test is done.
+  private static Value[] chunks( Vec vec, int n, int[] saved ) {
+    Value[] vals = new Value[n];
+    for( int i=0; i<n; i++ ) {
+      vals[i] = vec.chunkIdx(i);
+      saved[i] = vals[i]._evict;
+      vals[i]._evict = 0;
+    }
+    return vals;
+  }
+
+  private static void restore( Value[] vals, int[] saved ) {
+    for( int i=0; i<vals.length; i++ ) vals[i]._evict = saved[i];
+  }
+
+  @Test public void testLRUSecondChance() {
+    Vec vec = Vec.makeCon(0,1024,6);
+    int[] saved = new int[3];
+    Value[] v = chunks(vec,3,saved);
+    try {
+      EvictionPolicy lru = EvictionPolicy.make("lru");
+      lru.touch(v[0]); lru.touch(v[1]); lru.touch(v[2]);
+      lru.touch(v[0]);          // Referenced again: survives one lap
+      assertEquals(3,lru.size());
+      assertSame(v[1],lru.next());
+      assertSame(v[2],lru.next());
+      assertSame(v[0],lru.next());
+      assertNull(lru.next());
+      assertEquals(0,lru.size());
+    } finally {
+      restore(v,saved);
+      vec.remove();
+    }
+  }
+
+  @Test public void testLFUKeepsFrequentlyUsed() {
+    Vec vec = Vec.makeCon(0,1024,6);
+    int[] saved = new int[3];
+    Value[] v = chunks(vec,3,saved);
+    try {
+      EvictionPolicy lfu = EvictionPolicy.make("lfu");
+      lfu.touch(v[0]); lfu.touch(v[1]);
+      for( int i=0; i<5; i++ ) lfu.touch(v[0]); // Hot chunk
+      lfu.touch(v[2]);
+      lfu.touch(v[1]);          // Warm chunk
+      assertSame(v[2],lfu.next());
+      assertSame(v[1],lfu.next());
+      assertSame(v[0],lfu.next());
+    } finally {
+      restore(v,saved);
+      vec.remove();
+    }
+  }
+
+  @Test public void testDeadValuesDropped() {
+    Vec vec = Vec.makeCon(0,1024,6);
+    int[] saved = new int[2];
+    Value[] v = chunks(vec,2,saved);
+    EvictionPolicy lru = EvictionPolicy.make("lru");
+    lru.touch(v[0]); lru.touch(v[1]);
+    vec.remove();
+    lru.expunge();
+    restore(v,saved);
+    assertEquals(0,lru.size());
+    assertNull(lru.next());
+  }
+
+  // Building a histogram frees nothing: a cold POJO's spare serialized form
+  // is only noted, for the Cleaner to drop
+  @Test public void testHistoReadOnly() {
+    Key k = Key.make();
+    try {
+      DKV.put(k, new IcedInt(17));
+      Value val = DKV.get(k);
+      assertNotNull(val.memOrLoad());
+      assertNotNull(val.get());
+      val.touchAt(System.currentTimeMillis()-60000);
+      Cleaner.Histo h = new Cleaner.Histo(0);
+      assertNotNull(val.rawMem());
+      assertNotNull(val.rawPOJO());
+      assertTrue(h._spares.contains(val));
+    } finally {
+      DKV.remove(k);
+    }
+  }
+}
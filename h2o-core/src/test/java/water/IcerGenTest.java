@@ -0,0 +1,68 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+
+public class IcerGenTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Only ever serialized through the Icer built here
+  public static class Gen extends Iced<Gen> {
+    public int _a;
+    public double[] _b;
+    public String _c;
+    private final long _d;
+    public Gen( int a, double[] b, String c, long d ) { _a = a; _b = b; _c = c; _d = d; }
+  }
+  // Same fields, woven at runtime
+  public static class Twin extends Iced<Twin> {
+    public int _a;
+    public double[] _b;
+    public String _c;
+    private final long _d;
+    public Twin( int a, double[] b, String c, long d ) { _a = a; _b = b; _c = c; _d = d; }
+  }
+
+  // A pre-built Icer, loaded from the build output rather than woven, is
+  // tagged with the type ID it is installed under and writes the same bytes
+  // as a woven one
+  @Test public void testPrebuiltIcer() throws Exception {
+    Twin twin = new Twin(17,new double[]{1,2.5},"x",-3L);
+    byte[] woven = TypeMap.getIcer(twin).write(new AutoBuffer(),twin).buf();
+
+    File classes = Files.createTempDir(), out = Files.createTempDir();
+    String name = Gen.class.getName();
+    File cls = new File(classes,name.replace('.','/')+".class");
+    assertTrue(cls.getParentFile().mkdirs());
+    try( InputStream is = IcerGenTest.class.getResourceAsStream("IcerGenTest$Gen.class") ) {
+      Files.write(ByteStreams.toByteArray(is),cls);
+    }
+    assertEquals(1, IcerGen.generate(classes,out));
+    assertFalse(new File(cls.getParentFile(),"IcerGenTest$Gen$Icer.class").exists()); // Not in compileJava's output
+    assertTrue(new File(out,name.replace('.','/')+"$Icer.class").isFile());
+    assertEquals(name+"\n", Files.toString(new File(out,TypeMap.RESOURCE),Charset.forName("UTF-8")));
+
+    ClassLoader loader = new URLClassLoader(new URL[]{out.toURI().toURL()},IcerGenTest.class.getClassLoader());
+    Class<?> icer_clz = Class.forName(Weaver.implClazzName(name),true,loader);
+    assertSame(loader, icer_clz.getClassLoader());
+    Gen gen = new Gen(17,new double[]{1,2.5},"x",-3L);
+    Icer<Gen> icer = (Icer<Gen>)icer_clz.getDeclaredConstructors()[0].newInstance(gen,12345);
+    assertEquals(12345, icer.frozenType());
+    byte[] built = icer.write(new AutoBuffer(),gen).buf();
+    assertArrayEquals(woven, built);
+
+    Gen gen2 = icer.read(new AutoBuffer(built),new Gen(0,null,null,0));
+    assertEquals(17, gen2._a);
+    assertArrayEquals(new double[]{1,2.5}, gen2._b, 0);
+    assertEquals("x", gen2._c);
+    assertEquals(-3L, gen2._d);
+  }
+}
@@ -0,0 +1,29 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class JobMemTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Allocations by the Job's task and by the MRTask it runs are accounted to
+  // the Job, on all nodes; once the Job is done its accounting is dropped.
+  @Test public void testJobAllocAccounted() throws InterruptedException {
+    Job job = new Job(null,null,"allocate");
+    MemoryManager.setJobQuota(job._key,1L<<40); // Turns on tracking
+    assertEquals(1L<<40, MemoryManager.jobQuota(job._key));
+    job.start(new H2O.H2OCountedCompleter() {
+      @Override public void compute2() {
+        MemoryManager.malloc8d(1<<16);
+        new MRTask() {
+          @Override protected void setupLocal() { MemoryManager.malloc1(1<<16); }
+        }.doAllNodes();
+        tryComplete();
+      }
+    },1);
+    job.get();
+    for( int i=0; i<100 && job.mem_alloc() == 0; i++ ) Thread.sleep(50);
+    assertTrue(job.mem_alloc() >= (8L<<16) + ((long)H2O.CLOUD.size()<<16));
+    assertEquals((long)H2O.ARGS.job_mem_quota<<20, MemoryManager.jobQuota(job._key));
+  }
+}
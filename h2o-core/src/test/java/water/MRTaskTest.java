@@ -1,6 +1,7 @@
 package water;
 
 import org.junit.*;
+import water.fvec.Frame;
 import water.fvec.Vec;
 import water.fvec.Chunk;
 import water.util.PrettyPrint;
@@ -47,6 +48,81 @@ public class MRTaskTest extends TestUtil {
 
     zeros.remove();
   }
+  // Every fan-out visits each node and chunk exactly once
+  @Test
+  public void testFanout() {
+    Vec vec = Vec.makeCon(1.0,100000L,4,true);
+    try {
+      for( int k : new int[]{2,3,4,MRTask.FLAT} ) {
+        Assert.assertEquals(H2O.CLOUD.size(), new CountNodes().fanout(k).doAllNodes()._n);
+        Assert.assertEquals(vec.length(), new Sum().fanout(k).doAll(vec)._sum, 0);
+      }
+    } finally {
+      vec.remove();
+    }
+  }
+  // Splitting local work by cost still maps every Chunk exactly once, with
+  // Chunks of very different sizes (constant vs random doubles)
+  @Test
+  public void testCostSplit() {
+    Vec con = Vec.makeCon(1.0,100000L,4,true);
+    Vec rnd = con.makeRand(0xDECAF);
+    try {
+      Frame fr = new Frame(new String[]{"con","rnd"}, new Vec[]{con,rnd});
+      CountChunks cc = new CountChunks().doAll(fr);
+      Assert.assertEquals(con.nChunks(), cc._n);
+      Assert.assertEquals(con.length(), cc._rows);
+    } finally {
+      con.remove();
+      rnd.remove();
+    }
+  }
+  private static class CountChunks extends MRTask<CountChunks> {
+    int _n; long _rows;
+    @Override public void map( Chunk[] cs ) { _n++; _rows += cs[0]._len; }
+    @Override public void reduce( CountChunks mrt ) { _n += mrt._n; _rows += mrt._rows; }
+  }
+
+  // One node is slow to map; a speculative run re-runs its share locally
+  // once the home node's own share is done, and the backup wins
+  @Test
+  public void testSpeculative() {
+    Vec vec = Vec.makeCon(1.0,100000L,14,true); // A few Chunks
+    try {
+      int slow = (H2O.SELF.index()+1)%H2O.CLOUD.size();
+      SlowSum s = new SlowSum(slow).profile().speculative().fanout(MRTask.FLAT).doAll(vec);
+      Assert.assertEquals(vec.length(), s._sum, 0);
+      Assert.assertEquals(vec.length(), s._setup, 0); // setupLocal ran wherever a map did
+      Assert.assertTrue(s._profile._stragglers >= 1);
+      Assert.assertTrue(s._profile._backupWins >= 1);
+    } finally {
+      vec.remove();
+    }
+  }
+  private static class SlowSum extends MRTask<SlowSum> {
+    final int _slow;
+    double _sum, _setup;
+    transient boolean _isSetup;
+    SlowSum( int slow ) { _slow = slow; }
+    @Override protected void setupLocal() { _isSetup = true; }
+    @Override public void map( Chunk c ) {
+      if( H2O.SELF.index() == _slow ) try { Thread.sleep(3000); } catch( InterruptedException ignore ) { }
+      for( int i=0; i<c._len; i++ ) _sum += c.atd(i);
+      if( _isSetup ) _setup += c._len;
+    }
+    @Override public void reduce( SlowSum mrt ) { _sum += mrt._sum; _setup += mrt._setup; }
+  }
+  private static class CountNodes extends MRTask<CountNodes> {
+    int _n;
+    @Override protected void setupLocal() { _n = 1; }
+    @Override public void reduce( CountNodes mrt ) { _n += mrt._n; }
+  }
+  private static class Sum extends MRTask<Sum> {
+    double _sum;
+    @Override public void map( Chunk c ) { for( int i=0; i<c._len; i++ ) _sum += c.atd(i); }
+    @Override public void reduce( Sum mrt ) { _sum += mrt._sum; }
+  }
+
   private static MRTask manyMaps(Vec vec) {
     return new MRTask() { 
       @Override public void map(Chunk cs[]) { }
@@ -0,0 +1,151 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import water.util.WaterMeterIo;
+
+public class RPCRetryTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(5); }
+
+  private static UDPTimeOutThread.Timeout at( int tasknum, long ms ) {
+    return new UDPTimeOutThread.Timeout(null,tasknum,ms,ms);
+  }
+
+  // Entries come off the wheel once their tick has passed, in tick order;
+  // entries in the past go in the next tick, and entries more than a turn
+  // away are passed over until their turn comes
+  @Test public void testTimerWheel() {
+    final int T = UDPTimeOutThread.TICK_MS;
+    final long t0 = 1000000L*T;
+    UDPTimeOutThread.Wheel wheel = new UDPTimeOutThread.Wheel(t0);
+    long turn = (long)UDPTimeOutThread.SLOTS*T;
+    wheel.add(at(3,t0+5*T));
+    wheel.add(at(1,t0+T));
+    wheel.add(at(2,t0+T+1));
+    wheel.add(at(4,t0+5*T+turn)); // Same slot as #3, a turn later
+    wheel.add(at(0,t0-10*T));     // Already late
+    ArrayList<UDPTimeOutThread.Timeout> due = new ArrayList<>();
+    wheel.expire(t0+T-1,due);
+    assertEquals(0, due.size());
+    wheel.expire(t0+T,due);
+    assertEquals(Arrays.asList(0,1,2), tasknums(due));
+    due.clear();
+    wheel.expire(t0+5*T-1,due);
+    assertEquals(0, due.size());
+    wheel.expire(t0+5*T,due);
+    assertEquals(Arrays.asList(3), tasknums(due));
+    due.clear();
+    wheel.expire(t0+5*T+turn-1,due);
+    assertEquals(0, due.size());
+    wheel.add(at(5,t0+5*T+turn-T)); // Added after its tick ran: the next one
+    wheel.expire(t0+5*T+turn,due);
+    assertEquals(Arrays.asList(4,5), tasknums(due));
+  }
+  private static List<Integer> tasknums( ArrayList<UDPTimeOutThread.Timeout> due ) {
+    List<Integer> res = new ArrayList<>();
+    for( UDPTimeOutThread.Timeout to : due ) res.add(to._tasknum);
+    Collections.sort(res);
+    return res;
+  }
+
+  // SRTT and RTTVAR follow the samples with gains 1/8 and 1/4; the ACK
+  // resend wait is SRTT + 4*RTTVAR, clamped, and RETRY_MS until measured
+  @Test public void testRttEstimator() throws Exception {
+    H2ONode h2o = H2ONode.intern(InetAddress.getByName("127.0.0.1"),1);
+    assertEquals(0, h2o.rttSamples());
+    assertEquals(RPC.RETRY_MS, h2o.ackRetryMs());
+    h2o.rttSample(80000);
+    assertEquals(80000, h2o.srttMicros());
+    assertEquals(40000, h2o.rttvarMicros());
+    assertEquals(240, h2o.ackRetryMs());
+    h2o.rttSample(160000);
+    assertEquals(80000+10000, h2o.srttMicros());
+    assertEquals(40000+10000, h2o.rttvarMicros());
+    for( int i=0; i<200; i++ ) h2o.rttSample(100); // A fast LAN
+    assertEquals(202, h2o.rttSamples());
+    assertTrue(Math.abs(h2o.srttMicros()-100) <= 8);
+    assertEquals(RPC.MIN_RETRY_MS, h2o.ackRetryMs());
+    for( int i=0; i<200; i++ ) h2o.rttSample(60000000); // A minute
+    assertEquals(RPC.RETRY_MS, h2o.ackRetryMs());
+  }
+
+  // Network time says nothing of how long the remote work takes: an RPC
+  // waits the fixed RETRY_MS for its answer, however fast the network
+  @Test public void testRequestRetryIgnoresRtt() throws Exception {
+    H2ONode h2o = H2ONode.intern(InetAddress.getByName("127.0.0.1"),2);
+    for( int i=0; i<10; i++ ) h2o.rttSample(100);
+    assertEquals(RPC.MIN_RETRY_MS, h2o.ackRetryMs());
+    assertEquals(RPC.RETRY_MS, new RPC<>(h2o,new Sleep(0))._retry);
+  }
+
+  // A retry sent while the remote is still working is counted as a resend,
+  // and its NACK as a NACK; the RPC still completes
+  @Test public void testResendsAndNacks() {
+    H2ONode target = remote();
+    long resends = target.resends(), nacks = target.nacks();
+    RPC<Sleep> rpc = new RPC<>(target,new Sleep(2000));
+    rpc._retry = 50;            // call() doubles it
+    assertEquals(target.index(), rpc.call().get()._ran);
+    assertTrue(target.resends() > resends);
+    assertTrue(target.nacks() > nacks);
+  }
+
+  // Every node reports one rpc_stats entry per peer; each remote node has
+  // measured its RTT to us from the ACKs of our RPCs
+  @Test public void testRpcStats() throws InterruptedException {
+    int n = H2O.CLOUD.size();
+    WaterMeterIo io = null;
+    for( int i=0; i<100; i++ ) {
+      for( H2ONode h2o : H2O.CLOUD._memary )
+        if( h2o != H2O.SELF ) new RPC<>(h2o,new Sleep(0)).call().get();
+      io = new WaterMeterIo();
+      io.doIt(true);
+      if( measured(io) == n-1 ) break;
+      Thread.sleep(50);
+    }
+    assertEquals(n*(n-1), io.rpc_stats.length);
+    assertEquals(n-1, measured(io));
+    for( WaterMeterIo.RpcStatsEntry e : io.rpc_stats ) {
+      assertNotEquals(e.node, e.peer);
+      assertTrue(e.ack_retry_ms >= RPC.MIN_RETRY_MS && e.ack_retry_ms <= RPC.RETRY_MS);
+      assertTrue(e.rtt_samples == 0 ? e.srtt_ms == 0 : e.srtt_ms > 0);
+      if( e.node.equals(H2O.SELF.toString()) )
+        for( H2ONode h2o : H2O.CLOUD._memary )
+          if( e.peer.equals(h2o.toString()) ) {
+            assertTrue(e.resends <= h2o.resends());
+            assertTrue(e.nacks <= h2o.nacks());
+          }
+    }
+  }
+  // Remote nodes with an RTT to this one
+  private static int measured( WaterMeterIo io ) {
+    int m = 0;
+    for( WaterMeterIo.RpcStatsEntry e : io.rpc_stats )
+      if( e.peer.equals(H2O.SELF.toString()) && e.rtt_samples > 0 ) m++;
+    return m;
+  }
+
+  private static H2ONode remote() {
+    for( H2ONode h2o : H2O.CLOUD._memary )
+      if( h2o != H2O.SELF ) return h2o;
+    throw H2O.fail();
+  }
+
+  private static class Sleep extends DTask<Sleep> {
+    final int _ms;
+    int _ran;
+    Sleep( int ms ) { _ms = ms; }
+    @Override public void compute2() {
+      try { Thread.sleep(_ms); } catch( InterruptedException ignore ) { }
+      _ran = H2O.SELF.index();
+      tryComplete();
+    }
+  }
+}
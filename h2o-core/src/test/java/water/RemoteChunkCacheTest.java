@@ -0,0 +1,95 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import water.fvec.Vec;
+
+public class RemoteChunkCacheTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Stand-in for a replica installed by TaskGetKey
+  private static Value replica( Key vkey, int cidx, int len ) {
+    Key key = Vec.chunkKey(vkey,cidx);
+    Value val = new Value(key,len,new byte[len],TypeMap.PRIM_B,Value.ICE);
+    H2O.putIfMatch(key,val,H2O.STORE.get(key));
+    RemoteChunkCache.fetched(val);
+    return val;
+  }
+
+  private static void drop( Value... vals ) {
+    for( Value val : vals ) {
+      RemoteChunkCache.invalidated(val._key);
+      H2O.putIfMatch(val._key,null,H2O.STORE.get(val._key));
+    }
+  }
+
+  @Test public void testFetchAndHit() {
+    Key vkey = Vec.newKey();
+    long fetches = RemoteChunkCache.fetches(), fbytes = RemoteChunkCache.fetchBytes();
+    long bytes = RemoteChunkCache.cachedBytes(), hits = RemoteChunkCache.hits();
+    int chunks = RemoteChunkCache.cachedChunks();
+    Value v0 = replica(vkey,0,1000), v1 = replica(vkey,1,2000);
+    try {
+      assertEquals(fetches+2, RemoteChunkCache.fetches());
+      assertEquals(fbytes+3000, RemoteChunkCache.fetchBytes());
+      assertEquals(bytes+3000, RemoteChunkCache.cachedBytes());
+      assertEquals(chunks+2, RemoteChunkCache.cachedChunks());
+      RemoteChunkCache.hit();
+      assertEquals(hits+1, RemoteChunkCache.hits());
+      // Fetched again: replaces the old entry, not counted twice
+      v1 = replica(vkey,1,500);
+      assertEquals(bytes+1500, RemoteChunkCache.cachedBytes());
+      assertEquals(chunks+2, RemoteChunkCache.cachedChunks());
+    } finally {
+      drop(v0,v1);
+    }
+    assertEquals(bytes, RemoteChunkCache.cachedBytes());
+  }
+
+  // Invalidation drops the entry; non-Chunk and unknown Keys are ignored
+  @Test public void testInvalidate() {
+    Key vkey = Vec.newKey();
+    Value v0 = replica(vkey,0,1000);
+    long bytes = RemoteChunkCache.cachedBytes(), inv = RemoteChunkCache.invalidates();
+    try {
+      RemoteChunkCache.invalidated(Key.make());
+      RemoteChunkCache.invalidated(Vec.chunkKey(vkey,7));
+      assertEquals(inv, RemoteChunkCache.invalidates());
+      RemoteChunkCache.invalidated(v0._key);
+      assertEquals(inv+1, RemoteChunkCache.invalidates());
+      assertEquals(bytes-1000, RemoteChunkCache.cachedBytes());
+      RemoteChunkCache.invalidated(v0._key); // Already gone
+      assertEquals(inv+1, RemoteChunkCache.invalidates());
+    } finally {
+      drop(v0);
+    }
+  }
+
+  // Over budget, the coldest replica is dropped from the store; a replica
+  // read since it was cached gets a second chance
+  @Test public void testEvictColdest() {
+    int budget = H2O.ARGS.remote_cache;
+    H2O.ARGS.remote_cache = 1;  // 1MB
+    Key vkey = Vec.newKey();
+    Value v0 = null, v1 = null, v2 = null, v3 = null;
+    try {
+      long evicts = RemoteChunkCache.evicts();
+      v0 = replica(vkey,0,300<<10);
+      v1 = replica(vkey,1,300<<10);
+      v2 = replica(vkey,2,300<<10);
+      assertEquals(evicts, RemoteChunkCache.evicts());
+      v0.touchAt(v0._lastAccessedTime+1000); // Read again
+      v3 = replica(vkey,3,300<<10);
+      assertEquals(evicts+1, RemoteChunkCache.evicts());
+      assertSame(v0, H2O.STORE.get(v0._key));
+      assertNull(H2O.STORE.get(v1._key));
+      assertSame(v2, H2O.STORE.get(v2._key));
+      assertSame(v3, H2O.STORE.get(v3._key));
+      assertTrue(RemoteChunkCache.cachedBytes() <= RemoteChunkCache.budget());
+    } finally {
+      H2O.ARGS.remote_cache = budget;
+      for( Value v : new Value[]{v0,v1,v2,v3} ) if( v != null ) drop(v);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+public class ResidencyTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testSetAndClear() {
+    Vec vec = Vec.makeCon(0,1024,6);
+    Frame fr = new Frame(Key.make(),new String[]{"x"},new Vec[]{vec});
+    DKV.put(fr);
+    try {
+      Residency.set(fr._key,Residency.Priority.PINNED);
+      assertEquals(Residency.Priority.PINNED,Residency.get(vec._key));
+      assertTrue(Residency.isPinned(vec.chunkKey(0)));
+      Residency.set(vec._key,Residency.Priority.SPILL_FIRST);
+      assertEquals(Residency.Priority.SPILL_FIRST,Residency.of(vec.chunkKey(0)));
+      Residency.set(fr,Residency.Priority.NORMAL);
+      assertEquals(Residency.Priority.NORMAL,Residency.get(vec._key));
+      Residency.set(fr,Residency.Priority.PINNED);
+    } finally {
+      fr.delete();
+    }
+    assertEquals(Residency.Priority.NORMAL,Residency.get(vec._key)); // Dropped with the Vec
+  }
+
+  @Test public void testScopeResets() {
+    Vec vec = Vec.makeCon(0,1024,6);
+    Frame fr = new Frame(Key.make(),new String[]{"x"},new Vec[]{vec});
+    DKV.put(fr);
+    try {
+      Scope.enter();
+      Scope.residency(fr,Residency.Priority.PINNED);
+      assertEquals(Residency.Priority.PINNED,Residency.get(vec._key));
+      Scope.exit();
+      assertEquals(Residency.Priority.NORMAL,Residency.get(vec._key));
+    } finally {
+      fr.delete();
+    }
+  }
+}
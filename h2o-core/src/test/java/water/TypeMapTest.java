@@ -0,0 +1,104 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TypeMapTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(5); }
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  // The build's list first, then the -typemap file's, comments skipped
+  @Test public void testPreloadNames() throws IOException {
+    ArrayList<String> built = TypeMap.preloadNames(null);
+    File f = File.createTempFile("typemap", ".txt");
+    try {
+      Files.write("# saved\n\nwater.A\n  water.B  \n", f, UTF8);
+      ArrayList<String> names = TypeMap.preloadNames(f.getPath());
+      assertEquals(built, names.subList(0, built.size()));
+      assertEquals(Arrays.asList("water.A","water.B"), names.subList(built.size(), names.size()));
+    } finally {
+      f.delete();
+    }
+    try {
+      TypeMap.preloadNames(f.getPath());
+      fail("A missing -typemap file must not be silently skipped");
+    } catch( IllegalArgumentException expected ) { }
+  }
+
+  // A saved file lists every ID past the bootstrap classes, in ID order, so
+  // preloading it gives the same IDs
+  @Test public void testSave() throws IOException {
+    int id = TypeMap.onIce("water.TypeMapTest$Saved");
+    File f = File.createTempFile("typemap", ".txt");
+    try {
+      TypeMap.save(f);
+      List<String> lines = Files.readLines(f, UTF8);
+      List<String> saved = lines.subList(1, lines.size()); // Past the comment line
+      assertTrue(lines.get(0).startsWith("#"));
+      String[] clazzes = TypeMap.CLAZZES;
+      assertTrue(saved.size() > id-TypeMap.BOOTSTRAP_CLASSES.length);
+      for( int i=0; i<saved.size(); i++ )
+        assertEquals(clazzes[TypeMap.BOOTSTRAP_CLASSES.length+i], saved.get(i));
+      assertEquals("water.TypeMapTest$Saved", saved.get(id-TypeMap.BOOTSTRAP_CLASSES.length));
+      ArrayList<String> names = TypeMap.preloadNames(f.getPath());
+      assertTrue(names.containsAll(saved));
+    } finally {
+      f.delete();
+    }
+  }
+
+  // A new ID handed out by the leader is pushed to every node, which then
+  // knows it without asking
+  @Test public void testPushed() throws InterruptedException {
+    String name = "water.TypeMapTest$Pushed";
+    int id = TypeMap.onIce(name);
+    Known known = null;
+    for( int i=0; i<100; i++ ) {
+      known = new Known(id,name).doAllNodes();
+      if( known._n == H2O.CLOUD.size() ) break;
+      Thread.sleep(50);
+    }
+    assertEquals(H2O.CLOUD.size(), known._n);
+    // Pushed again, or at the wrong ID: the first mapping stays
+    TypeMap.installPushed(id, new String[]{name});
+    TypeMap.installPushed(id+1, new String[]{null, name});
+    assertEquals(id, TypeMap.onIce(name));
+    assertEquals(name, TypeMap.className(id));
+    // As sent over the wire
+    H2O.submitTask(new TypeMapPush(id, new String[]{name})).join();
+    assertEquals(id, TypeMap.onIce(name));
+    if( H2O.CLOUD.leader() == H2O.SELF ) // What a joining client is sent
+      assertTrue(Arrays.asList(TypeMap.snapshot()).contains(name));
+  }
+  private static class Known extends MRTask<Known> {
+    final int _id; final String _name;
+    int _n;
+    Known( int id, String name ) { _id = id; _name = name; }
+    @Override protected void setupLocal() {
+      String[] clazzes = TypeMap.CLAZZES; // Not className(), which would fetch it
+      if( _id < clazzes.length && _name.equals(clazzes[_id]) ) _n = 1;
+    }
+    @Override public void reduce( Known k ) { _n += k._n; }
+  }
+
+  // Nodes with different preloaded IDs are told apart by the heartbeat, and
+  // every node of this cloud agrees
+  @Test public void testHashCheck() {
+    HeartBeat hb = new HeartBeat();
+    hb._typemap_hash = TypeMap.PRELOAD_HASH;
+    assertTrue(hb.check_typemap());
+    hb._typemap_hash = TypeMap.PRELOAD_HASH+1;
+    assertFalse(hb.check_typemap());
+    for( H2ONode h2o : H2O.CLOUD._memary )
+      assertTrue(h2o._heartbeat.check_typemap());
+  }
+}
@@ -0,0 +1,113 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import water.persist.SpillCodec;
+
+public class WireCompressorTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private SpillCodec _codec;
+  @Before public void saveCodec() { _codec = WireCompressor.CODEC; }
+  @After public void restoreCodec() { WireCompressor.CODEC = _codec; }
+
+  // Write the arrays through a framed channel and read them back
+  private static byte[][] roundTrip( byte[]... arys ) throws IOException {
+    File f = File.createTempFile("framed", ".bin");
+    try {
+      RandomAccessFile raf = new RandomAccessFile(f, "rw");
+      AutoBuffer ab = new AutoBuffer(raf.getChannel(), false, true);
+      for( byte[] ary : arys ) ab.putA1(ary);
+      ab.close();
+      raf = new RandomAccessFile(f, "r");
+      ab = new AutoBuffer(raf.getChannel(), true, true);
+      byte[][] res = new byte[arys.length][];
+      for( int i = 0; i < arys.length; i++ ) res[i] = ab.getA1();
+      ab.close();
+      return res;
+    } finally {
+      f.delete();
+    }
+  }
+
+  private static byte[] random( int len, long seed ) {
+    byte[] b = new byte[len];
+    new Random(seed).nextBytes(b);
+    return b;
+  }
+
+  private static byte[] repetitive( int len ) {
+    byte[] b = new byte[len];
+    for( int i = 0; i < len; i++ ) b[i] = (byte)(i % 13);
+    return b;
+  }
+
+  // Compressible pages shrink on the wire and decode to the same bytes,
+  // small pages and tails included
+  @Test public void testCompressedRoundTrip() throws IOException {
+    for( SpillCodec codec : new SpillCodec[]{SpillCodec.LZ, SpillCodec.DEFLATE} ) {
+      WireCompressor.CODEC = codec;
+      assertTrue(WireCompressor.enabled());
+      byte[] small = repetitive(100), big = repetitive(3<<20);
+      long raw = WireCompressor.rawBytes(), saved = WireCompressor.bytesSaved();
+      long zipped = WireCompressor.zippedPages();
+      byte[][] res = roundTrip(small, big, new byte[0]);
+      assertArrayEquals(small, res[0]);
+      assertArrayEquals(big, res[1]);
+      assertEquals(0, res[2].length);
+      assertTrue(WireCompressor.rawBytes()-raw >= small.length+big.length);
+      assertTrue(WireCompressor.zippedPages() > zipped);
+      assertTrue(WireCompressor.bytesSaved()-saved > big.length/2);
+    }
+  }
+
+  // Pages that do not shrink go raw in their frame, and still decode
+  @Test public void testIncompressibleFallsBackToRaw() throws IOException {
+    WireCompressor.CODEC = SpillCodec.LZ;
+    byte[] b = random(2<<20, 42);
+    long saved = WireCompressor.bytesSaved(), rawPages = WireCompressor.rawPages();
+    assertArrayEquals(b, roundTrip(b)[0]);
+    assertEquals(saved, WireCompressor.bytesSaved());
+    assertTrue(WireCompressor.rawPages() > rawPages);
+  }
+
+  // Framing with the codec off is a plain pass-through
+  @Test public void testUncompressedFrames() throws IOException {
+    WireCompressor.CODEC = SpillCodec.NONE;
+    assertFalse(WireCompressor.enabled());
+    byte[] b = repetitive(1<<20);
+    long saved = WireCompressor.bytesSaved();
+    assertArrayEquals(b, roundTrip(b)[0]);
+    assertEquals(saved, WireCompressor.bytesSaved());
+  }
+
+  // A message type whose pages do not compress stops trying after a sample,
+  // re-tries once in a while, and turns back on when its data compresses
+  @Test public void testPerTypeFallback() {
+    WireCompressor.CODEC = SpillCodec.LZ;
+    final int type = 0x7FFF0001, page = 1<<20;
+    assertSame(SpillCodec.NONE, WireCompressor.codec(type, 100)); // Too small to bother
+    int pages = 0;
+    while( WireCompressor.codec(type, page) == SpillCodec.LZ ) {
+      WireCompressor.sent(type, SpillCodec.LZ, page, page);
+      pages++;
+    }
+    assertEquals(32, pages);
+    int off = WireCompressor.typesOff();
+    assertTrue(off >= 1);
+    while( WireCompressor.codec(type, page) == SpillCodec.NONE ) {
+      WireCompressor.sent(type, SpillCodec.NONE, page, page);
+      pages++;
+    }
+    assertEquals(1024, pages);
+    WireCompressor.sent(type, SpillCodec.LZ, page, page/4); // The re-try compresses
+    assertSame(SpillCodec.LZ, WireCompressor.codec(type, page));
+    assertEquals(off-1, WireCompressor.typesOff());
+  }
+}
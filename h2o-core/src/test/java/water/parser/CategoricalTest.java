@@ -0,0 +1,138 @@
+package water.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+import water.TestUtil;
+import water.util.UnsafeUtils;
+
+public class CategoricalTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Threads racing on the same keys must all see one id per key
+  @Test public void testConcurrentAddKey() throws InterruptedException {
+    final String[] pool = new String[20000];
+    Random rnd = new Random(0xCA7);
+    for( int i = 0; i < pool.length; i++ ) {
+      StringBuilder sb = new StringBuilder();
+      for( int k = rnd.nextInt(10); k > 0; k-- ) sb.append((char)('a'+rnd.nextInt(3)));
+      pool[i] = sb.append(i % 5000).toString();
+    }
+    final Categorical cat = new Categorical();
+    final ConcurrentHashMap<String,Integer> ids = new ConcurrentHashMap<>();
+    final AtomicBoolean ok = new AtomicBoolean(true);
+    Thread[] ts = new Thread[8];
+    for( int t = 0; t < ts.length; t++ ) {
+      final long seed = t;
+      ts[t] = new Thread() {
+        @Override public void run() {
+          Random r = new Random(seed);
+          BufferedString str = new BufferedString();
+          for( int i = 0; i < 100000; i++ ) {
+            String s = pool[r.nextInt(pool.length)];
+            int id = cat.addKey(str.set(s));
+            Integer prev = ids.putIfAbsent(s, id);
+            if( id <= 0 || (prev != null && prev != id) ) ok.set(false);
+          }
+        }
+      };
+      ts[t].start();
+    }
+    for( Thread t : ts ) t.join();
+    assertTrue(ok.get());
+    assertEquals(ids.size(), cat.size());
+    assertTrue(cat.maxId() >= cat.size());
+  }
+
+  // Sorted in BufferedString order, bad UTF-8 turned into hex, and mapped
+  // onto a global domain holding more levels
+  @Test public void testSortedDomainAndRemap() {
+    Categorical cat = new Categorical();
+    String[] keys = {"b", "", "ab", "a", "\u00e9t\u00e9", "abcdefghijklmnop", "abcdefghijklmnoq", "abcdefg", "Z"};
+    int[] ids = new int[keys.length];
+    for( int i = 0; i < keys.length; i++ ) ids[i] = cat.addKey(new BufferedString(keys[i]));
+    assertEquals(ids[3], cat.addKey(new BufferedString("a")));
+    int bad = cat.addKey(new BufferedString().set(new byte[]{'x', (byte)0xFF}));
+    cat.convertToUTF8(1);
+
+    TreeSet<BufferedString> expected = new TreeSet<>();
+    for( String k : keys ) expected.add(new BufferedString(k));
+    expected.add(new BufferedString("x<0xFF>"));
+    assertPacked(expected, cat.packedSortedDomain());
+
+    expected.add(new BufferedString("aa"));
+    expected.add(new BufferedString("zz"));
+    String[] domain = BufferedString.toString(expected.toArray(new BufferedString[expected.size()]));
+    int[] map = cat.localToGlobal(domain);
+    assertEquals(cat.maxId()+1, map.length);
+    for( int i = 0; i < keys.length; i++ )
+      assertEquals(keys[i], domain[map[ids[i]]]);
+    assertEquals("x<0xFF>", domain[map[bad]]);
+    assertEquals(-1, map[0]);
+  }
+
+  // Thousands of keys sharing long prefixes, some prefixes of others and
+  // many equal in whole words, sort past the insertion sort's few keys
+  @Test public void testSortSharedPrefixes() {
+    Categorical cat = new Categorical();
+    TreeSet<BufferedString> expected = new TreeSet<>();
+    String[] prefixes = {"", "a", "abcdefg", "abcdefgh", "abcdefghijklmn", "abcdefghijklmnopqrstuvwxyz0123456789"};
+    Random rnd = new Random(0x5047);
+    for( int i = 0; i < 20000; i++ ) {
+      StringBuilder sb = new StringBuilder(prefixes[rnd.nextInt(prefixes.length)]);
+      for( int k = rnd.nextInt(12); k > 0; k-- ) sb.append((char)('a'+rnd.nextInt(3)));
+      if( rnd.nextInt(4) == 0 ) sb.append((char)('\u00e0'+rnd.nextInt(3))); // Bytes past 0x7F
+      String s = sb.toString();
+      cat.addKey(new BufferedString(s));
+      expected.add(new BufferedString(s));
+    }
+    assertEquals(expected.size(), cat.size());
+    assertTrue(expected.size() > 2000);
+    assertPacked(expected, cat.packedSortedDomain());
+  }
+
+  // Keys too long for a page get one of their own, and compare, sort and
+  // map like any other
+  @Test public void testLongKeys() {
+    Categorical cat = new Categorical();
+    TreeSet<BufferedString> expected = new TreeSet<>();
+    int[] lens = {65533, 65534, 65535, 65536, 200000, 0, 3, 40000};
+    int[] ids = new int[lens.length*2];
+    for( int i = 0; i < lens.length; i++ ) {
+      for( int j = 0; j < 2; j++ ) {  // Twice, differing only in the last byte
+        byte[] b = new byte[lens[i]+j];
+        Arrays.fill(b, (byte)'k');
+        if( j > 0 ) b[b.length-1] = 'j';
+        BufferedString str = new BufferedString().set(b);
+        ids[2*i+j] = cat.addKey(str);
+        assertEquals(ids[2*i+j], cat.addKey(new BufferedString().set(b.clone())));
+        expected.add(str);
+      }
+    }
+    assertEquals(expected.size(), cat.size());
+    assertPacked(expected, cat.packedSortedDomain());
+    String[] domain = BufferedString.toString(expected.toArray(new BufferedString[expected.size()]));
+    int[] map = cat.localToGlobal(domain);
+    for( int i = 0; i < ids.length; i++ )
+      assertEquals(lens[i/2]+(i%2), domain[map[ids[i]]].length());
+  }
+
+  private static void assertPacked(TreeSet<BufferedString> expected, byte[] packed) {
+    assertEquals(expected.size(), UnsafeUtils.get4(packed, 0));
+    int off = 4;
+    for( BufferedString e : expected ) {
+      int len = UnsafeUtils.get4(packed, off);
+      assertEquals(e, new BufferedString().set(packed, off+4, len));
+      off += 4 + len;
+    }
+    assertEquals(packed.length, off);
+  }
+}
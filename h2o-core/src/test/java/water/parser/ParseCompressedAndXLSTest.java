@@ -3,10 +3,20 @@ package water.parser;
 import static org.junit.Assert.*;
 import static water.parser.DefaultParserProviders.XLS_INFO;
 
+import com.github.luben.zstd.Zstd;
+import com.google.common.io.Files;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.junit.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
 
 import water.*;
+import water.fvec.Chunk;
 import water.fvec.Vec;
 import water.fvec.Frame;
 import water.fvec.NFSFileVec;
@@ -32,6 +42,153 @@ public class ParseCompressedAndXLSTest extends TestUtil {
     }
   }
 
+  // Split (multi-member) and single-stream compressed files, parsed in many
+  // small chunks, must match the plain file
+  @Test public void testParallelDecompression() throws IOException {
+    final int nrows = 100000;
+    byte[] csv = csv(nrows);
+    File dir = Files.createTempDir();
+    Frame expected = null;
+    try {
+      expected = parseInChunks(write(new File(dir, "data.csv"), csv), 1<<14);
+      assertEquals(nrows, expected.numRows());
+      File[] files = new File[] {
+        write(new File(dir, "data.csv.gz"), gzip(csv, csv.length)),
+        write(new File(dir, "members.csv.gz"), gzip(csv, 4000)),   // Lines cross members
+        write(new File(dir, "data.csv.bz2"), bzip2(csv, csv.length)),
+        write(new File(dir, "streams.csv.bz2"), bzip2(csv, 50000)),
+        write(new File(dir, "data.csv.zst"), zstd(csv, csv.length)),
+        write(new File(dir, "frames.csv.zst"), zstd(csv, 30000)),
+      };
+      for( File f : files ) {
+        assertTrue(f.getName(), f.length() > 2*(1<<14)); // Single streams too span chunks
+        Frame fr = parseInChunks(f, 1<<14);
+        try {
+          assertTrue(f.getName(), isBitIdentical(expected, fr));
+        } finally {
+          fr.delete();
+        }
+      }
+    } finally {
+      if( expected != null ) expected.delete();
+      for( File f : dir.listFiles() ) f.delete();
+      dir.delete();
+    }
+  }
+
+  // Files are split only if all the chunks probed start a small member: one
+  // huge member past the second chunk sends the file down the streamed path
+  @Test public void testHugeMemberNotSplit() throws IOException {
+    byte[] csv = csv(100000);
+    int probeLimit = MemberParseReader.PROBE_LIMIT;
+    File dir = Files.createTempDir();
+    NFSFileVec small = null, huge = null;
+    try {
+      MemberParseReader.PROBE_LIMIT = 1<<16;
+      small = chunked(write(new File(dir, "small.csv.gz"), gzip(csv, 4000)), 1<<14);
+      assertTrue(MemberParseReader.isSplittable(small, ZipUtil.Compression.GZIP));
+      int head = csv.length/8;  // Small members, then one of the rest
+      byte[] mixed = concat(gzip(Arrays.copyOf(csv, head), 4000), gzip(Arrays.copyOfRange(csv, head, csv.length), csv.length));
+      huge = chunked(write(new File(dir, "huge.csv.gz"), mixed), 1<<14);
+      Chunk c = huge.chunkForChunkIdx(1);
+      assertTrue(MemberParseReader.decode(huge, ZipUtil.Compression.GZIP, c.start(), c.start()+c._len, new MemberParseReader.Out(1<<16)) >= 0);
+      assertFalse(MemberParseReader.isSplittable(huge, ZipUtil.Compression.GZIP));
+    } finally {
+      MemberParseReader.PROBE_LIMIT = probeLimit;
+      if( small != null ) small.remove();
+      if( huge != null ) huge.remove();
+      for( File f : dir.listFiles() ) f.delete();
+      dir.delete();
+    }
+  }
+
+  // Members decompressing past the limit of a chunk fail the parse with a
+  // message, rather than filling the heap
+  @Test public void testChunkLimit() throws IOException {
+    byte[] csv = csv(100000);
+    int chunkLimit = MemberParseReader.CHUNK_LIMIT;
+    File dir = Files.createTempDir();
+    NFSFileVec nfs = null;
+    try {
+      MemberParseReader.CHUNK_LIMIT = 1<<16;
+      nfs = chunked(write(new File(dir, "members.csv.gz"), gzip(csv, 200000)), 1<<14);
+      try {
+        new MemberParseReader(nfs.chunkForChunkIdx(0), ZipUtil.Compression.GZIP).getChunkData(0);
+        fail("Decompressed past the chunk limit");
+      } catch( ParseDataset.H2OParseException e ) {
+        assertTrue(e.getMessage(), e.getMessage().contains("more than " + (1<<16) + " bytes"));
+      }
+    } finally {
+      MemberParseReader.CHUNK_LIMIT = chunkLimit;
+      if( nfs != null ) nfs.remove();
+      for( File f : dir.listFiles() ) f.delete();
+      dir.delete();
+    }
+  }
+
+  private static byte[] csv(int nrows) throws IOException {
+    StringBuilder sb = new StringBuilder("C1,C2,C3,C4\n");
+    for( int i = 0; i < nrows; i++ )
+      sb.append(i).append(',').append(i % 13).append(",label_").append(i % 7).append(',').append(i / 8.0).append('\n');
+    return sb.toString().getBytes("UTF-8");
+  }
+
+  private static NFSFileVec chunked(File f, int chunkSize) {
+    NFSFileVec nfs = NFSFileVec.make(f);
+    nfs.setChunkSize(chunkSize);
+    return nfs;
+  }
+
+  private static byte[] concat(byte[] a, byte[] b) {
+    byte[] res = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, res, a.length, b.length);
+    return res;
+  }
+
+  private static Frame parseInChunks(File f, int chunkSize) {
+    NFSFileVec nfs = NFSFileVec.make(f);
+    ParseSetup ps = ParseSetup.guessSetup(new Key[]{nfs._key}, false, ParseSetup.GUESS_HEADER);
+    ps.setChunkSize(chunkSize);
+    return ParseDataset.parse(Key.make(), new Key[]{nfs._key}, true, ps);
+  }
+
+  private static File write(File f, byte[] bits) throws IOException {
+    try( OutputStream os = new FileOutputStream(f) ) { os.write(bits); }
+    return f;
+  }
+
+  // Compress pieces of memberSize bytes as separate members
+  private static byte[] gzip(byte[] bits, int memberSize) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for( int off = 0; off < bits.length; off += memberSize ) {
+      GZIPOutputStream gz = new GZIPOutputStream(baos);
+      gz.write(bits, off, Math.min(memberSize, bits.length - off));
+      gz.finish();
+    }
+    return baos.toByteArray();
+  }
+
+  private static byte[] bzip2(byte[] bits, int streamSize) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for( int off = 0; off < bits.length; off += streamSize ) {
+      BZip2CompressorOutputStream bz = new BZip2CompressorOutputStream(baos);
+      bz.write(bits, off, Math.min(streamSize, bits.length - off));
+      bz.finish();
+    }
+    return baos.toByteArray();
+  }
+
+  private static byte[] zstd(byte[] bits, int frameSize) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for( int off = 0; off < bits.length; off += frameSize ) {
+      int len = Math.min(frameSize, bits.length - off);
+      byte[] piece = new byte[len];
+      System.arraycopy(bits, off, piece, 0, len);
+      baos.write(Zstd.compress(piece, 3));
+    }
+    return baos.toByteArray();
+  }
+
   @Test public void  testXLS(){
     Frame k1 = null;
     try {
@@ -0,0 +1,55 @@
+package water.parser;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import water.TestUtil;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.FileVec;
+import water.fvec.Vec;
+
+public class ParseSetupTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // The user's setup over the columns of a self-describing file: skipped
+  // columns dropped, names and types taken only when given for all columns
+  @Test public void testKeptColumns() {
+    String[] names = ar("a", "b", "c", "d");
+    byte[] types = new byte[]{Vec.T_NUM, Vec.T_STR, Vec.T_NUM, Vec.T_TIME};
+    ParseSetup user = new ParseSetup().setSkippedColumns(new int[]{1, 3});
+    int[] kept = ParseSetup.keptColumns(user, 4);
+    assertArrayEquals(new int[]{0, 2}, kept);
+    ParseSetup ps = new ParseSetup().setKeptColumns(user, kept, names, types);
+    assertEquals(2, ps._number_columns);
+    assertArrayEquals(ar("a", "c"), ps._column_names);
+    assertArrayEquals(new byte[]{Vec.T_NUM, Vec.T_NUM}, ps._column_types);
+    assertEquals(ParseSetup.HAS_HEADER, ps._check_header);
+
+    user.setColumnNames(ar("A", null, "C", "D")).setColumnTypes(new byte[]{Vec.T_CAT, Vec.T_STR, Vec.T_STR, Vec.T_TIME});
+    ps = new ParseSetup().setKeptColumns(user, kept, names, types);
+    assertArrayEquals(ar("A", "C"), ps._column_names);
+    assertArrayEquals(new byte[]{Vec.T_CAT, Vec.T_STR}, ps._column_types);
+
+    user.setColumnNames(ar("A")).setColumnTypes(new byte[]{Vec.T_CAT}); // Not for these columns
+    ps = new ParseSetup().setKeptColumns(user, kept, names, types);
+    assertArrayEquals(ar("a", "c"), ps._column_names);
+    assertArrayEquals(new byte[]{Vec.T_NUM, Vec.T_NUM}, ps._column_types);
+
+    try {
+      ParseSetup.keptColumns(new ParseSetup().setSkippedColumns(new int[]{4}), 4);
+      fail("Skipped column out of range");
+    } catch (H2OIllegalArgumentException expected) { }
+    try {
+      ParseSetup.keptColumns(new ParseSetup().setSkippedColumns(new int[]{0, 1}), 2);
+      fail("No columns left");
+    } catch (H2OIllegalArgumentException expected) { }
+  }
+
+  @Test public void testUnitChunkSize() {
+    assertEquals(FileVec.DFLT_CHUNK_SIZE, ParseSetup.unitChunkSize(0, 0, 1 << 20));
+    assertEquals(1 << 20, ParseSetup.unitChunkSize(10L << 20, 10, 100L << 20));
+    assertEquals(1 << 16, ParseSetup.unitChunkSize(10L << 10, 10, 100L << 20)); // Small units
+    assertEquals(5 << 20, ParseSetup.unitChunkSize(10L << 20, 1, 5L << 20));    // No bigger than the file
+    assertEquals(1 << 30, ParseSetup.unitChunkSize(10L << 30, 2, 20L << 30));
+  }
+}
@@ -0,0 +1,112 @@
+package water.parser;
+
+import com.google.common.io.Files;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import water.Key;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+import water.fvec.Vec;
+
+/**
+ * The two-phase tokenizer must give the very same frame as the state machine.
+ */
+public class ParseTwoPhaseTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Wide and numeric, the case the tokenizer is for
+  @Test public void testNumeric() throws IOException {
+    Random rnd = new Random(0xC5F);
+    StringBuilder sb = new StringBuilder();
+    for( int c = 0; c < 300; c++ ) sb.append(c == 0 ? "" : ",").append("C").append(c+1);
+    sb.append('\n');
+    for( int r = 0; r < 2000; r++ ) {
+      for( int c = 0; c < 300; c++ ) {
+        if( c > 0 ) sb.append(',');
+        switch( c % 5 ) {
+          case 0: sb.append(rnd.nextInt()); break;
+          case 1: sb.append(rnd.nextGaussian()*1000); break;   // Some with exponents
+          case 2: sb.append(rnd.nextInt(100000) / 1000.0); break;
+          case 3: if( rnd.nextInt(10) > 0 ) sb.append(-rnd.nextInt(100)); break;
+          default: sb.append(rnd.nextLong()); break;            // Past the 18 digit fast path
+        }
+      }
+      sb.append('\n');
+    }
+    assertSameParse(sb.toString(), null);
+  }
+
+  // Lines the second phase hands back to the state machine
+  @Test public void testMixed() throws IOException {
+    Random rnd = new Random(0x2F);
+    String[] tokens = {"1", "-2.5", "3e-2", ".5", "7.", "", " 4", "5 ", "12%", "$3", "+5", "NA", "abc", " x y ",
+        "\"q,1\"", "'s'", "2016-01-01", "1234567890123456789012", "1e", "-", "\u00e9t\u00e9", "00012.500"};
+    StringBuilder sb = new StringBuilder("A,B,C,D,E,F\n");
+    for( int r = 0; r < 20000; r++ ) {
+      for( int c = 0; c < 6; c++ ) {
+        if( c > 0 ) sb.append(',');
+        sb.append(tokens[rnd.nextInt(3) == 0 ? rnd.nextInt(tokens.length) : rnd.nextInt(5)]);
+      }
+      sb.append(r % 3 == 0 ? "\r\n" : "\n");
+    }
+    assertSameParse(sb.toString(), null);
+    assertSameParse(sb.toString(), new byte[]{Vec.T_NUM, Vec.T_STR, Vec.T_NUM, Vec.T_CAT, Vec.T_NUM, Vec.T_NUM});
+  }
+
+  // Chunks ending on a line end, the next chunk starting with an empty line:
+  // the row after it is parsed once, by the chunk it starts in
+  @Test public void testEmptyLineAtChunkStart() throws IOException {
+    final int chunk = 1<<14;
+    StringBuilder sb = new StringBuilder("A,B,C\n");
+    int rows = 0;
+    for( int k = 1; k <= 24; k++ ) {
+      String eol = k % 2 == 0 ? "\r\n" : "\n";
+      for( ; sb.length()+40 < k*chunk; rows++ ) sb.append(rows).append(',').append(rows % 7).append(",x").append(eol);
+      if( k > 20 ) continue;    // Clear of the last chunk, which takes the tail
+      // A row whose line end is the last byte of the chunk
+      sb.append(rows++).append(",0,");
+      while( sb.length()+eol.length() < k*chunk ) sb.append('y');
+      sb.append(eol);
+      assertEquals(k*chunk, sb.length());
+      sb.append(eol);           // The empty line starting the next chunk
+    }
+    assertEquals(rows, assertSameParse(sb.toString(), null));
+  }
+
+  private static long assertSameParse(String csv, byte[] ctypes) throws IOException {
+    File dir = Files.createTempDir();
+    File f = new File(dir, "data.csv");
+    try( OutputStream os = new FileOutputStream(f) ) { os.write(csv.getBytes("UTF-8")); }
+    Frame fsa = null, twoPhase = null;
+    try {
+      fsa = parse(f, ctypes, false);
+      twoPhase = parse(f, ctypes, true);
+      assertEquals(fsa.numRows(), twoPhase.numRows());
+      assertTrue(isBitIdentical(fsa, twoPhase));
+      return fsa.numRows();
+    } finally {
+      if( fsa != null ) fsa.delete();
+      if( twoPhase != null ) twoPhase.delete();
+      f.delete();
+      dir.delete();
+    }
+  }
+
+  private static Frame parse(File f, byte[] ctypes, boolean twoPhase) {
+    NFSFileVec nfs = NFSFileVec.make(f);
+    ParseSetup ps = ParseSetup.guessSetup(new Key[]{nfs._key}, false, ParseSetup.HAS_HEADER);
+    if( ctypes != null ) ps.setColumnTypes(ctypes);
+    ps.setChunkSize(1<<14).setTwoPhaseTokenizer(twoPhase);
+    return ParseDataset.parse(Key.make(), new Key[]{nfs._key}, true, ps);
+  }
+}
@@ -0,0 +1,61 @@
+package water.persist;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import water.TestUtil;
+
+public class MappedFileCacheTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static byte[] bytes(int len, long seed) {
+    byte[] b = new byte[len];
+    new Random(seed).nextBytes(b);
+    return b;
+  }
+
+  @Test public void testRead() throws IOException {
+    File f = File.createTempFile("mapped", ".bin");
+    try {
+      byte[] b = bytes(100000, 1);
+      Files.write(b, f);
+      assertArrayEquals(Arrays.copyOfRange(b, 0, 1000), MappedFileCache.read(f, 0, 1000));
+      assertArrayEquals(Arrays.copyOfRange(b, 54321, 100000), MappedFileCache.read(f, 54321, 100000-54321));
+      assertEquals(0, MappedFileCache.read(f, 100000, 0).length);
+      try {
+        MappedFileCache.read(f, 99000, 2000);
+        fail("Read past the end of the file");
+      } catch( IOException expected ) { }
+    } finally {
+      MappedFileCache.clear();
+      f.delete();
+    }
+  }
+
+  // A rewritten file is re-mapped, but only once the check interval passed
+  @Test public void testRemapsChangedFile() throws Exception {
+    File f = File.createTempFile("mapped", ".bin");
+    try {
+      byte[] b1 = bytes(1000, 2);
+      Files.write(b1, f);
+      assertArrayEquals(b1, MappedFileCache.read(f, 0, 1000));
+      byte[] b2 = bytes(2000, 3);
+      Files.write(b2, f);
+      try {
+        MappedFileCache.read(f, 0, 2000); // Still the old, shorter mapping
+        fail("Stale mapping should be kept until the next check");
+      } catch( IOException expected ) { }
+      Thread.sleep(MappedFileCache.STALE_CHECK_MS + 100);
+      assertArrayEquals(b2, MappedFileCache.read(f, 0, 2000));
+    } finally {
+      MappedFileCache.clear();
+      f.delete();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package water.persist;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.H2O;
+import water.Key;
+import water.TestUtil;
+import water.TypeMap;
+import water.Value;
+
+public class PersistOffHeapTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Stand-in for the ice_root disk, recording what overflowed to it
+  private static class HeapDisk extends Persist {
+    final HashMap<Key,byte[]> _stored = new HashMap<>();
+    @Override public synchronized void store(Value v) { _stored.put(v._key, spillBytes(v, v.memOrLoad())); }
+    @Override public synchronized byte[] load(Value v) { return unspillBytes(v, _stored.get(v._key)); }
+    @Override public synchronized void delete(Value v) { _stored.remove(v._key); }
+    @Override public Key uriToKey(URI uri) { throw new UnsupportedOperationException(); }
+    @Override public void cleanUp() { _stored.clear(); }
+    @Override public List<String> calcTypeaheadMatches(String filter, int limit) { return null; }
+    @Override public void importFiles(String path, ArrayList<String> files, ArrayList<String> keys, ArrayList<String> fails, ArrayList<String> dels) { }
+  }
+
+  private static Value value(int len, long seed) {
+    byte[] b = new byte[len];
+    new Random(seed).nextBytes(b);
+    return new Value(Key.make(), len, b, TypeMap.PRIM_B, Value.ICE);
+  }
+
+  @Test public void testRoundTrip() throws IOException {
+    HeapDisk disk = new HeapDisk();
+    PersistOffHeap p = new PersistOffHeap(disk, 1<<20);
+    Value v = value(1000, 1);
+    byte[] expected = v.memOrLoad().clone();
+    p.store(v);
+    assertTrue(p.isOffHeap(v));
+    assertTrue(disk._stored.isEmpty());
+    assertEquals(1000, p.getOffHeapBytes());
+    assertArrayEquals(expected, p.load(v));
+    p.delete(v);
+    assertFalse(p.isOffHeap(v));
+    assertEquals(0, p.getOffHeapBytes());
+  }
+
+  // Past the limit, Values go to disk and are not reported as off-heap
+  @Test public void testOverflow() throws IOException {
+    HeapDisk disk = new HeapDisk();
+    PersistOffHeap p = new PersistOffHeap(disk, 1500);
+    Value v1 = value(1000, 2), v2 = value(1000, 3);
+    byte[] expected = v2.memOrLoad().clone();
+    p.store(v1);
+    p.store(v2);
+    assertTrue(p.isOffHeap(v1));
+    assertFalse(p.isOffHeap(v2));
+    assertTrue(disk._stored.containsKey(v2._key));
+    assertEquals(1000, p.getOffHeapBytes());
+    assertArrayEquals(expected, p.load(v2));
+    p.delete(v2);
+    assertTrue(disk._stored.isEmpty());
+    p.cleanUp();
+    assertEquals(0, p.getOffHeapBytes());
+    assertFalse(p.isOffHeap(v1));
+  }
+
+  // Racing stores, some losing the room they saw, count each Value's bytes
+  // once, wherever it ends up
+  @Test public void testStoreBytesCountedOnce() throws Exception {
+    final HeapDisk disk = new HeapDisk();
+    final PersistOffHeap p = new PersistOffHeap(disk, 20000);
+    final Value[] vs = new Value[200];
+    for( int i = 0; i < vs.length; i++ ) vs[i] = value(1000, 100+i);
+    AtomicLong stored = H2O.getPM().getStats()[Value.ICE].store_bytes;
+    long before = stored.get();
+    Thread[] ts = new Thread[8];
+    for( int t = 0; t < ts.length; t++ ) {
+      final int t0 = t;
+      ts[t] = new Thread() {
+        @Override public void run() {
+          try {
+            for( int i = t0; i < vs.length; i += 8 ) p.store(vs[i]);
+          } catch( IOException ioe ) { throw new RuntimeException(ioe); }
+        }
+      };
+      ts[t].start();
+    }
+    for( Thread t : ts ) t.join();
+    long bytes = p.getOffHeapBytes();
+    for( byte[] b : disk._stored.values() ) bytes += b.length;
+    assertEquals(vs.length, disk._stored.size() + (int)(p.getOffHeapBytes()/1000));
+    assertEquals(bytes, stored.get()-before);
+    p.cleanUp();
+  }
+}
@@ -0,0 +1,143 @@
+package water.persist;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import water.H2O;
+import water.Key;
+import water.TestUtil;
+import water.TypeMap;
+import water.Value;
+
+public class PersistSegmentsTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static Value value(int len, long seed) {
+    byte[] b = new byte[len];
+    new Random(seed).nextBytes(b);
+    return new Value(Key.make(), len, b, TypeMap.PRIM_B, Value.ICE);
+  }
+
+  private static void awaitWritten(PersistSegments p) throws InterruptedException {
+    for( int i = 0; i < 100 && p.queuedBytes() > 0; i++ ) Thread.sleep(50);
+    assertEquals(0, p.queuedBytes());
+  }
+
+  @Test public void testRoundTrip() throws Exception {
+    PersistSegments p = new PersistSegments(Files.createTempDir());
+    try {
+      Value[] vs = new Value[50];
+      byte[][] expected = new byte[vs.length][];
+      for( int i = 0; i < vs.length; i++ ) {
+        vs[i] = value(1000+i, i);
+        expected[i] = vs[i].memOrLoad().clone();
+        p.store(vs[i]);
+      }
+      for( int i = 0; i < vs.length; i++ )  // Possibly still queued
+        assertArrayEquals(expected[i], p.load(vs[i]));
+      awaitWritten(p);
+      for( int i = 0; i < vs.length; i++ )  // From the segment file
+        assertArrayEquals(expected[i], p.load(vs[i]));
+      p.delete(vs[0]);
+      assertNull(p.load(vs[0]));
+    } finally {
+      p.cleanUp();
+    }
+  }
+
+  // Mostly dead segments are re-appended and removed; the survivors still load
+  @Test public void testCompaction() throws Exception {
+    PersistSegments p = new PersistSegments(Files.createTempDir(), 32<<10);
+    try {
+      Value[] vs = new Value[40];
+      byte[][] expected = new byte[vs.length][];
+      for( int i = 0; i < vs.length; i++ ) {
+        vs[i] = value(4000, 100+i);
+        expected[i] = vs[i].memOrLoad().clone();
+        p.store(vs[i]);
+        awaitWritten(p);        // One Value per batch, so segments roll over
+      }
+      int segs = p.segments();
+      assertTrue(segs > 2);
+      for( int i = 0; i < vs.length; i++ )
+        if( i % 8 != 0 ) p.delete(vs[i]);
+      for( int i = 0; i < 100 && p.segments() > 2; i++ ) Thread.sleep(50);
+      assertTrue(p.segments() < segs);
+      awaitWritten(p);
+      for( int i = 0; i < vs.length; i += 8 )
+        assertArrayEquals(expected[i], p.load(vs[i]));
+    } finally {
+      p.cleanUp();
+    }
+  }
+
+  // A load interrupted mid-read fails, with the interrupt kept, rather than
+  // retrying on a channel which stays closed
+  @Test(timeout=60000) public void testInterruptedLoad() throws Exception {
+    PersistSegments p = new PersistSegments(Files.createTempDir());
+    try {
+      Value v = value(1000, 11);
+      p.store(v);
+      awaitWritten(p);
+      Thread.currentThread().interrupt();
+      try {
+        p.load(v);
+        fail("Read on an interrupted thread");
+      } catch( IOException expected ) {
+        assertTrue(Thread.interrupted());
+      }
+    } finally {
+      Thread.interrupted();
+      p.cleanUp();
+    }
+  }
+
+  // cleanUp stops the writer; a later store starts a new one
+  @Test public void testCleanUpStopsWriter() throws Exception {
+    PersistSegments p = new PersistSegments(Files.createTempDir());
+    Value v = value(100, 7);
+    p.store(v);
+    assertTrue(p.writerRunning());
+    p.cleanUp();
+    assertFalse(p.writerRunning());
+    assertEquals(0, p.queuedBytes());
+    Value v2 = value(100, 8);
+    byte[] expected = v2.memOrLoad().clone();
+    p.store(v2);
+    assertTrue(p.writerRunning());
+    awaitWritten(p);
+    assertArrayEquals(expected, p.load(v2));
+    p.cleanUp();
+  }
+
+  // A failed write is retried, and stores are refused until it succeeds
+  @Test public void testFailedWriteRetried() throws Exception {
+    File root = Files.createTempDir();
+    PersistSegments p = new PersistSegments(root);
+    try {
+      File dir = new File(root, "ice" + H2O.API_PORT);
+      assertTrue(dir.createNewFile()); // A file in the way: no segments can be made
+      Value v = value(100, 9);
+      byte[] expected = v.memOrLoad().clone();
+      p.store(v);
+      Value v2 = value(100, 10);
+      boolean refused = false;
+      for( int i = 0; i < 100 && !refused; i++ ) {
+        try { p.store(v2); Thread.sleep(50); } catch( IOException expectedFailure ) { refused = true; }
+      }
+      assertTrue(refused);
+      assertArrayEquals(expected, p.load(v)); // Still served from memory
+      assertTrue(dir.delete());
+      for( int i = 0; i < 100 && p.queuedBytes() > 0; i++ ) Thread.sleep(50);
+      assertEquals(0, p.queuedBytes());
+      assertArrayEquals(expected, p.load(v));
+    } finally {
+      p.cleanUp();
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package water.persist;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import water.TestUtil;
+
+public class SpillCodecTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static void roundTrip( SpillCodec c, byte[] raw ) {
+    byte[] z = c.compress(raw);
+    assertArrayEquals(c+" len="+raw.length, raw, c.decompress(z, raw.length));
+  }
+
+  private static byte[][] samples() {
+    Random r = new Random(0xC0DEC);
+    byte[] rand = new byte[100000];
+    r.nextBytes(rand);
+    byte[] runs = new byte[100000];     // Long runs: overlapping matches, long extensions
+    for( int i=0; i<runs.length; i++ ) runs[i] = (byte)(i/1000);
+    byte[] text = new byte[100000];     // Short repeats at varied distances
+    for( int i=0; i<text.length; i++ ) text[i] = (byte)("abcdefgh12345678".charAt(r.nextInt(4)+(i%12)));
+    return new byte[][] { new byte[0], new byte[]{7}, Arrays.copyOf(rand,13), rand, runs, text, new byte[70000] };
+  }
+
+  @Test public void testLZRoundTrip() {
+    for( byte[] b : samples() ) roundTrip(SpillCodec.LZ,b);
+  }
+
+  @Test public void testDeflateRoundTrip() {
+    for( byte[] b : samples() ) roundTrip(SpillCodec.DEFLATE,b);
+  }
+
+  @Test public void testLZCompresses() {
+    byte[] zeros = new byte[1<<20];
+    assertTrue(SpillCodec.LZ.compress(zeros).length < zeros.length/100);
+  }
+
+  @Test public void testByName() {
+    assertSame(SpillCodec.LZ, SpillCodec.make("lz"));
+    assertSame(SpillCodec.LZ, SpillCodec.get(SpillCodec.LZ._id));
+    assertSame(SpillCodec.NONE, SpillCodec.get(0));
+  }
+}
@@ -0,0 +1,398 @@
+package water.parser.orc;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.ColumnStatistics;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.StringColumnStatistics;
+import org.apache.orc.StripeInformation;
+import org.apache.orc.TypeDescription;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import water.Job;
+import water.Key;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.ByteVec;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+import water.parser.FVecParseReader;
+import water.parser.ParseDataset.H2OParseException;
+import water.parser.ParseReader;
+import water.parser.ParseSetup;
+import water.parser.ParseWriter;
+import water.parser.Parser;
+import water.util.Log;
+
+/**
+ * ORC parser for H2O distributed parsing subsystem.
+ *
+ * Each parse task (one per chunk of the file) parses the stripes which start
+ * in its chunk with the vectorized ORC reader, and copies the decoded column
+ * vectors straight into the output columns: numbers, dates and timestamps
+ * never go through text.  Only the parsed columns are included in the read,
+ * so the streams of the other columns are never decompressed or decoded.
+ * The chunk size is set to the average size of a stripe, so there is about
+ * one stripe per task.
+ */
+public class OrcParser extends Parser {
+
+  private static final int PREVIEW_ROWS = 10;
+  private static final long MILLIS_PER_DAY = 24L * 3600 * 1000;
+  /** Strings longer than this on average are guessed as free text, not categoricals */
+  private static final int MAX_CAT_AVG_LEN = 64;
+
+  OrcParser(ParseSetup setup, Key<Job> jobKey) {
+    super(setup, jobKey);
+  }
+
+  @Override
+  protected final ParseWriter parseChunk(int cidx, ParseReader din, ParseWriter dout) {
+    if (!(din instanceof FVecParseReader))
+      throw new H2OParseException("ORC files need random access and cannot be parsed from a stream (e.g. inside a zip file)");
+    Vec vec = ((FVecParseReader) din).getVec();
+    Chunk chk = vec.chunkForChunkIdx(cidx);
+    long lo = chk.start(), hi = lo + chk._len;
+    OrcParseSetup setup = (OrcParseSetup) _setup;
+    int file = setup.file(vec._key);
+    Reader reader;
+    if (file >= 0) { // The layout is known from the setup: skip chunks owning no stripe
+      if (!owns(setup._starts[file], lo, hi)) return dout;
+      reader = setup.reader(file, vec);
+    } else {
+      reader = reader(vec);
+      checkSchema(reader.getSchema(), setup._schema);
+    }
+    TypeDescription schema = reader.getSchema();
+    List<TypeDescription> fields = schema.getChildren();
+    BufferedString bs = new BufferedString();
+    long rows = 0;
+    // Reads exactly the stripes starting in [start, start+len)
+    Reader.Options opts = reader.options().range(lo, chk._len).include(include(schema, setup._fields));
+    try {
+      RecordReader rr = reader.rows(opts);
+      try {
+        VectorizedRowBatch batch = schema.createRowBatch();
+        while (rr.nextBatch(batch)) {
+          for (int col = 0; col < setup._fields.length; col++) {
+            int f = setup._fields[col];
+            writeColumn(batch.cols[f], fields.get(f), setup._column_types[col], col, batch.size, dout, bs);
+          }
+          rows += batch.size;
+        }
+      } finally {
+        rr.close();
+      }
+    } catch (IOException e) {
+      throw new H2OParseException("Cannot read ORC stripes of chunk " + cidx + ": " + e.getMessage(), e);
+    }
+    Log.trace(String.format("ORC: ChunkIdx: %d parsed %d rows", cidx, rows));
+    return dout;
+  }
+
+  private static boolean owns(long[] starts, long lo, long hi) {
+    for (long s : starts) if (s >= lo && s < hi) return true;
+    return false;
+  }
+
+  private static void checkSchema(TypeDescription schema, String first) {
+    if (!schema.toString().equals(first))
+      throw new H2OParseException("ORC schema " + schema + " does not match the schema of the first file " + first);
+  }
+
+  // Copy the first nrows values of a column vector into an output column
+  private static void writeColumn(ColumnVector cv, TypeDescription t, byte type, int col, int nrows, ParseWriter dout, BufferedString bs) {
+    boolean text = (type == Vec.T_CAT || type == Vec.T_STR) && !isText(t);
+    for (int r = 0; r < nrows; r++) {
+      int i = cv.isRepeating ? 0 : r;
+      if (!cv.noNulls && cv.isNull[i]) { dout.addInvalidCol(col); continue; }
+      if (text) { dout.addStrCol(col, bs.set(text(cv, i, t))); continue; }  // Numbers forced to strings
+      switch (t.getCategory()) {
+        case BOOLEAN: case BYTE: case SHORT: case INT: case LONG:
+          dout.addNumCol(col, ((LongColumnVector) cv).vector[i], 0);
+          break;
+        case DATE:
+          dout.addNumCol(col, ((LongColumnVector) cv).vector[i] * MILLIS_PER_DAY, 0);
+          break;
+        case TIMESTAMP:
+          dout.addNumCol(col, ((TimestampColumnVector) cv).getTime(i), 0);
+          break;
+        case FLOAT: case DOUBLE:
+          dout.addNumCol(col, ((DoubleColumnVector) cv).vector[i]);
+          break;
+        case DECIMAL:
+          dout.addNumCol(col, ((DecimalColumnVector) cv).vector[i].getHiveDecimal().doubleValue());
+          break;
+        default: // STRING, VARCHAR, CHAR, BINARY
+          BytesColumnVector bcv = (BytesColumnVector) cv;
+          dout.addStrCol(col, bs.set(bcv.vector[i], bcv.start[i], bcv.length[i]));
+      }
+    }
+  }
+
+  // A non-null value as text, for the preview and numbers forced to strings
+  private static String text(ColumnVector cv, int i, TypeDescription t) {
+    switch (t.getCategory()) {
+      case BOOLEAN: case BYTE: case SHORT: case INT: case LONG:
+        return Long.toString(((LongColumnVector) cv).vector[i]);
+      case DATE:
+        return new java.sql.Date(((LongColumnVector) cv).vector[i] * MILLIS_PER_DAY).toString();
+      case TIMESTAMP:
+        return ((TimestampColumnVector) cv).asScratchTimestamp(i).toString();
+      case FLOAT: case DOUBLE:
+        return Double.toString(((DoubleColumnVector) cv).vector[i]);
+      case DECIMAL:
+        return ((DecimalColumnVector) cv).vector[i].getHiveDecimal().toString();
+      default:
+        BytesColumnVector bcv = (BytesColumnVector) cv;
+        return new BufferedString().set(bcv.vector[i], bcv.start[i], bcv.length[i]).toString();
+    }
+  }
+
+  private static boolean isText(TypeDescription t) {
+    switch (t.getCategory()) {
+      case STRING: case VARCHAR: case CHAR: case BINARY: return true;
+      default: return false;
+    }
+  }
+
+  /** Flat columns only; structs, lists, maps and unions are skipped */
+  private static boolean isSupported(TypeDescription t) {
+    switch (t.getCategory()) {
+      case STRUCT: case LIST: case MAP: case UNION: return false;
+      default: return true;
+    }
+  }
+
+  /**
+   * The H2O type of a column, from its ORC type and the column statistics
+   * of the footer (merged from the statistics of all stripes).  Columns
+   * without values are left for the user to decide; strings are categorical
+   * unless they are long on average.
+   */
+  static byte columnType(TypeDescription t, ColumnStatistics stats) {
+    if (stats != null && stats.getNumberOfValues() == 0) return Vec.T_BAD;
+    switch (t.getCategory()) {
+      case DATE: case TIMESTAMP:
+        return Vec.T_TIME;
+      case BINARY:
+        return Vec.T_STR;
+      case STRING: case VARCHAR: case CHAR:
+        if (stats instanceof StringColumnStatistics
+            && ((StringColumnStatistics) stats).getSum() > (long) MAX_CAT_AVG_LEN * stats.getNumberOfValues())
+          return Vec.T_STR;
+        return Vec.T_CAT;
+      default:
+        return Vec.T_NUM;
+    }
+  }
+
+  // The include flags of the reader, by ORC column id: the root and the
+  // given top-level fields with everything below them.
+  private static boolean[] include(TypeDescription schema, int[] fields) {
+    boolean[] include = new boolean[schema.getMaximumId() + 1];
+    include[0] = true;
+    for (int f : fields) {
+      TypeDescription t = schema.getChildren().get(f);
+      for (int id = t.getId(); id <= t.getMaximumId(); id++) include[id] = true;
+    }
+    return include;
+  }
+
+  /** ORC reader over the bytes of a Vec */
+  static Reader reader(Vec vec) {
+    try {
+      OrcFile.ReaderOptions opts = OrcFile.readerOptions(new Configuration(false))
+          .filesystem(new VecFileSystem(vec)).maxLength(vec.length());
+      Reader reader = OrcFile.createReader(VecFileSystem.PATH, opts);
+      if (reader.getSchema().getCategory() != TypeDescription.Category.STRUCT)
+        throw new H2OParseException("ORC files with a top-level " + reader.getSchema() + " instead of a struct are not supported");
+      return reader;
+    } catch (IOException e) {
+      throw new H2OParseException("Cannot read ORC file: " + e.getMessage(), e);
+    }
+  }
+
+  public static class OrcParseSetup extends ParseSetup {
+    /** For each parsed column, its top-level field in the file */
+    final int[] _fields;
+    /** Schema of the first file; all files must match it */
+    final String _schema;
+    /** The ByteVecs of the input files, and per file the offset of each
+     *  stripe; null until the final setup */
+    final Key[] _files;
+    final long[][] _starts;
+    private transient Reader[] _readers; // Files opened on this node
+
+    OrcParseSetup(int ncols, String[] columnNames, byte[] ctypes, String[][] data, int[] fields, String schema) {
+      super(OrcParserProvider.ORC_INFO, (byte) '|', true, HAS_HEADER, ncols, columnNames, ctypes, null, null, data);
+      _fields = fields;
+      _schema = schema;
+      _files = null;
+      _starts = null;
+    }
+
+    OrcParseSetup(ParseSetup ps, int[] fields, String schema, Key[] files, long[][] starts, Reader[] readers) {
+      super(ps);
+      _fields = fields;
+      _schema = schema;
+      _files = files;
+      _starts = starts;
+      _readers = readers;
+    }
+
+    // Index of the file in the setup, or -1 if not known
+    int file(Key vkey) {
+      if (_files != null)
+        for (int i = 0; i < _files.length; i++)
+          if (_files[i].equals(vkey)) return i;
+      return -1;
+    }
+
+    // The reader of a file, with its tail and footer read once per node;
+    // each parse task reads its stripes through a record reader of its own
+    synchronized Reader reader(int file, Vec vec) {
+      if (_readers == null) _readers = new Reader[_files.length];
+      if (_readers[file] == null) _readers[file] = OrcParser.reader(vec);
+      return _readers[file];
+    }
+
+    @Override
+    protected Parser parser(Key jobKey) {
+      return new OrcParser(this, jobKey);
+    }
+
+    // The first bytes only tell this is an ORC file: the schema is in the footer
+    @Override
+    protected ParseSetup guessFromVec(ByteVec bv) {
+      return OrcParser.guessSetup(bv);
+    }
+  }
+
+  /** Recognize an ORC file by its first bytes; the columns are filled in
+   *  from the footer by {@link OrcParseSetup#guessFromVec}. */
+  public static ParseSetup guessSetup(byte[] bits) {
+    if (bits.length < 3 || bits[0] != 'O' || bits[1] != 'R' || bits[2] != 'C')
+      throw new H2OParseException("ORC format was not recognized");
+    return new OrcParseSetup(0, null, null, new String[0][], new int[0], null);
+  }
+
+  // Top-level fields of the schema that can be parsed
+  private static List<Integer> supportedFields(TypeDescription schema, boolean warn) {
+    List<Integer> supported = new ArrayList<>();
+    List<TypeDescription> fields = schema.getChildren();
+    for (int i = 0; i < fields.size(); i++) {
+      if (isSupported(fields.get(i))) supported.add(i);
+      else if (warn) Log.warn("Skipping ORC column " + schema.getFieldNames().get(i) + " of nested type " + fields.get(i));
+    }
+    return supported;
+  }
+
+  /** Guess the columns of an ORC file from its footer and statistics, with
+   *  a preview of the first rows. */
+  static ParseSetup guessSetup(ByteVec bv) {
+    Reader reader = reader(bv);
+    TypeDescription schema = reader.getSchema();
+    ColumnStatistics[] stats = reader.getStatistics();
+    List<Integer> supported = supportedFields(schema, true);
+    int ncols = supported.size();
+    String[] names = new String[ncols];
+    byte[] types = new byte[ncols];
+    int[] fields = new int[ncols];
+    for (int c = 0; c < ncols; c++) {
+      int f = fields[c] = supported.get(c);
+      TypeDescription t = schema.getChildren().get(f);
+      names[c] = schema.getFieldNames().get(f);
+      types[c] = columnType(t, t.getId() < stats.length ? stats[t.getId()] : null);
+    }
+    String[][] data = new String[(int) Math.min(PREVIEW_ROWS, reader.getNumberOfRows()) + 1][];
+    data[0] = names.clone();
+    try {
+      RecordReader rr = reader.rows(reader.options().include(include(schema, fields)));
+      try {
+        VectorizedRowBatch batch = schema.createRowBatch();
+        int row = 1;
+        while (row < data.length && rr.nextBatch(batch)) {
+          for (int r = 0; r < batch.size && row < data.length; r++, row++) {
+            data[row] = new String[ncols];
+            for (int c = 0; c < ncols; c++) {
+              ColumnVector cv = batch.cols[fields[c]];
+              int i = cv.isRepeating ? 0 : r;
+              data[row][c] = !cv.noNulls && cv.isNull[i] ? "NA" : text(cv, i, schema.getChildren().get(fields[c]));
+            }
+          }
+        }
+      } finally {
+        rr.close();
+      }
+    } catch (IOException e) {
+      throw new H2OParseException("Cannot read ORC preview: " + e.getMessage(), e);
+    }
+    return new OrcParseSetup(ncols, names, types, data, fields, schema.toString()).setChunkSize(chunkSize(reader, bv.length()));
+  }
+
+  /**
+   * The setup to parse with: the user's setup applied to the columns of the
+   * first file, less the skipped columns.  The stripe offsets of all the
+   * files are carried along, so the parse tasks of chunks owning no stripe
+   * need not read the file tails.
+   */
+  static OrcParseSetup finalSetup(ByteVec[] bvs, ParseSetup requiredSetup) {
+    Key[] files = new Key[bvs.length];
+    Reader[] readers = new Reader[bvs.length];
+    for (int i = 0; i < bvs.length; i++) {
+      files[i] = bvs[i]._key;
+      try {
+        readers[i] = reader(bvs[i]);
+        if (i > 0) checkSchema(readers[i].getSchema(), readers[0].getSchema().toString());
+      } catch (H2OParseException e) {
+        throw new H2OIllegalArgumentException("Wrong data", "Cannot read ORC footer of input file: " + files[i] + ": " + e.getMessage());
+      }
+    }
+    Reader reader = readers[0];
+    TypeDescription schema = reader.getSchema();
+    ColumnStatistics[] stats = reader.getStatistics();
+    List<Integer> supported = supportedFields(schema, false);
+    int nsup = supported.size();
+
+    String[] fileNames = new String[nsup];
+    byte[] fileTypes = new byte[nsup];
+    for (int i = 0; i < nsup; i++) {
+      TypeDescription t = schema.getChildren().get(supported.get(i));
+      fileNames[i] = schema.getFieldNames().get(supported.get(i));
+      fileTypes[i] = columnType(t, t.getId() < stats.length ? stats[t.getId()] : null);
+    }
+    int[] kept = ParseSetup.keptColumns(requiredSetup, nsup);
+    int ncols = kept.length;
+    int[] fields = new int[ncols];
+    for (int c = 0; c < ncols; c++) fields[c] = supported.get(kept[c]);
+    long[][] starts = new long[bvs.length][];
+    for (int i = 0; i < bvs.length; i++) {
+      List<StripeInformation> stripes = readers[i].getStripes();
+      starts[i] = new long[stripes.size()];
+      for (int s = 0; s < starts[i].length; s++) starts[i][s] = stripes.get(s).getOffset();
+    }
+    OrcParseSetup ps = new OrcParseSetup(requiredSetup, fields, schema.toString(), files, starts, readers);
+    ps.setKeptColumns(requiredSetup, kept, fileNames, fileTypes).setChunkSize(chunkSize(reader, bvs[0].length()));
+    Log.info("ORC: parsing " + ncols + " of " + schema.getChildren().size() + " columns in " + reader.getStripes().size() + " stripes");
+    return ps;
+  }
+
+  // About one stripe per chunk
+  private static int chunkSize(Reader reader, long fileSize) {
+    long total = 0;
+    for (StripeInformation s : reader.getStripes()) total += s.getLength();
+    return ParseSetup.unitChunkSize(total, reader.getStripes().size(), fileSize);
+  }
+}
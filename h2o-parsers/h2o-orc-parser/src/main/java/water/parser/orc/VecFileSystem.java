@@ -0,0 +1,123 @@
+package water.parser.orc;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import water.fvec.Chunk;
+import water.fvec.Vec;
+
+/**
+ * A read-only Hadoop file system holding a single file: the bytes of a
+ * ByteVec.
+ *
+ * The ORC reader only reads through a Hadoop FileSystem, and needs random
+ * access to the footer and the stripes.  Reading the Vec instead of the
+ * original path lets files which were uploaded, or come from any persist
+ * backend, be parsed the same way; chunks not homed here are fetched (and
+ * cached) by the usual DKV machinery.
+ */
+final class VecFileSystem extends FileSystem {
+  /** The path of the one file */
+  static final Path PATH = new Path("/vec");
+
+  private final Vec _vec;
+
+  VecFileSystem(Vec vec) {
+    _vec = vec;
+    setConf(new Configuration(false));
+  }
+
+  @Override public URI getUri() { return URI.create("vec:///"); }
+
+  @Override public FSDataInputStream open(Path f, int bufferSize) throws IOException {
+    return new FSDataInputStream(new VecInputStream(_vec));
+  }
+
+  @Override public FileStatus getFileStatus(Path f) throws IOException {
+    return new FileStatus(_vec.length(), false, 1, _vec.length(), 0, PATH);
+  }
+
+  @Override public FileStatus[] listStatus(Path f) throws IOException {
+    return new FileStatus[]{getFileStatus(f)};
+  }
+
+  @Override public Path getWorkingDirectory() { return new Path("/"); }
+  @Override public void setWorkingDirectory(Path dir) { throw new UnsupportedOperationException(); }
+
+  @Override public FSDataOutputStream create(Path f, FsPermission permission, boolean overwrite, int bufferSize,
+                                             short replication, long blockSize, Progressable progress) {
+    throw new UnsupportedOperationException();
+  }
+  @Override public FSDataOutputStream append(Path f, int bufferSize, Progressable progress) {
+    throw new UnsupportedOperationException();
+  }
+  @Override public boolean rename(Path src, Path dst) { throw new UnsupportedOperationException(); }
+  @Override public boolean delete(Path f, boolean recursive) { throw new UnsupportedOperationException(); }
+  @Override public boolean mkdirs(Path f, FsPermission permission) { throw new UnsupportedOperationException(); }
+
+  /** Seekable stream over the chunks of a Vec */
+  static final class VecInputStream extends InputStream implements Seekable, PositionedReadable {
+    private final Vec _vec;
+    private long _pos;
+
+    VecInputStream(Vec vec) { _vec = vec; }
+
+    @Override public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xFF);
+    }
+
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+      int n = read(_pos, b, off, len);
+      if( n > 0 ) _pos += n;
+      return n;
+    }
+
+    @Override public int available() { return (int)Math.min(Integer.MAX_VALUE, _vec.length()-_pos); }
+
+    // Reads at most to the end of the chunk holding position
+    @Override public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+      if( position >= _vec.length() ) return -1;
+      if( length == 0 ) return 0;
+      Chunk c = _vec.chunkForRow(position);
+      byte[] mem = c.getBytes();
+      int coff = (int)(position-c.start());
+      int n = Math.min(length, mem.length-coff);
+      System.arraycopy(mem, coff, buffer, offset, n);
+      return n;
+    }
+
+    @Override public void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+      int done = 0;
+      while( done < length ) {
+        int n = read(position+done, buffer, offset+done, length-done);
+        if( n < 0 ) throw new EOFException("Read past the end of the file at " + (position+done));
+        done += n;
+      }
+    }
+
+    @Override public void readFully(long position, byte[] buffer) throws IOException {
+      readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override public void seek(long pos) throws IOException {
+      if( pos < 0 || pos > _vec.length() ) throw new EOFException("Cannot seek to " + pos);
+      _pos = pos;
+    }
+    @Override public long getPos() { return _pos; }
+    @Override public boolean seekToNewSource(long targetPos) { return false; }
+  }
+}
@@ -0,0 +1,156 @@
+package water.parser;
+
+import com.google.common.io.Files;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.CompressionKind;
+import org.apache.orc.OrcFile;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.Writer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+import static org.junit.Assert.*;
+
+import water.Key;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+import water.fvec.Vec;
+
+/**
+ * Test suite for ORC parser.
+ */
+public class ParseTestOrc extends TestUtil {
+
+  private static double EPSILON = 1e-9;
+  private static final int NROWS = 20000;
+
+  @BeforeClass
+  static public void setup() { TestUtil.stall_till_cloudsize(5); }
+
+  @Test public void testParsePrimitiveTypes() throws IOException {
+    for (CompressionKind codec : new CompressionKind[]{CompressionKind.NONE, CompressionKind.ZLIB, CompressionKind.SNAPPY}) {
+      File file = OrcFileGenerator.generatePrimitiveTypes(NROWS, codec);
+      Frame f = null;
+      try {
+        f = parse_test_file(file.getCanonicalPath());
+        assertArrayEquals("Column names need to match!", ar("CInt", "CLong", "CDouble", "CBoolean", "CString", "CDate", "CTimestamp"), f.names());
+        assertArrayEquals("Column types need to match!", ar(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_TIME, Vec.T_TIME), f.types());
+        assertEquals(NROWS, f.numRows());
+        assertArrayEquals(ar("v0", "v1", "v2", "v3", "v4", "v5", "v6"), f.vec("CString").domain());
+        for (int row = 0; row < NROWS; row++) {
+          assertEquals("Value in column CInt", row, f.vec(0).at8(row));
+          if (row % 10 == 0) assertTrue("NA in column CLong", f.vec(1).isNA(row));
+          else assertEquals("Value in column CLong", row * 1000L, f.vec(1).at8(row));
+          assertEquals("Value in column CDouble", row / 4.0, f.vec(2).at(row), EPSILON);
+          assertEquals("Value in column CBoolean", row & 1, f.vec(3).at8(row));
+          assertEquals("Value in column CString", row % 7, f.vec(4).at8(row));
+          assertEquals("Value in column CDate", (long) row * 24 * 3600 * 1000, f.vec(5).at8(row));
+          assertEquals("Value in column CTimestamp", row * 1000L, f.vec(6).at8(row));
+        }
+      } finally {
+        if (f != null) f.delete();
+        file.delete();
+      }
+    }
+  }
+
+  @Test public void testSkippedColumns() throws IOException {
+    File file = OrcFileGenerator.generatePrimitiveTypes(NROWS, CompressionKind.ZLIB);
+    Frame f = null;
+    try {
+      NFSFileVec nfs = NFSFileVec.make(file);
+      ParseSetup ps = ParseSetup.guessSetup(new Key[]{nfs._key}, false, ParseSetup.HAS_HEADER)
+          .setSkippedColumns(new int[]{0, 3, 5, 6});
+      f = ParseDataset.parse(Key.make(), new Key[]{nfs._key}, true, ps);
+      assertArrayEquals("Column names need to match!", ar("CLong", "CDouble", "CString"), f.names());
+      assertEquals(NROWS, f.numRows());
+      for (int row = 0; row < NROWS; row++) {
+        if (row % 10 == 0) assertTrue("NA in column CLong", f.vec(0).isNA(row));
+        else assertEquals("Value in column CLong", row * 1000L, f.vec(0).at8(row));
+        assertEquals("Value in column CDouble", row / 4.0, f.vec(1).at(row), EPSILON);
+      }
+    } finally {
+      if (f != null) f.delete();
+      file.delete();
+    }
+  }
+
+  // Several files in one parse: each chunk reads only the stripes it owns,
+  // known from the setup, and the rows of both files come through
+  @Test public void testMultipleFiles() throws IOException {
+    File file1 = OrcFileGenerator.generatePrimitiveTypes(NROWS, CompressionKind.ZLIB);
+    File file2 = OrcFileGenerator.generatePrimitiveTypes(NROWS, CompressionKind.NONE);
+    Frame f = null;
+    try {
+      Key[] keys = new Key[]{NFSFileVec.make(file1)._key, NFSFileVec.make(file2)._key};
+      ParseSetup ps = ParseSetup.guessSetup(keys, false, ParseSetup.HAS_HEADER);
+      f = ParseDataset.parse(Key.make(), keys, true, ps);
+      assertEquals(2 * NROWS, f.numRows());
+      long sum = 0;
+      for (int row = 0; row < 2 * NROWS; row++) sum += f.vec("CInt").at8(row);
+      assertEquals((long) NROWS * (NROWS - 1), sum);
+    } finally {
+      if (f != null) f.delete();
+      file1.delete();
+      file2.delete();
+    }
+  }
+}
+
+/* A test file generator.  Small stripes, so files have several of them.
+*/
+class OrcFileGenerator {
+
+  public static File generatePrimitiveTypes(int nrows, CompressionKind codec) throws IOException {
+    File parentDir = Files.createTempDir();
+    File f = new File(parentDir, "primitiveTypes." + codec.name().toLowerCase() + ".orc");
+    TypeDescription schema = TypeDescription.fromString(
+        "struct<CInt:int,CLong:bigint,CDouble:double,CBoolean:boolean,CString:string,CDate:date,CTimestamp:timestamp>");
+    Configuration conf = new Configuration();
+    Writer w = OrcFile.createWriter(new Path(f.getCanonicalPath()),
+        OrcFile.writerOptions(conf).fileSystem(FileSystem.getLocal(conf)).setSchema(schema)
+            .compress(codec).stripeSize(64 * 1024).bufferSize(4 * 1024));
+    VectorizedRowBatch batch = schema.createRowBatch();
+    try {
+      for (int i = 0; i < nrows; i++) {
+        int r = batch.size++;
+        ((LongColumnVector) batch.cols[0]).vector[r] = i;
+        LongColumnVector clong = (LongColumnVector) batch.cols[1];
+        if (i % 10 == 0) {
+          clong.noNulls = false;
+          clong.isNull[r] = true;
+        } else {
+          clong.isNull[r] = false;
+          clong.vector[r] = i * 1000L;
+        }
+        ((DoubleColumnVector) batch.cols[2]).vector[r] = i / 4.0;
+        ((LongColumnVector) batch.cols[3]).vector[r] = i & 1;
+        ((BytesColumnVector) batch.cols[4]).setVal(r, ("v" + (i % 7)).getBytes(StandardCharsets.UTF_8));
+        ((LongColumnVector) batch.cols[5]).vector[r] = i;
+        ((TimestampColumnVector) batch.cols[6]).set(r, new Timestamp(i * 1000L));
+        if (batch.size == batch.getMaxSize()) {
+          w.addRowBatch(batch);
+          batch.reset();
+        }
+      }
+      if (batch.size > 0) w.addRowBatch(batch);
+      return f;
+    } finally {
+      w.close();
+    }
+  }
+}
@@ -0,0 +1,294 @@
+package water.parser.parquet;
+
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ValuesType;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.values.ValuesReader;
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ColumnMetaData;
+import org.apache.parquet.format.CompressionCodec;
+import org.apache.parquet.format.ConvertedType;
+import org.apache.parquet.format.DataPageHeader;
+import org.apache.parquet.format.DataPageHeaderV2;
+import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.Type;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import water.parser.BufferedString;
+import water.parser.ParseDataset.H2OParseException;
+import water.parser.ParseWriter;
+
+/**
+ * Reads the values of one column chunk of a row group, row by row, straight
+ * off the decoded pages.
+ *
+ * The whole column chunk is read in at once; pages are uncompressed one at a
+ * time.  Values are written as numbers, or as bytes for strings; logical
+ * types are converted on the way (dates and timestamps to msec since the
+ * epoch, decimals by their scale).
+ *
+ * Warning: This is not designed to be accessed by multiple threads!
+ */
+final class ColumnReader {
+  private static final long MSEC_PER_DAY = 24L * 3600 * 1000;
+  private static final int JULIAN_DAY_OF_EPOCH = 2440588;
+
+  private final SchemaElement _elem;
+  private final ConvertedType _ct;
+  private final ColumnMetaData _meta;
+  private final ColumnDescriptor _desc;
+  private final int _maxDef;
+
+  private final byte[] _buf;  // The column chunk
+  private int _pos;           // Next page header in _buf
+  private long _valuesLeft;   // Values left in the column chunk
+  private int _pageLeft;      // Values left in the current page
+
+  private Dictionary _dict;
+  private ValuesReader _dl;   // Definition levels; null if none stored
+  private ValuesReader _vals;
+
+  ColumnReader(VecInput in, ColumnChunk cc, SchemaElement e) {
+    _elem = e;
+    _ct = e.isSetConverted_type() ? e.getConverted_type() : null;
+    _meta = cc.getMeta_data();
+    _maxDef = ParquetUtil.maxDefinitionLevel(e);
+    _desc = new ColumnDescriptor(_meta.getPath_in_schema().toArray(new String[0]), primitiveType(e),
+                                 e.isSetType_length() ? e.getType_length() : 0, 0, _maxDef);
+    long len = _meta.getTotal_compressed_size();
+    if (len > Integer.MAX_VALUE) throw new H2OParseException("Parquet column chunk too large: " + len + " bytes");
+    _buf = in.read(ParquetUtil.start(_meta), (int) len);
+    _valuesLeft = _meta.getNum_values();
+  }
+
+  private static PrimitiveTypeName primitiveType(SchemaElement e) {
+    switch (e.getType()) {
+      case BOOLEAN:              return PrimitiveTypeName.BOOLEAN;
+      case INT32:                return PrimitiveTypeName.INT32;
+      case INT64:                return PrimitiveTypeName.INT64;
+      case INT96:                return PrimitiveTypeName.INT96;
+      case FLOAT:                return PrimitiveTypeName.FLOAT;
+      case DOUBLE:               return PrimitiveTypeName.DOUBLE;
+      case BYTE_ARRAY:           return PrimitiveTypeName.BINARY;
+      case FIXED_LEN_BYTE_ARRAY: return PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+      default: throw new IllegalArgumentException("Unsupported Parquet type: " + e.getType());
+    }
+  }
+
+  /** True if the values are strings (bytes), rather than numbers */
+  boolean isString() {
+    switch (_elem.getType()) {
+      case BYTE_ARRAY:
+      case FIXED_LEN_BYTE_ARRAY:
+        return _ct != ConvertedType.DECIMAL;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Move to the next row.  The value of the row, if any, must then be read
+   * or skipped before moving on.
+   *
+   * @return true if the row has a value, false if it is null
+   */
+  boolean next() {
+    try {
+      if (_pageLeft == 0) nextPage();
+    } catch (IOException e) {
+      throw new H2OParseException("Cannot read page of Parquet column " + _elem.getName(), e);
+    }
+    _pageLeft--;
+    _valuesLeft--;
+    return _dl == null || _dl.readInteger() == _maxDef;
+  }
+
+  /** Skip the value of the current row */
+  void skip() { _vals.skip(); }
+
+  /** Write the value of the current row to the given column */
+  void write(ParseWriter dout, int col, BufferedString bs) {
+    boolean str = dout.isString(col) && !isString(); // Numbers forced into a string column
+    switch (_elem.getType()) {
+      case BOOLEAN:
+        num(dout, col, _vals.readBoolean() ? 1 : 0, 0, str, bs);
+        break;
+      case INT32: {
+        int i = _vals.readInteger();
+        if (_ct == ConvertedType.DATE) num(dout, col, i * MSEC_PER_DAY, 0, str, bs);
+        else num(dout, col, i, _ct == ConvertedType.DECIMAL ? -_elem.getScale() : 0, str, bs);
+        break;
+      }
+      case INT64: {
+        long l = _vals.readLong();
+        if (_ct == ConvertedType.TIMESTAMP_MICROS) l /= 1000;
+        num(dout, col, l, _ct == ConvertedType.DECIMAL ? -_elem.getScale() : 0, str, bs);
+        break;
+      }
+      case INT96:
+        num(dout, col, int96ToMillis(_vals.readBytes()), 0, str, bs);
+        break;
+      case FLOAT:
+      case DOUBLE: {
+        double d = _elem.getType() == Type.FLOAT ? _vals.readFloat() : _vals.readDouble();
+        if (str) dout.addStrCol(col, bs.set(Double.toString(d)));
+        else dout.addNumCol(col, d);
+        break;
+      }
+      default: // Binary
+        if (_ct == ConvertedType.DECIMAL) {
+          BigInteger unscaled = new BigInteger(_vals.readBytes().getBytes());
+          if (unscaled.bitLength() < 64) num(dout, col, unscaled.longValue(), -_elem.getScale(), str, bs);
+          else if (str) dout.addStrCol(col, bs.set(new BigDecimal(unscaled, _elem.getScale()).toString()));
+          else dout.addNumCol(col, new BigDecimal(unscaled, _elem.getScale()).doubleValue());
+        } else {
+          dout.addStrCol(col, str(bs));
+        }
+    }
+  }
+
+  private static void num(ParseWriter dout, int col, long l, int exp, boolean str, BufferedString bs) {
+    if (str) dout.addStrCol(col, bs.set(exp == 0 ? Long.toString(l) : BigDecimal.valueOf(l, -exp).toString()));
+    else dout.addNumCol(col, l, exp);
+  }
+
+  /** The value of the current row as a number; NaN for strings */
+  double num() {
+    switch (_elem.getType()) {
+      case BOOLEAN: return _vals.readBoolean() ? 1 : 0;
+      case INT32: {
+        int i = _vals.readInteger();
+        return _ct == ConvertedType.DATE ? i * MSEC_PER_DAY : scale(i);
+      }
+      case INT64: {
+        long l = _vals.readLong();
+        return _ct == ConvertedType.TIMESTAMP_MICROS ? l / 1000 : scale(l);
+      }
+      case INT96:   return int96ToMillis(_vals.readBytes());
+      case FLOAT:   return _vals.readFloat();
+      case DOUBLE:  return _vals.readDouble();
+      default:
+        if (_ct == ConvertedType.DECIMAL)
+          return new BigDecimal(new BigInteger(_vals.readBytes().getBytes()), _elem.getScale()).doubleValue();
+        _vals.skip();
+        return Double.NaN;
+    }
+  }
+
+  private double scale(long l) {
+    return _ct == ConvertedType.DECIMAL ? BigDecimal.valueOf(l, _elem.getScale()).doubleValue() : l;
+  }
+
+  /** The value of the current row as a string */
+  BufferedString str(BufferedString bs) {
+    ByteBuffer bb = _vals.readBytes().toByteBuffer();
+    if (bb.hasArray()) return bs.set(bb.array(), bb.arrayOffset() + bb.position(), bb.remaining());
+    byte[] b = new byte[bb.remaining()];
+    bb.get(b);
+    return bs.set(b);
+  }
+
+  /** The value of the current row as text, for previews */
+  String text(BufferedString bs) {
+    if (isString()) return str(bs).toString();
+    double d = num();
+    return d == (long) d ? Long.toString((long) d) : Double.toString(d);
+  }
+
+  // Impala/Hive timestamps: nanos of the day then the Julian day, little endian
+  private static long int96ToMillis(Binary b) {
+    ByteBuffer bb = b.toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    long nanos = bb.getLong();
+    int julianDay = bb.getInt();
+    return (julianDay - JULIAN_DAY_OF_EPOCH) * MSEC_PER_DAY + nanos / 1000000;
+  }
+
+  // Read pages up to the next data page, and set up its readers
+  private void nextPage() throws IOException {
+    while (true) {
+      if (_valuesLeft <= 0 || _pos >= _buf.length)
+        throw new IOException("No more pages, " + _valuesLeft + " values missing");
+      CountingInput cin = new CountingInput(_buf, _pos);
+      PageHeader ph = Util.readPageHeader(cin);
+      int body = _pos + cin.consumed();
+      int len = ph.getCompressed_page_size();
+      _pos = body + len;
+      switch (ph.getType()) {
+        case DICTIONARY_PAGE: {
+          byte[] raw = ParquetUtil.decompress(_meta.getCodec(), _buf, body, len, ph.getUncompressed_page_size());
+          Encoding enc = encoding(ph.getDictionary_page_header().getEncoding());
+          _dict = enc.initDictionary(_desc, new DictionaryPage(BytesInput.from(raw), ph.getDictionary_page_header().getNum_values(), enc));
+          break;
+        }
+        case DATA_PAGE: {
+          DataPageHeader dph = ph.getData_page_header();
+          byte[] raw = ParquetUtil.decompress(_meta.getCodec(), _buf, body, len, ph.getUncompressed_page_size());
+          _pageLeft = dph.getNum_values();
+          // Flat columns: no repetition levels
+          _dl = encoding(dph.getDefinition_level_encoding()).getValuesReader(_desc, ValuesType.DEFINITION_LEVEL);
+          _dl.initFromPage(_pageLeft, raw, 0);
+          _vals = valuesReader(encoding(dph.getEncoding()));
+          _vals.initFromPage(_pageLeft, raw, _dl.getNextOffset());
+          if (_maxDef == 0) _dl = null;
+          return;
+        }
+        case DATA_PAGE_V2: {
+          DataPageHeaderV2 h = ph.getData_page_header_v2();
+          _pageLeft = h.getNum_values();
+          int rlen = h.getRepetition_levels_byte_length(), dlen = h.getDefinition_levels_byte_length();
+          _dl = null;
+          if (_maxDef > 0) { // Levels are stored uncompressed, without the length prefix of v1 pages
+            byte[] levels = new byte[4 + dlen];
+            levels[0] = (byte) dlen; levels[1] = (byte) (dlen >>> 8); levels[2] = (byte) (dlen >>> 16); levels[3] = (byte) (dlen >>> 24);
+            System.arraycopy(_buf, body + rlen, levels, 4, dlen);
+            _dl = Encoding.RLE.getValuesReader(_desc, ValuesType.DEFINITION_LEVEL);
+            _dl.initFromPage(_pageLeft, levels, 0);
+          }
+          int off = body + rlen + dlen, dataLen = len - rlen - dlen;
+          byte[] data = !h.isSetIs_compressed() || h.isIs_compressed()
+              ? ParquetUtil.decompress(_meta.getCodec(), _buf, off, dataLen, ph.getUncompressed_page_size() - rlen - dlen)
+              : ParquetUtil.decompress(CompressionCodec.UNCOMPRESSED, _buf, off, dataLen, dataLen);
+          _vals = valuesReader(encoding(h.getEncoding()));
+          _vals.initFromPage(_pageLeft, data, 0);
+          return;
+        }
+        default: // Index pages: nothing for us
+          break;
+      }
+    }
+  }
+
+  private ValuesReader valuesReader(Encoding enc) {
+    if (!enc.usesDictionary()) return enc.getValuesReader(_desc, ValuesType.VALUES);
+    if (_dict == null) throw new H2OParseException("Dictionary encoded Parquet page without a dictionary in column " + _elem.getName());
+    return enc.getDictionaryBasedValuesReader(_desc, ValuesType.VALUES, _dict);
+  }
+
+  private static Encoding encoding(org.apache.parquet.format.Encoding enc) {
+    try {
+      return Encoding.valueOf(enc.name());
+    } catch (IllegalArgumentException e) {
+      throw new H2OParseException("Unsupported Parquet encoding: " + enc);
+    }
+  }
+
+  // Page headers are of unknown length: count what the header took
+  private static final class CountingInput extends ByteArrayInputStream {
+    private final int _start;
+    CountingInput(byte[] buf, int off) { super(buf, off, buf.length - off); _start = off; }
+    int consumed() { return pos - _start; }
+  }
+}
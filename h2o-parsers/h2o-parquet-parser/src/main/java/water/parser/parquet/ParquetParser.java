@@ -0,0 +1,268 @@
+package water.parser.parquet;
+
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.FileMetaData;
+import org.apache.parquet.format.RowGroup;
+import org.apache.parquet.format.SchemaElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.Job;
+import water.Key;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.ByteVec;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+import water.parser.FVecParseReader;
+import water.parser.ParseDataset.H2OParseException;
+import water.parser.ParseReader;
+import water.parser.ParseSetup;
+import water.parser.ParseWriter;
+import water.parser.Parser;
+import water.util.Log;
+
+/**
+ * Parquet parser for H2O distributed parsing subsystem.
+ *
+ * Each parse task (one per chunk of the file) parses the row groups which
+ * start in its chunk, column by column: every column chunk is decoded page
+ * by page straight into the output columns.  The chunk size is set to the
+ * average size of a row group, so there is about one row group per task.
+ * The footers are read once, by the final setup, which carries them to the
+ * parse tasks along with the offsets of the row groups.
+ */
+public class ParquetParser extends Parser {
+
+  private static final int PREVIEW_ROWS = 10;
+
+  ParquetParser(ParseSetup setup, Key<Job> jobKey) {
+    super(setup, jobKey);
+  }
+
+  // Row groups parsed, and skipped on their statistics, by this node
+  private static final AtomicLong PARSED = new AtomicLong(), SKIPPED = new AtomicLong();
+  public static long parsedRowGroups() { return PARSED.get(); }
+  public static long skippedRowGroups() { return SKIPPED.get(); }
+
+  @Override
+  protected final ParseWriter parseChunk(int cidx, ParseReader din, ParseWriter dout) {
+    if (!(din instanceof FVecParseReader))
+      throw new H2OParseException("Parquet files need random access and cannot be parsed from a stream (e.g. inside a zip file)");
+    Vec vec = ((FVecParseReader) din).getVec();
+    Chunk chk = vec.chunkForChunkIdx(cidx);
+    long lo = chk.start(), hi = lo + chk._len;
+    ParquetParseSetup setup = (ParquetParseSetup) _setup;
+    int file = setup.file(vec._key);
+    long[] starts = null;
+    if (file >= 0) { // The layout is known from the setup: skip chunks owning no row group
+      starts = setup._starts[file];
+      if (!owns(starts, lo, hi)) return dout;
+    }
+    VecInput in = new VecInput(vec);
+    FileMetaData md = file >= 0 ? setup.footer(file) : ParquetUtil.readFooter(in);
+    SchemaElement[] leaves = ParquetUtil.leaves(md);
+    if (file < 0) {
+      checkSchema(leaves, setup._leaves);
+      starts = ParquetUtil.starts(md);
+    }
+    List<RowGroup> rgs = md.getRow_groups();
+    int groups = 0, skipped = 0;
+    for (int i = 0; i < rgs.size(); i++) {
+      if (starts[i] < lo || starts[i] >= hi) continue; // Parsed by the task of another chunk
+      RowGroup rg = rgs.get(i);
+      groups++;
+      if (setup._filter != null && !setup._filter.mayMatch(rg, leaves)) {
+        skipped++;
+        continue;
+      }
+      parseRowGroup(in, rg, leaves, setup, dout);
+    }
+    PARSED.addAndGet(groups - skipped);
+    SKIPPED.addAndGet(skipped);
+    Log.trace(String.format("Parquet: ChunkIdx: %d parsed %d row groups, skipped %d on statistics", cidx, groups - skipped, skipped));
+    return dout;
+  }
+
+  private static boolean owns(long[] starts, long lo, long hi) {
+    for (long s : starts) if (s >= lo && s < hi) return true;
+    return false;
+  }
+
+  private static void checkSchema(SchemaElement[] leaves, int[] parsed) {
+    for (int leaf : parsed)
+      if (leaf >= leaves.length || !ParquetUtil.isSupported(leaves[leaf]))
+        throw new H2OParseException("Parquet schema does not match the schema of the first file");
+  }
+
+  // Parse one row group, a column at a time
+  private static void parseRowGroup(VecInput in, RowGroup rg, SchemaElement[] leaves, ParquetParseSetup setup, ParseWriter dout) {
+    boolean[] keep = setup._filter == null ? null : setup._filter.rows(in, rg, leaves);
+    int nrows = (int) rg.getNum_rows();
+    BufferedString bs = new BufferedString();
+    for (int col = 0; col < setup._leaves.length; col++) {
+      int leaf = setup._leaves[col];
+      ColumnReader r = new ColumnReader(in, rg.getColumns().get(leaf), leaves[leaf]);
+      for (int row = 0; row < nrows; row++) {
+        boolean present = r.next();
+        if (keep != null && !keep[row]) {
+          if (present) r.skip();
+        } else if (present) r.write(dout, col, bs);
+        else dout.addInvalidCol(col);
+      }
+    }
+  }
+
+  public static class ParquetParseSetup extends ParseSetup {
+    /** For each parsed column, its leaf column in the file */
+    final int[] _leaves;
+    /** Row filter; null if all rows are parsed */
+    final RowFilter _filter;
+    /** The ByteVecs of the input files, and per file its footer as stored
+     *  and the offset of each row group; null until the final setup */
+    final Key[] _files;
+    final byte[][] _footers;
+    final long[][] _starts;
+    private transient FileMetaData[] _decoded; // Footers decoded on this node
+
+    ParquetParseSetup(int ncols, String[] columnNames, byte[] ctypes, String[][] data, int[] leaves) {
+      super(ParquetParserProvider.PARQUET_INFO, (byte) '|', true, HAS_HEADER, ncols, columnNames, ctypes, null, null, data);
+      _leaves = leaves;
+      _filter = null;
+      _files = null;
+      _footers = null;
+      _starts = null;
+    }
+
+    ParquetParseSetup(ParseSetup ps, int[] leaves, RowFilter filter, Key[] files, byte[][] footers, long[][] starts) {
+      super(ps);
+      _leaves = leaves;
+      _filter = filter;
+      _files = files;
+      _footers = footers;
+      _starts = starts;
+    }
+
+    // Index of the file in the setup, or -1 if not known
+    int file(Key vkey) {
+      if (_files != null)
+        for (int i = 0; i < _files.length; i++)
+          if (_files[i].equals(vkey)) return i;
+      return -1;
+    }
+
+    // The footer of a file, decoded once per node
+    synchronized FileMetaData footer(int file) {
+      if (_decoded == null) _decoded = new FileMetaData[_files.length];
+      if (_decoded[file] == null) _decoded[file] = ParquetUtil.decodeFooter(_footers[file]);
+      return _decoded[file];
+    }
+
+    @Override
+    protected Parser parser(Key jobKey) {
+      return new ParquetParser(this, jobKey);
+    }
+
+    // The first bytes only tell this is a Parquet file: the schema is in the footer
+    @Override
+    protected ParseSetup guessFromVec(ByteVec bv) {
+      return ParquetParser.guessSetup(bv);
+    }
+  }
+
+  /** Recognize a Parquet file by its first bytes; the columns are filled in
+   *  from the footer by {@link ParquetParseSetup#guessFromVec}. */
+  public static ParseSetup guessSetup(byte[] bits) {
+    if (!ParquetUtil.isParquet(bits)) throw new H2OParseException("Parquet format was not recognized");
+    return new ParquetParseSetup(0, null, null, new String[0][], new int[0]);
+  }
+
+  /** Guess the columns of a Parquet file from its footer, with a preview of
+   *  the first rows. */
+  static ParseSetup guessSetup(ByteVec bv) {
+    VecInput in = new VecInput(bv);
+    FileMetaData md = ParquetUtil.readFooter(in);
+    SchemaElement[] leaves = ParquetUtil.leaves(md);
+    RowGroup first = md.getRow_groups().isEmpty() ? null : md.getRow_groups().get(0);
+    List<Integer> supported = new ArrayList<>();
+    for (int i = 0; i < leaves.length; i++) {
+      if (ParquetUtil.isSupported(leaves[i])) supported.add(i);
+      else Log.warn("Skipping Parquet column #" + i + " because it is nested or repeated");
+    }
+    int ncols = supported.size();
+    String[] names = new String[ncols];
+    byte[] types = new byte[ncols];
+    int[] leafIdx = new int[ncols];
+    String[][] data = new String[first == null ? 1 : (int) Math.min(PREVIEW_ROWS, first.getNum_rows()) + 1][ncols];
+    BufferedString bs = new BufferedString();
+    for (int c = 0; c < ncols; c++) {
+      int leaf = leafIdx[c] = supported.get(c);
+      ColumnChunk cc = first == null ? null : first.getColumns().get(leaf);
+      names[c] = data[0][c] = leaves[leaf].getName();
+      types[c] = ParquetUtil.columnType(leaves[leaf], cc);
+      if (cc == null) continue;
+      ColumnReader r = new ColumnReader(in, cc, leaves[leaf]);
+      for (int row = 1; row < data.length; row++)
+        data[row][c] = r.next() ? r.text(bs) : "NA";
+    }
+    return new ParquetParseSetup(ncols, names, types, data, leafIdx).setChunkSize(chunkSize(md, bv.length()));
+  }
+
+  /**
+   * The setup to parse with: the user's setup applied to the columns of the
+   * first file, less the skipped columns, with the row filter.  The footers
+   * and row group offsets of all the files are carried along, so the parse
+   * tasks need not read them again.
+   */
+  static ParquetParseSetup finalSetup(ByteVec[] bvs, ParseSetup requiredSetup) {
+    Key[] files = new Key[bvs.length];
+    byte[][] footers = new byte[bvs.length][];
+    FileMetaData[] mds = new FileMetaData[bvs.length];
+    for (int i = 0; i < bvs.length; i++) {
+      files[i] = bvs[i]._key;
+      try {
+        footers[i] = ParquetUtil.footerBytes(new VecInput(bvs[i]));
+        mds[i] = ParquetUtil.decodeFooter(footers[i]);
+      } catch (H2OParseException e) {
+        throw new H2OIllegalArgumentException("Wrong data", "Cannot read Parquet footer of input file: " + files[i] + ": " + e.getMessage());
+      }
+    }
+    FileMetaData md = mds[0];
+    SchemaElement[] leaves = ParquetUtil.leaves(md);
+    RowGroup first = md.getRow_groups().isEmpty() ? null : md.getRow_groups().get(0);
+    List<Integer> supported = new ArrayList<>();
+    for (int i = 0; i < leaves.length; i++) if (ParquetUtil.isSupported(leaves[i])) supported.add(i);
+    int nsup = supported.size();
+
+    String[] fileNames = new String[nsup];
+    byte[] fileTypes = new byte[nsup];
+    for (int i = 0; i < nsup; i++) {
+      int leaf = supported.get(i);
+      fileNames[i] = leaves[leaf].getName();
+      fileTypes[i] = ParquetUtil.columnType(leaves[leaf], first == null ? null : first.getColumns().get(leaf));
+    }
+    int[] kept = ParseSetup.keptColumns(requiredSetup, nsup);
+    int ncols = kept.length;
+    int[] leafIdx = new int[ncols];
+    for (int c = 0; c < ncols; c++) leafIdx[c] = supported.get(kept[c]);
+    long[][] starts = new long[bvs.length][];
+    for (int i = 0; i < bvs.length; i++) {
+      if (i > 0) checkSchema(ParquetUtil.leaves(mds[i]), leafIdx);
+      starts[i] = ParquetUtil.starts(mds[i]);
+    }
+    ParquetParseSetup ps = new ParquetParseSetup(requiredSetup, leafIdx, RowFilter.parse(requiredSetup.getRowFilter(), leaves), files, footers, starts);
+    ps.setKeptColumns(requiredSetup, kept, fileNames, fileTypes).setChunkSize(chunkSize(md, bvs[0].length()));
+    Log.info("Parquet: parsing " + ncols + " of " + leaves.length + " columns" + (ps._filter != null ? ", filtered by " + Arrays.toString(ps._filter._clauses) : ""));
+    return ps;
+  }
+
+  // About one row group per chunk
+  private static int chunkSize(FileMetaData md, long fileSize) {
+    long total = 0;
+    for (RowGroup rg : md.getRow_groups()) total += ParquetUtil.compressedSize(rg);
+    return ParseSetup.unitChunkSize(total, md.getRow_groups().size(), fileSize);
+  }
+}
@@ -0,0 +1,54 @@
+package water.parser.parquet;
+
+import water.DKV;
+import water.Iced;
+import water.Job;
+import water.Key;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.ByteVec;
+import water.fvec.Frame;
+import water.parser.DefaultParserProviders;
+import water.parser.ParseSetup;
+import water.parser.Parser;
+import water.parser.ParserInfo;
+import water.parser.ParserProvider;
+
+/**
+ * Parquet parser provider.
+ */
+public class ParquetParserProvider implements ParserProvider {
+
+  /* Setup for this parser */
+  static ParserInfo PARQUET_INFO = new ParserInfo("PARQUET", DefaultParserProviders.MAX_CORE_PRIO + 20, true);
+
+  @Override
+  public ParserInfo info() {
+    return PARQUET_INFO;
+  }
+
+  @Override
+  public Parser createParser(ParseSetup setup, Key<Job> jobKey) {
+    return new ParquetParser(setup, jobKey);
+  }
+
+  @Override
+  public ParseSetup guessSetup(byte[] bits, byte sep, int ncols, boolean singleQuotes,
+                               int checkHeader, String[] columnNames, byte[] columnTypes,
+                               String[][] domains, String[][] naStrings) {
+    return ParquetParser.guessSetup(bits);
+  }
+
+  @Override
+  public ParseSetup createParserSetup(Key[] inputs, ParseSetup requiredSetup) {
+    // The columns are taken from the footer of the first file; the other
+    // files are expected to have the same schema.
+    assert inputs != null && inputs.length > 0 : "Inputs cannot be empty!";
+    ByteVec[] bvs = new ByteVec[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      Iced ice = DKV.getGet(inputs[i]);
+      if (ice == null) throw new H2OIllegalArgumentException("Missing data", "Did not find any data under key " + inputs[i]);
+      bvs[i] = (ByteVec)(ice instanceof ByteVec ? ice : ((Frame)ice).vecs()[0]);
+    }
+    return ParquetParser.finalSetup(bvs, requiredSetup);
+  }
+}
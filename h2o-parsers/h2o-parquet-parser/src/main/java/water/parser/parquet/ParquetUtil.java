@@ -0,0 +1,205 @@
+package water.parser.parquet;
+
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ColumnMetaData;
+import org.apache.parquet.format.CompressionCodec;
+import org.apache.parquet.format.ConvertedType;
+import org.apache.parquet.format.Encoding;
+import org.apache.parquet.format.FieldRepetitionType;
+import org.apache.parquet.format.FileMetaData;
+import org.apache.parquet.format.RowGroup;
+import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.Util;
+import org.xerial.snappy.Snappy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import water.fvec.Vec;
+import water.parser.ParseDataset.H2OParseException;
+
+/**
+ * Utilities to work with Parquet metadata.
+ */
+final class ParquetUtil {
+
+  static final byte[] MAGIC = {'P', 'A', 'R', '1'};
+
+  private ParquetUtil() {}
+
+  /** True if the bytes start like a Parquet file */
+  static boolean isParquet(byte[] bits) {
+    return bits != null && bits.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(bits, MAGIC.length), MAGIC);
+  }
+
+  /**
+   * Read the footer of a Parquet file: its schema and the layout and
+   * statistics of its row groups.
+   */
+  static FileMetaData readFooter(VecInput in) {
+    return decodeFooter(footerBytes(in));
+  }
+
+  /** The footer of a Parquet file as stored, for {@link #decodeFooter} */
+  static byte[] footerBytes(VecInput in) {
+    long len = in.length();
+    if (len < 2 * MAGIC.length + 4) throw new H2OParseException("Not a Parquet file: only " + len + " bytes");
+    byte[] tail = in.read(len - 4 - MAGIC.length, 4 + MAGIC.length);
+    if (!Arrays.equals(Arrays.copyOfRange(tail, 4, tail.length), MAGIC))
+      throw new H2OParseException("Not a Parquet file: no footer");
+    int flen = (tail[0] & 0xFF) | (tail[1] & 0xFF) << 8 | (tail[2] & 0xFF) << 16 | (tail[3] & 0xFF) << 24;
+    if (flen <= 0 || flen > len - tail.length - MAGIC.length) throw new H2OParseException("Corrupted Parquet footer, length " + flen);
+    return in.read(len - tail.length - flen, flen);
+  }
+
+  static FileMetaData decodeFooter(byte[] footer) {
+    try {
+      return Util.readFileMetaData(new ByteArrayInputStream(footer));
+    } catch (IOException e) {
+      throw new H2OParseException("Cannot read Parquet footer", e);
+    }
+  }
+
+  /**
+   * The leaf columns of the schema, in the order of the column chunks of a
+   * row group.  Columns inside groups, or repeated, are kept (to keep the
+   * positions) but are not {@link #isSupported supported}.
+   */
+  static SchemaElement[] leaves(FileMetaData md) {
+    List<SchemaElement> schema = md.getSchema();
+    List<SchemaElement> leaves = new ArrayList<>();
+    List<Boolean> flat = new ArrayList<>();
+    collect(schema, 0, 0, leaves, flat);
+    SchemaElement[] res = new SchemaElement[leaves.size()];
+    for (int i = 0; i < res.length; i++)
+      res[i] = flat.get(i) ? leaves.get(i) : null; // null: not a top-level field
+    return res;
+  }
+
+  // Depth-first walk over the schema starting at element idx; returns the
+  // index past the subtree
+  private static int collect(List<SchemaElement> schema, int idx, int depth, List<SchemaElement> leaves, List<Boolean> flat) {
+    SchemaElement e = schema.get(idx++);
+    if (e.isSetNum_children() && e.getNum_children() > 0 || depth == 0) {
+      for (int i = 0; i < e.getNum_children(); i++)
+        idx = collect(schema, idx, depth + 1, leaves, flat);
+    } else {
+      leaves.add(e);
+      flat.add(depth == 1);
+    }
+    return idx;
+  }
+
+  /** True if the leaf column can be read into an H2O column */
+  static boolean isSupported(SchemaElement e) {
+    return e != null && e.isSetType() && e.getRepetition_type() != FieldRepetitionType.REPEATED;
+  }
+
+  /** Highest definition level of a supported leaf: reached by non-null values */
+  static int maxDefinitionLevel(SchemaElement e) {
+    return e.getRepetition_type() == FieldRepetitionType.OPTIONAL ? 1 : 0;
+  }
+
+  /**
+   * Transform a Parquet column into an H2O type.  Strings go categorical
+   * when the writer could keep them in a dictionary.
+   *
+   * @param e  leaf column
+   * @param cc  its column chunk in the first row group, if any
+   */
+  static byte columnType(SchemaElement e, ColumnChunk cc) {
+    ConvertedType ct = e.isSetConverted_type() ? e.getConverted_type() : null;
+    switch (e.getType()) {
+      case BOOLEAN:
+      case FLOAT:
+      case DOUBLE:
+        return Vec.T_NUM;
+      case INT32:
+        return ct == ConvertedType.DATE ? Vec.T_TIME : Vec.T_NUM;
+      case INT64:
+        return ct == ConvertedType.TIMESTAMP_MILLIS || ct == ConvertedType.TIMESTAMP_MICROS ? Vec.T_TIME : Vec.T_NUM;
+      case INT96:
+        return Vec.T_TIME;
+      case BYTE_ARRAY:
+      case FIXED_LEN_BYTE_ARRAY:
+        if (ct == ConvertedType.DECIMAL) return Vec.T_NUM;
+        if ((ct == ConvertedType.UTF8 || ct == ConvertedType.ENUM) && cc != null && isDictionaryOnly(cc.getMeta_data()))
+          return Vec.T_CAT;
+        return Vec.T_STR;
+      default:
+        throw new IllegalArgumentException("Unsupported Parquet type: " + e.getType());
+    }
+  }
+
+  // All values of the chunk are dictionary encoded: the writer did not fall
+  // back to plain encoding because of too many distinct values
+  private static boolean isDictionaryOnly(ColumnMetaData cm) {
+    boolean dict = false;
+    for (Encoding enc : cm.getEncodings()) {
+      if (enc == Encoding.PLAIN_DICTIONARY || enc == Encoding.RLE_DICTIONARY) dict = true;
+      else if (enc != Encoding.RLE && enc != Encoding.BIT_PACKED) return false; // Values, not levels
+    }
+    return dict;
+  }
+
+  /** Offset of the first page of a column chunk */
+  static long start(ColumnMetaData cm) {
+    long s = cm.getData_page_offset();
+    // Some writers set a zero dictionary offset when there is no dictionary
+    if (cm.isSetDictionary_page_offset() && cm.getDictionary_page_offset() > 0 && cm.getDictionary_page_offset() < s)
+      s = cm.getDictionary_page_offset();
+    return s;
+  }
+
+  /** Offset of the first page of a row group */
+  static long start(RowGroup rg) {
+    long s = Long.MAX_VALUE;
+    for (ColumnChunk cc : rg.getColumns()) s = Math.min(s, start(cc.getMeta_data()));
+    return s;
+  }
+
+  /** Offset of the first page of each row group */
+  static long[] starts(FileMetaData md) {
+    List<RowGroup> groups = md.getRow_groups();
+    long[] starts = new long[groups.size()];
+    for (int i = 0; i < starts.length; i++) starts[i] = start(groups.get(i));
+    return starts;
+  }
+
+  /** Bytes of a row group in the file */
+  static long compressedSize(RowGroup rg) {
+    long n = 0;
+    for (ColumnChunk cc : rg.getColumns()) n += cc.getMeta_data().getTotal_compressed_size();
+    return n;
+  }
+
+  /** Uncompress a page body: src[off, off+len) into rawLen bytes */
+  static byte[] decompress(CompressionCodec codec, byte[] src, int off, int len, int rawLen) throws IOException {
+    switch (codec) {
+      case UNCOMPRESSED:
+        return off == 0 && len == src.length ? src : Arrays.copyOfRange(src, off, off + len);
+      case SNAPPY: {
+        byte[] dst = new byte[rawLen];
+        int n = Snappy.uncompress(src, off, len, dst, 0);
+        if (n != rawLen) throw new IOException("Snappy page of " + n + " bytes, expected " + rawLen);
+        return dst;
+      }
+      case GZIP: {
+        byte[] dst = new byte[rawLen];
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(src, off, len))) {
+          int n = 0, r;
+          while (n < rawLen && (r = is.read(dst, n, rawLen - n)) > 0) n += r;
+          if (n != rawLen) throw new IOException("GZIP page of " + n + " bytes, expected " + rawLen);
+        }
+        return dst;
+      }
+      default:
+        throw new H2OParseException("Unsupported Parquet compression codec: " + codec);
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package water.parser.parquet;
+
+import org.apache.parquet.format.ColumnChunk;
+import org.apache.parquet.format.ConvertedType;
+import org.apache.parquet.format.RowGroup;
+import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.Statistics;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import water.Iced;
+import water.exceptions.H2OIllegalArgumentException;
+import water.parser.BufferedString;
+
+/**
+ * A conjunction of "column op value" clauses, like {@code age>=18} or
+ * {@code state==CA}, which all parsed rows must match.
+ *
+ * Row groups whose column statistics show that no row can match are skipped
+ * without reading them; in the other row groups the clause columns are
+ * decoded first, and only the matching rows of the other columns are parsed.
+ * Nulls match nothing.  Strings only compare for (in)equality.
+ */
+final class RowFilter extends Iced<RowFilter> {
+  private static final Pattern CLAUSE = Pattern.compile("\\s*(.+?)\\s*(==|!=|<=|>=|<|>)\\s*(.*?)\\s*");
+
+  static final class Clause extends Iced<Clause> {
+    final int _leaf;          // Leaf column the clause tests
+    final String _op;
+    final double _num;        // The value, for numeric columns
+    final String _str;        // The value, for string columns
+    Clause(int leaf, String op, double num, String str) { _leaf = leaf; _op = op; _num = num; _str = str; }
+
+    boolean matches(double d) {
+      if (Double.isNaN(d)) return false;
+      switch (_op) {
+        case "==": return d == _num;
+        case "!=": return d != _num;
+        case "<":  return d <  _num;
+        case "<=": return d <= _num;
+        case ">":  return d >  _num;
+        default:   return d >= _num;
+      }
+    }
+
+    boolean matches(BufferedString bs) {
+      boolean eq = bs.toString().equals(_str);
+      return _op.equals("==") == eq;
+    }
+
+    // Can any value in [min,max] match?
+    boolean mayMatch(double min, double max) {
+      switch (_op) {
+        case "==": return min <= _num && _num <= max;
+        case "!=": return !(min == _num && max == _num);
+        case "<":  return min <  _num;
+        case "<=": return min <= _num;
+        case ">":  return max >  _num;
+        default:   return max >= _num;
+      }
+    }
+
+    @Override public String toString() { return "#" + _leaf + _op + (_str != null ? _str : Double.toString(_num)); }
+  }
+
+  final Clause[] _clauses;
+
+  private RowFilter(Clause[] clauses) { _clauses = clauses; }
+
+  /**
+   * Parse the clauses against the columns of a file.
+   *
+   * @param clauses  "column op value" clauses; may be null
+   * @param leaves  leaf columns of the file, see {@link ParquetUtil#leaves}
+   * @return the filter, or null if there is nothing to filter on
+   */
+  static RowFilter parse(String[] clauses, SchemaElement[] leaves) {
+    if (clauses == null || clauses.length == 0) return null;
+    Clause[] res = new Clause[clauses.length];
+    for (int i = 0; i < clauses.length; i++) {
+      Matcher m = CLAUSE.matcher(clauses[i]);
+      if (!m.matches())
+        throw new H2OIllegalArgumentException("row_filter", "parse", clauses[i]);
+      int leaf = -1;
+      for (int j = 0; j < leaves.length; j++)
+        if (ParquetUtil.isSupported(leaves[j]) && leaves[j].getName().equals(m.group(1))) leaf = j;
+      if (leaf == -1)
+        throw new H2OIllegalArgumentException("Row filter " + clauses[i] + " refers to an unknown column " + m.group(1));
+      String op = m.group(2), value = m.group(3);
+      if (isString(leaves[leaf])) {
+        if (!op.equals("==") && !op.equals("!="))
+          throw new H2OIllegalArgumentException("Row filter " + clauses[i] + ": strings only compare with == or !=");
+        res[i] = new Clause(leaf, op, Double.NaN, value);
+      } else {
+        try {
+          res[i] = new Clause(leaf, op, Double.parseDouble(value), null);
+        } catch (NumberFormatException e) {
+          throw new H2OIllegalArgumentException("Row filter " + clauses[i] + ": not a number " + value);
+        }
+      }
+    }
+    return new RowFilter(res);
+  }
+
+  private static boolean isString(SchemaElement e) {
+    switch (e.getType()) {
+      case BYTE_ARRAY:
+      case FIXED_LEN_BYTE_ARRAY:
+        return e.getConverted_type() != ConvertedType.DECIMAL;
+      default:
+        return false;
+    }
+  }
+
+  /** False if the statistics of the row group show no row can match */
+  boolean mayMatch(RowGroup rg, SchemaElement[] leaves) {
+    for (Clause c : _clauses) {
+      ColumnChunk cc = rg.getColumns().get(c._leaf);
+      if (!cc.getMeta_data().isSetStatistics()) continue;
+      Statistics st = cc.getMeta_data().getStatistics();
+      if (st.isSetNull_count() && st.getNull_count() == rg.getNum_rows()) return false; // All null
+      if (c._str != null || !st.isSetMin() || !st.isSetMax()) continue;
+      double min = decode(leaves[c._leaf], st.getMin()), max = decode(leaves[c._leaf], st.getMax());
+      if (Double.isNaN(min) || Double.isNaN(max)) continue;
+      if (!c.mayMatch(min, max)) return false;
+    }
+    return true;
+  }
+
+  // A plain encoded min or max, as the H2O value; NaN if it cannot be trusted.
+  // Old writers compared binaries and unsigned types as signed, so only
+  // signed numbers are used.
+  private static double decode(SchemaElement e, byte[] b) {
+    ConvertedType ct = e.isSetConverted_type() ? e.getConverted_type() : null;
+    if (ct != null) {
+      switch (ct) {
+        case UINT_8: case UINT_16: case UINT_32: case UINT_64: return Double.NaN;
+        default: break;
+      }
+    }
+    ByteBuffer bb = ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+    switch (e.getType()) {
+      case INT32: {
+        if (b.length < 4) return Double.NaN;
+        int i = bb.getInt();
+        if (ct == ConvertedType.DATE) return i * 86400000.0;
+        return ct == ConvertedType.DECIMAL ? BigDecimal.valueOf(i, e.getScale()).doubleValue() : i;
+      }
+      case INT64: {
+        if (b.length < 8) return Double.NaN;
+        long l = bb.getLong();
+        if (ct == ConvertedType.TIMESTAMP_MICROS) return l / 1000;
+        return ct == ConvertedType.DECIMAL ? BigDecimal.valueOf(l, e.getScale()).doubleValue() : l;
+      }
+      case FLOAT:  return b.length < 4 ? Double.NaN : bb.getFloat();
+      case DOUBLE: return b.length < 8 ? Double.NaN : bb.getDouble();
+      default:     return Double.NaN;
+    }
+  }
+
+  /**
+   * Decode the clause columns of a row group and mark the rows matching all
+   * clauses.
+   */
+  boolean[] rows(VecInput in, RowGroup rg, SchemaElement[] leaves) {
+    boolean[] keep = new boolean[(int) rg.getNum_rows()];
+    Arrays.fill(keep, true);
+    BufferedString bs = new BufferedString();
+    for (Clause c : _clauses) {
+      ColumnReader r = new ColumnReader(in, rg.getColumns().get(c._leaf), leaves[c._leaf]);
+      for (int row = 0; row < keep.length; row++) {
+        boolean present = r.next();
+        if (!keep[row]) {
+          if (present) r.skip();
+        } else if (!present) keep[row] = false;
+        else keep[row] = c._str != null ? c.matches(r.str(bs)) : c.matches(r.num());
+      }
+    }
+    return keep;
+  }
+}
@@ -0,0 +1,37 @@
+package water.parser.parquet;
+
+import water.fvec.Chunk;
+import water.fvec.Vec;
+
+/**
+ * Random access to the bytes of a file held in a ByteVec.
+ *
+ * Parquet keeps its metadata in a footer and the data of a row group in one
+ * run of bytes per column, so a parse task reads whole ranges wherever they
+ * are, instead of streaming its own chunk.  Chunks of the file not homed
+ * here are fetched (and cached) by the usual DKV machinery.
+ */
+final class VecInput {
+  private final Vec _vec;
+
+  VecInput(Vec vec) { _vec = vec; }
+
+  long length() { return _vec.length(); }
+
+  /** Bytes [off, off+len) of the file */
+  byte[] read(long off, int len) {
+    if( off < 0 || off+len > length() )
+      throw new IndexOutOfBoundsException("Range " + off + "+" + len + " outside of file of " + length() + " bytes");
+    byte[] b = new byte[len];
+    int pos = 0;
+    while( pos < len ) {
+      Chunk c = _vec.chunkForRow(off+pos);
+      byte[] mem = c.getBytes();
+      int coff = (int)(off+pos-c.start());
+      int n = Math.min(len-pos, mem.length-coff);
+      System.arraycopy(mem, coff, b, pos, n);
+      pos += n;
+    }
+    return b;
+  }
+}
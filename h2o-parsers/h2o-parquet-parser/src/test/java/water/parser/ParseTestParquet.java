@@ -0,0 +1,203 @@
+package water.parser;
+
+import com.google.common.io.Files;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+import water.Key;
+import water.MRTask;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+import water.fvec.Vec;
+import water.parser.parquet.ParquetParser;
+
+/**
+ * Test suite for Parquet parser.
+ */
+public class ParseTestParquet extends TestUtil {
+
+  private static double EPSILON = 1e-9;
+  private static final int NROWS = 5000;
+
+  @BeforeClass
+  static public void setup() { TestUtil.stall_till_cloudsize(5); }
+
+  @Test public void testParsePrimitiveTypes() throws IOException {
+    for (CompressionCodecName codec : new CompressionCodecName[]{CompressionCodecName.UNCOMPRESSED, CompressionCodecName.SNAPPY, CompressionCodecName.GZIP}) {
+      File file = ParquetFileGenerator.generatePrimitiveTypes(NROWS, codec);
+      Frame f = null;
+      try {
+        f = parse_test_file(file.getCanonicalPath());
+        assertArrayEquals("Column names need to match!", ar("CInt", "CLong", "CDouble", "CBoolean", "CString", "CDate"), f.names());
+        assertArrayEquals("Column types need to match!", ar(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_TIME), f.types());
+        assertEquals(NROWS, f.numRows());
+        assertArrayEquals(ar("v0", "v1", "v2", "v3", "v4", "v5", "v6"), f.vec("CString").domain());
+        for (int row = 0; row < NROWS; row++) {
+          assertEquals("Value in column CInt", row, f.vec(0).at8(row));
+          if (row % 10 == 0) assertTrue("NA in column CLong", f.vec(1).isNA(row));
+          else assertEquals("Value in column CLong", row * 1000L, f.vec(1).at8(row));
+          assertEquals("Value in column CDouble", row / 4.0, f.vec(2).at(row), EPSILON);
+          assertEquals("Value in column CBoolean", row & 1, f.vec(3).at8(row));
+          assertEquals("Value in column CString", row % 7, f.vec(4).at8(row));
+          assertEquals("Value in column CDate", (long) row * 24 * 3600 * 1000, f.vec(5).at8(row));
+        }
+      } finally {
+        if (f != null) f.delete();
+        file.delete();
+      }
+    }
+  }
+
+  // Row groups straddle the chunks of a bigger file: each one is parsed once,
+  // by the task of the chunk it starts in, from v1 and v2 data pages alike
+  @Test public void testMultiChunkRowGroups() throws IOException {
+    final int nrows = 100000;
+    for (ParquetProperties.WriterVersion version : ParquetProperties.WriterVersion.values()) {
+      File file = ParquetFileGenerator.generatePrimitiveTypes(nrows, CompressionCodecName.SNAPPY, version);
+      Frame f = null;
+      try {
+        NFSFileVec nfs = NFSFileVec.make(file);
+        ParseSetup ps = ParseSetup.guessSetup(new Key[]{nfs._key}, false, ParseSetup.HAS_HEADER);
+        int chunkSize = ps.getFinalSetup(new Key[]{nfs._key}, ps)._chunk_size;
+        assertTrue("File of " + file.length() + " bytes in chunks of " + chunkSize, file.length() > 2L * chunkSize);
+        long parsed = new RowGroups().doAllNodes()._parsed;
+        f = ParseDataset.parse(Key.make(), new Key[]{nfs._key}, true, ps);
+        assertEquals(ParquetFileGenerator.rowGroups(file), new RowGroups().doAllNodes()._parsed - parsed);
+        assertEquals(nrows, f.numRows());
+        for (int row = 0; row < nrows; row++) {
+          assertEquals("Value in column CInt", row, f.vec(0).at8(row));
+          if (row % 10 == 0) assertTrue("NA in column CLong", f.vec(1).isNA(row));
+          else assertEquals("Value in column CLong", row * 1000L, f.vec(1).at8(row));
+          assertEquals("Value in column CBoolean", row & 1, f.vec(3).at8(row));
+          assertEquals("Value in column CString", row % 7, f.vec(4).at8(row));
+        }
+      } finally {
+        if (f != null) f.delete();
+        file.delete();
+      }
+    }
+  }
+
+  // Row groups whose statistics rule out the filter are not read
+  @Test public void testRowGroupsSkippedOnStatistics() throws IOException {
+    final int nrows = 100000;
+    File file = ParquetFileGenerator.generatePrimitiveTypes(nrows, CompressionCodecName.SNAPPY, ParquetProperties.WriterVersion.PARQUET_2_0);
+    Frame f = null;
+    try {
+      NFSFileVec nfs = NFSFileVec.make(file);
+      ParseSetup ps = ParseSetup.guessSetup(new Key[]{nfs._key}, false, ParseSetup.HAS_HEADER)
+          .setRowFilter(new String[]{"CInt < 2000"});
+      RowGroups before = new RowGroups().doAllNodes();
+      f = ParseDataset.parse(Key.make(), new Key[]{nfs._key}, true, ps);
+      RowGroups after = new RowGroups().doAllNodes();
+      assertEquals(2000, f.numRows());
+      for (int row = 0; row < 2000; row++)
+        assertEquals("Value in column CInt", row, f.vec(0).at8(row));
+      long skipped = after._skipped - before._skipped;
+      assertTrue("Skipped " + skipped + " row groups", skipped > 0);
+      assertEquals(ParquetFileGenerator.rowGroups(file), after._parsed - before._parsed + skipped);
+    } finally {
+      if (f != null) f.delete();
+      file.delete();
+    }
+  }
+
+  // Row groups parsed and skipped by all nodes so far
+  private static class RowGroups extends MRTask<RowGroups> {
+    long _parsed, _skipped;
+    @Override protected void setupLocal() {
+      _parsed = ParquetParser.parsedRowGroups();
+      _skipped = ParquetParser.skippedRowGroups();
+    }
+    @Override public void reduce(RowGroups rg) { _parsed += rg._parsed; _skipped += rg._skipped; }
+  }
+
+  @Test public void testSkippedColumnsAndRowFilter() throws IOException {
+    File file = ParquetFileGenerator.generatePrimitiveTypes(NROWS, CompressionCodecName.SNAPPY);
+    Frame f = null;
+    try {
+      NFSFileVec nfs = NFSFileVec.make(file);
+      ParseSetup ps = ParseSetup.guessSetup(new Key[]{nfs._key}, false, ParseSetup.HAS_HEADER)
+          .setSkippedColumns(new int[]{1, 3, 5})
+          .setRowFilter(new String[]{"CInt >= 4000", "CString != v2"});
+      f = ParseDataset.parse(Key.make(), new Key[]{nfs._key}, true, ps);
+      assertArrayEquals("Column names need to match!", ar("CInt", "CDouble", "CString"), f.names());
+      int expected = 0;
+      for (int i = 4000; i < NROWS; i++) if (i % 7 != 2) expected++;
+      assertEquals(expected, f.numRows());
+      for (int row = 0; row < f.numRows(); row++) {
+        long i = f.vec(0).at8(row);
+        assertTrue("Filtered row " + i, i >= 4000 && i % 7 != 2);
+        assertEquals("Value in column CDouble", i / 4.0, f.vec(1).at(row), EPSILON);
+      }
+    } finally {
+      if (f != null) f.delete();
+      file.delete();
+    }
+  }
+}
+
+/* A test file generator.  Small row groups, so files have many of them.
+*/
+class ParquetFileGenerator {
+
+  public static File generatePrimitiveTypes(int nrows, CompressionCodecName codec) throws IOException {
+    return generatePrimitiveTypes(nrows, codec, ParquetProperties.WriterVersion.PARQUET_1_0);
+  }
+
+  public static File generatePrimitiveTypes(int nrows, CompressionCodecName codec, ParquetProperties.WriterVersion version) throws IOException {
+    File parentDir = Files.createTempDir();
+    File f = new File(parentDir, "primitiveTypes." + codec.name().toLowerCase() + "." + version.name().toLowerCase() + ".parquet");
+    MessageType schema = MessageTypeParser.parseMessageType(
+        "message test_primitive_types { " +
+          "required int32 CInt; " +
+          "optional int64 CLong; " +
+          "required double CDouble; " +
+          "required boolean CBoolean; " +
+          "required binary CString (UTF8); " +
+          "required int32 CDate (DATE); " +
+        "}");
+    Configuration conf = new Configuration();
+    GroupWriteSupport.setSchema(schema, conf);
+    ParquetWriter<Group> w = new ParquetWriter<>(new Path(f.getCanonicalPath()), new GroupWriteSupport(), codec,
+        16 * 1024 /* row group */, 4 * 1024 /* page */, 4 * 1024 /* dictionary page */,
+        true, false, version, conf);
+    SimpleGroupFactory gf = new SimpleGroupFactory(schema);
+    try {
+      for (int i = 0; i < nrows; i++) {
+        Group g = gf.newGroup().append("CInt", i);
+        if (i % 10 != 0) g.append("CLong", i * 1000L);
+        g.append("CDouble", i / 4.0)
+         .append("CBoolean", (i & 1) == 1)
+         .append("CString", "v" + (i % 7))
+         .append("CDate", i);
+        w.write(g);
+      }
+      return f;
+    } finally {
+      w.close();
+    }
+  }
+
+  public static int rowGroups(File f) throws IOException {
+    return ParquetFileReader.readFooter(new Configuration(), new Path(f.getCanonicalPath())).getBlocks().size();
+  }
+}